@@ -0,0 +1,157 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates an <code>OutlineCommandModel</code> for
+ * every class annotated with <code>@Command</code>. The generated model carries
+ * the command metadata and binds values directly to the fields, so that
+ * <code>Outline</code> does not need to use reflection at runtime.
+ * 
+ * The processor also writes the <code>META-INF/outline/models.idx</code> index
+ * that <code>Outline</code> uses to locate the generated models, and the
+ * <code>META-INF/outline/commands.idx</code> index that lists every command
+ * class along with its name and group, so that commands can be discovered
+ * without scanning the classpath.
+ * 
+ * @author sangupta
+ *
+ */
+@SupportedAnnotationTypes(OutlineCommandProcessor.COMMAND)
+public class OutlineCommandProcessor extends AbstractProcessor {
+	
+	static final String COMMAND = "com.sangupta.outline.annotations.Command";
+	
+	static final String MODELS_INDEX = "META-INF/outline/models.idx";
+	
+	static final String COMMANDS_INDEX = "META-INF/outline/commands.idx";
+	
+	/**
+	 * Mapping between command class and generated model class names, for all
+	 * rounds of processing
+	 */
+	private final Map<String, String> index = new TreeMap<>();
+	
+	/**
+	 * Mapping between command class name and the tab-separated command name and
+	 * group, for all rounds of processing
+	 */
+	private final Map<String, String> commands = new TreeMap<>();
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement commandAnnotation = this.processingEnv.getElementUtils().getTypeElement(COMMAND);
+		if(commandAnnotation != null) {
+			for(Element element : roundEnv.getElementsAnnotatedWith(commandAnnotation)) {
+				if(element.getKind() != ElementKind.CLASS) {
+					continue;
+				}
+				
+				this.generateModel((TypeElement) element);
+			}
+		}
+		
+		if(roundEnv.processingOver()) {
+			if(!this.index.isEmpty()) {
+				this.writeIndex(MODELS_INDEX, this.index, '=');
+			}
+			
+			if(!this.commands.isEmpty()) {
+				this.writeIndex(COMMANDS_INDEX, this.commands, '\t');
+			}
+		}
+		
+		// let other processors see the annotation too
+		return false;
+	}
+
+	private void generateModel(TypeElement type) {
+		OutlineModelWriter writer = new OutlineModelWriter(this.processingEnv, type);
+		
+		// all concrete commands are listed in the commands index
+		if(!type.getModifiers().contains(Modifier.ABSTRACT)) {
+			String[] nameAndGroup = writer.getCommandNameAndGroup();
+			this.commands.put(writer.getCommandBinaryName(), nameAndGroup[0] + '\t' + nameAndGroup[1]);
+		}
+		
+		String reason = writer.validate();
+		if(reason != null) {
+			this.processingEnv.getMessager().printMessage(Kind.NOTE, "Outline model not generated, reflection will be used: " + reason, type);
+			return;
+		}
+		
+		try {
+			JavaFileObject file = this.processingEnv.getFiler().createSourceFile(writer.getModelClassName(), type);
+			try(Writer out = file.openWriter()) {
+				out.write(writer.write());
+			}
+		} catch(IOException e) {
+			this.processingEnv.getMessager().printMessage(Kind.ERROR, "Unable to write outline model: " + e.getMessage(), type);
+			return;
+		}
+		
+		this.index.put(writer.getCommandBinaryName(), writer.getModelClassName());
+	}
+	
+	private void writeIndex(String resource, Map<String, String> index, char separator) {
+		try {
+			FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource);
+			try(Writer out = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+				for(Map.Entry<String, String> entry : index.entrySet()) {
+					out.write(entry.getKey());
+					out.write(separator);
+					out.write(entry.getValue());
+					out.write('\n');
+				}
+			}
+		} catch(IOException e) {
+			this.processingEnv.getMessager().printMessage(Kind.ERROR, "Unable to write outline index " + resource + ": " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,720 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the source of the <code>OutlineCommandModel</code> for a single
+ * command class.
+ * 
+ * @author sangupta
+ *
+ */
+class OutlineModelWriter {
+	
+	private static final String OPTION = "com.sangupta.outline.annotations.Option";
+	
+	private static final String ARGUMENT = "com.sangupta.outline.annotations.Argument";
+	
+	private static final String ARGUMENTS = "com.sangupta.outline.annotations.Arguments";
+	
+	private static final String INJECT = "javax.inject.Inject";
+	
+	private static final String OUTLINE_HELP = "com.sangupta.outline.help.OutlineHelp";
+	
+	private static final String SUPPORT = "com.sangupta.outline.OutlineModelSupport";
+	
+	private static final String SPEC = "com.sangupta.outline.spec";
+	
+	/**
+	 * Conversion expressions for the types that the generated code can bind
+	 * directly, <code>%1$s</code> is the string value and <code>%2$s</code>
+	 * the field. Values that may fail to convert go via the support class, that
+	 * keeps the current value of the field as the reflective binding does.
+	 */
+	private static final Map<String, String> CONVERSIONS = new HashMap<>();
+	
+	static {
+		CONVERSIONS.put("java.lang.String", "%1$s");
+		CONVERSIONS.put("boolean", "Boolean.parseBoolean(%1$s)");
+		CONVERSIONS.put("java.lang.Boolean", "Boolean.valueOf(%1$s)");
+		CONVERSIONS.put("int", SUPPORT + ".convert(%1$s, Integer.class, %2$s)");
+		CONVERSIONS.put("java.lang.Integer", SUPPORT + ".convert(%1$s, Integer.class, %2$s)");
+		CONVERSIONS.put("long", SUPPORT + ".convert(%1$s, Long.class, %2$s)");
+		CONVERSIONS.put("java.lang.Long", SUPPORT + ".convert(%1$s, Long.class, %2$s)");
+		CONVERSIONS.put("short", SUPPORT + ".convert(%1$s, Short.class, %2$s)");
+		CONVERSIONS.put("java.lang.Short", SUPPORT + ".convert(%1$s, Short.class, %2$s)");
+		CONVERSIONS.put("byte", SUPPORT + ".convert(%1$s, Byte.class, %2$s)");
+		CONVERSIONS.put("java.lang.Byte", SUPPORT + ".convert(%1$s, Byte.class, %2$s)");
+		CONVERSIONS.put("double", SUPPORT + ".convert(%1$s, Double.class, %2$s)");
+		CONVERSIONS.put("java.lang.Double", SUPPORT + ".convert(%1$s, Double.class, %2$s)");
+		CONVERSIONS.put("float", SUPPORT + ".convert(%1$s, Float.class, %2$s)");
+		CONVERSIONS.put("java.lang.Float", SUPPORT + ".convert(%1$s, Float.class, %2$s)");
+		CONVERSIONS.put("char", SUPPORT + ".convert(%1$s, Character.class, %2$s)");
+		CONVERSIONS.put("java.lang.Character", SUPPORT + ".convert(%1$s, Character.class, %2$s)");
+	}
+	
+	/**
+	 * The primitive array types whose values are parsed straight from the
+	 * parse result, unless another type converter is registered for them
+	 */
+	private static final Set<String> PRIMITIVE_ARRAYS = new HashSet<>(Arrays.asList("int[]", "long[]", "double[]"));
+	
+	private final Elements elements;
+	
+	private final Types types;
+	
+	private final TypeElement command;
+	
+	private final String packageName;
+	
+	private final String modelSimpleName;
+	
+	/**
+	 * All fields of the command class and its super classes that carry one of
+	 * the annotations we are interested in
+	 */
+	private final List<FieldInfo> fields = new ArrayList<>();
+	
+	OutlineModelWriter(ProcessingEnvironment env, TypeElement command) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+		this.command = command;
+		
+		PackageElement pkg = this.elements.getPackageOf(command);
+		this.packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		
+		String binaryName = this.getCommandBinaryName();
+		String simpleBinaryName = this.packageName.isEmpty() ? binaryName : binaryName.substring(this.packageName.length() + 1);
+		this.modelSimpleName = simpleBinaryName.replace('$', '_') + "_OutlineModel";
+		
+		this.readFields();
+	}
+	
+	String getCommandBinaryName() {
+		return this.elements.getBinaryName(this.command).toString();
+	}
+	
+	/**
+	 * Return the name and the group of the command, as declared in its
+	 * annotation.
+	 * 
+	 * @return
+	 */
+	String[] getCommandNameAndGroup() {
+		Map<String, AnnotationValue> values = this.valuesOf(this.mirrorOf(this.command, OutlineCommandProcessor.COMMAND));
+		return new String[] { (String) values.get("name").getValue(), (String) values.get("group").getValue() };
+	}
+	
+	String getModelClassName() {
+		if(this.packageName.isEmpty()) {
+			return this.modelSimpleName;
+		}
+		
+		return this.packageName + "." + this.modelSimpleName;
+	}
+	
+	/**
+	 * Check if a model can be generated for the command class.
+	 * 
+	 * @return <code>null</code> if the model can be generated, the reason
+	 *         otherwise
+	 */
+	String validate() {
+		Element element = this.command;
+		while(element instanceof TypeElement) {
+			TypeElement type = (TypeElement) element;
+			if(type.getModifiers().contains(Modifier.PRIVATE)) {
+				return "class is private";
+			}
+			
+			if(type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+				return "class is a local or anonymous class";
+			}
+			
+			if(type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+				return "class is a non-static inner class";
+			}
+			
+			element = type.getEnclosingElement();
+		}
+		
+		for(FieldInfo field : this.fields) {
+			if(!this.isAccessible(this.types.erasure(field.element.asType()))) {
+				return "type of field " + field.name + " is not accessible";
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Generate the source code of the model.
+	 * 
+	 * @return
+	 */
+	String write() {
+		StringBuilder builder = new StringBuilder();
+		
+		if(!this.packageName.isEmpty()) {
+			builder.append("package ").append(this.packageName).append(";\n\n");
+		}
+		
+		String commandType = this.command.getQualifiedName().toString();
+		
+		builder.append("/**\n");
+		builder.append(" * Outline model for {@link ").append(commandType).append("}.\n");
+		builder.append(" * Generated by the outline-processor - do not edit.\n");
+		builder.append(" */\n");
+		builder.append("public final class ").append(this.modelSimpleName).append(" implements com.sangupta.outline.OutlineCommandModel {\n\n");
+		
+		// the specs of each field
+		Map<String, AnnotationValue> values;
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if(field.option != null) {
+				values = this.valuesOf(field.option);
+				builder.append("    private static final ").append(SPEC).append(".OptionSpec OPTION_").append(index).append(" = ").append(SPEC).append(".OptionSpec.builder(").append(literal(values, "name")).append(")\n");
+				builder.append("            .withType(com.sangupta.outline.annotations.OptionType.").append(literal(values, "type")).append(")\n");
+				builder.append("            .withTitle(").append(literal(values, "title")).append(")\n");
+				builder.append("            .withDescription(").append(literal(values, "description")).append(")\n");
+				builder.append("            .withShowTypeInfo(").append(literal(values, "showTypeInfo")).append(")\n");
+				builder.append("            .withRequired(").append(literal(values, "required")).append(")\n");
+				builder.append("            .withArity(").append(literal(values, "arity")).append(")\n");
+				builder.append("            .withHidden(").append(literal(values, "hidden")).append(")\n");
+				builder.append("            .withAllowedValues(").append(literal(values, "allowedValues")).append(")\n");
+				this.writeWithField(builder, field);
+			}
+			
+			if(field.argument != null) {
+				values = this.valuesOf(field.argument);
+				builder.append("    private static final ").append(SPEC).append(".ArgumentSpec ARGUMENT_").append(index).append(" = ").append(SPEC).append(".ArgumentSpec.builder(").append(literal(values, "order")).append(")\n");
+				builder.append("            .withTitle(").append(literal(values, "title")).append(")\n");
+				builder.append("            .withDescription(").append(literal(values, "description")).append(")\n");
+				builder.append("            .withRequired(").append(literal(values, "required")).append(")\n");
+				this.writeWithField(builder, field);
+			}
+			
+			if(field.arguments != null) {
+				values = this.valuesOf(field.arguments);
+				builder.append("    private static final ").append(SPEC).append(".ArgumentSpec ARGUMENTS_").append(index).append(" = ").append(SPEC).append(".ArgumentSpec.remainingBuilder()\n");
+				builder.append("            .withTitle(").append(literal(values, "title")).append(")\n");
+				builder.append("            .withDescription(").append(literal(values, "description")).append(")\n");
+				builder.append("            .withUsage(").append(literal(values, "usage")).append(")\n");
+				builder.append("            .withRequired(").append(literal(values, "required")).append(")\n");
+				this.writeWithField(builder, field);
+			}
+		}
+		
+		// the command
+		values = this.valuesOf(this.mirrorOf(this.command, OutlineCommandProcessor.COMMAND));
+		builder.append("    private static final ").append(SPEC).append(".CommandSpec COMMAND = ").append(SPEC).append(".CommandSpec.builder(").append(literal(values, "name")).append(")\n");
+		builder.append("            .withDescription(").append(literal(values, "description")).append(")\n");
+		builder.append("            .withGroup(").append(literal(values, "group")).append(")\n");
+		builder.append("            .withHidden(").append(literal(values, "hidden")).append(")\n");
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if(field.option != null) {
+				builder.append("            .withOption(OPTION_").append(index).append(")\n");
+			}
+			
+			if(field.argument != null) {
+				builder.append("            .withArgument(ARGUMENT_").append(index).append(")\n");
+			}
+			
+			if(field.arguments != null) {
+				builder.append("            .withArgument(ARGUMENTS_").append(index).append(")\n");
+			}
+		}
+		builder.append("            .build();\n\n");
+		
+		builder.append("    @Override\n");
+		builder.append("    public ").append(SPEC).append(".CommandSpec getCommand() {\n");
+		builder.append("        return COMMAND;\n");
+		builder.append("    }\n\n");
+		
+		this.writeInjectHelp(builder, commandType);
+		this.writeBind(builder, commandType);
+		
+		builder.append("}\n");
+		return builder.toString();
+	}
+
+	private void writeWithField(StringBuilder builder, FieldInfo field) {
+		builder.append("            .withField(").append(quote(field.name)).append(", ").append(field.type).append(".class)\n");
+		builder.append("            .withDeclaringClass(").append(quote(this.elements.getBinaryName(field.declaringType).toString())).append(")\n");
+		builder.append("            .build();\n\n");
+	}
+	
+	/**
+	 * Return the expression to assign the field through. Fields of super
+	 * classes are assigned through a cast to the declaring class, so that a
+	 * field of the same name in a sub class does not hide them.
+	 * 
+	 */
+	private String target(FieldInfo field) {
+		if(field.declaringType.equals(this.command)) {
+			return "command";
+		}
+		
+		return "((" + field.declaringType.getQualifiedName() + ") command)";
+	}
+
+	private void writeInjectHelp(StringBuilder builder, String commandType) {
+		builder.append("    @Override\n");
+		builder.append("    public void injectHelp(Object instance, com.sangupta.outline.help.OutlineHelp help) {\n");
+		
+		TypeElement helpType = this.elements.getTypeElement(OUTLINE_HELP);
+		if(helpType != null) {
+			boolean first = true;
+			for(FieldInfo field : this.fields) {
+				if(!field.inject || !this.types.isAssignable(helpType.asType(), field.element.asType())) {
+					continue;
+				}
+				
+				if(first) {
+					builder.append("        ").append(commandType).append(" command = (").append(commandType).append(") instance;\n");
+					first = false;
+				}
+				
+				if(this.isDirectlyAssignable(field)) {
+					builder.append("        ").append(this.target(field)).append(".").append(field.name).append(" = help;\n");
+				} else {
+					builder.append("        ").append(SUPPORT).append(".injectField(command, \"").append(this.elements.getBinaryName(field.declaringType)).append("\", \"").append(field.name).append("\", help);\n");
+				}
+			}
+		}
+		
+		builder.append("    }\n\n");
+	}
+	
+	private void writeBind(StringBuilder builder, String commandType) {
+		builder.append("    @Override\n");
+		builder.append("    public void bind(Object instance, com.sangupta.outline.parser.OutlineParseResult result) {\n");
+		builder.append("        ").append(commandType).append(" command = (").append(commandType).append(") instance;\n");
+		builder.append("        java.util.List<String> values;\n");
+		builder.append("        String value;\n");
+		builder.append("        int startOrder = 0;\n");
+		
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if((field.option != null || field.arguments != null) && PRIMITIVE_ARRAYS.contains(field.type)) {
+				builder.append("        Object array;\n");
+				break;
+			}
+		}
+		
+		// all options first
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if(field.option == null) {
+				continue;
+			}
+			
+			if(PRIMITIVE_ARRAYS.contains(field.type)) {
+				builder.append("\n        if(").append(SUPPORT).append(".isPrimitiveArray(result, ").append(field.type).append(".class)) {\n");
+				builder.append("            array = ").append(SUPPORT).append(".getOptionValueArray(result, OPTION_").append(index).append(", ").append(field.type).append(".class);\n");
+				this.writeAssignArray(builder, field);
+				builder.append("        } else {\n");
+				builder.append("            values = ").append(SUPPORT).append(".getOptionValues(result, OPTION_").append(index).append(");\n");
+				builder.append("            if(!values.isEmpty()) {\n");
+				this.writeBindField(builder, "                ", field, "values");
+				builder.append("            }\n");
+				builder.append("        }\n");
+				continue;
+			}
+			
+			builder.append("\n        values = ").append(SUPPORT).append(".getOptionValues(result, OPTION_").append(index).append(");\n");
+			builder.append("        if(!values.isEmpty()) {\n");
+			this.writeAssignList(builder, field);
+			builder.append("        }\n");
+		}
+		
+		// then all arguments with order
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if(field.argument == null) {
+				continue;
+			}
+			
+			int order = (Integer) this.valuesOf(field.argument).get("order").getValue();
+			builder.append("\n        value = ").append(SUPPORT).append(".getArgumentValue(result, ARGUMENT_").append(index).append(");\n");
+			builder.append("        if(value != null) {\n");
+			builder.append("            startOrder = Math.max(startOrder, ").append(order + 1).append(");\n");
+			this.writeAssignValue(builder, field);
+			builder.append("        }\n");
+		}
+		
+		// and lastly the first field that takes all remaining arguments
+		for(int index = 0; index < this.fields.size(); index++) {
+			FieldInfo field = this.fields.get(index);
+			if(field.arguments == null) {
+				continue;
+			}
+			
+			if(PRIMITIVE_ARRAYS.contains(field.type)) {
+				builder.append("\n        if(").append(SUPPORT).append(".isPrimitiveArray(result, ").append(field.type).append(".class)) {\n");
+				builder.append("            array = ").append(SUPPORT).append(".getRemainingArgumentArray(result, startOrder, ARGUMENTS_").append(index).append(", ").append(field.type).append(".class);\n");
+				this.writeAssignArray(builder, field);
+				builder.append("        } else {\n");
+				builder.append("            values = ").append(SUPPORT).append(".getRemainingArguments(result, startOrder, ARGUMENTS_").append(index).append(");\n");
+				builder.append("            if(!values.isEmpty()) {\n");
+				this.writeBindField(builder, "                ", field, "values");
+				builder.append("            }\n");
+				builder.append("        }\n");
+				break;
+			}
+			
+			builder.append("\n        values = ").append(SUPPORT).append(".getRemainingArguments(result, startOrder, ARGUMENTS_").append(index).append(");\n");
+			builder.append("        if(!values.isEmpty()) {\n");
+			this.writeAssignList(builder, field);
+			builder.append("        }\n");
+			break;
+		}
+		
+		builder.append("    }\n\n");
+	}
+
+	/**
+	 * Write the code to assign the non-empty list <code>values</code> to the
+	 * field.
+	 * 
+	 */
+	private void writeAssignList(StringBuilder builder, FieldInfo field) {
+		if(!this.isDirectlyAssignable(field)) {
+			this.writeBindField(builder, "            ", field, "values");
+			return;
+		}
+		
+		if(field.type.equals("java.lang.String[]")) {
+			builder.append("            if(!").append(SUPPORT).append(".hasConverter(result, String[].class)) {\n");
+			builder.append("                ").append(this.target(field)).append(".").append(field.name).append(" = values.toArray(new String[values.size()]);\n");
+			builder.append("            } else {\n");
+			this.writeBindField(builder, "                ", field, "values");
+			builder.append("            }\n");
+			return;
+		}
+		
+		String target = this.target(field) + "." + field.name;
+		String conversion = CONVERSIONS.get(field.type);
+		builder.append("            if(values.size() == 1 && !").append(SUPPORT).append(".hasConverter(result, ").append(field.type).append(".class)) {\n");
+		builder.append("                ").append(target).append(" = ").append(String.format(conversion, "values.get(0)", target)).append(";\n");
+		builder.append("            } else {\n");
+		this.writeBindField(builder, "                ", field, "values");
+		builder.append("            }\n");
+	}
+	
+	/**
+	 * Write the code to assign the primitive <code>array</code>, if not
+	 * <code>null</code>, to the field.
+	 * 
+	 */
+	private void writeAssignArray(StringBuilder builder, FieldInfo field) {
+		builder.append("            if(array != null) {\n");
+		if(this.isDirectlyAssignable(field)) {
+			builder.append("                ").append(this.target(field)).append(".").append(field.name).append(" = (").append(field.type).append(") array;\n");
+		} else {
+			this.writeBindField(builder, "                ", field, "array");
+		}
+		builder.append("            }\n");
+	}
+	
+	/**
+	 * Write the code to assign the non-null string <code>value</code> to the
+	 * field.
+	 * 
+	 */
+	private void writeAssignValue(StringBuilder builder, FieldInfo field) {
+		if(!this.isDirectlyAssignable(field) || PRIMITIVE_ARRAYS.contains(field.type)) {
+			this.writeBindField(builder, "            ", field, "value");
+			return;
+		}
+		
+		if(field.type.equals("java.lang.String[]")) {
+			builder.append("            if(!").append(SUPPORT).append(".hasConverter(result, String[].class)) {\n");
+			builder.append("                ").append(this.target(field)).append(".").append(field.name).append(" = new String[] { value };\n");
+			builder.append("            } else {\n");
+			this.writeBindField(builder, "                ", field, "value");
+			builder.append("            }\n");
+			return;
+		}
+		
+		String target = this.target(field) + "." + field.name;
+		String conversion = CONVERSIONS.get(field.type);
+		builder.append("            if(!").append(SUPPORT).append(".hasConverter(result, ").append(field.type).append(".class)) {\n");
+		builder.append("                ").append(target).append(" = ").append(String.format(conversion, "value", target)).append(";\n");
+		builder.append("            } else {\n");
+		this.writeBindField(builder, "                ", field, "value");
+		builder.append("            }\n");
+	}
+	
+	private void writeBindField(StringBuilder builder, String indent, FieldInfo field, String value) {
+		builder.append(indent).append(SUPPORT).append(".bindField(result, command, \"").append(this.elements.getBinaryName(field.declaringType)).append("\", \"").append(field.name).append("\", ").append(value).append(");\n");
+	}
+	
+	/**
+	 * Check if the generated code can assign a value to the field directly,
+	 * rather than via reflection.
+	 * 
+	 */
+	private boolean isDirectlyAssignable(FieldInfo field) {
+		Set<Modifier> modifiers = field.element.getModifiers();
+		if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+			return false;
+		}
+		
+		if(!field.inject && !field.type.equals("java.lang.String[]") && !CONVERSIONS.containsKey(field.type) && !PRIMITIVE_ARRAYS.contains(field.type)) {
+			return false;
+		}
+		
+		boolean samePackage = this.packageName.equals(this.packageOf(field.declaringType));
+		if(!samePackage) {
+			// must be public, and so must be the declaring class
+			if(!modifiers.contains(Modifier.PUBLIC) || !field.declaringType.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Check if the given type can be referred to from the generated model.
+	 * 
+	 */
+	private boolean isAccessible(TypeMirror type) {
+		while(type.getKind() == TypeKind.ARRAY) {
+			type = ((ArrayType) type).getComponentType();
+		}
+		
+		if(type.getKind() != TypeKind.DECLARED) {
+			return true;
+		}
+		
+		Element element = ((DeclaredType) type).asElement();
+		while(element instanceof TypeElement) {
+			Set<Modifier> modifiers = element.getModifiers();
+			if(modifiers.contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			
+			if(!modifiers.contains(Modifier.PUBLIC) && !this.packageName.equals(this.packageOf((TypeElement) element))) {
+				return false;
+			}
+			
+			element = element.getEnclosingElement();
+		}
+		
+		return true;
+	}
+	
+	private String packageOf(TypeElement type) {
+		PackageElement pkg = this.elements.getPackageOf(type);
+		return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+	}
+
+	/**
+	 * Read all fields of the command class and its super classes in the same
+	 * order in which reflection would return them.
+	 * 
+	 */
+	private void readFields() {
+		TypeElement type = this.command;
+		while(type != null) {
+			for(VariableElement element : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				FieldInfo field = new FieldInfo();
+				field.element = element;
+				field.declaringType = type;
+				field.name = element.getSimpleName().toString();
+				field.type = this.types.erasure(element.asType()).toString();
+				field.option = this.mirrorOf(element, OPTION);
+				field.argument = this.mirrorOf(element, ARGUMENT);
+				field.arguments = this.mirrorOf(element, ARGUMENTS);
+				field.inject = this.mirrorOf(element, INJECT) != null;
+				
+				if(field.isAnnotated() || field.inject) {
+					this.fields.add(field);
+				}
+			}
+			
+			TypeMirror superClass = type.getSuperclass();
+			if(superClass.getKind() != TypeKind.DECLARED) {
+				break;
+			}
+			
+			type = (TypeElement) ((DeclaredType) superClass).asElement();
+		}
+	}
+	
+	private AnnotationMirror mirrorOf(Element element, String annotation) {
+		for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+			if(type.getQualifiedName().contentEquals(annotation)) {
+				return mirror;
+			}
+		}
+		
+		return null;
+	}
+	
+	private Map<String, AnnotationValue> valuesOf(AnnotationMirror mirror) {
+		Map<String, AnnotationValue> values = new HashMap<>();
+		for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : this.elements.getElementValuesWithDefaults(mirror).entrySet()) {
+			values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Convert the annotation value to a Java literal.
+	 * 
+	 */
+	private static String literal(Map<String, AnnotationValue> values, String key) {
+		return literal(values.get(key).getValue());
+	}
+
+	private static String literal(Object value) {
+		if(value instanceof String) {
+			return quote((String) value);
+		}
+		
+		if(value instanceof VariableElement) {
+			// enum constant
+			return ((VariableElement) value).getSimpleName().toString();
+		}
+		
+		if(value instanceof List) {
+			List<?> items = (List<?>) value;
+			if(items.isEmpty()) {
+				return "new String[] { }";
+			}
+			
+			StringBuilder builder = new StringBuilder("new String[] { ");
+			boolean first = true;
+			for(Object item : items) {
+				if(!first) {
+					builder.append(", ");
+				}
+				
+				builder.append(literal(((AnnotationValue) item).getValue()));
+				first = false;
+			}
+			
+			return builder.append(" }").toString();
+		}
+		
+		return String.valueOf(value);
+	}
+	
+	private static String quote(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2);
+		builder.append('"');
+		for(int index = 0; index < value.length(); index++) {
+			char ch = value.charAt(index);
+			switch(ch) {
+				case '"':
+					builder.append("\\\"");
+					break;
+					
+				case '\\':
+					builder.append("\\\\");
+					break;
+					
+				case '\n':
+					builder.append("\\n");
+					break;
+					
+				case '\r':
+					builder.append("\\r");
+					break;
+					
+				case '\t':
+					builder.append("\\t");
+					break;
+					
+				default:
+					if(ch < 0x20 || ch > 0x7e) {
+						builder.append(String.format("\\u%04x", (int) ch));
+					} else {
+						builder.append(ch);
+					}
+			}
+		}
+		
+		return builder.append('"').toString();
+	}
+	
+	/**
+	 * Information about a single field of the command class.
+	 * 
+	 */
+	private static class FieldInfo {
+		
+		VariableElement element;
+		
+		TypeElement declaringType;
+		
+		String name;
+		
+		String type;
+		
+		AnnotationMirror option;
+		
+		AnnotationMirror argument;
+		
+		AnnotationMirror arguments;
+		
+		boolean inject;
+		
+		boolean isAnnotated() {
+			return this.option != null || this.argument != null || this.arguments != null;
+		}
+		
+	}
+
+}
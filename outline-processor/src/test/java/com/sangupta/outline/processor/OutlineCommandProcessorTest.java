@@ -0,0 +1,375 @@
+package com.sangupta.outline.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineParser;
+import com.sangupta.outline.OutlineTypeConverter;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
+import com.sangupta.outline.help.OutlineHelp;
+
+/**
+ * Tests for the generated command models. The fixtures are compiled once with
+ * the processor, and once without it, and each command line is bound through
+ * the generated model and via reflection, with the same values expected in
+ * both.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCommandProcessorTest {
+
+	private static final String BASE_COMMAND = "package fixtures;\n"
+			+ "import com.sangupta.outline.annotations.*;\n"
+			+ "public abstract class BaseCommand {\n"
+			+ "    @Option(name = \"--region\", type = OptionType.GLOBAL)\n"
+			+ "    public String region;\n"
+			+ "    @Option(name = \"--zone\", type = OptionType.GLOBAL)\n"
+			+ "    String zone;\n"
+			+ "    @Option(name = \"--owner\")\n"
+			+ "    public String owner;\n"
+			+ "}\n";
+
+	private static final String DEPLOY_COMMAND = "package fixtures;\n"
+			+ "import javax.inject.Inject;\n"
+			+ "import com.sangupta.outline.annotations.*;\n"
+			+ "import com.sangupta.outline.help.OutlineHelp;\n"
+			+ "@Command(name = \"deploy\", description = \"deploy the application\")\n"
+			+ "public class DeployCommand extends BaseCommand {\n"
+			+ "    @Inject public OutlineHelp help;\n"
+			+ "    @Option(name = { \"-e\", \"--env\" }, required = true) public String env;\n"
+			+ "    @Option(name = \"-n\") public int count;\n"
+			+ "    @Option(name = \"-w\") public Double weight;\n"
+			+ "    @Option(name = \"--retries\") public short retries = 3;\n"
+			+ "    @Option(name = \"--mode\") public char mode = 'm';\n"
+			+ "    @Option(name = \"--initial\") public Character initial;\n"
+			+ "    @Option(name = \"--tag\", arity = 2) public String[] tags;\n"
+			+ "    @Option(name = \"--label\") public String[] labels;\n"
+			+ "    @Option(name = \"--port\") public int[] ports;\n"
+			+ "    @Option(name = \"--secret\") private String secret;\n"
+			+ "    @Argument(order = 0) public String version;\n"
+			+ "    @Arguments public long[] rest;\n"
+			+ "    public String owner;\n"
+			+ "}\n";
+
+	private static final String SCALE_COMMAND = "package fixtures;\n"
+			+ "import javax.inject.Inject;\n"
+			+ "import com.sangupta.outline.annotations.*;\n"
+			+ "import com.sangupta.outline.help.OutlineHelp;\n"
+			+ "@Command(name = \"scale\", group = \"cluster\", description = \"scale the cluster\")\n"
+			+ "public class ScaleCommand extends BaseCommand {\n"
+			+ "    @Inject private OutlineHelp help;\n"
+			+ "    @Option(name = \"--size\", type = OptionType.GROUP) public Integer size;\n"
+			+ "    @Argument(order = 0, required = true) public String cluster;\n"
+			+ "    @Argument(order = 1) public String pool;\n"
+			+ "    @Arguments public String[] nodes;\n"
+			+ "}\n";
+
+	private static final String[] LINES = {
+		"deploy -e prod",
+		"--region us --zone a deploy --owner me --env=prod -n 3 -w 0.5 --tag a b --label x --label y --port 80 --port 443 --secret s 1.0 7 -8",
+		"deploy -e prod --tag a b --tag c d --label only 1.0",
+		"cluster --size 4 scale main",
+		"--region eu cluster scale main pool-1 node-1 node-2"
+	};
+
+	@Test
+	public void testIndexes() throws Exception {
+		try(Compiled compiled = new Compiled(true)) {
+			String models = compiled.read("META-INF/outline/models.idx");
+			Assert.assertTrue(models.contains("fixtures.DeployCommand="));
+			Assert.assertTrue(models.contains("fixtures.ScaleCommand="));
+			Assert.assertFalse(models.contains("fixtures.BaseCommand"));
+
+			String commands = compiled.read("META-INF/outline/commands.idx");
+			Assert.assertTrue(commands.contains("fixtures.DeployCommand\tdeploy\t\n"));
+			Assert.assertTrue(commands.contains("fixtures.ScaleCommand\tscale\tcluster\n"));
+			Assert.assertFalse(commands.contains("fixtures.BaseCommand"));
+
+			// the models are picked up
+			OutlineParser parser = compiled.getOutline().compile();
+			Assert.assertNotNull(parser.getMetadata().commandModels.get("deploy"));
+			Assert.assertNotNull(parser.getMetadata().commandModels.get("scale"));
+		}
+
+		try(Compiled compiled = new Compiled(false)) {
+			Assert.assertNull(compiled.loader.getResource("META-INF/outline/models.idx"));
+			Assert.assertTrue(compiled.getOutline().compile().getMetadata().commandModels.isEmpty());
+		}
+	}
+
+	@Test
+	public void testBinding() throws Exception {
+		try(Compiled generated = new Compiled(true); Compiled reflected = new Compiled(false)) {
+			for(String line : LINES) {
+				assertSameFields(reflected.getOutline().parse(line.split(" ")), generated.getOutline().parse(line.split(" ")));
+				assertSameFields(reflected.getOutline().freeze().parse(line.split(" ")), generated.getOutline().freeze().parse(line.split(" ")));
+			}
+
+			Object command = generated.getOutline().parse(LINES[1].split(" "));
+			Assert.assertEquals("prod", get(command, "env"));
+			Assert.assertEquals("s", get(command, "secret"));
+			Assert.assertEquals("a", get(command, "zone"));
+			Assert.assertEquals("me", get(command, command.getClass().getSuperclass(), "owner"));
+			Assert.assertNull(get(command, command.getClass(), "owner"));
+			Assert.assertArrayEquals(new String[] { "x", "y" }, (String[]) get(command, "labels"));
+			Assert.assertArrayEquals(new int[] { 80, 443 }, (int[]) get(command, "ports"));
+			Assert.assertArrayEquals(new long[] { 7, -8 }, (long[]) get(command, "rest"));
+			Assert.assertTrue(get(command, "help") instanceof OutlineHelp);
+
+			command = generated.getOutline().parse(LINES[3].split(" "));
+			Assert.assertTrue(get(command, "help") instanceof OutlineHelp);
+		}
+	}
+
+	@Test
+	public void testInvalidValues() throws Exception {
+		try(Compiled generated = new Compiled(true); Compiled reflected = new Compiled(false)) {
+			String[] line = "deploy -e prod -n abc -w x --retries 1.5".split(" ");
+			assertSameFields(reflected.getOutline().parse(line), generated.getOutline().parse(line));
+			assertSameFields(reflected.getOutline().freeze().parse(line), generated.getOutline().freeze().parse(line));
+
+			// values that cannot be converted leave the fields as they were
+			Object command = generated.getOutline().parse(line);
+			Assert.assertEquals(0, get(command, "count"));
+			Assert.assertNull(get(command, "weight"));
+			Assert.assertEquals((short) 3, get(command, "retries"));
+			Assert.assertEquals("prod", get(command, "env"));
+
+			// as are empty values of char fields
+			line = new String[] { "deploy", "-e", "prod", "--mode", "", "--initial", "" };
+			assertSameFields(reflected.getOutline().parse(line), generated.getOutline().parse(line));
+
+			command = generated.getOutline().parse(line);
+			Assert.assertEquals('m', get(command, "mode"));
+			Assert.assertNull(get(command, "initial"));
+
+			command = generated.getOutline().parse("deploy -e prod --mode x --initial y".split(" "));
+			Assert.assertEquals('x', get(command, "mode"));
+			Assert.assertEquals('y', get(command, "initial"));
+		}
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		try(Compiled compiled = new Compiled(true)) {
+			try {
+				compiled.getOutline().parse("deploy -n 3".split(" "));
+				Assert.assertTrue(false);
+			} catch(OutlineRequiredOptionMissingException e) {
+				Assert.assertEquals("-e", e.argument);
+			}
+
+			try {
+				compiled.getOutline().parse("cluster scale".split(" "));
+				Assert.assertTrue(false);
+			} catch(OutlineRequiredOptionMissingException e) {
+				// expected
+			}
+
+			try {
+				compiled.getOutline().parse("deploy -e prod --port 80 --port x".split(" "));
+				Assert.assertTrue(false);
+			} catch(OutlineInvalidArgumentException e) {
+				Assert.assertEquals("x", e.argument);
+				Assert.assertEquals(6, e.positionIndex);
+			}
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testStringArrayConverter() throws Exception {
+		try(Compiled generated = new Compiled(true); Compiled reflected = new Compiled(false)) {
+			// a frozen outline keeps the converters registered when freezing
+			OutlineParser builtIn = generated.getOutline().freeze();
+			OutlineTypeConverter<String[]> converter = (OutlineTypeConverter<String[]>) builtIn.getMetadata().converters.get(String[].class);
+
+			Outline.registerTypeConverter(String[].class, new OutlineTypeConverter<String[]>() {
+
+				@Override
+				public String[] convertFrom(Field field, Object instance, Object value) {
+					List<String> values = new ArrayList<>();
+					for(Object item : value instanceof List<?> ? (List<?>) value : Collections.singletonList(value)) {
+						values.add(item.toString().toUpperCase());
+					}
+
+					return values.toArray(new String[values.size()]);
+				}
+
+			});
+
+			try {
+				for(String line : LINES) {
+					assertSameFields(reflected.getOutline().parse(line.split(" ")), generated.getOutline().parse(line.split(" ")));
+				}
+
+				Object command = generated.getOutline().parse(LINES[1].split(" "));
+				Assert.assertArrayEquals(new String[] { "A", "B" }, (String[]) get(command, "tags"));
+				Assert.assertArrayEquals(new String[] { "X", "Y" }, (String[]) get(command, "labels"));
+
+				command = generated.getOutline().parse(LINES[4].split(" "));
+				Assert.assertArrayEquals(new String[] { "NODE-1", "NODE-2" }, (String[]) get(command, "nodes"));
+
+				// the frozen outline still uses the built-in converter
+				command = builtIn.parse(LINES[1].split(" "));
+				Assert.assertArrayEquals(new String[] { "a", "b" }, (String[]) get(command, "tags"));
+			} finally {
+				Outline.registerTypeConverter(String[].class, converter);
+			}
+		}
+	}
+
+	private static Object get(Object instance, Class<?> declaringClass, String name) throws ReflectiveOperationException {
+		Field field = declaringClass.getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(instance);
+	}
+
+	private static Object get(Object instance, String name) throws ReflectiveOperationException {
+		for(Class<?> type = instance.getClass(); type != null; type = type.getSuperclass()) {
+			try {
+				Field field = type.getDeclaredField(name);
+				field.setAccessible(true);
+				return field.get(instance);
+			} catch(NoSuchFieldException e) {
+				// try the super class
+			}
+		}
+
+		throw new NoSuchFieldException(name);
+	}
+
+	/**
+	 * Check that all fields of the two instances, of classes with the same
+	 * name, have the same values.
+	 *
+	 */
+	private static void assertSameFields(Object expected, Object actual) throws ReflectiveOperationException {
+		Assert.assertEquals(expected.getClass().getName(), actual.getClass().getName());
+		for(Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+			Class<?> actualType = actual.getClass();
+			while(!actualType.getName().equals(type.getName())) {
+				actualType = actualType.getSuperclass();
+			}
+
+			for(Field field : type.getDeclaredFields()) {
+				Object expectedValue = get(expected, type, field.getName());
+				Object actualValue = get(actual, actualType, field.getName());
+				if(expectedValue instanceof OutlineHelp) {
+					Assert.assertTrue(field.getName(), actualValue instanceof OutlineHelp);
+					continue;
+				}
+
+				Assert.assertTrue(field.getName() + " of " + actual.getClass().getName(), Arrays.deepEquals(new Object[] { expectedValue }, new Object[] { actualValue }));
+			}
+		}
+	}
+
+	/**
+	 * The fixtures compiled into a temporary folder, and the class loader to
+	 * load them from.
+	 *
+	 */
+	private static class Compiled implements AutoCloseable {
+
+		final File folder;
+
+		final URLClassLoader loader;
+
+		Compiled(boolean process) throws IOException {
+			this.folder = Files.createTempDirectory("outline-processor").toFile();
+
+			List<JavaFileObject> sources = Arrays.asList(source("fixtures.BaseCommand", BASE_COMMAND), source("fixtures.DeployCommand", DEPLOY_COMMAND), source("fixtures.ScaleCommand", SCALE_COMMAND));
+			List<String> options = new ArrayList<>(Arrays.asList("-d", this.folder.getPath(), "-s", this.folder.getPath(), "-classpath", System.getProperty("java.class.path")));
+			if(!process) {
+				options.add("-proc:none");
+			}
+
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+			try(StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+				JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null, sources);
+				if(process) {
+					task.setProcessors(Arrays.asList(new OutlineCommandProcessor()));
+				}
+
+				boolean success = task.call();
+				for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+					Assert.assertTrue(diagnostic.toString(), diagnostic.getKind() != Diagnostic.Kind.ERROR);
+				}
+
+				Assert.assertTrue(success);
+			}
+
+			this.loader = new URLClassLoader(new URL[] { this.folder.toURI().toURL() }, OutlineCommandProcessorTest.class.getClassLoader());
+		}
+
+		Outline getOutline() throws ClassNotFoundException {
+			return new Outline("ops").withHelpOnIncorrectArguments(false).withCommands(this.loader.loadClass("fixtures.DeployCommand"), this.loader.loadClass("fixtures.ScaleCommand"));
+		}
+
+		String read(String resource) throws IOException {
+			URL url = this.loader.getResource(resource);
+			Assert.assertNotNull(resource, url);
+			try(InputStream stream = url.openStream(); Scanner scanner = new Scanner(stream, "UTF-8")) {
+				return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.loader.close();
+			delete(this.folder);
+		}
+
+		private static void delete(File file) {
+			File[] children = file.listFiles();
+			if(children != null) {
+				for(File child : children) {
+					delete(child);
+				}
+			}
+
+			file.delete();
+		}
+
+		private static JavaFileObject source(String className, final String code) {
+			return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+
+				@Override
+				public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+					return code;
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -21,15 +21,20 @@
  
 package com.sangupta.outline;
 
-import java.lang.reflect.Field;
+import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.outline.cmdfactory.OutlineCommandFactory;
 import com.sangupta.outline.cmdfactory.OutlineDefaultCommandFactory;
+import com.sangupta.outline.parser.OutlineCommandLine;
+import com.sangupta.outline.parser.OutlineIncrementalParser;
+import com.sangupta.outline.parser.OutlineParseContext;
+import com.sangupta.outline.spec.CommandSpec;
 
 /**
  * Entry class for building the outlines of command line tools.
@@ -56,6 +61,50 @@ public class Outline extends OutlineBase {
      */
     final Map<String, OutlineBase> groups = new HashMap<>();
     
+    /**
+     * The compiled parser for this outline - built once and then reused for all
+     * calls to {@link #parse(String[])}. This is discarded whenever the outline
+     * definition is modified.
+     */
+    volatile OutlineParser parser;
+    
+    /**
+     * Whether this outline has been frozen via {@link #freeze()}
+     */
+    boolean frozen;
+    
+    /**
+     * Whether <code>@file</code> arguments are expanded to the contents of the
+     * file
+     */
+    boolean argumentFiles;
+    
+    /**
+     * Whether long options may be abbreviated to any unambiguous prefix
+     */
+    boolean abbreviations;
+    
+    /**
+     * Whether command options may follow the command arguments
+     */
+    boolean permutation;
+    
+    /**
+     * Whether commands without a generated model get one built at runtime
+     */
+    boolean runtimeModels;
+    
+    /**
+	 * Commands that have been defined programmatically - mapping between the
+	 * command class and its {@link CommandSpec}
+	 */
+    final Map<Class<?>, CommandSpec> commandSpecs = new HashMap<>();
+    
+    /**
+     * The file in which the compiled metadata is persisted across launches, if any
+     */
+    File metadataSnapshot;
+    
     /**
      * Register a type converter to convert the command line {@link String} based argument to a
      * given type of argument.
@@ -72,28 +121,10 @@ public class Outline extends OutlineBase {
      * 
      */
     static {
-    	Outline.registerTypeConverter(String[].class, new OutlineTypeConverter<String[]>() {
-
-            @Override
-            public String[] convertFrom(Field field, Object instance, Object value) {
-                if(value == null) {
-                    return null;
-                }
-                
-                if(value instanceof List<?>) {
-                    List<?> list = (List<?>) value;
-                    String[] array = new String[list.size()];
-                    for(int index = 0; index < array.length; index++) {
-                        array[index] = list.get(index).toString();
-                    }
-                    
-                    return array;
-                }
-                
-                return new String[] { value.toString() };
-            }
-            
-        });
+    	Outline.registerTypeConverter(String[].class, new OutlineStringArrayConverter());
+    	Outline.registerTypeConverter(int[].class, new OutlinePrimitiveArrayConverter<int[]>(int[].class));
+    	Outline.registerTypeConverter(long[].class, new OutlinePrimitiveArrayConverter<long[]>(long[].class));
+    	Outline.registerTypeConverter(double[].class, new OutlinePrimitiveArrayConverter<double[]>(double[].class));
     }
     
     /**
@@ -109,17 +140,98 @@ public class Outline extends OutlineBase {
     }
     
     /**
-     * Initialize this {@link Outline}.
+     * Initialize this {@link Outline}. This compiles the outline so that the
+     * metadata is read only once and then reused across all parse calls.
      * 
      * @return
      */
     public Outline create() {
+    	this.compile();
         return this;
     }
     
-    @SuppressWarnings("unchecked")
+    /**
+	 * Compile this {@link Outline} into an {@link OutlineParser} that holds the
+	 * finished {@link OutlineMetadata}. The compiled parser is cached and reused
+	 * until the outline is modified again via any of the builder methods.
+	 * 
+	 * @return the compiled {@link OutlineParser}
+	 */
+    public OutlineParser compile() {
+    	OutlineParser parser = this.parser;
+    	if(parser == null) {
+    		parser = new OutlineParser(this);
+    		this.parser = parser;
+    	}
+    	
+    	return parser;
+    }
+    
+    /**
+	 * Freeze this {@link Outline} into an immutable {@link OutlineParser}. All
+	 * lazily registered commands are loaded right away, and the type converters
+	 * registered at this time are captured, so that parsing never modifies any
+	 * shared state. Any number of threads may then call {@link #parse(String[])}
+	 * on this outline, or on the returned parser, concurrently and without any
+	 * locking.
+	 * 
+	 * Once frozen, the outline cannot be modified any more, and converters that
+	 * are registered later are not seen by it.
+	 * 
+	 * @return the frozen {@link OutlineParser}
+	 */
+    public synchronized OutlineParser freeze() {
+    	if(this.frozen) {
+    		return this.parser;
+    	}
+    	
+    	this.frozen = true;
+    	
+    	OutlineParser parser = new OutlineParser(this);
+    	this.parser = parser;
+    	return parser;
+    }
+    
+    /**
+     * Check whether this outline has been frozen via {@link #freeze()}.
+     * 
+     * @return
+     */
+    public boolean isFrozen() {
+    	return this.frozen;
+    }
+    
+    @Override
+    void modified() {
+    	this.checkNotFrozen();
+    	this.parser = null;
+    }
+    
+    @Override
+    void checkNotFrozen() {
+    	if(this.frozen) {
+    		throw new IllegalStateException("Outline has been frozen and cannot be modified.");
+    	}
+    }
+    
 	public <T> T parse(String[] args) {
-        Object instance = OutlineParser.parse(this, args);
+        return this.parse(OutlineCommandLine.of(args));
+    }
+    
+    /**
+	 * Parse the given arguments reusing the state held by the given context.
+	 * The help injected into the returned command is only valid until the
+	 * context is used again.
+	 * 
+	 * @param args
+	 * @param context
+	 * @return
+	 * 
+	 * @see OutlineParseContext
+	 */
+    @SuppressWarnings("unchecked")
+	public <T> T parse(String[] args, OutlineParseContext context) {
+        Object instance = this.compile().parse(args, context);
         if(this.singleCommandMode) {
         	return (T) this.defaultCommand.cast(instance);
         }
@@ -127,9 +239,98 @@ public class Outline extends OutlineBase {
         return (T) instance;
     }
     
+    /**
+	 * Parse the given command line, as tokenized from raw input via
+	 * {@link OutlineCommandLine#tokenize(byte[])} and its siblings.
+	 * 
+	 * @param commandLine
+	 * @return
+	 */
+    @SuppressWarnings("unchecked")
+	public <T> T parse(OutlineCommandLine commandLine) {
+        Object instance = this.compile().parse(commandLine);
+        if(this.singleCommandMode) {
+        	return (T) this.defaultCommand.cast(instance);
+        }
+        
+        return (T) instance;
+    }
+
+    /**
+	 * Parse each of the given command lines against the same compiled metadata,
+	 * returning their outcomes in the same order. A command line that fails to
+	 * parse is recorded with its error and does not stop the batch.
+	 * 
+	 * @param batch
+	 * @return
+	 */
+    public List<OutlineBatchResult> parseAll(List<String[]> batch) {
+    	return this.compile().parseAll(batch);
+    }
+    
+    /**
+	 * Parse each of the given command lines in the given pool, returning their
+	 * outcomes in the same order. A command line that fails to parse is
+	 * recorded with its error and does not stop the batch.
+	 * 
+	 * @param batch
+	 * @param pool
+	 * @return
+	 */
+    public List<OutlineBatchResult> parseAll(List<String[]> batch, ForkJoinPool pool) {
+    	return this.compile().parseAll(batch, pool);
+    }
+    
+    /**
+	 * Return the candidates for completing the token at the given index of the
+	 * given command line - the names of groups, commands and options valid at
+	 * that point, or the allowed values of the option the token is a value of.
+	 * An index just past the last token completes a new, empty token.
+	 * 
+	 * @param args
+	 *            the tokens of the command line
+	 * 
+	 * @param cursorIndex
+	 *            the index of the token being completed
+	 * 
+	 * @return the candidates, sorted unless they are option values
+	 */
+    public List<String> complete(String[] args, int cursorIndex) {
+    	return this.compile().complete(args, cursorIndex);
+    }
+    
+    /**
+	 * Create a parser for a command line that is edited a token at a time,
+	 * which re-parses only from the first edited token onwards.
+	 * 
+	 * @return
+	 */
+    public OutlineIncrementalParser newIncrementalParser() {
+    	return this.compile().newIncrementalParser();
+    }
+    
+    /**
+	 * Exercise metadata reading, parsing, binding and help rendering for every
+	 * registered command, and parse each of the given sample invocations. This
+	 * is meant to be run once with <code>-XX:ArchiveClassesAtExit</code> so that
+	 * the AppCDS archive captures all classes a real launch needs. See
+	 * {@link OutlineTrainer} for details.
+	 *
+	 * @param sampleInvocations
+	 *            the sample command lines to parse
+	 *
+	 * @return the number of invocations that were exercised
+	 */
+    public int train(String[]... sampleInvocations) {
+    	return OutlineTrainer.train(this, sampleInvocations);
+    }
+
     @Override
     public Outline withDescription(String description) {
+        this.checkNotFrozen();
+        
         this.description = description;
+        this.modified();
         return this;
     }
     
@@ -146,6 +347,95 @@ public class Outline extends OutlineBase {
     	return this;
     }
     
+    /**
+	 * Add a command defined programmatically via the given {@link CommandSpec}
+	 * rather than via annotations. Instances of the command class are created
+	 * via the command factory, and the values are bound to the fields named in
+	 * the specs of the options and arguments.
+	 * 
+	 * @param commandClass
+	 *            the class to create instances of
+	 * 
+	 * @param spec
+	 *            the definition of the command
+	 * 
+	 * @return the same {@link Outline} instance
+	 * 
+	 * @throws IllegalStateException
+	 *             if we are in a single command mode
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the command class or the spec is <code>null</code>
+	 */
+    public Outline withCommand(Class<?> commandClass, CommandSpec spec) {
+    	this.checkNotFrozen();
+    	
+    	if(this.singleCommandMode) {
+    		throw new IllegalStateException("Cannot add commands in single-command mode.");
+    	}
+    	
+    	if(commandClass == null || spec == null) {
+    		throw new IllegalArgumentException("Command class and spec cannot be null");
+    	}
+    	
+    	this.commands.add(commandClass);
+    	this.commandSpecs.put(commandClass, spec);
+    	this.modified();
+    	return this;
+    }
+    
+    @Override
+    public Outline withCommand(String name, String className) {
+    	super.withCommand(name, className);
+    	
+    	return this;
+    }
+    
+    /**
+	 * Register all commands listed in the command index written by the
+	 * <code>outline-processor</code> at build time, as found via the context
+	 * class loader. The commands are registered via their name and class name,
+	 * and thus no command class is loaded until it is invoked.
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+    public Outline withDiscoveredCommands() {
+    	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    	if(loader == null) {
+    		loader = Outline.class.getClassLoader();
+    	}
+    	
+    	return this.withDiscoveredCommands(loader);
+    }
+    
+    /**
+	 * Register all commands listed in the command index written by the
+	 * <code>outline-processor</code> at build time, as found via the given
+	 * class loader.
+	 * 
+	 * @param loader
+	 *            the class loader to read the index from
+	 * 
+	 * @return the same {@link Outline} instance
+	 * 
+	 * @throws IllegalStateException
+	 *             if we are in a single command mode
+	 */
+    public Outline withDiscoveredCommands(ClassLoader loader) {
+    	this.checkNotFrozen();
+    	
+    	if(this.singleCommandMode) {
+    		throw new IllegalStateException("Cannot add commands in single-command mode.");
+    	}
+    	
+    	if(loader == null) {
+    		throw new IllegalArgumentException("Class loader cannot be null");
+    	}
+    	
+    	OutlineCommandIndex.discover(this, loader);
+    	return this;
+    }
+    
     @Override
     public Outline withCommands(Class<?>... commands) {
         if(this.singleCommandMode) {
@@ -163,7 +453,10 @@ public class Outline extends OutlineBase {
      * @return
      */
     public Outline withHelpKeyword(String word) {
+        this.checkNotFrozen();
+        
         this.helpKeyword = word;
+        this.modified();
         return this;
     }
     
@@ -175,10 +468,33 @@ public class Outline extends OutlineBase {
      * @return
      */
     public Outline withCommandFactory(OutlineCommandFactory commandFactory) {
+        this.checkNotFrozen();
+        
         this.commandFactory = commandFactory;
+        this.modified();
         return this;
     }
  
+    /**
+	 * Persist the compiled metadata in the given snapshot file, and read it back
+	 * from the same on later launches instead of reading all command classes via
+	 * reflection. The snapshot is keyed by a fingerprint of the registered command
+	 * classes, and is rewritten whenever the fingerprint does not match.
+	 * 
+	 * @param file
+	 *            the snapshot file to use, or <code>null</code> to disable
+	 *            snapshots
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+    public Outline withMetadataSnapshot(File file) {
+    	this.checkNotFrozen();
+    	
+    	this.metadataSnapshot = file;
+    	this.modified();
+    	return this;
+    }
+ 
     /**
 	 * Create a new group name and return the group definition so that more
 	 * commands can be added to the group. If the group name has been used before
@@ -196,6 +512,8 @@ public class Outline extends OutlineBase {
 	 *             if the group name is <code>empty</code> or <code>null</code>
 	 */
     public OutlineBase withGroup(String name) {
+        this.checkNotFrozen();
+        
         if(this.singleCommandMode) {
             throw new IllegalStateException("Cannot create groups in single-command mode.");
         }
@@ -209,9 +527,23 @@ public class Outline extends OutlineBase {
         	return this.groups.get(name);
         }
         
-        // create a new group
-        OutlineBase abstractOutline = new OutlineBase(name) { };
+        // create a new group - any change to the group changes this outline too
+        OutlineBase abstractOutline = new OutlineBase(name) {
+        	
+        	@Override
+        	void modified() {
+        		Outline.this.modified();
+        	}
+        	
+        	@Override
+        	void checkNotFrozen() {
+        		Outline.this.checkNotFrozen();
+        	}
+        	
+        };
+        
         this.groups.put(name, abstractOutline);
+        this.modified();
         return abstractOutline;
     }
 
@@ -254,7 +586,96 @@ public class Outline extends OutlineBase {
 	 * @return the same {@link Outline} instance
 	 */
 	public Outline withHelpOnIncorrectArguments(boolean helpOnIncorrectArguments) {
+		this.checkNotFrozen();
+		
 		this.helpOnIncorrectArguments = helpOnIncorrectArguments;
+		this.modified();
+		return this;
+	}
+
+	/**
+	 * Set whether arguments of the form <code>@file</code> are replaced by the
+	 * arguments read from the file, following the conventions of
+	 * <code>javac</code>. This allows passing more arguments than the operating
+	 * system allows on a command line.
+	 * 
+	 * @param argumentFiles
+	 *            <code>true</code> to expand argument files, <code>false</code>
+	 *            otherwise
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+	public Outline withArgumentFiles(boolean argumentFiles) {
+		this.checkNotFrozen();
+		
+		this.argumentFiles = argumentFiles;
+		this.modified();
+		return this;
+	}
+
+	/**
+	 * Set whether long options may be abbreviated, GNU style, to any prefix
+	 * that is not shared with another long option of the same scope - say
+	 * <code>--verb</code> for <code>--verbose</code>. An abbreviation shared by
+	 * more than one option fails the parse with an
+	 * {@link com.sangupta.outline.exceptions.OutlineInvalidArgumentException}
+	 * listing the candidates.
+	 * 
+	 * @param abbreviations
+	 *            <code>true</code> to resolve abbreviations, <code>false</code>
+	 *            otherwise
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+	public Outline withAbbreviations(boolean abbreviations) {
+		this.checkNotFrozen();
+		
+		this.abbreviations = abbreviations;
+		this.modified();
+		return this;
+	}
+
+	/**
+	 * Set whether the options of a command are recognized anywhere up to the
+	 * <code>--</code> separator, GNU style, instead of only before the first
+	 * argument - so that <code>cmd file1 -v file2</code> sets the option
+	 * <code>-v</code>, and has the arguments <code>file1</code> and
+	 * <code>file2</code>. The arguments keep their order, and everything from
+	 * the separator on is arguments, as before.
+	 * 
+	 * @param permutation
+	 *            <code>true</code> to read options after arguments,
+	 *            <code>false</code> otherwise
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+	public Outline withPermutation(boolean permutation) {
+		this.checkNotFrozen();
+		
+		this.permutation = permutation;
+		this.modified();
+		return this;
+	}
+
+	/**
+	 * Set whether a command that has no model generated by the
+	 * <code>outline-processor</code> gets one built at runtime, the first time
+	 * the command is used. The model resolves all fields of the command once,
+	 * and then binds values without looking up fields by name or reading
+	 * values of options that were not given. If the model cannot be built, the
+	 * command is bound via reflection as before.
+	 * 
+	 * @param runtimeModels
+	 *            <code>true</code> to build models at runtime,
+	 *            <code>false</code> otherwise
+	 * 
+	 * @return the same {@link Outline} instance
+	 */
+	public Outline withRuntimeModels(boolean runtimeModels) {
+		this.checkNotFrozen();
+		
+		this.runtimeModels = runtimeModels;
+		this.modified();
 		return this;
 	}
 
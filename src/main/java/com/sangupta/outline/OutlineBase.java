@@ -21,9 +21,13 @@
  
 package com.sangupta.outline;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
+import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.outline.annotations.Command;
 
 /**
@@ -46,6 +50,19 @@ public abstract class OutlineBase {
     
     final Set<Class<?>> commands = new HashSet<>();
     
+    /**
+	 * Commands registered via their name and class name - mapping between the
+	 * command name and the class name. These classes are only loaded when the
+	 * command is actually invoked.
+	 */
+    final Map<String, String> lazyCommands = new LinkedHashMap<>();
+    
+    /**
+	 * The class loaders to use for lazily registered commands, when not the
+	 * default one
+	 */
+    final Map<String, ClassLoader> lazyCommandLoaders = new HashMap<>();
+    
     /**
      * prevent default construction
      * 
@@ -75,11 +92,16 @@ public abstract class OutlineBase {
     }
     
     public OutlineBase withDescription(String description) {
+        this.checkNotFrozen();
+        
         this.description = description;
+        this.modified();
         return this;
     }
     
     public OutlineBase withDefaultCommand(Class<?> defaultCommand) {
+        this.checkNotFrozen();
+        
         if(this.singleCommandMode) {
             throw new IllegalStateException("Cannot set default command in single-command mode.");
         }
@@ -94,10 +116,13 @@ public abstract class OutlineBase {
         
         this.defaultCommand = defaultCommand;
         this.commands.add(defaultCommand);
+        this.modified();
         return this;
     }
     
     public OutlineBase withCommand(Class<?> command) {
+    	this.checkNotFrozen();
+    	
     	if(this.singleCommandMode) {
     		throw new IllegalStateException("Cannot add commands in single-command mode.");
     	}
@@ -107,10 +132,76 @@ public abstract class OutlineBase {
     	}
     	
     	this.commands.add(command);
+    	this.modified();
+    	return this;
+    }
+    
+    /**
+	 * Add a command by its name and the name of the class that implements it.
+	 * The class is not loaded until the command is invoked, or is needed to
+	 * render help, which keeps the startup cost low for tools with a large number
+	 * of commands. The name must be the same as the one declared in the
+	 * <code>@Command</code> annotation of the class.
+	 * 
+	 * @param name
+	 *            the name of the command
+	 * 
+	 * @param className
+	 *            the fully qualified name of the command class
+	 * 
+	 * @return the same instance
+	 * 
+	 * @throws IllegalStateException
+	 *             if we are in a single command mode
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the name or the class name is <code>empty</code> or
+	 *             <code>null</code>
+	 */
+    public OutlineBase withCommand(String name, String className) {
+    	return this.withCommand(name, className, null);
+    }
+    
+    /**
+	 * Add a command by its name and class name, that is loaded via the given
+	 * class loader.
+	 * 
+	 * @param name
+	 * @param className
+	 * @param loader
+	 *            the class loader to use, or <code>null</code> to use the
+	 *            default one
+	 * @return
+	 */
+    OutlineBase withCommand(String name, String className, ClassLoader loader) {
+    	this.checkNotFrozen();
+    	
+    	if(this.singleCommandMode) {
+    		throw new IllegalStateException("Cannot add commands in single-command mode.");
+    	}
+    	
+    	if(AssertUtils.isEmpty(name)) {
+    		throw new IllegalArgumentException("Command name cannot be null/empty");
+    	}
+    	
+    	if(AssertUtils.isEmpty(className)) {
+    		throw new IllegalArgumentException("Command class name cannot be null/empty");
+    	}
+    	
+    	this.lazyCommands.put(name, className);
+    	if(loader != null) {
+    		this.lazyCommandLoaders.put(name, loader);
+    	} else {
+    		this.lazyCommandLoaders.remove(name);
+    	}
+    	
+    	this.modified();
     	return this;
     }
     
     public OutlineBase withCommands(Class<?>... commands) {
+        this.checkNotFrozen();
+        
         if(this.singleCommandMode) {
             throw new IllegalStateException("Cannot add commands in single-command mode.");
         }
@@ -123,9 +214,30 @@ public abstract class OutlineBase {
             this.commands.add(command);
         }
         
+        this.modified();
         return this;
     }
 
+    /**
+     * Invoked whenever the definition is changed via any of the builder methods,
+     * so that any compiled state derived from it can be discarded.
+     * 
+     */
+    void modified() {
+    	// nothing to do
+    }
+    
+    /**
+     * Invoked by all builder methods before they change the definition, so that
+     * a definition that cannot be changed any more is left as is.
+     * 
+     * @throws IllegalStateException
+     *             if the definition cannot be changed
+     */
+    void checkNotFrozen() {
+    	// nothing to do
+    }
+    
     /**
      * Check if we have a command for the given {@link Class}.
      * 
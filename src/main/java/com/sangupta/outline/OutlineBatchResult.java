@@ -0,0 +1,78 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+/**
+ * The outcome of parsing one command line of a batch via
+ * {@link Outline#parseAll(java.util.List)}: either the command instance, or the
+ * error that parsing the command line failed with.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineBatchResult {
+	
+	/**
+	 * The arguments that were parsed
+	 */
+	public final String[] args;
+	
+	/**
+	 * The command instance, <code>null</code> if parsing failed
+	 */
+	public final Object instance;
+	
+	/**
+	 * The error parsing failed with, <code>null</code> if it succeeded
+	 */
+	public final RuntimeException error;
+	
+	OutlineBatchResult(String[] args, Object instance, RuntimeException error) {
+		this.args = args;
+		this.instance = instance;
+		this.error = error;
+	}
+	
+	/**
+	 * Returns whether the command line was parsed successfully.
+	 * 
+	 * @return
+	 */
+	public boolean isSuccess() {
+		return this.error == null;
+	}
+	
+	/**
+	 * Return the command instance, rethrowing the error if parsing failed.
+	 * 
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getInstance() {
+		if(this.error != null) {
+			throw this.error;
+		}
+		
+		return (T) this.instance;
+	}
+
+}
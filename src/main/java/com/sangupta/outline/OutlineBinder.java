@@ -21,24 +21,21 @@
  
 package com.sangupta.outline;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.sangupta.jerry.ds.SimpleMultiMap;
 import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.jerry.util.ReflectionUtils;
-import com.sangupta.outline.annotations.Argument;
-import com.sangupta.outline.annotations.Arguments;
-import com.sangupta.outline.annotations.Option;
-import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
 import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
 import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+import com.sangupta.outline.util.OutlineFieldSetter;
 import com.sangupta.outline.util.OutlineUtil;
 
 /**
@@ -52,7 +49,11 @@ class OutlineBinder {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(OutlineBinder.class);
     
-    final static Map<Class<?>, OutlineTypeConverter<?>> converters = new HashMap<>();
+    /**
+     * The globally registered type converters - outlines that are not frozen
+     * use this map as is, while frozen ones work with a copy
+     */
+    final static Map<Class<?>, OutlineTypeConverter<?>> converters = new ConcurrentHashMap<>();
     
     static <T> void registerTypeConverter(Class<T> classOfT, OutlineTypeConverter<T> converter) {
         converters.put(classOfT, converter);
@@ -62,113 +63,241 @@ class OutlineBinder {
      * Bind the resultant properties that we have got to the object instance. So that
      * the instance is ready-for-use.
      * 
+     * @param clazz
+     * @param spec
      * @param instance
      * @param result
      */
-    public static void bindInstanceToProperties(Class<?> clazz, Object instance, OutlineParseResult result) {
-        List<Field> fields = OutlineUtil.getAllFields(clazz);
-        bindAllOptions(fields, instance, result);
+    public static void bindInstanceToProperties(Class<?> clazz, CommandSpec spec, Object instance, OutlineParseResult result) {
+        bindAllOptions(clazz, spec.options, instance, result);
         
-        int startOrder = bindAllArgumentsWithOrder(fields, instance, result);
+        int startOrder = bindAllArgumentsWithOrder(clazz, spec.arguments, instance, result);
         
-        bindRemainingArguments(fields, instance, result, startOrder);
+        bindRemainingArguments(clazz, spec.arguments, instance, result, startOrder);
     }
 
     /**
      * Bind all the remaining arguments that havae not yet been set using <code>@Argument</code> annotation
      * to any field that requires <code>@Arguments</code> annotation.
      *  
-     * @param fields
+     * @param clazz
+     * @param arguments
      * @param instance
      * @param result
      * @param startOrder
      */
-    private static void bindRemainingArguments(List<Field> fields, Object instance, OutlineParseResult result, int startOrder) {
-        List<String> remaining;
-        if(startOrder > 0) {
-            remaining = result.arguments.subList(startOrder, result.arguments.size());
-        } else {
-            remaining = result.arguments;
-        }
-        
-        for(Field field : fields) {
-            Arguments arguments = field.getAnnotation(Arguments.class);
-            if(arguments == null) {
+    private static void bindRemainingArguments(Class<?> clazz, List<ArgumentSpec> arguments, Object instance, OutlineParseResult result, int startOrder) {
+        for(int index = 0; index < arguments.size(); index++) {
+        	ArgumentSpec argument = arguments.get(index);
+            if(!argument.remaining) {
                 continue;
             }
             
-            if(arguments.required()) {
-            	throw new OutlineRequiredOptionMissingException("Missing mandatory 'arguments' at the last.");
+            OutlineFieldSetter setter = getSetter(clazz, argument.declaringClass, argument.field);
+            Class<?> fieldClass = setter.field.getType();
+            if(isPrimitiveArray(result, fieldClass)) {
+            	bindArrayToField(setter, instance, getRemainingArgumentArray(result, startOrder, argument, fieldClass));
+            	return;
             }
-
-            bindValueToField(field, instance, remaining);
+            
+            bindValueToField(setter, instance, getRemainingArguments(result, startOrder, argument), result.converters);
             return;
         }
     }
 
-    private static int bindAllArgumentsWithOrder(List<Field> fields, Object instance, OutlineParseResult result) {
+    private static int bindAllArgumentsWithOrder(Class<?> clazz, List<ArgumentSpec> arguments, Object instance, OutlineParseResult result) {
         int maxOrderRead = -1;
         
-        for(Field field : fields) {
-            Argument argument = field.getAnnotation(Argument.class);
-            if(argument == null) {
+        for(int index = 0; index < arguments.size(); index++) {
+        	ArgumentSpec argument = arguments.get(index);
+            if(argument.remaining) {
                 continue;
             }
             
-            int order = argument.order();
-            if(order >= result.arguments.size()) {
-                if(argument.required()) {
-                    throw new OutlineRequiredOptionMissingException("missing mandatory argument param");
-                }
-                
+            String value = getArgumentValue(result, argument);
+            if(value == null) {
                 continue;
             }
             
-            maxOrderRead = Math.max(maxOrderRead, order);
+            maxOrderRead = Math.max(maxOrderRead, argument.order);
             
-            bindValueToField(field, instance, result.arguments.get(order));
+            bindValueToField(getSetter(clazz, argument.declaringClass, argument.field), instance, value, result.converters);
         }
         
         return maxOrderRead + 1;
     }
-
-    private static void bindAllOptions(List<Field> fields, Object instance, OutlineParseResult result) {
-        for(Field field : fields) {
-            // check for @Option annotation
-            Option option = field.getAnnotation(Option.class);
-            if(option == null) {
-                continue;
-            }
-
-            String[] names = option.name();
-            OptionType type = option.type();
-            List<String> values = null;
-            switch(type) {
-                case COMMAND:
-                    values = getOptionValues(result.commandOptions, names);
-                    break;
-                    
-                case GLOBAL:
-                    values = getOptionValues(result.globalOptions, names);
-                    break;
-                    
-                case GROUP:
-                    values = getOptionValues(result.groupOptions, names);
-                    break;
-                    
-                default:
-                    break;
-            }
-            
-            if(option.required() && AssertUtils.isEmpty(values)) {
-                throw new OutlineRequiredOptionMissingException(option.name()[0]);
+    
+    /**
+	 * Return the value of the positional argument as specified by the given
+	 * {@link ArgumentSpec}.
+	 * 
+	 * @param result
+	 *            the parse result to read values from
+	 * 
+	 * @param argument
+	 *            the argument to read value for
+	 * 
+	 * @return the argument value, or <code>null</code> if no value was supplied
+	 *         at the given position
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the argument is required and no value was supplied
+	 */
+    static String getArgumentValue(OutlineParseResult result, ArgumentSpec argument) {
+        int order = argument.order;
+        if(order >= result.getArgumentCount()) {
+            if(argument.required) {
+                throw new OutlineRequiredOptionMissingException("missing mandatory argument param");
             }
             
-            bindValueToField(field, instance, values);
+            return null;
         }
+        
+        return result.getArgument(order);
+    }
+    
+    /**
+	 * Return all the remaining arguments that have not yet been set using
+	 * <code>@Argument</code> annotation so that they can be bound to a field
+	 * with <code>@Arguments</code> annotation.
+	 * 
+	 * @param result
+	 *            the parse result to read values from
+	 * 
+	 * @param startOrder
+	 *            the position from which the remaining arguments start
+	 * 
+	 * @param arguments
+	 *            the spec of the field being bound
+	 * 
+	 * @return the remaining arguments
+	 */
+    static List<String> getRemainingArguments(OutlineParseResult result, int startOrder, ArgumentSpec arguments) {
+        if(arguments.required) {
+        	throw new OutlineRequiredOptionMissingException("Missing mandatory 'arguments' at the last.");
+        }
+        
+        return result.getArguments(startOrder);
     }
 
-    private static void bindValueToField(Field field, Object instance, Object value) {
+    private static void bindAllOptions(Class<?> clazz, List<OptionSpec> options, Object instance, OutlineParseResult result) {
+        for(int index = 0; index < options.size(); index++) {
+        	OptionSpec option = options.get(index);
+        	OutlineFieldSetter setter = getSetter(clazz, option.declaringClass, option.field);
+        	Class<?> fieldClass = setter.field.getType();
+        	if(isPrimitiveArray(result, fieldClass)) {
+        		bindArrayToField(setter, instance, getOptionValueArray(result, option, fieldClass));
+        		continue;
+        	}
+        	
+            bindValueToField(setter, instance, getOptionValues(result, option), result.converters);
+        }
+    }
+    
+    /**
+	 * Check if the given field type is bound by the built-in
+	 * {@link OutlinePrimitiveArrayConverter}, and so its values can be parsed
+	 * straight from the parse result.
+	 * 
+	 */
+    static boolean isPrimitiveArray(OutlineParseResult result, Class<?> fieldClass) {
+    	return fieldClass.isArray() && fieldClass.getComponentType().isPrimitive() && result.converters.get(fieldClass) instanceof OutlinePrimitiveArrayConverter;
+    }
+    
+    /**
+	 * Return all values that were parsed for the given {@link OptionSpec}, as
+	 * an array of the given primitive type.
+	 * 
+	 * @return the array, or <code>null</code> if there are no values
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the option is required and no value was found
+	 */
+    static Object getOptionValueArray(OutlineParseResult result, OptionSpec option, Class<?> arrayType) {
+    	Object array = result.getOptionValueArray(option.type, option.names, arrayType);
+    	if(array == null && option.required) {
+    		throw new OutlineRequiredOptionMissingException(option.name);
+    	}
+    	
+    	return array;
+    }
+    
+    /**
+	 * Return all the remaining arguments, as
+	 * {@link #getRemainingArguments(OutlineParseResult, int, ArgumentSpec)}
+	 * does, as an array of the given primitive type.
+	 * 
+	 * @return the array, or <code>null</code> if there are no arguments
+	 */
+    static Object getRemainingArgumentArray(OutlineParseResult result, int startOrder, ArgumentSpec arguments, Class<?> arrayType) {
+    	if(arguments.required) {
+    		throw new OutlineRequiredOptionMissingException("Missing mandatory 'arguments' at the last.");
+    	}
+    	
+    	return result.getArgumentArray(startOrder, arrayType);
+    }
+    
+    static void bindArrayToField(OutlineFieldSetter setter, Object instance, Object array) {
+    	if(array == null) {
+    		return;
+    	}
+    	
+    	try {
+    		setter.set(instance, array);
+    	} catch (IllegalArgumentException | IllegalAccessException e) {
+    		LOGGER.warn("Unable to set field value", e);
+    	}
+    }
+    
+    /**
+	 * Return all values that were parsed for the given {@link OptionSpec} from
+	 * the scope that the option belongs to.
+	 * 
+	 * @param result
+	 *            the parse result to read values from
+	 * 
+	 * @param option
+	 *            the option to read values for
+	 * 
+	 * @return the list of values, never <code>null</code>
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the option is required and no value was found
+	 */
+    static List<String> getOptionValues(OutlineParseResult result, OptionSpec option) {
+        List<String> values = result.getOptionValues(option.type, option.names);
+        
+        if(option.required && AssertUtils.isEmpty(values)) {
+            throw new OutlineRequiredOptionMissingException(option.name);
+        }
+        
+        return values;
+    }
+    
+    /**
+	 * Return the setter of the field of the given class that a spec is bound
+	 * to, declared by the given class if known.
+	 * 
+	 * @throws OutlineInvalidConfigurationException
+	 *             if no such field exists
+	 */
+    static OutlineFieldSetter getSetter(Class<?> clazz, String declaringClass, String name) {
+    	OutlineFieldSetter setter = OutlineUtil.getFieldSetter(clazz, declaringClass, name);
+    	if(setter == null) {
+    		throw new OutlineInvalidConfigurationException(clazz.getName(), name, "No such field in command class");
+    	}
+    	
+    	return setter;
+    }
+
+    /**
+	 * Bind the value to the field via its setter, after converting it with the
+	 * type converter registered for the type of the field, if any. A list
+	 * of values is bound as its only value if it has one, and not at all if it
+	 * is empty.
+	 * 
+	 */
+    static void bindValueToField(OutlineFieldSetter setter, Object instance, Object value, Map<Class<?>, OutlineTypeConverter<?>> converters) {
         if(value instanceof List<?>) {
             List<?> values = (List<?>) value;
             
@@ -177,35 +306,21 @@ class OutlineBinder {
             }
             
             if(values.size() == 1) {
-                bindValueToField(field, instance, values.get(0));
+                bindValueToField(setter, instance, values.get(0), converters);
                 return;
             }
         }
         
-        Class<?> fieldClass = field.getType();
-        if(converters.containsKey(fieldClass)) {
-            value = converters.get(fieldClass).convertFrom(field, instance, value);
+        OutlineTypeConverter<?> converter = converters.get(setter.field.getType());
+        if(converter != null) {
+            value = converter.convertFrom(setter.field, instance, value);
         }
         
         try {
-            ReflectionUtils.bindValue(field, instance, value);
+            setter.set(instance, value);
         } catch (IllegalArgumentException | IllegalAccessException e) {
-            LOGGER.warn("Unable to set field value via reflection", e);
+            LOGGER.warn("Unable to set field value", e);
         }
     }
 
-    private static List<String> getOptionValues(SimpleMultiMap<String, String> options, String[] names) {
-        List<String> values = new ArrayList<>();
-        
-        for(String name : names) {
-            List<String> list = options.getValues(name);
-            if(list == null || list.isEmpty()) {
-                continue;
-            }
-            
-            values.addAll(list);
-        }
-        
-        return values;
-    }
 }
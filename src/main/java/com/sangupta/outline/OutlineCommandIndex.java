@@ -0,0 +1,111 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sangupta.jerry.util.AssertUtils;
+
+/**
+ * Reads the command index written by the <code>outline-processor</code> and
+ * registers all the commands listed in it with an {@link Outline}. Each line of
+ * the index holds the command class name, the command name and the group
+ * separated by tabs. The commands are registered via their name and class name
+ * and are thus loaded only when invoked.
+ * 
+ * @author sangupta
+ *
+ */
+class OutlineCommandIndex {
+	
+	/**
+     * My private logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutlineCommandIndex.class);
+	
+	/**
+	 * The index resource written by the annotation processor
+	 */
+	static final String COMMANDS_INDEX = "META-INF/outline/commands.idx";
+	
+	/**
+	 * Register all commands from all indexes visible to the given class loader.
+	 * 
+	 * @param outline
+	 *            the outline to register commands with
+	 * 
+	 * @param loader
+	 *            the class loader to read indexes from
+	 * 
+	 * @return the number of commands registered
+	 */
+	static int discover(Outline outline, ClassLoader loader) {
+		int count = 0;
+		try {
+			Enumeration<URL> urls = loader.getResources(COMMANDS_INDEX);
+			while(urls.hasMoreElements()) {
+				count += discover(outline, urls.nextElement(), loader);
+			}
+		} catch(IOException e) {
+			LOGGER.warn("Unable to read outline command index", e);
+		}
+		
+		return count;
+	}
+	
+	private static int discover(Outline outline, URL url, ClassLoader loader) throws IOException {
+		int count = 0;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				String[] tokens = line.split("\t", -1);
+				if(tokens.length < 2 || AssertUtils.isEmpty(tokens[0]) || AssertUtils.isEmpty(tokens[1])) {
+					continue;
+				}
+				
+				String className = tokens[0];
+				String name = tokens[1];
+				String group = tokens.length > 2 ? tokens[2] : null;
+				
+				if(AssertUtils.isEmpty(group)) {
+					outline.withCommand(name, className, loader);
+				} else {
+					outline.withGroup(group).withCommand(name, className, loader);
+				}
+				
+				count++;
+			}
+		}
+		
+		return count;
+	}
+
+}
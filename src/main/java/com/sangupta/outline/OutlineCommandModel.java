@@ -0,0 +1,71 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.CommandSpec;
+
+/**
+ * Compile-time model of a single {@link Command} class. Implementations are
+ * generated by the <code>outline-processor</code> annotation processor and are
+ * picked up automatically when present, in which case {@link Outline} reads
+ * neither the annotations nor the fields of the command class via reflection.
+ * 
+ * @author sangupta
+ *
+ */
+public interface OutlineCommandModel {
+	
+	/**
+	 * Return the {@link CommandSpec} of the command class, with all options and
+	 * arguments including the ones inherited from super classes.
+	 * 
+	 * @return
+	 */
+	public CommandSpec getCommand();
+	
+	/**
+	 * Inject the given {@link OutlineHelp} instance in all fields annotated with
+	 * <code>@Inject</code> that can hold it.
+	 * 
+	 * @param instance
+	 *            the command instance to inject into
+	 * 
+	 * @param help
+	 *            the help instance to inject
+	 */
+	public void injectHelp(Object instance, OutlineHelp help);
+	
+	/**
+	 * Bind all option and argument values from the parse result to the command
+	 * instance.
+	 * 
+	 * @param instance
+	 *            the command instance to bind values to
+	 * 
+	 * @param result
+	 *            the result of parsing the arguments
+	 */
+	public void bind(Object instance, OutlineParseResult result);
+
+}
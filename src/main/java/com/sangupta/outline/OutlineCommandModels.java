@@ -0,0 +1,127 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Locates the {@link OutlineCommandModel} implementations generated by the
+ * <code>outline-processor</code>. The processor writes an index file that maps
+ * each command class to its generated model, and thus finding the models costs
+ * a single resource lookup per class loader, even when no models are present.
+ * 
+ * @author sangupta
+ *
+ */
+class OutlineCommandModels {
+	
+	/**
+     * My private logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutlineCommandModels.class);
+	
+	/**
+	 * The index resource written by the annotation processor
+	 */
+	static final String MODELS_INDEX = "META-INF/outline/models.idx";
+	
+	/**
+	 * Mapping between the command class name and the generated model class name
+	 */
+	private final Map<String, String> index = new HashMap<>();
+	
+	/**
+	 * The class loaders whose indexes have already been read
+	 */
+	private final Set<ClassLoader> loaders = new HashSet<>();
+	
+	/**
+	 * Return the generated model for the given command class, or
+	 * <code>null</code> if none is available in which case reflection must be
+	 * used. The index of the class loader of the command class is read on first
+	 * use.
+	 * 
+	 * @param commandClass
+	 * @return
+	 */
+	synchronized OutlineCommandModel get(Class<?> commandClass) {
+		ClassLoader loader = commandClass.getClassLoader();
+		if(loader == null) {
+			return null;
+		}
+		
+		if(this.loaders.add(loader)) {
+			this.readIndex(loader);
+		}
+		
+		String modelClassName = this.index.get(commandClass.getName());
+		if(modelClassName == null) {
+			return null;
+		}
+		
+		try {
+			Class<?> modelClass = Class.forName(modelClassName, true, loader);
+			return (OutlineCommandModel) modelClass.newInstance();
+		} catch(ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+			LOGGER.warn("Unable to load generated model {}, falling back to reflection", modelClassName, e);
+			return null;
+		}
+	}
+	
+	private void readIndex(ClassLoader loader) {
+		try {
+			Enumeration<URL> urls = loader.getResources(MODELS_INDEX);
+			while(urls.hasMoreElements()) {
+				readIndex(urls.nextElement());
+			}
+		} catch(IOException e) {
+			LOGGER.warn("Unable to read outline model index", e);
+		}
+	}
+
+	private void readIndex(URL url) throws IOException {
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				int index = line.indexOf('=');
+				if(index <= 0) {
+					continue;
+				}
+				
+				this.index.put(line.substring(0, index).trim(), line.substring(index + 1).trim());
+			}
+		}
+	}
+
+}
@@ -21,14 +21,34 @@
  
 package com.sangupta.outline;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.sangupta.jerry.ds.SimpleMultiMap;
-import com.sangupta.outline.annotations.Command;
-import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.parser.OutlineTokenTrie;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
 
 public class OutlineMetadata {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutlineMetadata.class);
+	
+	/**
+	 * The token that separates options from arguments
+	 */
+	public static final String SEPARATOR = "--";
     
     public final boolean singleCommandMode;
     
@@ -39,12 +59,20 @@ public class OutlineMetadata {
     public final boolean helpOnIncorrectArguments;
     
     public final String helpKeyword;
+    
+    public final boolean argumentFiles;
+    
+    public final boolean abbreviations;
+    
+    public final boolean permutation;
+    
+    public final boolean runtimeModels;
 
     /**
      * Mapping between all applicable global options - their name and actual
-     * {@link Option} instance
+     * {@link OptionSpec} instance
      */
-    public final Map<String, Option> globalOptions = new HashMap<>();
+    public final Map<String, OptionSpec> globalOptions = new HashMap<>();
     
     /**
 	 * Mapping between each command name and the corresponding {@link Class}
@@ -53,49 +81,265 @@ public class OutlineMetadata {
     public final Map<String, Class<?>> commandClasses = new HashMap<>();
     
     /**
-     * Mapping between each command and all its arguments that are applicable.
-     * 
-     */
-    public final SimpleMultiMap<String, Object> commandArguments = new SimpleMultiMap<>();
+	 * Mapping between each command and all its arguments that are applicable,
+	 * sorted in the order they are read.
+	 * 
+	 */
+    public final SimpleMultiMap<String, ArgumentSpec> commandArguments = new SimpleMultiMap<>();
     
     /**
-     * Mapping between each command name and the {@link Command} object
+     * Mapping between each command name and the {@link CommandSpec} object
      */
-    public final Map<String, Command> commandNames = new HashMap<>();
+    public final Map<String, CommandSpec> commandNames = new HashMap<>();
     
     /**
-	 * Mapping between the group name and all the {@link Command} objects for
-	 * all commands that fall under that group
+	 * Mapping between the group name and all the {@link CommandSpec} objects
+	 * for all commands that fall under that group
 	 */
-    public final SimpleMultiMap<String, Command> commandGroups = new SimpleMultiMap<>();
+    public final SimpleMultiMap<String, CommandSpec> commandGroups = new SimpleMultiMap<>();
     
     /**
-	 * Mapping between the group name and all the {@link Option}s that are
+	 * Mapping between the group name and all the {@link OptionSpec}s that are
 	 * applicable to that group
 	 */
-    public final Map<String, Map<String, Option>> groupOptions = new HashMap<>();
+    public final Map<String, Map<String, OptionSpec>> groupOptions = new HashMap<>();
     
     /**
-     * Mapping between the command name and all {@link Option}s that are applicable to
+     * Mapping between the command name and all {@link OptionSpec}s that are applicable to
      * the command.
      */
-    public final Map<String, Map<String, Option>> commandOptions = new HashMap<>();
+    public final Map<String, Map<String, OptionSpec>> commandOptions = new HashMap<>();
     
     /**
-     * Mapping between the option annotation and the class type for the field its put on.
-     * This way we know that option applies to boolean, or to int, or to double and so on.
-     * 
+	 * Mapping between the command name and the compile-time generated
+	 * {@link OutlineCommandModel}, for commands that have one
+	 */
+    public final Map<String, OutlineCommandModel> commandModels = new HashMap<>();
+    
+    /**
+	 * Mapping between the command name and the {@link OutlineRuntimeModel}
+	 * built for it, or {@link OutlineRuntimeModel#UNAVAILABLE} if it could not
+	 * be built - filled on first use of each command
+	 */
+    final ConcurrentMap<String, Object> runtimeModelCache = new ConcurrentHashMap<>();
+    
+    /**
+     * All names known to this outline, used to classify each token in one pass
      */
-    public final Map<Option, Class<?>> optionFieldType = new HashMap<>();
+    public final OutlineTokenTrie tokens = new OutlineTokenTrie();
     
-    OutlineMetadata(Outline outline) {
+    /**
+	 * Commands that have been registered via their name and class name, and
+	 * whose classes have not been loaded yet
+	 */
+    final Map<String, OutlineMetadataReader.LazyCommand> lazyCommands = new HashMap<>();
+    
+    /**
+     * All groups that have lazily registered commands
+     */
+    final Set<String> lazyGroups = new HashSet<>();
+    
+    /**
+     * The generated models to use for commands that are loaded later
+     */
+    final OutlineCommandModels models;
+    
+    /**
+     * The type converters to use when binding values. For a frozen outline this
+     * is an immutable copy of the converters registered at the time of freezing.
+     */
+    public final Map<Class<?>, OutlineTypeConverter<?>> converters;
+    
+    /**
+     * Whether this metadata belongs to a frozen outline, and thus never changes
+     * once all commands have been loaded
+     */
+    final boolean frozen;
+    
+    OutlineMetadata(Outline outline, OutlineCommandModels models) {
+        this.models = models;
+        this.frozen = outline.frozen;
+        this.converters = outline.frozen ? Collections.unmodifiableMap(new HashMap<>(OutlineBinder.converters)) : OutlineBinder.converters;
         this.name = outline.name;
         this.description = outline.description;
         this.singleCommandMode = outline.singleCommandMode;
         this.helpOnIncorrectArguments = outline.isHelpOnIncorrectArguments();
         this.helpKeyword = outline.helpKeyword;
+        this.argumentFiles = outline.argumentFiles;
+        this.abbreviations = outline.abbreviations;
+        this.permutation = outline.permutation;
+        this.runtimeModels = outline.runtimeModels;
+        
+        this.tokens.putHelpKeyword(this.helpKeyword);
+        this.tokens.putSeparator(SEPARATOR);
     }
 
+    /**
+	 * Check if the given name is that of a command, including the commands that
+	 * have been registered lazily and not been loaded yet.
+	 * 
+	 * @param name
+	 * @return
+	 */
+    public boolean isCommand(String name) {
+    	return this.commandNames.containsKey(name) || this.lazyCommands.containsKey(name);
+    }
+    
+    /**
+	 * Check if the given name is that of a group, including the groups of
+	 * commands that have been registered lazily and not been loaded yet.
+	 * 
+	 * @param name
+	 * @return
+	 */
+    public boolean isGroup(String name) {
+    	return this.commandGroups.containsKey(name) || this.lazyGroups.contains(name);
+    }
+    
+    /**
+	 * Return the {@link CommandSpec} for all commands. For commands that have
+	 * not been loaded yet, only the annotation of the class is read, and the
+	 * returned spec does not carry any options or arguments.
+	 * 
+	 * @return
+	 */
+    public Collection<CommandSpec> getCommands() {
+    	if(this.lazyCommands.isEmpty()) {
+    		return this.commandNames.values();
+    	}
+    	
+    	List<CommandSpec> commands = new ArrayList<>(this.commandNames.values());
+    	for(OutlineMetadataReader.LazyCommand lazy : this.lazyCommands.values()) {
+    		CommandSpec command = lazy.getCommandSpec();
+    		if(command != null) {
+    			commands.add(command);
+    		}
+    	}
+    	
+    	return commands;
+    }
+    
+    /**
+	 * Return the {@link CommandSpec} for all commands in the given group. For
+	 * commands that have not been loaded yet, only the annotation of the class
+	 * is read, and the returned spec does not carry any options or arguments.
+	 * 
+	 * @param group
+	 * @return
+	 */
+    public Collection<CommandSpec> getGroupCommands(String group) {
+    	List<CommandSpec> commands = new ArrayList<>();
+    	
+    	List<CommandSpec> loaded = this.commandGroups.getValues(group);
+    	if(loaded != null) {
+    		commands.addAll(loaded);
+    	}
+    	
+    	if(!this.lazyGroups.contains(group)) {
+    		return commands;
+    	}
+    	
+    	for(OutlineMetadataReader.LazyCommand lazy : this.lazyCommands.values()) {
+    		if(!group.equals(lazy.group)) {
+    			continue;
+    		}
+    		
+    		CommandSpec command = lazy.getCommandSpec();
+    		if(command != null) {
+    			commands.add(command);
+    		}
+    	}
+    	
+    	return commands;
+    }
+    
+    /**
+	 * Load the metadata of a lazily registered command, if it has not been
+	 * loaded yet.
+	 * 
+	 * @param name
+	 *            the command name
+	 * 
+	 * @return <code>true</code> if the command was loaded by this call,
+	 *         <code>false</code> otherwise
+	 */
+    boolean loadCommand(String name) {
+    	if(this.frozen) {
+    		// all commands were loaded when freezing
+    		return false;
+    	}
+    	
+    	synchronized(this) {
+	    	if(this.lazyCommands.isEmpty()) {
+	    		return false;
+	    	}
+	    	
+	    	return OutlineMetadataReader.loadCommand(this, name);
+    	}
+    }
+    
+    /**
+	 * Check if any lazily registered command is yet to be loaded.
+	 * 
+	 * @return <code>true</code> if there is such a command, <code>false</code>
+	 *         otherwise
+	 */
+    synchronized boolean hasLazyCommands() {
+    	return !this.lazyCommands.isEmpty();
+    }
+    
+    /**
+	 * Load the metadata of all lazily registered commands. Once done, parsing
+	 * never modifies this metadata.
+	 * 
+	 */
+    synchronized void loadAllCommands() {
+    	List<String> names = new ArrayList<>(this.lazyCommands.keySet());
+    	for(String name : names) {
+    		OutlineMetadataReader.loadCommand(this, name);
+    	}
+    }
+    
+    /**
+	 * Return the model to bind the given command with: the generated one if
+	 * there is one, else the one built at runtime if enabled, building it on
+	 * first use.
+	 * 
+	 * @param name
+	 *            the command name
+	 * 
+	 * @return the model, or <code>null</code> if the command is to be bound
+	 *         via reflection
+	 */
+    OutlineCommandModel getCommandModel(String name) {
+    	OutlineCommandModel model = this.commandModels.get(name);
+    	if(model != null || !this.runtimeModels) {
+    		return model;
+    	}
+    	
+    	Object cached = this.runtimeModelCache.get(name);
+    	if(cached == null) {
+    		try {
+    			cached = new OutlineRuntimeModel(this.commandClasses.get(name), this.commandNames.get(name));
+    		} catch(RuntimeException e) {
+    			LOGGER.warn("Unable to build runtime model for command: {}, binding via reflection", name, e);
+    			cached = OutlineRuntimeModel.UNAVAILABLE;
+    		}
+    		
+    		// two threads may build the model at once, and both are the same
+    		Object existing = this.runtimeModelCache.putIfAbsent(name, cached);
+    		if(existing != null) {
+    			cached = existing;
+    		}
+    	}
+    	
+    	if(cached == OutlineRuntimeModel.UNAVAILABLE) {
+    		return null;
+    	}
+    	
+    	return (OutlineCommandModel) cached;
+    }
+    
     /**
      * Validate the metadata
      * 
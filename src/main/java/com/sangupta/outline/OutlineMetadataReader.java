@@ -1,23 +1,23 @@
 package com.sangupta.outline;
 
-import java.lang.reflect.Field;
-import java.util.Collections;
-import java.util.Comparator;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.outline.annotations.Argument;
-import com.sangupta.outline.annotations.Arguments;
 import com.sangupta.outline.annotations.Command;
-import com.sangupta.outline.annotations.Option;
 import com.sangupta.outline.annotations.OptionType;
 import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
+import com.sangupta.outline.parser.OutlineTokenTrie;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+import com.sangupta.outline.util.OutlineFieldDescriptor;
 import com.sangupta.outline.util.OutlineUtil;
 
 /**
@@ -34,42 +34,6 @@ public class OutlineMetadataReader {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(OutlineMetadataReader.class);
 
-    public static final Comparator<Object> ARGUMENTS_SORTER = new Comparator<Object>() {
-		
-		@Override
-		public int compare(Object o1, Object o2) {
-			if(!isValidType(o1) || !isValidType(o2)) {
-				throw new IllegalArgumentException("The collection should only have Argument/Arguments");
-			}
-			
-			if(o1 instanceof Arguments) {
-				return 1;
-			}
-			
-			if(o2 instanceof Arguments) {
-				return -1;
-			}
-			
-			Argument a1 = (Argument) o1;
-			Argument a2 = (Argument) o2;
-			
-			return Integer.compare(a1.order(), a2.order()); 
-		}
-		
-		private boolean isValidType(Object obj) {
-			if(obj instanceof Argument) {
-				return true;
-			}
-			
-			if(obj instanceof Arguments) {
-				return true;
-			}
-			
-			return false;
-		}
-		
-	};
-
 	/**
      * Read the {@link Outline} and generate the {@link OutlineMetadata} that contains
      * all information that is required to populate command needed, and all its arguments.
@@ -78,105 +42,266 @@ public class OutlineMetadataReader {
      * @return
      */
     static OutlineMetadata getMetadata(Outline outline) {
-        OutlineMetadata metadata = new OutlineMetadata(outline);
+        // find any compile-time generated models
+        OutlineCommandModels models = new OutlineCommandModels();
+        
+        // check if we can use a previously written snapshot
+        final File snapshot = outline.metadataSnapshot;
+        long fingerprint = 0;
+        if(snapshot != null) {
+        	fingerprint = OutlineMetadataSnapshot.fingerprint(outline);
+        	
+        	List<CommandData> commands = OutlineMetadataSnapshot.read(snapshot, fingerprint, outline);
+        	if(commands != null) {
+        		addCommandSpecs(outline, commands);
+        		return buildMetadata(outline, commands, models);
+        	}
+        }
         
         // read all command classes and figure out all commands
+        List<CommandData> commands = new ArrayList<>();
         for(Class<?> commandClass : outline.commands) {
+        	if(outline.commandSpecs.containsKey(commandClass)) {
+        		// defined programmatically
+        		continue;
+        	}
+        	
             // read command details
-            readCommandData(commandClass, outline, metadata);
+            CommandData data = readCommandData(commandClass, models.get(commandClass), outline);
+            if(data != null) {
+            	commands.add(data);
+            }
+        }
+        
+        // save the snapshot for next time
+        if(snapshot != null) {
+        	OutlineMetadataSnapshot.write(snapshot, fingerprint, commands);
+        }
+        
+        addCommandSpecs(outline, commands);
+        return buildMetadata(outline, commands, models);
+    }
+    
+    /**
+	 * Add the data for all commands that have been defined programmatically.
+	 * These are never a part of the snapshot.
+	 * 
+	 * @param outline
+	 * @param commands
+	 */
+    private static void addCommandSpecs(Outline outline, List<CommandData> commands) {
+    	for(Map.Entry<Class<?>, CommandSpec> entry : outline.commandSpecs.entrySet()) {
+    		commands.add(new CommandData(entry.getKey(), entry.getValue(), resolveGroup(entry.getValue(), outline.getCommandGroup(entry.getKey()))));
+    	}
+    }
+    
+    /**
+	 * Build the {@link OutlineMetadata} from the data read for each command.
+	 * 
+	 * @param outline
+	 * @param commands
+	 * @param models
+	 * @return
+	 */
+    private static OutlineMetadata buildMetadata(Outline outline, List<CommandData> commands, OutlineCommandModels models) {
+    	OutlineMetadata metadata = new OutlineMetadata(outline, models);
+    	
+    	for(CommandData data : commands) {
+    		addCommand(metadata, data);
+    	}
+    	
+        // commands registered by name are only loaded when needed
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if(classLoader == null) {
+        	classLoader = Outline.class.getClassLoader();
         }
         
-        // sort arguments
-        sortCommandArguments(metadata);
+        addLazyCommands(metadata, outline, null, classLoader);
+        for(OutlineBase group : outline.groups.values()) {
+        	addLazyCommands(metadata, group, group.name, classLoader);
+        }
         
         return metadata;
     }
-
-	private static void sortCommandArguments(OutlineMetadata metadata) {
-		if(!metadata.commandArguments.isEmpty()) {
-            Set<String> keys = metadata.commandArguments.keySet();
-            for(String key : keys) {
-            	List<Object> arguments = metadata.commandArguments.getValues(key);
-            	Collections.sort(arguments, ARGUMENTS_SORTER);
-            }
-        	
+    
+    private static void addCommand(OutlineMetadata metadata, CommandData data) {
+    	final CommandSpec spec = data.spec;
+    	final String commandName = spec.name;
+		
+        // the command is valid
+        metadata.commandNames.put(commandName, spec);
+        metadata.commandClasses.put(commandName, data.commandClass);
+        metadata.tokens.putCommand(commandName);
+        
+        if(data.group != null && !data.group.trim().isEmpty()) {
+            // command has an associated group
+            metadata.commandGroups.put(data.group, spec);
+            metadata.tokens.putGroup(data.group);
+        }
+        
+        // the generated model, if any, is used for binding
+        OutlineCommandModel model = metadata.models.get(data.commandClass);
+        if(model != null) {
+        	metadata.commandModels.put(commandName, model);
         }
+        
+        // the spec keeps the arguments sorted already
+        for(ArgumentSpec argument : spec.arguments) {
+        	metadata.commandArguments.put(commandName, argument);
+        }
+        
+        for(OptionSpec option : spec.options) {
+        	readOption(metadata, commandName, data.group, option);
+        }
+    }
+    
+    private static void addLazyCommands(OutlineMetadata metadata, OutlineBase base, String group, ClassLoader defaultClassLoader) {
+    	for(Map.Entry<String, String> entry : base.lazyCommands.entrySet()) {
+    		String name = entry.getKey();
+    		if(metadata.commandNames.containsKey(name)) {
+    			LOGGER.warn("Command {} has already been registered via its class, ignoring {}", name, entry.getValue());
+    			continue;
+    		}
+    		
+    		ClassLoader classLoader = base.lazyCommandLoaders.get(name);
+    		if(classLoader == null) {
+    			classLoader = defaultClassLoader;
+    		}
+    		
+    		metadata.lazyCommands.put(name, new LazyCommand(name, entry.getValue(), group, classLoader));
+    		metadata.tokens.putCommand(name);
+    		if(group != null) {
+    			metadata.lazyGroups.add(group);
+    			metadata.tokens.putGroup(group);
+    		}
+    	}
+    }
+    
+    /**
+	 * Load a command that was registered by its name and class name, and read
+	 * all its metadata. Returns <code>false</code> if the command is not one
+	 * registered lazily, or has already been loaded.
+	 * 
+	 * @param metadata
+	 *            the metadata to which the command is added
+	 * 
+	 * @param name
+	 *            the command name as registered
+	 * 
+	 * @return <code>true</code> if the command was loaded now,
+	 *         <code>false</code> otherwise
+	 * 
+	 * @throws OutlineInvalidConfigurationException
+	 *             if the class cannot be loaded, or does not declare the
+	 *             command with the same name
+	 */
+    static boolean loadCommand(OutlineMetadata metadata, String name) {
+    	LazyCommand lazy = metadata.lazyCommands.get(name);
+    	if(lazy == null) {
+    		return false;
+    	}
+    	
+    	Class<?> commandClass = lazy.getCommandClass();
+    	Command command = lazy.getCommand();
+    	if(command == null) {
+    		throw new OutlineInvalidConfigurationException(lazy.className, null, "Command class is not annotated with @Command");
+    	}
+    	
+    	if(!name.equals(command.name())) {
+    		throw new OutlineInvalidConfigurationException(lazy.className, null, "Command registered as " + name + " but declares name " + command.name());
+    	}
+    	
+    	CommandData data = readCommandData(commandClass, metadata.models.get(commandClass), lazy.group);
+    	addCommand(metadata, data);
+    	
+    	metadata.lazyCommands.remove(name);
+    	return true;
+    }
+	
+	private static CommandData readCommandData(Class<?> commandClass, OutlineCommandModel model, Outline outline) {
+		return readCommandData(commandClass, model, outline.getCommandGroup(commandClass));
 	}
 
-	private static void readCommandData(Class<?> commandClass, Outline outline, OutlineMetadata metadata) {
-		Command command = commandClass.getAnnotation(Command.class);
-        if(command == null) {
+	private static CommandData readCommandData(Class<?> commandClass, OutlineCommandModel model, String group) {
+		CommandSpec spec;
+		if(model != null) {
+			// the generated model already knows all the fields
+			spec = model.getCommand();
+		} else {
+			spec = readCommandSpec(commandClass);
+		}
+		
+        if(spec == null) {
             LOGGER.warn("Command class {} does not have a @Command annotation, skipping loading command.", commandClass.getName());
-            return;
+            return null;
         }
         
-        final String commandName = command.name();
-        
-        if(AssertUtils.isEmpty(commandName)) {
+        return new CommandData(commandClass, spec, resolveGroup(spec, group));
+	}
+	
+	/**
+	 * Return the group of the command - the one it was added to via the API,
+	 * or else the one declared by the command itself.
+	 * 
+	 * @param spec
+	 * @param group
+	 * @return
+	 */
+	private static String resolveGroup(CommandSpec spec, String group) {
+		if(AssertUtils.isEmpty(spec.name)) {
             LOGGER.warn("Command does not have a valid name");
         }
         
-        // the command is valid
-        metadata.commandNames.put(commandName, command);
-        metadata.commandClasses.put(commandName, commandClass);
-        
         // the command group, if any
-        String group = outline.getCommandGroup(commandClass);
         if(group != null) {
-            if(AssertUtils.isNotEmpty(command.group())) {
+            if(AssertUtils.isNotEmpty(spec.group)) {
                 LOGGER.warn("Command specifies a group and has also been added via API, the API one will supersede");
             }
-        } else {
-            group = command.group();
-        }
-        
-        if(group != null && !group.trim().isEmpty()) {
-            // command has an associated group
-            metadata.commandGroups.put(group, command);
+            
+            return group;
         }
         
-        readFieldData(commandClass, metadata, commandName, group);
+        return spec.group;
 	}
 	
-	private static void readFieldData(Class<?> commandClass, OutlineMetadata metadata, final String commandName, String group) {
+	/**
+	 * Read the {@link CommandSpec} from the annotations of the command class
+	 * and all its fields.
+	 * 
+	 * @param commandClass
+	 * @return the spec, or <code>null</code> if the class is not annotated
+	 *         with <code>@Command</code>
+	 */
+	private static CommandSpec readCommandSpec(Class<?> commandClass) {
+		Command command = commandClass.getAnnotation(Command.class);
+		if(command == null) {
+			return null;
+		}
+		
+		CommandSpec.Builder builder = CommandSpec.builder(command);
+		
 		// read options from within the commandClass
-        List<Field> fields = OutlineUtil.getAllFields(commandClass);
-        if(fields.isEmpty()) {
-            // there are no fields in command
-            // let's move on
-            return;
+        for(OutlineFieldDescriptor field : OutlineUtil.getAnnotatedFields(commandClass)) {
+        	if(field.option != null) {
+        		builder.withOption(OptionSpec.of(field.option, field.field));
+        	}
+        	
+        	if(field.argument != null) {
+        		builder.withArgument(ArgumentSpec.of(field.argument, field.field));
+        	}
+        	
+        	if(field.arguments != null) {
+        		builder.withArgument(ArgumentSpec.of(field.arguments, field.field));
+        	}
         }
         
-        // we do have fields available - let's check each one
-        for(Field field : fields) {
-            readFieldData(metadata, commandName, group, field);
-        }
+        return builder.build();
 	}
 
-	private static OptionType readFieldData(OutlineMetadata metadata, final String commandName, String group, Field field) {
-		// check if command accepts arguments or not
-		Argument argument = field.getAnnotation(Argument.class);
-		if(argument != null) {
-			metadata.commandArguments.put(commandName, argument);
-		}
-		
-		Arguments arguments = field.getAnnotation(Arguments.class);
-		if(arguments != null) {
-			metadata.commandArguments.put(commandName, arguments);
-		}
-		
-		// check if field is annotated with @Option annotation
-		Option option = field.getAnnotation(Option.class);
-		if(option == null) {
-		    return null;
-		}
-		
-		// add field type so that information can be displayed in help text
-		metadata.optionFieldType.put(option, field.getType());
-		
+	private static OptionType readOption(OutlineMetadata metadata, final String commandName, String group, OptionSpec option) {
 		// the field is an argument - read it
-		OptionType type = option.type();
-		Map<String, Option> map;
+		OptionType type = option.type;
+		Map<String, OptionSpec> map;
 		switch(type) {
 		    case COMMAND:
 		        map = metadata.commandOptions.get(commandName);
@@ -185,20 +310,24 @@ public class OutlineMetadataReader {
 		            metadata.commandOptions.put(commandName, map);
 		        }
 		        
-		        for(String name : option.name()) {
+		        for(String name : option.names) {
 		            map.put(name, option);
 		        }
+		        
+		        metadata.tokens.putOption(metadata.tokens.putCommand(commandName).getCommandScope(), option);
 		        break;
 		    
 		    case GLOBAL:
-		        for(String name : option.name()) {
+		        for(String name : option.names) {
 		            metadata.globalOptions.put(name, option);
 		        }
+		        
+		        metadata.tokens.putOption(OutlineTokenTrie.GLOBAL_SCOPE, option);
 		        break;
 		    
 		    case GROUP:
 		    	if(metadata.singleCommandMode) {
-		    		throw new OutlineInvalidConfigurationException(commandName, field.getName(), "Group option specified in single-command mode");
+		    		throw new OutlineInvalidConfigurationException(commandName, option.field, "Group option specified in single-command mode");
 		    	}
 		    	
 		        if(group == null) {
@@ -211,9 +340,11 @@ public class OutlineMetadataReader {
 		            metadata.groupOptions.put(group, map);
 		        }
 		        
-		        for(String name : option.name()) {
+		        for(String name : option.names) {
 		            map.put(name, option);
 		        }
+		        
+		        metadata.tokens.putOption(metadata.tokens.putGroup(group).getGroupScope(), option);
 		        break;
 		    
 		    default:
@@ -222,4 +353,103 @@ public class OutlineMetadataReader {
 		
 		return type;
 	}
+	
+	/**
+	 * A command registered via its name and class name, whose class is loaded
+	 * only when needed.
+	 * 
+	 */
+	static class LazyCommand {
+		
+		final String name;
+		
+		final String className;
+		
+		final String group;
+		
+		final ClassLoader classLoader;
+		
+		private Class<?> commandClass;
+		
+		private CommandSpec commandSpec;
+		
+		LazyCommand(String name, String className, String group, ClassLoader classLoader) {
+			this.name = name;
+			this.className = className;
+			this.group = group;
+			this.classLoader = classLoader;
+		}
+		
+		/**
+		 * Load the command class - without initializing it.
+		 * 
+		 * @return
+		 */
+		synchronized Class<?> getCommandClass() {
+			if(this.commandClass == null) {
+				try {
+					this.commandClass = Class.forName(this.className, false, this.classLoader);
+				} catch(ClassNotFoundException | LinkageError e) {
+					throw new OutlineInvalidConfigurationException(this.className, null, "Unable to load command class: " + e.getMessage());
+				}
+			}
+			
+			return this.commandClass;
+		}
+		
+		/**
+		 * Read only the {@link Command} annotation of the class, without reading
+		 * any of its fields.
+		 * 
+		 * @return
+		 */
+		Command getCommand() {
+			return this.getCommandClass().getAnnotation(Command.class);
+		}
+		
+		/**
+		 * Return the {@link CommandSpec} built from the {@link Command}
+		 * annotation alone, without any options or arguments.
+		 * 
+		 * @return
+		 */
+		synchronized CommandSpec getCommandSpec() {
+			if(this.commandSpec == null) {
+				Command command = this.getCommand();
+				if(command == null) {
+					return null;
+				}
+				
+				this.commandSpec = CommandSpec.builder(command).build();
+			}
+			
+			return this.commandSpec;
+		}
+		
+	}
+	
+	/**
+	 * Everything that has been read about a single command class - either via
+	 * reflection, a generated model, a snapshot or a programmatic definition.
+	 * 
+	 */
+	static class CommandData {
+		
+		final Class<?> commandClass;
+		
+		final CommandSpec spec;
+		
+		/**
+		 * The group the command belongs to, as resolved
+		 */
+		final String group;
+		
+		CommandData(Class<?> commandClass, CommandSpec spec, String group) {
+			this.commandClass = commandClass;
+			this.spec = spec;
+			this.group = group;
+		}
+		
+	}
+	
 }
@@ -0,0 +1,459 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sangupta.outline.OutlineMetadataReader.CommandData;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Reads and writes a compact binary snapshot of the metadata of all commands
+ * registered with an {@link Outline}, so that short-lived processes do not need
+ * to read every command class via reflection on each launch.
+ * 
+ * The snapshot is keyed by a fingerprint of the registered command classes and
+ * their class files. A snapshot with a different fingerprint is ignored, and is
+ * then rewritten from the freshly read metadata.
+ * 
+ * @author sangupta
+ *
+ */
+class OutlineMetadataSnapshot {
+	
+	/**
+     * My private logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutlineMetadataSnapshot.class);
+    
+    /**
+     * Magic bytes at the start of each snapshot: <code>OTLN</code>
+     */
+    static final int MAGIC = 0x4F544C4E;
+    
+    /**
+     * The version of the snapshot format - bump this whenever the format changes
+     */
+    static final int VERSION = 3;
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private static final OptionType[] OPTION_TYPES = OptionType.values();
+    
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    
+    static {
+    	for(Class<?> type : new Class<?>[] { boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class }) {
+    		PRIMITIVES.put(type.getName(), type);
+    	}
+    }
+    
+    private static final Comparator<Class<?>> CLASS_NAME_SORTER = new Comparator<Class<?>>() {
+    	
+    	@Override
+    	public int compare(Class<?> o1, Class<?> o2) {
+    		return o1.getName().compareTo(o2.getName());
+    	}
+    	
+	};
+    
+	/**
+	 * Compute the fingerprint of all commands registered with the outline. This
+	 * covers the class names, their group assignment and the size and time
+	 * stamp (or CRC, when inside a JAR) of the class files of each command class
+	 * and its super classes. None of the classes are read via reflection.
+	 * Commands defined programmatically are not a part of the snapshot.
+	 * 
+	 * @param outline
+	 * @return
+	 */
+	static long fingerprint(Outline outline) {
+		List<Class<?>> commands = snapshotCommands(outline);
+		Collections.sort(commands, CLASS_NAME_SORTER);
+		
+		long hash = FNV_OFFSET;
+		hash = hash(hash, VERSION);
+		hash = hash(hash, outline.singleCommandMode ? 1 : 0);
+		
+		for(Class<?> command : commands) {
+			hash = hash(hash, outline.getCommandGroup(command));
+			
+			for(Class<?> clazz = command; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+				hash = hash(hash, clazz.getName());
+				hash = hashClassFile(hash, clazz);
+			}
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Read the snapshot from the given file.
+	 * 
+	 * @param file
+	 *            the snapshot file
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint the snapshot must have
+	 * 
+	 * @param outline
+	 *            the outline for which the snapshot is being read
+	 * 
+	 * @return the data for all commands, or <code>null</code> if the snapshot
+	 *         does not exist, is stale or cannot be read
+	 */
+	static List<CommandData> read(File file, long fingerprint, Outline outline) {
+		if(!file.isFile()) {
+			return null;
+		}
+		
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			
+			if(buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint) {
+				LOGGER.debug("Metadata snapshot {} is stale, ignoring", file);
+				return null;
+			}
+			
+			Map<String, Class<?>> classes = new HashMap<>();
+			for(Class<?> command : snapshotCommands(outline)) {
+				classes.put(command.getName(), command);
+			}
+			
+			int count = buffer.getInt();
+			List<CommandData> commands = new ArrayList<>(count);
+			for(int index = 0; index < count; index++) {
+				Class<?> commandClass = classes.get(readString(buffer));
+				if(commandClass == null) {
+					return null;
+				}
+				
+				CommandSpec.Builder builder = CommandSpec.builder(readString(buffer))
+						.withDescription(readString(buffer))
+						.withGroup(readString(buffer))
+						.withHidden(buffer.get() != 0);
+				String group = readString(buffer);
+				
+				ClassLoader loader = commandClass.getClassLoader();
+				int options = buffer.getInt();
+				for(int option = 0; option < options; option++) {
+					builder.withOption(readOption(buffer, loader));
+				}
+				
+				int arguments = buffer.getInt();
+				for(int argument = 0; argument < arguments; argument++) {
+					builder.withArgument(readArgument(buffer, loader));
+				}
+				
+				commands.add(new CommandData(commandClass, builder.build(), group));
+			}
+			
+			return commands;
+		} catch(IOException | ClassNotFoundException | RuntimeException e) {
+			LOGGER.warn("Unable to read metadata snapshot {}, ignoring", file, e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Write the snapshot to the given file. The snapshot is written to a
+	 * temporary file first, and then moved in place.
+	 * 
+	 * @param file
+	 *            the snapshot file
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint of the commands
+	 * 
+	 * @param commands
+	 *            the data for all commands
+	 */
+	static void write(File file, long fingerprint, List<CommandData> commands) {
+		File temp = null;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+			DataOutputStream out = new DataOutputStream(bytes);
+			
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(fingerprint);
+			
+			out.writeInt(commands.size());
+			for(CommandData data : commands) {
+				CommandSpec spec = data.spec;
+				writeString(out, data.commandClass.getName());
+				writeString(out, spec.name);
+				writeString(out, spec.description);
+				writeString(out, spec.group);
+				out.writeBoolean(spec.hidden);
+				writeString(out, data.group);
+				
+				out.writeInt(spec.options.size());
+				for(OptionSpec option : spec.options) {
+					writeOption(out, option);
+				}
+				
+				out.writeInt(spec.arguments.size());
+				for(ArgumentSpec argument : spec.arguments) {
+					writeArgument(out, argument);
+				}
+			}
+			
+			out.flush();
+			
+			File folder = file.getAbsoluteFile().getParentFile();
+			if(!folder.exists()) {
+				folder.mkdirs();
+			}
+			
+			temp = File.createTempFile(file.getName(), ".tmp", folder);
+			Files.write(temp.toPath(), bytes.toByteArray());
+			
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch(IOException e) {
+			LOGGER.warn("Unable to write metadata snapshot {}", file, e);
+			
+			if(temp != null) {
+				temp.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Return all command classes that are a part of the snapshot - the ones
+	 * not defined programmatically.
+	 * 
+	 */
+	private static List<Class<?>> snapshotCommands(Outline outline) {
+		List<Class<?>> commands = new ArrayList<>(outline.commands.size());
+		for(Class<?> command : outline.commands) {
+			if(!outline.commandSpecs.containsKey(command)) {
+				commands.add(command);
+			}
+		}
+		
+		return commands;
+	}
+	
+	private static OptionSpec readOption(MappedByteBuffer buffer, ClassLoader loader) throws ClassNotFoundException {
+		OptionType type = OPTION_TYPES[buffer.get()];
+		String title = readString(buffer);
+		String[] names = readStrings(buffer);
+		
+		return OptionSpec.builder(names)
+				.withType(type)
+				.withTitle(title)
+				.withDescription(readString(buffer))
+				.withShowTypeInfo(buffer.get() != 0)
+				.withRequired(buffer.get() != 0)
+				.withArity(buffer.getInt())
+				.withHidden(buffer.get() != 0)
+				.withAllowedValues(readStrings(buffer))
+				.withField(readString(buffer), readType(buffer, loader))
+				.withDeclaringClass(readString(buffer))
+				.build();
+	}
+	
+	private static void writeOption(DataOutputStream out, OptionSpec option) throws IOException {
+		out.writeByte(option.type.ordinal());
+		writeString(out, option.title);
+		writeStrings(out, option.names);
+		writeString(out, option.description);
+		out.writeBoolean(option.showTypeInfo);
+		out.writeBoolean(option.required);
+		out.writeInt(option.arity);
+		out.writeBoolean(option.hidden);
+		writeStrings(out, option.allowedValues);
+		writeString(out, option.field);
+		writeString(out, option.fieldType.getName());
+		writeString(out, option.declaringClass);
+	}
+	
+	private static ArgumentSpec readArgument(MappedByteBuffer buffer, ClassLoader loader) throws ClassNotFoundException {
+		boolean remaining = buffer.get() != 0;
+		int order = buffer.getInt();
+		
+		ArgumentSpec.Builder builder = remaining ? ArgumentSpec.remainingBuilder() : ArgumentSpec.builder(order);
+		return builder.withTitle(readString(buffer))
+				.withDescription(readString(buffer))
+				.withUsage(readString(buffer))
+				.withRequired(buffer.get() != 0)
+				.withField(readString(buffer), readType(buffer, loader))
+				.withDeclaringClass(readString(buffer))
+				.build();
+	}
+	
+	private static void writeArgument(DataOutputStream out, ArgumentSpec argument) throws IOException {
+		out.writeBoolean(argument.remaining);
+		out.writeInt(argument.order);
+		writeString(out, argument.title);
+		writeString(out, argument.description);
+		writeString(out, argument.usage);
+		out.writeBoolean(argument.required);
+		writeString(out, argument.field);
+		writeString(out, argument.fieldType.getName());
+		writeString(out, argument.declaringClass);
+	}
+	
+	private static Class<?> readType(MappedByteBuffer buffer, ClassLoader loader) throws ClassNotFoundException {
+		String typeName = readString(buffer);
+		Class<?> type = PRIMITIVES.get(typeName);
+		if(type == null) {
+			type = Class.forName(typeName, false, loader);
+		}
+		
+		return type;
+	}
+	
+	private static String readString(MappedByteBuffer buffer) {
+		int length = buffer.getInt();
+		if(length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private static String[] readStrings(MappedByteBuffer buffer) {
+		String[] strings = new String[buffer.getInt()];
+		for(int index = 0; index < strings.length; index++) {
+			strings[index] = readString(buffer);
+		}
+		
+		return strings;
+	}
+	
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if(value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+		out.writeInt(values.size());
+		for(String value : values) {
+			writeString(out, value);
+		}
+	}
+	
+	/**
+	 * Add the size and time stamp of the class file to the hash. For classes
+	 * inside a JAR the CRC from the JAR directory is used as well, which does
+	 * not need the class to be read.
+	 * 
+	 */
+	private static long hashClassFile(long hash, Class<?> clazz) {
+		ClassLoader loader = clazz.getClassLoader();
+		if(loader == null) {
+			return hash;
+		}
+		
+		URL url = loader.getResource(clazz.getName().replace('.', '/') + ".class");
+		if(url == null) {
+			return hash;
+		}
+		
+		try {
+			if("file".equals(url.getProtocol())) {
+				File file = new File(url.toURI());
+				hash = hash(hash, file.lastModified());
+				return hash(hash, file.length());
+			}
+			
+			URLConnection connection = url.openConnection();
+			if(connection instanceof JarURLConnection) {
+				JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+				hash = hash(hash, entry.getTime());
+				hash = hash(hash, entry.getSize());
+				return hash(hash, entry.getCrc());
+			}
+		} catch(IOException | URISyntaxException e) {
+			LOGGER.debug("Unable to read class file details for {}", clazz.getName(), e);
+		}
+		
+		return hash(hash, url.toString());
+	}
+
+	private static long hash(long hash, String value) {
+		if(value == null) {
+			return hash(hash, -1);
+		}
+		
+		for(int index = 0; index < value.length(); index++) {
+			hash ^= value.charAt(index);
+			hash *= FNV_PRIME;
+		}
+		
+		return hash(hash, value.length());
+	}
+	
+	private static long hash(long hash, long value) {
+		for(int shift = 0; shift < 64; shift += 8) {
+			hash ^= (value >>> shift) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		
+		return hash;
+	}
+	
+}
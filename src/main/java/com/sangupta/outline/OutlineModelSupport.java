@@ -0,0 +1,213 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
+import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.OptionSpec;
+import com.sangupta.outline.util.OutlineFieldDescriptor;
+import com.sangupta.outline.util.OutlineFieldSetter;
+import com.sangupta.outline.util.OutlineUtil;
+
+/**
+ * Helper functions that are invoked from the {@link OutlineCommandModel}
+ * implementations generated by the <code>outline-processor</code>. These are
+ * not meant to be used directly.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineModelSupport {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutlineModelSupport.class);
+	
+	private OutlineModelSupport() {
+		throw new RuntimeException("Instances of this class cannot be created");
+	}
+	
+	/**
+	 * Return all values parsed for the given option.
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the option is required and no value was found
+	 */
+	public static List<String> getOptionValues(OutlineParseResult result, OptionSpec option) {
+		return OutlineBinder.getOptionValues(result, option);
+	}
+	
+	/**
+	 * Return the value of the given positional argument, or <code>null</code>
+	 * if none was supplied.
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the argument is required and no value was supplied
+	 */
+	public static String getArgumentValue(OutlineParseResult result, ArgumentSpec argument) {
+		return OutlineBinder.getArgumentValue(result, argument);
+	}
+	
+	/**
+	 * Return all arguments from the given position onwards.
+	 * 
+	 */
+	public static List<String> getRemainingArguments(OutlineParseResult result, int startOrder, ArgumentSpec arguments) {
+		return OutlineBinder.getRemainingArguments(result, startOrder, arguments);
+	}
+	
+	/**
+	 * Check if the values for a field of the given type are parsed straight
+	 * from the result into a primitive array, as no other type converter is
+	 * registered for it.
+	 * 
+	 */
+	public static boolean isPrimitiveArray(OutlineParseResult result, Class<?> type) {
+		return OutlineBinder.isPrimitiveArray(result, type);
+	}
+	
+	/**
+	 * Return all values parsed for the given option as an array of the given
+	 * primitive type, or <code>null</code> if there are none.
+	 * 
+	 * @throws OutlineRequiredOptionMissingException
+	 *             if the option is required and no value was found
+	 */
+	public static Object getOptionValueArray(OutlineParseResult result, OptionSpec option, Class<?> arrayType) {
+		return OutlineBinder.getOptionValueArray(result, option, arrayType);
+	}
+	
+	/**
+	 * Return all arguments from the given position onwards as an array of the
+	 * given primitive type, or <code>null</code> if there are none.
+	 * 
+	 */
+	public static Object getRemainingArgumentArray(OutlineParseResult result, int startOrder, ArgumentSpec arguments, Class<?> arrayType) {
+		return OutlineBinder.getRemainingArgumentArray(result, startOrder, arguments, arrayType);
+	}
+	
+	/**
+	 * Check if a type converter other than the built-in ones is available for
+	 * the given type when binding the given result, in which case the generated
+	 * code must not convert the value itself.
+	 * 
+	 */
+	public static boolean hasConverter(OutlineParseResult result, Class<?> type) {
+		OutlineTypeConverter<?> converter = result.converters.get(type);
+		return converter != null && !(converter instanceof OutlineStringArrayConverter) && !(converter instanceof OutlinePrimitiveArrayConverter);
+	}
+	
+	/**
+	 * Convert the value to the given primitive wrapper type. This is used by
+	 * generated code to assign a primitive, or a primitive wrapper, field
+	 * directly. As when binding a field via its setter, a value that cannot be
+	 * converted is logged and the field keeps its current value.
+	 * 
+	 * @param value
+	 *            the value to convert
+	 * 
+	 * @param type
+	 *            the primitive wrapper type to convert to
+	 * 
+	 * @param current
+	 *            the current value of the field
+	 * 
+	 * @return the converted value, or the current value if the value cannot be
+	 *         converted
+	 */
+	public static <T> T convert(String value, Class<T> type, T current) {
+		try {
+			return type.cast(OutlineFieldSetter.valueOf(type, value));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Unable to set field value", e);
+			return current;
+		}
+	}
+	
+	/**
+	 * Bind the value to the field via its setter. This is used by generated code
+	 * for fields that it cannot assign directly, say <code>private</code> fields
+	 * or fields that need a type converter.
+	 * 
+	 * @param result
+	 *            the result being bound, that carries the type converters
+	 * 
+	 * @param instance
+	 *            the instance to bind the value to
+	 * 
+	 * @param declaringClass
+	 *            the binary name of the class that declares the field
+	 * 
+	 * @param fieldName
+	 *            the name of the field
+	 * 
+	 * @param value
+	 *            the value to bind
+	 */
+	public static void bindField(OutlineParseResult result, Object instance, String declaringClass, String fieldName, Object value) {
+		OutlineBinder.bindValueToField(getSetter(instance, declaringClass, fieldName), instance, value, result.converters);
+	}
+	
+	/**
+	 * Inject the help into the field via its setter. This is used by generated
+	 * code for <code>@Inject</code> fields that it cannot assign directly.
+	 * 
+	 * @param instance
+	 *            the instance to inject the help into
+	 * 
+	 * @param declaringClass
+	 *            the binary name of the class that declares the field
+	 * 
+	 * @param fieldName
+	 *            the name of the field
+	 * 
+	 * @param help
+	 *            the help to inject
+	 */
+	public static void injectField(Object instance, String declaringClass, String fieldName, OutlineHelp help) {
+		try {
+			getSetter(instance, declaringClass, fieldName).set(instance, help);
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			LOGGER.warn("Unable to inject values", e);
+		}
+	}
+	
+	private static OutlineFieldSetter getSetter(Object instance, String declaringClass, String fieldName) {
+		List<OutlineFieldDescriptor> fields = OutlineUtil.getAnnotatedFields(instance.getClass());
+		for(int index = 0; index < fields.size(); index++) {
+			Field candidate = fields.get(index).field;
+			if(candidate.getName().equals(fieldName) && candidate.getDeclaringClass().getName().equals(declaringClass)) {
+				return fields.get(index).setter;
+			}
+		}
+		
+		throw new OutlineInvalidConfigurationException(declaringClass, fieldName, "Generated outline model does not match the command class");
+	}
+	
+}
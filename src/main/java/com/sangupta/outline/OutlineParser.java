@@ -21,21 +21,26 @@
  
 package com.sangupta.outline;
 
-import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.List;
-
-import javax.inject.Inject;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.sangupta.jerry.util.AssertUtils;
-import com.sangupta.jerry.util.ReflectionUtils;
 import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.cmdfactory.OutlineCommandFactory;
 import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
 import com.sangupta.outline.help.OutlineHelp;
 import com.sangupta.outline.parser.OutlineArgumentParser;
+import com.sangupta.outline.parser.OutlineCommandLine;
+import com.sangupta.outline.parser.OutlineCompleter;
+import com.sangupta.outline.parser.OutlineIncrementalParser;
+import com.sangupta.outline.parser.OutlineParseContext;
 import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.parser.OutlineTokenTrie.Token;
+import com.sangupta.outline.util.OutlineFieldDescriptor;
 import com.sangupta.outline.util.OutlineUtil;
 
 /**
@@ -53,6 +58,49 @@ public class OutlineParser {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(OutlineParser.class);
     
+    /**
+     * The smallest number of command lines parsed by one task of a parallel
+     * batch
+     */
+    private static final int MIN_BATCH_CHUNK = 16;
+    
+    /**
+     * The compiled metadata for the {@link Outline} this parser was created from
+     */
+    final OutlineMetadata metadata;
+    
+    /**
+     * The command factory to use to create instances of commands
+     */
+    final OutlineCommandFactory commandFactory;
+    
+    /**
+     * The default command, if any, to use when no arguments are specified
+     */
+    final Class<?> defaultCommand;
+    
+    /**
+     * The completion indexes, built when first needed
+     */
+    private volatile OutlineCompleter completer;
+    
+    /**
+     * Compile the given {@link Outline} - this reads all the metadata once so that
+     * the same can be reused across all calls to {@link #parse(String[])}.
+     * 
+     * @param outline
+     *            the {@link Outline} to compile
+     */
+    OutlineParser(Outline outline) {
+    	this.metadata = OutlineMetadataReader.getMetadata(outline);
+    	if(outline.frozen) {
+    		this.metadata.loadAllCommands();
+    	}
+    	
+    	this.commandFactory = outline.commandFactory;
+    	this.defaultCommand = outline.defaultCommand;
+    }
+    
     /**
      * Parse the command line arguments against the given {@link Outline} object
      * and return the {@link Command} instance that the user had requested execution for.
@@ -62,44 +110,119 @@ public class OutlineParser {
      * @return
      */
     public static Object parse(Outline outline, String[] args) {
-        // read outline to fetch a list of all options
-        OutlineMetadata metadata = OutlineMetadataReader.getMetadata(outline);
+    	return outline.compile().parse(args);
+    }
+    
+    /**
+     * Parse the command line arguments against the compiled metadata and return
+     * the {@link Command} instance that the user had requested execution for.
+     * 
+     * @param args
+     * @return
+     */
+    public Object parse(String[] args) {
+    	return this.parse(OutlineCommandLine.of(args));
+    }
+    
+    /**
+	 * Parse the given command line against the compiled metadata and return the
+	 * {@link Command} instance that the user had requested execution for. A
+	 * command line tokenized from raw input only creates {@link String}s for the
+	 * values that get bound.
+	 * 
+	 * @param commandLine
+	 * @return
+	 */
+    public Object parse(OutlineCommandLine commandLine) {
+    	return this.parse(commandLine, null);
+    }
+    
+    /**
+	 * Parse the command line arguments reusing the state held by the given
+	 * context, so that no parsing state is allocated. The parse result, and the
+	 * {@link OutlineHelp} injected into the returned command, are only valid
+	 * until the context is used again.
+	 * 
+	 * @param args
+	 * @param context
+	 * @return
+	 */
+    public Object parse(String[] args, OutlineParseContext context) {
+    	return this.parse(context.wrap(args), context);
+    }
+    
+    /**
+	 * Parse the given command line reusing the state held by the given context,
+	 * if any.
+	 * 
+	 * @param commandLine
+	 * @param context
+	 *            the context to reuse, or <code>null</code> to parse into a new
+	 *            result
+	 * @return
+	 */
+    public Object parse(OutlineCommandLine commandLine, OutlineParseContext context) {
+        final OutlineMetadata metadata = this.metadata;
         
-        if(args.length == 0) {
-        	if(outline.helpOnIncorrectArguments) {
+        if(metadata.argumentFiles && hasArgumentFile(commandLine)) {
+        	commandLine = OutlineCommandLine.of(OutlineArgumentParser.expandArgumentFiles(commandLine.toArray()));
+        }
+        
+        if(commandLine.size() == 0) {
+        	if(metadata.helpOnIncorrectArguments) {
         		// we need help
-        		args = new String[] { outline.helpKeyword };
+        		commandLine = OutlineCommandLine.of(new String[] { metadata.helpKeyword });
         	} else {
-	            if(outline.defaultCommand == null) {
+	            if(this.defaultCommand == null) {
 	            	LOGGER.debug("No arguments specified, no default command, return null");
 	                return null;
 	            }
 	            
-	            LOGGER.debug("No arguments specified, return default command: {}", outline.defaultCommand);
-	            return outline.commandFactory.createInstance(outline.defaultCommand);
+	            LOGGER.debug("No arguments specified, return default command: {}", this.defaultCommand);
+	            return this.commandFactory.createInstance(this.defaultCommand);
         	}
         }
         
         // start reading the options and making sure that we know where the command break-point is
-        OutlineParseResult result = OutlineArgumentParser.parse(args, metadata);
+        // commands registered by name are loaded only when invoked - load the first
+        // one named in the arguments, as it may bring in global or group options that
+        // appear before the command name. A name that turns out to be an option value
+        // is corrected by loading the resolved command below.
+        if(!metadata.frozen && metadata.hasLazyCommands()) {
+	        for(int index = 0; index < commandLine.size(); index++) {
+	        	Token token = commandLine.classify(metadata.tokens, index);
+	        	if(token != null && token.isCommand()) {
+	        		metadata.loadCommand(token.name);
+	        		break;
+	        	}
+	        }
+        }
+        
+        OutlineParseResult result = parseArguments(commandLine, metadata, context);
+        
+        // the resolved command may still be a different one - load it and parse again
+        while(result.command != null && metadata.loadCommand(result.command)) {
+        	result = parseArguments(commandLine, metadata, context);
+        }
         
         if(!result.helpRequested && result.command == null) {
             throw new RuntimeException("command not specified");
         }
         
         // create the help command
-    	final OutlineHelp helpCommand = new OutlineHelp(metadata, result);
+    	final OutlineHelp helpCommand = context == null ? new OutlineHelp(metadata, result) : context.getHelp(metadata);
     	
     	// if help has been requested, return the help command or the instance with help injected
         if(result.helpRequested) {
         	if(metadata.singleCommandMode) {
         		// this is single command mode
         		// we need to throw back the command instance back that has an injection of the OutlineHelpCommand property
-        		Class<?> instanceClass = metadata.commandClasses.values().iterator().next();
-        		Object instance = outline.commandFactory.createInstance(instanceClass);
+        		String commandName = metadata.commandClasses.keySet().iterator().next();
+        		Class<?> instanceClass = metadata.commandClasses.get(commandName);
+        		Object instance = this.commandFactory.createInstance(instanceClass);
         		
         		// inject the help options in this object
-        		injectHelpOptionsIfAvailable(instance, helpCommand);
+        		injectHelpOptionsIfAvailable(metadata.getCommandModel(commandName), instance, helpCommand);
         		
         		// return the prepared instance
         		return instance;
@@ -110,16 +233,21 @@ public class OutlineParser {
         
         // get the command class we need to work with
         Class<?> inferredCommand = metadata.commandClasses.get(result.command);
-        Object instance = outline.commandFactory.createInstance(inferredCommand);
+        OutlineCommandModel model = metadata.getCommandModel(result.command);
+        Object instance = this.commandFactory.createInstance(inferredCommand);
         
         // inject the help options in this object
-		injectHelpOptionsIfAvailable(instance, helpCommand);
+		injectHelpOptionsIfAvailable(model, instance, helpCommand);
         
         // bind the object to its available properties
 		try {
-			OutlineBinder.bindInstanceToProperties(inferredCommand, instance, result);
+			if(model != null) {
+				model.bind(instance, result);
+			} else {
+				OutlineBinder.bindInstanceToProperties(inferredCommand, metadata.commandNames.get(result.command), instance, result);
+			}
 		} catch(OutlineRequiredOptionMissingException e) {
-			if(!outline.helpOnIncorrectArguments) {
+			if(!metadata.helpOnIncorrectArguments) {
 				throw e;
 			}
 			
@@ -131,35 +259,162 @@ public class OutlineParser {
         return instance;
     }
 
+    /**
+	 * Parse each of the given command lines, returning their outcomes in the
+	 * same order. A command line that fails to parse does not stop the batch -
+	 * its error is recorded in its {@link OutlineBatchResult} instead.
+	 * 
+	 * @param batch
+	 *            the command lines to parse
+	 * 
+	 * @return the outcome of each command line
+	 */
+    public List<OutlineBatchResult> parseAll(List<String[]> batch) {
+    	OutlineBatchResult[] results = new OutlineBatchResult[batch.size()];
+    	this.parseRange(batch, results, 0, results.length);
+    	return Arrays.asList(results);
+    }
+    
+    /**
+	 * Parse each of the given command lines using the given pool, returning
+	 * their outcomes in the same order. All lazily registered commands are
+	 * loaded first, so that the metadata is never modified while the pool
+	 * works on the batch. A command line that fails to parse does not stop the
+	 * batch - its error is recorded in its {@link OutlineBatchResult} instead.
+	 * 
+	 * @param batch
+	 *            the command lines to parse
+	 * 
+	 * @param pool
+	 *            the pool to parse in
+	 * 
+	 * @return the outcome of each command line
+	 */
+    public List<OutlineBatchResult> parseAll(List<String[]> batch, ForkJoinPool pool) {
+    	if(pool == null) {
+    		throw new IllegalArgumentException("ForkJoinPool cannot be null");
+    	}
+    	
+    	this.metadata.loadAllCommands();
+    	
+    	OutlineBatchResult[] results = new OutlineBatchResult[batch.size()];
+    	int chunk = Math.max(MIN_BATCH_CHUNK, results.length / (pool.getParallelism() * 4));
+    	pool.invoke(new ParseTask(this, batch, results, 0, results.length, chunk));
+    	return Arrays.asList(results);
+    }
+    
+    /**
+	 * Create a parser for a command line that is edited a token at a time, as
+	 * in an interactive console. All lazily registered commands are loaded
+	 * first, so that the metadata does not change between edits.
+	 * 
+	 * @return
+	 */
+    public OutlineIncrementalParser newIncrementalParser() {
+    	this.metadata.loadAllCommands();
+    	return new OutlineIncrementalParser(this.metadata);
+    }
+    
+    /**
+	 * Return the candidates for completing the token at the given index of the
+	 * given command line. See {@link OutlineCompleter#complete(String[], int)}.
+	 * 
+	 * @param args
+	 * @param index
+	 * @return
+	 */
+    public List<String> complete(String[] args, int index) {
+    	return this.getCompleter().complete(args, index);
+    }
+    
+    /**
+	 * Return the completer over the compiled metadata, building its indexes
+	 * when first asked for. All lazily registered commands are loaded first, so
+	 * that their options can be completed.
+	 * 
+	 * @return
+	 */
+    public OutlineCompleter getCompleter() {
+    	OutlineCompleter completer = this.completer;
+    	if(completer == null) {
+    		this.metadata.loadAllCommands();
+    		completer = new OutlineCompleter(this.metadata);
+    		this.completer = completer;
+    	}
+    	
+    	return completer;
+    }
+    
+    private void parseRange(List<String[]> batch, OutlineBatchResult[] results, int from, int to) {
+    	for(int index = from; index < to; index++) {
+    		String[] args = batch.get(index);
+    		try {
+    			results[index] = new OutlineBatchResult(args, this.parse(args), null);
+    		} catch(RuntimeException e) {
+    			results[index] = new OutlineBatchResult(args, null, e);
+    		}
+    	}
+    }
+    
+    private static OutlineParseResult parseArguments(OutlineCommandLine commandLine, OutlineMetadata metadata, OutlineParseContext context) {
+    	if(context == null) {
+    		return OutlineArgumentParser.parse(commandLine, metadata);
+    	}
+    	
+    	return OutlineArgumentParser.parse(commandLine, metadata, context);
+    }
+    
+    private static boolean hasArgumentFile(OutlineCommandLine commandLine) {
+    	for(int index = 0; index < commandLine.size(); index++) {
+    		if(commandLine.startsWith(index, '@')) {
+    			return true;
+    		}
+    	}
+    	
+    	return false;
+    }
+
+    /**
+     * Return the compiled {@link OutlineMetadata} used by this parser.
+     * 
+     * @return
+     */
+    public OutlineMetadata getMetadata() {
+		return this.metadata;
+	}
+    
     /**
      * Inject the field of type {@link OutlineHelp} in the given object instance if a field
      * annotated with <code>@Inject</code> of the same type is present. Does nothing if either
      * of instance or helpCommand value is <code>null</code>.
      * 
+     * @param model the model for the command, if any
+     * 
      * @param instance the instance in which to inject
      * 
      * @param helpCommand the value to inject
      */
-    private static void injectHelpOptionsIfAvailable(Object instance, OutlineHelp helpCommand) {
-		List<Field> fields = OutlineUtil.getAllFields(instance.getClass());
-		if(AssertUtils.isEmpty(fields)) {
-			return;
-		}
-		
-		for(Field field : fields) {
-			Inject inject = field.getAnnotation(Inject.class);
-			if(inject == null) {
+    private static void injectHelpOptionsIfAvailable(OutlineCommandModel model, Object instance, OutlineHelp helpCommand) {
+    	if(model != null) {
+    		model.injectHelp(instance, helpCommand);
+    		return;
+    	}
+    	
+		List<OutlineFieldDescriptor> fields = OutlineUtil.getAnnotatedFields(instance.getClass());
+		for(int index = 0; index < fields.size(); index++) {
+			OutlineFieldDescriptor field = fields.get(index);
+			if(field.inject == null) {
 				continue;
 			}
 			
 			// injection is enabled
 			// let's check field type
-			if(!OutlineHelp.class.isAssignableFrom(field.getType())) {
+			if(!OutlineHelp.class.isAssignableFrom(field.field.getType())) {
 				continue;
 			}
 			
 			try {
-				ReflectionUtils.bindValue(field, instance, helpCommand);
+				field.setter.set(instance, helpCommand);
 			} catch (IllegalArgumentException | IllegalAccessException e) {
 				LOGGER.warn("Unable to inject values", e);
 				return;
@@ -167,4 +422,48 @@ public class OutlineParser {
 		}
 	}
 
+    /**
+     * Parses a range of a batch, splitting it in halves until it is no larger
+     * than the chunk size.
+     * 
+     */
+    private static final class ParseTask extends RecursiveAction {
+    	
+		private static final long serialVersionUID = 1L;
+
+		private final OutlineParser parser;
+    	
+    	private final List<String[]> batch;
+    	
+    	private final OutlineBatchResult[] results;
+    	
+    	private final int from;
+    	
+    	private final int to;
+    	
+    	private final int chunk;
+    	
+    	ParseTask(OutlineParser parser, List<String[]> batch, OutlineBatchResult[] results, int from, int to, int chunk) {
+    		this.parser = parser;
+    		this.batch = batch;
+    		this.results = results;
+    		this.from = from;
+    		this.to = to;
+    		this.chunk = chunk;
+    	}
+    	
+    	@Override
+    	protected void compute() {
+    		if(this.to - this.from <= this.chunk) {
+    			this.parser.parseRange(this.batch, this.results, this.from, this.to);
+    			return;
+    		}
+    		
+    		int middle = (this.from + this.to) >>> 1;
+    		invokeAll(new ParseTask(this.parser, this.batch, this.results, this.from, middle, this.chunk),
+    				  new ParseTask(this.parser, this.batch, this.results, middle, this.to, this.chunk));
+    	}
+    	
+    }
+
 }
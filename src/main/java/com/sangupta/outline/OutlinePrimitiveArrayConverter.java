@@ -0,0 +1,102 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * The built-in {@link OutlineTypeConverter} for <code>int[]</code>,
+ * <code>long[]</code> and <code>double[]</code> fields, that parses each value
+ * into an array of the exact size, without boxing any of them.
+ * 
+ * This is used when the values are already {@link String}s. Option values and
+ * remaining arguments bound by the {@link OutlineBinder} are instead parsed
+ * straight from the parsed arguments, via
+ * {@link com.sangupta.outline.parser.OutlineParseResult#getOptionValueArray(com.sangupta.outline.annotations.OptionType, List, Class)}
+ * and
+ * {@link com.sangupta.outline.parser.OutlineParseResult#getArgumentArray(int, Class)},
+ * unless another converter is registered for the type.
+ * 
+ * @author sangupta
+ *
+ */
+final class OutlinePrimitiveArrayConverter<T> implements OutlineTypeConverter<T> {
+	
+	final Class<T> arrayType;
+	
+	OutlinePrimitiveArrayConverter(Class<T> arrayType) {
+		this.arrayType = arrayType;
+	}
+	
+	@Override
+	public T convertFrom(Field field, Object instance, Object value) {
+		if(value == null) {
+			return null;
+		}
+		
+		if(this.arrayType.isInstance(value)) {
+			return this.arrayType.cast(value);
+		}
+		
+		List<?> values = value instanceof List<?> ? (List<?>) value : Collections.singletonList(value);
+		final int size = values.size();
+		
+		String text = null;
+		try {
+			if(this.arrayType == int[].class) {
+				int[] array = new int[size];
+				for(int index = 0; index < size; index++) {
+					text = values.get(index).toString();
+					array[index] = Integer.parseInt(text);
+				}
+				
+				return this.arrayType.cast(array);
+			}
+			
+			if(this.arrayType == long[].class) {
+				long[] array = new long[size];
+				for(int index = 0; index < size; index++) {
+					text = values.get(index).toString();
+					array[index] = Long.parseLong(text);
+				}
+				
+				return this.arrayType.cast(array);
+			}
+			
+			double[] array = new double[size];
+			for(int index = 0; index < size; index++) {
+				text = values.get(index).toString();
+				array[index] = Double.parseDouble(text);
+			}
+			
+			return this.arrayType.cast(array);
+		} catch(NumberFormatException e) {
+			// the position of the value is not known here
+			throw new OutlineInvalidArgumentException(text, -1, e);
+		}
+	}
+	
+}
@@ -0,0 +1,259 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+import com.sangupta.outline.util.OutlineFieldDescriptor;
+import com.sangupta.outline.util.OutlineFieldSetter;
+import com.sangupta.outline.util.OutlineUtil;
+
+/**
+ * An {@link OutlineCommandModel} built at runtime, on first use, for a command
+ * class that has no compile-time generated model. All fields are resolved to
+ * their {@link OutlineFieldSetter} once, and the options that occur in a parse
+ * result are found in a single pass over it - so that binding neither looks up
+ * fields by name, nor scans the parse result for options that were not given.
+ * 
+ * Values are bound exactly as {@link OutlineBinder} binds them: options first,
+ * then the ordered arguments, and then the remaining arguments.
+ * 
+ * @author sangupta
+ *
+ */
+final class OutlineRuntimeModel implements OutlineCommandModel {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(OutlineRuntimeModel.class);
+	
+	/**
+	 * Marks a command for which no model could be built
+	 */
+	static final Object UNAVAILABLE = new Object();
+	
+	private final CommandSpec command;
+	
+	/**
+	 * The options of the command, in the order they are bound
+	 */
+	private final OptionSpec[] options;
+	
+	/**
+	 * The setter of the field of each option
+	 */
+	private final OutlineFieldSetter[] optionSetters;
+	
+	/**
+	 * For each option type, the indices of the options that each name belongs
+	 * to
+	 */
+	private final Map<OptionType, Map<String, int[]>> optionIndices = new EnumMap<>(OptionType.class);
+	
+	/**
+	 * The ordered arguments of the command
+	 */
+	private final ArgumentSpec[] arguments;
+	
+	/**
+	 * The setter of the field of each ordered argument
+	 */
+	private final OutlineFieldSetter[] argumentSetters;
+	
+	/**
+	 * The spec of the remaining arguments, if any
+	 */
+	private final ArgumentSpec remaining;
+	
+	/**
+	 * The setter of the field of the remaining arguments, if any
+	 */
+	private final OutlineFieldSetter remainingSetter;
+	
+	/**
+	 * The setters of all fields in which the help is injected
+	 */
+	private final OutlineFieldSetter[] helpSetters;
+	
+	OutlineRuntimeModel(Class<?> clazz, CommandSpec command) {
+		this.command = command;
+		
+		this.options = command.options.toArray(new OptionSpec[command.options.size()]);
+		this.optionSetters = new OutlineFieldSetter[this.options.length];
+		for(int index = 0; index < this.options.length; index++) {
+			OptionSpec option = this.options[index];
+			this.optionSetters[index] = OutlineBinder.getSetter(clazz, option.declaringClass, option.field);
+			
+			Map<String, int[]> byName = this.optionIndices.get(option.type);
+			if(byName == null) {
+				byName = new HashMap<>();
+				this.optionIndices.put(option.type, byName);
+			}
+			
+			for(int nameIndex = 0; nameIndex < option.names.size(); nameIndex++) {
+				String name = option.names.get(nameIndex);
+				int[] indices = byName.get(name);
+				if(indices == null) {
+					byName.put(name, new int[] { index });
+					continue;
+				}
+				
+				// the same name bound to more than one field
+				int[] more = new int[indices.length + 1];
+				System.arraycopy(indices, 0, more, 0, indices.length);
+				more[indices.length] = index;
+				byName.put(name, more);
+			}
+		}
+		
+		List<ArgumentSpec> ordered = new ArrayList<>();
+		ArgumentSpec remaining = null;
+		for(int index = 0; index < command.arguments.size(); index++) {
+			ArgumentSpec argument = command.arguments.get(index);
+			if(!argument.remaining) {
+				ordered.add(argument);
+				continue;
+			}
+			
+			if(remaining == null) {
+				remaining = argument;
+			}
+		}
+		
+		this.arguments = ordered.toArray(new ArgumentSpec[ordered.size()]);
+		this.argumentSetters = new OutlineFieldSetter[this.arguments.length];
+		for(int index = 0; index < this.arguments.length; index++) {
+			this.argumentSetters[index] = OutlineBinder.getSetter(clazz, this.arguments[index].declaringClass, this.arguments[index].field);
+		}
+		
+		this.remaining = remaining;
+		this.remainingSetter = remaining == null ? null : OutlineBinder.getSetter(clazz, remaining.declaringClass, remaining.field);
+		
+		List<OutlineFieldSetter> helpSetters = new ArrayList<>();
+		List<OutlineFieldDescriptor> fields = OutlineUtil.getAnnotatedFields(clazz);
+		for(int index = 0; index < fields.size(); index++) {
+			OutlineFieldDescriptor field = fields.get(index);
+			if(field.inject != null && OutlineHelp.class.isAssignableFrom(field.field.getType())) {
+				helpSetters.add(field.setter);
+			}
+		}
+		
+		this.helpSetters = helpSetters.toArray(new OutlineFieldSetter[helpSetters.size()]);
+	}
+	
+	@Override
+	public CommandSpec getCommand() {
+		return this.command;
+	}
+	
+	@Override
+	public void injectHelp(Object instance, OutlineHelp help) {
+		for(int index = 0; index < this.helpSetters.length; index++) {
+			try {
+				this.helpSetters[index].set(instance, help);
+			} catch (IllegalArgumentException | IllegalAccessException e) {
+				LOGGER.warn("Unable to inject values", e);
+				return;
+			}
+		}
+	}
+	
+	@Override
+	public void bind(Object instance, OutlineParseResult result) {
+		// find all options that occur, in one pass
+		boolean[] present = new boolean[this.options.length];
+		for(int index = 0; index < result.getOptionCount(); index++) {
+			OptionSpec occurrence = result.getOption(index);
+			Map<String, int[]> byName = this.optionIndices.get(occurrence.type);
+			if(byName == null) {
+				continue;
+			}
+			
+			int[] indices = byName.get(occurrence.name);
+			if(indices == null) {
+				continue;
+			}
+			
+			for(int step = 0; step < indices.length; step++) {
+				present[indices[step]] = true;
+			}
+		}
+		
+		for(int index = 0; index < this.options.length; index++) {
+			OptionSpec option = this.options[index];
+			if(!present[index]) {
+				if(option.required) {
+					throw new OutlineRequiredOptionMissingException(option.name);
+				}
+				
+				continue;
+			}
+			
+			OutlineFieldSetter setter = this.optionSetters[index];
+			Class<?> fieldClass = setter.field.getType();
+			if(OutlineBinder.isPrimitiveArray(result, fieldClass)) {
+				OutlineBinder.bindArrayToField(setter, instance, OutlineBinder.getOptionValueArray(result, option, fieldClass));
+				continue;
+			}
+			
+			OutlineBinder.bindValueToField(setter, instance, OutlineBinder.getOptionValues(result, option), result.converters);
+		}
+		
+		int maxOrderRead = -1;
+		for(int index = 0; index < this.arguments.length; index++) {
+			ArgumentSpec argument = this.arguments[index];
+			String value = OutlineBinder.getArgumentValue(result, argument);
+			if(value == null) {
+				continue;
+			}
+			
+			maxOrderRead = Math.max(maxOrderRead, argument.order);
+			OutlineBinder.bindValueToField(this.argumentSetters[index], instance, value, result.converters);
+		}
+		
+		if(this.remaining == null) {
+			return;
+		}
+		
+		int startOrder = maxOrderRead + 1;
+		Class<?> fieldClass = this.remainingSetter.field.getType();
+		if(OutlineBinder.isPrimitiveArray(result, fieldClass)) {
+			OutlineBinder.bindArrayToField(this.remainingSetter, instance, OutlineBinder.getRemainingArgumentArray(result, startOrder, this.remaining, fieldClass));
+			return;
+		}
+		
+		OutlineBinder.bindValueToField(this.remainingSetter, instance, OutlineBinder.getRemainingArguments(result, startOrder, this.remaining), result.converters);
+	}
+	
+}
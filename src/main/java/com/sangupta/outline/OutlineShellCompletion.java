@@ -0,0 +1,691 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Generates a completion script for <code>bash</code>, <code>zsh</code> or
+ * <code>fish</code> that holds all the names of an {@link Outline} - the global
+ * options, groups, commands, the options of each group and command, and their
+ * allowed values - as precomputed word lists. Completing on the TAB key thus
+ * never needs to start a JVM.
+ * <p>
+ * The script follows the same rules as the parser, and offers the same
+ * candidates as {@link OutlineParser#complete(String[], int)}: it walks the
+ * tokens before the cursor, skipping the values of each option, and moving
+ * into the scope of a group or a command once it sees its name. Each scope is
+ * a <code>case</code> branch, so that only the names of the current scope are
+ * matched against, and commands with the same options share their scope to
+ * keep the script small. Clusters of short options and abbreviated long options are
+ * not followed, and the shell falls back to completing files once the tokens
+ * are not known, as for the arguments of a command.
+ * <p>
+ * When run as a main class, all commands are discovered via the command index
+ * written by the <code>outline-processor</code>:
+ * 
+ * <pre>
+ * java -cp app.jar com.sangupta.outline.OutlineShellCompletion myapp bash &gt; myapp-completion.bash
+ * </pre>
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineShellCompletion {
+	
+	/**
+	 * The shells a completion script can be generated for
+	 */
+	public static enum Shell {
+		
+		BASH,
+		
+		ZSH,
+		
+		FISH;
+		
+	}
+	
+	private static final String GLOBAL = "global";
+	
+	private static final String HELP = "help";
+	
+	private static final String GROUP = "group:";
+	
+	private static final String GROUP_HELP = "help:";
+	
+	private static final String COMMAND = "command:";
+	
+	/**
+	 * The name the tool is invoked with
+	 */
+	private final String name;
+	
+	/**
+	 * The prefix of all functions and variables of the script
+	 */
+	private final String prefix;
+	
+	private final List<Scope> scopes = new ArrayList<>();
+	
+	/**
+	 * The names of the commands that move into each command scope
+	 */
+	private final Map<String, List<String>> commandScopes = new TreeMap<>();
+	
+	private final StringBuilder script = new StringBuilder(1024);
+	
+	private OutlineShellCompletion(OutlineMetadata metadata) {
+		this.name = metadata.name;
+		this.prefix = "_outline_" + metadata.name.replaceAll("[^A-Za-z0-9_]", "_");
+		this.readScopes(metadata);
+	}
+	
+	public static void main(String[] args) {
+		if(args.length != 2) {
+			System.out.println("Usage: OutlineShellCompletion <name> <bash|zsh|fish>");
+			return;
+		}
+		
+		Shell shell;
+		try {
+			shell = Shell.valueOf(args[1].toUpperCase());
+		} catch(IllegalArgumentException e) {
+			System.out.println("Unknown shell: " + args[1]);
+			return;
+		}
+		
+		System.out.print(generate(new Outline(args[0]).withDiscoveredCommands(), shell));
+	}
+	
+	/**
+	 * Generate the completion script for the given {@link Outline}. All
+	 * commands registered by name are loaded, so that their options can be
+	 * completed as well.
+	 * 
+	 * @param outline
+	 *            the {@link Outline} to complete
+	 * 
+	 * @param shell
+	 *            the shell to generate the script for
+	 * 
+	 * @return the script, to be sourced by the shell - <code>bash</code> and
+	 *         <code>zsh</code> scripts register the completion via
+	 *         <code>complete</code> and <code>compdef</code>, the latter after
+	 *         <code>compinit</code> has been run
+	 */
+	public static String generate(Outline outline, Shell shell) {
+		if(outline == null) {
+			throw new IllegalArgumentException("Outline cannot be null");
+		}
+		
+		if(shell == null) {
+			throw new IllegalArgumentException("Shell cannot be null");
+		}
+		
+		OutlineMetadata metadata = outline.compile().getMetadata();
+		metadata.loadAllCommands();
+		
+		OutlineShellCompletion completion = new OutlineShellCompletion(metadata);
+		switch(shell) {
+			case BASH:
+				completion.writeBash();
+				break;
+				
+			case ZSH:
+				completion.writeZsh();
+				break;
+				
+			default:
+				completion.writeFish();
+		}
+		
+		return completion.script.toString();
+	}
+	
+	/**
+	 * Read the names, and the moves from one scope to the next, of all scopes.
+	 * Commands with the same options share a scope.
+	 * 
+	 */
+	private void readScopes(OutlineMetadata metadata) {
+		final String helpKeyword = metadata.helpKeyword;
+		
+		// the group of each command, as commands may be added to groups via the API
+		List<String> groups = new ArrayList<>(metadata.commandGroups.keySet());
+		Collections.sort(groups);
+		
+		Map<String, String> commandGroups = new HashMap<>();
+		for(String group : groups) {
+			for(CommandSpec command : metadata.commandGroups.getValues(group)) {
+				commandGroups.put(command.name, group);
+			}
+		}
+		
+		List<CommandSpec> commands = new ArrayList<>(new TreeMap<>(metadata.commandNames).values());
+		
+		Scope global = this.addScope(GLOBAL, metadata.globalOptions);
+		Scope help = this.addScope(HELP, null);
+		global.commands = true;
+		for(String group : groups) {
+			global.moves(group, GROUP + group);
+			help.moves(group, GROUP_HELP + group);
+		}
+		
+		for(CommandSpec command : commands) {
+			if(!command.hidden && !commandGroups.containsKey(command.name)) {
+				global.candidates.add(command.name);
+				help.candidates.add(command.name);
+			}
+		}
+		
+		if(helpKeyword != null) {
+			global.moves(helpKeyword, HELP);
+		}
+		
+		for(String group : groups) {
+			Scope scope = this.addScope(GROUP + group, metadata.groupOptions.get(group));
+			Scope groupHelp = this.addScope(GROUP_HELP + group, null);
+			scope.commands = true;
+			for(CommandSpec command : commands) {
+				if(!command.hidden && group.equals(commandGroups.get(command.name))) {
+					scope.candidates.add(command.name);
+					groupHelp.candidates.add(command.name);
+				}
+			}
+			
+			if(helpKeyword != null) {
+				scope.moves(helpKeyword, GROUP_HELP + group);
+			}
+		}
+		
+		Map<String, Scope> shared = new HashMap<>();
+		for(CommandSpec command : commands) {
+			Map<String, OptionSpec> options = metadata.commandOptions.get(command.name);
+			String key = getSignature(options);
+			
+			Scope scope = shared.get(key);
+			if(scope == null) {
+				scope = this.addScope(COMMAND + shared.size(), options);
+				shared.put(key, scope);
+			}
+			
+			List<String> names = this.commandScopes.get(scope.key);
+			if(names == null) {
+				names = new ArrayList<>();
+				this.commandScopes.put(scope.key, names);
+			}
+			
+			names.add(command.name);
+		}
+		
+		for(Scope scope : this.scopes) {
+			Collections.sort(scope.candidates);
+		}
+	}
+	
+	private Scope addScope(String key, Map<String, OptionSpec> options) {
+		Scope scope = new Scope(key);
+		this.scopes.add(scope);
+		
+		if(options != null) {
+			for(OptionSpec option : sorted(options)) {
+				scope.moves.add(new Move(option.names, option, null));
+				if(!option.hidden) {
+					scope.candidates.addAll(option.names);
+				}
+			}
+		}
+		
+		return scope;
+	}
+	
+	/**
+	 * Return all that the script needs to know of the given options, so that
+	 * commands with equal signatures can share their scope.
+	 * 
+	 */
+	private static String getSignature(Map<String, OptionSpec> options) {
+		if(options == null) {
+			return "";
+		}
+		
+		StringBuilder builder = new StringBuilder();
+		for(OptionSpec option : sorted(options)) {
+			builder.append(option.names).append(option.arity).append(option.hidden).append(option.allowedValues).append('\n');
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Return each option of the given map once, ordered by its primary name.
+	 * 
+	 */
+	private static List<OptionSpec> sorted(Map<String, OptionSpec> options) {
+		Map<String, OptionSpec> sorted = new TreeMap<>();
+		for(OptionSpec option : options.values()) {
+			sorted.put(option.name, option);
+		}
+		
+		return new ArrayList<>(sorted.values());
+	}
+	
+	private void writeBash() {
+		this.line("# bash completion for " + this.name + ", generated by outline - do not edit");
+		this.line("# source this file, or copy it into the bash-completion directory");
+		this.line("");
+		this.writeShellFunctions();
+		
+		this.line(this.prefix + "() {");
+		this.line("\tlocal cur=${COMP_WORDS[COMP_CWORD]} scope skip values candidates");
+		this.line("\tif [ \"$cur\" = '=' ]; then");
+		this.line("\t\t# the value after --name=, split off by the shell");
+		this.line("\t\tcur=''");
+		this.line("\tfi");
+		this.line("");
+		this.line("\tCOMPREPLY=()");
+		this.line("\t" + this.prefix + "_walk \"${COMP_WORDS[@]:1:COMP_CWORD-1}\" || return 0");
+		this.line("\tif [ \"$skip\" -gt 0 ]; then");
+		this.line("\t\t" + this.prefix + "_reply \"$values\" \"$cur\" ''");
+		this.line("\t\treturn 0");
+		this.line("\tfi");
+		this.line("");
+		this.line("\tcase \"$cur\" in");
+		this.line("\t-*=*)");
+		this.line("\t\t" + this.prefix + "_next \"${cur%%=*}\" && [ \"$skip\" -gt 0 ] && " + this.prefix + "_reply \"$values\" \"${cur#*=}\" \"${cur%%=*}=\"");
+		this.line("\t\t;;");
+		this.line("\t*)");
+		this.line("\t\t" + this.prefix + "_candidates");
+		this.line("\t\t" + this.prefix + "_reply \"$candidates\" \"$cur\" ''");
+		this.line("\t\t;;");
+		this.line("\tesac");
+		this.line("}");
+		this.line("");
+		
+		// filter in the shell itself, as compgen needs a subshell
+		this.line(this.prefix + "_reply() {");
+		this.line("\tlocal word");
+		this.line("\tfor word in $1; do");
+		this.line("\t\tcase \"$word\" in");
+		this.line("\t\t\"$2\"*) COMPREPLY+=(\"$3$word\") ;;");
+		this.line("\t\tesac");
+		this.line("\tdone");
+		this.line("}");
+		this.line("");
+		this.line("complete -o default -F " + this.prefix + " " + quote(this.name));
+	}
+	
+	private void writeZsh() {
+		this.line("# zsh completion for " + this.name + ", generated by outline - do not edit");
+		this.line("# source this file after compinit has been run");
+		this.line("");
+		this.writeShellFunctions();
+		
+		this.line(this.prefix + "() {");
+		this.line("\tlocal cur=$words[CURRENT] scope skip values candidates");
+		this.line("\tif ! " + this.prefix + "_walk \"${(@)words[2,CURRENT-1]}\"; then");
+		this.line("\t\t_files");
+		this.line("\t\treturn");
+		this.line("\tfi");
+		this.line("");
+		this.line("\tif [ \"$skip\" -gt 0 ]; then");
+		this.line("\t\tcompadd -- ${=values}");
+		this.line("\t\treturn");
+		this.line("\tfi");
+		this.line("");
+		this.line("\tcase \"$cur\" in");
+		this.line("\t-*=*)");
+		this.line("\t\t" + this.prefix + "_next \"${cur%%=*}\" && [ \"$skip\" -gt 0 ] && compset -P '*=' && compadd -- ${=values}");
+		this.line("\t\t;;");
+		this.line("\t*)");
+		this.line("\t\t" + this.prefix + "_candidates");
+		this.line("\t\tcompadd -- ${=candidates}");
+		this.line("\t\t;;");
+		this.line("\tesac");
+		this.line("}");
+		this.line("");
+		this.line("compdef " + this.prefix + " " + quote(this.name));
+	}
+	
+	/**
+	 * Write the functions shared by <code>bash</code> and <code>zsh</code>,
+	 * which set the variables <code>scope</code>, <code>skip</code>,
+	 * <code>values</code> and <code>candidates</code> of the caller.
+	 * 
+	 */
+	private void writeShellFunctions() {
+		// move from the current scope past the given token
+		this.line(this.prefix + "_next() {");
+		this.line("\tcase \"$scope\" in");
+		for(Scope scope : this.scopes) {
+			if(scope.moves.isEmpty() && !scope.commands) {
+				continue;
+			}
+			
+			this.line("\t" + quote(scope.key) + ")");
+			this.line("\t\tcase \"$1\" in");
+			for(Move move : scope.moves) {
+				this.script.append("\t\t");
+				for(int index = 0; index < move.names.size(); index++) {
+					this.script.append(index == 0 ? "" : "|").append(quote(move.names.get(index)));
+				}
+				
+				if(move.option != null) {
+					this.line(") skip=" + move.option.arity + " values=" + quote(join(move.option.allowedValues)) + " ;;");
+				} else {
+					this.line(") scope=" + quote(move.scope) + " ;;");
+				}
+			}
+			
+			this.line(scope.commands ? "\t\t*) " + this.prefix + "_command \"$1\" || return 1 ;;" : "\t\t*) return 1 ;;");
+			this.line("\t\tesac");
+			this.line("\t\t;;");
+		}
+		
+		this.line("\t*)");
+		this.line("\t\treturn 1");
+		this.line("\t\t;;");
+		this.line("\tesac");
+		this.line("}");
+		this.line("");
+		
+		// move into the scope of the given command
+		this.line(this.prefix + "_command() {");
+		this.line("\tcase \"$1\" in");
+		for(Map.Entry<String, List<String>> entry : this.commandScopes.entrySet()) {
+			this.script.append('\t');
+			for(int index = 0; index < entry.getValue().size(); index++) {
+				this.script.append(index == 0 ? "" : "|").append(quote(entry.getValue().get(index)));
+			}
+			
+			this.line(") scope=" + quote(entry.getKey()) + " ;;");
+		}
+		
+		this.line("\t*) return 1 ;;");
+		this.line("\tesac");
+		this.line("}");
+		this.line("");
+		
+		// the names that may follow in the current scope
+		this.line(this.prefix + "_candidates() {");
+		this.line("\tcase \"$scope\" in");
+		for(Scope scope : this.scopes) {
+			if(!scope.candidates.isEmpty()) {
+				this.line("\t" + quote(scope.key) + ") candidates=" + quote(join(scope.candidates)) + " ;;");
+			}
+		}
+		
+		this.line("\t*) candidates='' ;;");
+		this.line("\tesac");
+		this.line("}");
+		this.line("");
+		
+		// walk the given tokens, failing once one is not known
+		this.line(this.prefix + "_walk() {");
+		this.line("\tlocal word");
+		this.line("\tscope=" + GLOBAL + " skip=0 values=''");
+		this.line("\tfor word in \"$@\"; do");
+		this.line("\t\tif [ \"$word\" = '=' ]; then");
+		this.line("\t\t\t# the shell split --name=value into three words");
+		this.line("\t\t\tcontinue");
+		this.line("\t\telif [ \"$skip\" -gt 0 ]; then");
+		this.line("\t\t\tskip=$((skip - 1))");
+		this.line("\t\telif ! " + this.prefix + "_next \"$word\"; then");
+		this.line("\t\t\tcase \"$word\" in");
+		this.line("\t\t\t-*=*)");
+		this.line("\t\t\t\t" + this.prefix + "_next \"${word%%=*}\" && [ \"$skip\" -gt 0 ] || return 1");
+		this.line("\t\t\t\tskip=$((skip - 1))");
+		this.line("\t\t\t\t;;");
+		this.line("\t\t\t*)");
+		this.line("\t\t\t\treturn 1");
+		this.line("\t\t\t\t;;");
+		this.line("\t\t\tesac");
+		this.line("\t\tfi");
+		this.line("\tdone");
+		this.line("}");
+		this.line("");
+	}
+	
+	private void writeFish() {
+		final String scope = this.prefix + "_scope";
+		final String skip = this.prefix + "_skip";
+		final String values = this.prefix + "_values";
+		
+		this.line("# fish completion for " + this.name + ", generated by outline - do not edit");
+		this.line("# source this file, or copy it into ~/.config/fish/completions");
+		this.line("");
+		
+		// tokens are matched with a leading colon, as switch takes a value such as --help as its own option
+		this.line("function " + this.prefix + "_next");
+		this.line("\tswitch $" + scope);
+		for(Scope each : this.scopes) {
+			if(each.moves.isEmpty() && !each.commands) {
+				continue;
+			}
+			
+			this.line("\t\tcase " + fishQuote(each.key));
+			this.line("\t\t\tswitch \":$argv[1]\"");
+			for(Move move : each.moves) {
+				this.script.append("\t\t\t\tcase");
+				for(String name : move.names) {
+					this.script.append(' ').append(fishQuote(":" + name));
+				}
+				
+				this.line("");
+				if(move.option != null) {
+					this.line("\t\t\t\t\tset -g " + skip + " " + move.option.arity);
+					this.script.append("\t\t\t\t\tset -g ").append(values);
+					for(String value : move.option.allowedValues) {
+						this.script.append(' ').append(fishQuote(value));
+					}
+					
+					this.line("");
+				} else {
+					this.line("\t\t\t\t\tset -g " + scope + " " + fishQuote(move.scope));
+				}
+			}
+			
+			this.line("\t\t\t\tcase '*'");
+			this.line(each.commands ? "\t\t\t\t\t" + this.prefix + "_command $argv[1]; or return 1" : "\t\t\t\t\treturn 1");
+			this.line("\t\t\tend");
+		}
+		
+		this.line("\t\tcase '*'");
+		this.line("\t\t\treturn 1");
+		this.line("\tend");
+		this.line("end");
+		this.line("");
+		
+		this.line("function " + this.prefix + "_command");
+		this.line("\tswitch \":$argv[1]\"");
+		for(Map.Entry<String, List<String>> entry : this.commandScopes.entrySet()) {
+			this.script.append("\t\tcase");
+			for(String command : entry.getValue()) {
+				this.script.append(' ').append(fishQuote(":" + command));
+			}
+			
+			this.line("");
+			this.line("\t\t\tset -g " + scope + " " + fishQuote(entry.getKey()));
+		}
+		
+		this.line("\t\tcase '*'");
+		this.line("\t\t\treturn 1");
+		this.line("\tend");
+		this.line("end");
+		this.line("");
+		
+		this.line("function " + this.prefix + "_candidates");
+		this.line("\tswitch $" + scope);
+		for(Scope each : this.scopes) {
+			if(each.candidates.isEmpty()) {
+				continue;
+			}
+			
+			this.line("\t\tcase " + fishQuote(each.key));
+			this.script.append("\t\t\tprintf '%s\\n'");
+			for(String candidate : each.candidates) {
+				this.script.append(' ').append(fishQuote(candidate));
+			}
+			
+			this.line("");
+		}
+		
+		this.line("\tend");
+		this.line("end");
+		this.line("");
+		
+		this.line("function " + this.prefix + "_complete");
+		this.line("\tset -l tokens (commandline -opc)");
+		this.line("\tset -l cur (commandline -ct)");
+		this.line("\tset -e tokens[1]");
+		this.line("");
+		this.line("\tset -g " + scope + " " + GLOBAL);
+		this.line("\tset -g " + skip + " 0");
+		this.line("\tset -g " + values);
+		this.line("\tfor word in $tokens");
+		this.line("\t\tif test $" + skip + " -gt 0");
+		this.line("\t\t\tset -g " + skip + " (math $" + skip + " - 1)");
+		this.line("\t\telse if not " + this.prefix + "_next $word");
+		this.line("\t\t\t# an option with its value attached, as in --name=value");
+		this.line("\t\t\tset -l option (string split -m 1 = -- $word)");
+		this.line("\t\t\tif not string match -q -- '-*=*' $word; or not " + this.prefix + "_next $option[1]; or test $" + skip + " -eq 0");
+		this.line("\t\t\t\t__fish_complete_path $cur");
+		this.line("\t\t\t\treturn");
+		this.line("\t\t\tend");
+		this.line("");
+		this.line("\t\t\tset -g " + skip + " (math $" + skip + " - 1)");
+		this.line("\t\tend");
+		this.line("\tend");
+		this.line("");
+		this.line("\tif test $" + skip + " -gt 0");
+		this.line("\t\tprintf '%s\\n' $" + values);
+		this.line("\telse if string match -q -- '-*=*' $cur");
+		this.line("\t\tset -l option (string split -m 1 = -- $cur)[1]");
+		this.line("\t\tif " + this.prefix + "_next $option; and test $" + skip + " -gt 0");
+		this.line("\t\t\tprintf '%s\\n' $option=$" + values);
+		this.line("\t\tend");
+		this.line("\telse");
+		this.line("\t\t" + this.prefix + "_candidates");
+		this.line("\tend");
+		this.line("end");
+		this.line("");
+		this.line("complete -c " + fishQuote(this.name) + " -f -a '(" + this.prefix + "_complete)'");
+	}
+	
+	private void line(String line) {
+		this.script.append(line).append('\n');
+	}
+	
+	private static String join(Collection<String> names) {
+		StringBuilder builder = new StringBuilder();
+		for(String name : names) {
+			if(builder.length() > 0) {
+				builder.append(' ');
+			}
+			
+			builder.append(name);
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Quote the given string for <code>bash</code> and <code>zsh</code>, where
+	 * nothing is special within single quotes but the quote itself.
+	 * 
+	 */
+	static String quote(String value) {
+		return "'" + value.replace("'", "'\\''") + "'";
+	}
+	
+	/**
+	 * Quote the given string for <code>fish</code>, where a backslash escapes
+	 * a single quote and itself within single quotes.
+	 * 
+	 */
+	static String fishQuote(String value) {
+		return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+	
+	/**
+	 * The names that may follow in a scope, and how each token moves on from it.
+	 * 
+	 */
+	private static final class Scope {
+		
+		final String key;
+		
+		/**
+		 * The names offered, sorted once all are added
+		 */
+		final List<String> candidates = new ArrayList<>();
+		
+		final List<Move> moves = new ArrayList<>();
+		
+		/**
+		 * Whether the name of any command moves into its scope
+		 */
+		boolean commands;
+		
+		Scope(String key) {
+			this.key = key;
+		}
+		
+		void moves(String name, String scope) {
+			this.moves.add(new Move(Collections.singletonList(name), null, scope));
+			this.candidates.add(name);
+		}
+		
+	}
+	
+	/**
+	 * A token that is either an option, whose values are skipped, or the name
+	 * of a group or the help keyword, that moves to another scope.
+	 * 
+	 */
+	private static final class Move {
+		
+		final List<String> names;
+		
+		final OptionSpec option;
+		
+		final String scope;
+		
+		Move(List<String> names, OptionSpec option, String scope) {
+			this.names = names;
+			this.option = option;
+			this.scope = scope;
+		}
+		
+	}
+	
+}
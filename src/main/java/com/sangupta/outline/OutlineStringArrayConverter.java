@@ -0,0 +1,59 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * The built-in {@link OutlineTypeConverter} for <code>String[]</code> fields,
+ * that binds a list of values as an array of their {@link String} values, and
+ * a single value as an array of one.
+ * 
+ * Generated models assign <code>String[]</code> fields directly, unless
+ * another converter is registered for the type.
+ * 
+ * @author sangupta
+ *
+ */
+final class OutlineStringArrayConverter implements OutlineTypeConverter<String[]> {
+
+    @Override
+    public String[] convertFrom(Field field, Object instance, Object value) {
+        if(value == null) {
+            return null;
+        }
+        
+        if(value instanceof List<?>) {
+            List<?> list = (List<?>) value;
+            String[] array = new String[list.size()];
+            for(int index = 0; index < array.length; index++) {
+                array[index] = list.get(index).toString();
+            }
+            
+            return array;
+        }
+        
+        return new String[] { value.toString() };
+    }
+    
+}
@@ -0,0 +1,153 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sangupta.jerry.util.AssertUtils;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.spec.CommandSpec;
+
+/**
+ * Exercises every code path of an {@link Outline} that a command line tool
+ * touches on launch - reading metadata, parsing, binding and rendering help -
+ * for all registered commands. Running this once with
+ * <code>-XX:ArchiveClassesAtExit=app.jsa</code> thus loads every class that a
+ * real invocation may need, and the resulting AppCDS archive can then be used
+ * via <code>-XX:SharedArchiveFile=app.jsa</code> to cut down JVM startup.
+ * 
+ * When run as a main class, all commands are discovered via the command index
+ * written by the <code>outline-processor</code>:
+ * 
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=app.jsa -cp app.jar com.sangupta.outline.OutlineTrainer myapp "deploy -e prod 1.0"
+ * </pre>
+ * 
+ * The first argument is the name of the tool, and each of the following
+ * arguments is one sample invocation, split on whitespace.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineTrainer {
+	
+	/**
+     * My private logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutlineTrainer.class);
+    
+    private OutlineTrainer() {
+    	// no instances
+    }
+    
+    public static void main(String[] args) {
+    	if(args.length == 0) {
+    		System.out.println("Usage: OutlineTrainer <name> [\"sample invocation\" ...]");
+    		return;
+    	}
+    	
+    	String[][] samples = new String[args.length - 1][];
+    	for(int index = 1; index < args.length; index++) {
+    		samples[index - 1] = args[index].trim().split("\\s+");
+    	}
+    	
+    	Outline outline = new Outline(args[0]).withDiscoveredCommands();
+    	int invocations = train(outline, samples);
+    	
+    	System.out.println("Trained " + args[0] + " with " + invocations + " invocations");
+    }
+    
+    /**
+	 * Train the given {@link Outline}: compile it, render the general help, and
+	 * for every registered command load it, render its help and parse it without
+	 * any arguments. At last each of the given sample invocations is parsed, and
+	 * help is rendered if the invocation results in help. Invocations that fail
+	 * are logged and ignored, as the code paths for failures are worth training
+	 * as well.
+	 * 
+	 * @param outline
+	 *            the {@link Outline} to train
+	 * 
+	 * @param sampleInvocations
+	 *            the sample command lines to parse
+	 * 
+	 * @return the number of invocations that were exercised
+	 */
+    public static int train(Outline outline, String[]... sampleInvocations) {
+    	if(outline == null) {
+    		throw new IllegalArgumentException("Outline to train cannot be null");
+    	}
+    	
+    	OutlineParser parser = outline.compile();
+    	OutlineMetadata metadata = parser.getMetadata();
+    	
+    	List<String[]> invocations = new ArrayList<>();
+    	invocations.add(new String[] { metadata.helpKeyword });
+    	
+    	if(!metadata.singleCommandMode) {
+    		List<String> names = new ArrayList<>(metadata.lazyCommands.keySet());
+    		for(CommandSpec command : metadata.getCommands()) {
+    			if(!names.contains(command.name)) {
+    				names.add(command.name);
+    			}
+    		}
+    		
+    		for(String name : names) {
+    			metadata.loadCommand(name);
+    			
+    			invocations.add(new String[] { metadata.helpKeyword, name });
+    			invocations.add(new String[] { name });
+    		}
+    	}
+    	
+    	if(sampleInvocations != null) {
+    		for(String[] sample : sampleInvocations) {
+    			if(AssertUtils.isNotEmpty(sample)) {
+    				invocations.add(sample);
+    			}
+    		}
+    	}
+    	
+    	for(String[] invocation : invocations) {
+    		exercise(parser, invocation);
+    	}
+    	
+    	return invocations.size();
+    }
+    
+    private static void exercise(OutlineParser parser, String[] args) {
+    	try {
+    		Object instance = parser.parse(args);
+    		if(instance instanceof OutlineHelp) {
+    			((OutlineHelp) instance).getHelp();
+    		}
+    	} catch(RuntimeException e) {
+    		LOGGER.debug("Training invocation failed: {}", e.toString());
+    	}
+    }
+
+}
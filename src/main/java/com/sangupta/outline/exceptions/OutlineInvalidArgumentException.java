@@ -21,6 +21,9 @@
  
 package com.sangupta.outline.exceptions;
 
+import java.util.Collections;
+import java.util.List;
+
 public class OutlineInvalidArgumentException extends OutlineException {
 
 	/**
@@ -32,9 +35,49 @@ public class OutlineInvalidArgumentException extends OutlineException {
 	
 	public final int positionIndex;
 	
+	/**
+	 * The names the argument could have stood for, if it was ambiguous
+	 */
+	public final List<String> candidates;
+	
+	/**
+	 * The known names closest to the argument, if it was not known at all -
+	 * the closest first
+	 */
+	public final List<String> suggestions;
+	
 	public OutlineInvalidArgumentException(String argument, int positionIndex) {
+		this(argument, positionIndex, Collections.<String>emptyList());
+	}
+	
+	public OutlineInvalidArgumentException(String argument, int positionIndex, List<String> candidates) {
+		this(argument, positionIndex, candidates, Collections.<String>emptyList());
+	}
+	
+	public OutlineInvalidArgumentException(String argument, int positionIndex, List<String> candidates, List<String> suggestions) {
 		this.argument = argument;
 		this.positionIndex = positionIndex;
+		this.candidates = candidates;
+		this.suggestions = suggestions;
+	}
+	
+	public OutlineInvalidArgumentException(String argument, int positionIndex, Throwable cause) {
+		this(argument, positionIndex);
+		this.initCause(cause);
+	}
+	
+	@Override
+	public String getMessage() {
+		String message = "Invalid argument at index " + this.positionIndex + ": " + this.argument;
+		if(!this.candidates.isEmpty()) {
+			return message + " - could be any of " + this.candidates;
+		}
+		
+		if(!this.suggestions.isEmpty()) {
+			return message + " - did you mean " + this.suggestions;
+		}
+		
+		return message;
 	}
 	
 }
@@ -31,11 +31,10 @@ import com.sangupta.jerry.io.IndentedStringWriter;
 import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.outline.Outline;
 import com.sangupta.outline.OutlineMetadata;
-import com.sangupta.outline.annotations.Argument;
-import com.sangupta.outline.annotations.Arguments;
-import com.sangupta.outline.annotations.Command;
-import com.sangupta.outline.annotations.Option;
 import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
 import com.sangupta.outline.util.OutlineUtil;
 
 public class OutlineHelpBuilder {
@@ -92,6 +91,8 @@ public class OutlineHelpBuilder {
         writer.writeLine(this.meta.name + ": " + this.meta.description);
         writer.newLine();
         
+        getSuggestionsSection(writer);
+        
         writer.writeLine("Usage:");
         getUsageLine(writer, command, group);
         writer.newLine();
@@ -107,6 +108,31 @@ public class OutlineHelpBuilder {
         return writer;
     }
 
+    /**
+     * Show the argument that was not known, and the names it may have been a
+     * typo of.
+     * 
+     * @param writer
+     */
+    private void getSuggestionsSection(final IndentedStringWriter writer) {
+    	if(AssertUtils.isEmpty(this.result.invalidArgument)) {
+    		return;
+    	}
+    	
+    	writer.writeLine("Unknown argument: " + this.result.invalidArgument);
+    	if(!this.result.suggestions.isEmpty()) {
+    		writer.writeLine("Did you mean:");
+    		for(String suggestion : this.result.suggestions) {
+    			writer.setIndentLevel(1);
+    			writer.writeLine(suggestion);
+    		}
+    		
+    		writer.setIndentLevel(0);
+    	}
+    	
+    	writer.newLine();
+    }
+    
     /**
      * Show all commands that are applicable.
      * 
@@ -126,29 +152,29 @@ public class OutlineHelpBuilder {
 
     	writer.writeLine("Available commands:");
     	
-    	Collection<Command> commands;
+    	Collection<CommandSpec> commands;
     	if(AssertUtils.isEmpty(group)) {
-    		commands = this.meta.commandNames.values();
+    		commands = this.meta.getCommands();
     	} else {
-    		commands = this.meta.commandGroups.getValues(group);
+    		commands = this.meta.getGroupCommands(group);
     	}
     	
-        Set<Command> commandSet = new HashSet<>(commands);
-        for(Command item : commandSet) {
+        Set<CommandSpec> commandSet = new HashSet<>(commands);
+        for(CommandSpec item : commandSet) {
         	if(item == null) {
     			// this happens because of the help keyword
         		continue;
         	}
         	
-        	if(item.hidden()) {
+        	if(item.hidden) {
         		// command is hidden
         		continue;
         	}
         	
         	writer.setIndentLevel(1);
-            writer.write(item.name());
+            writer.write(item.name);
             writer.setIndentLevel(1);
-            writer.writeLine(item.description());
+            writer.writeLine(item.description);
         }
 	}
 
@@ -162,7 +188,7 @@ public class OutlineHelpBuilder {
     		return;
     	}
     	
-		List<Object> arguments = this.meta.commandArguments.getValues(command);
+		List<ArgumentSpec> arguments = this.meta.commandArguments.getValues(command);
 		if(AssertUtils.isEmpty(arguments)) {
 			return;
 		}
@@ -170,37 +196,31 @@ public class OutlineHelpBuilder {
     	writer.writeLine("Available arguments:");
     	
 		int count = 1;
-		for(Object obj : arguments) {
+		for(ArgumentSpec arg : arguments) {
 			writer.newLine();
 			
 			// iterate over them
-			if(obj instanceof Argument) {
-				Argument arg = (Argument) obj;
-				
+			if(!arg.remaining) {
 				writer.setIndentLevel(1);
-				writer.writeLine("<" + nonEmpty(arg.title(), "arg" + count++) + ">");
+				writer.writeLine("<" + nonEmpty(arg.title, "arg" + count++) + ">");
 				writer.setIndentLevel(2);
-				writer.write(arg.description());
+				writer.write(arg.description);
 				
-				if(!arg.description().endsWith(".")) {
+				if(!arg.description.endsWith(".")) {
 					writer.write('.');
 				}
 				writer.newLine();
 				
-				if(arg.required()) {
+				if(arg.required) {
 					writer.writeLine("Required.");
 				}
-			}
-			
-			if(obj instanceof Arguments) {
-				Arguments args = (Arguments) obj;
-
+			} else {
 				writer.setIndentLevel(1);
-				writer.writeLine("<" + nonEmpty(args.title(), "arguments") + ">");
+				writer.writeLine("<" + nonEmpty(arg.title, "arguments") + ">");
 				writer.setIndentLevel(2);
-				writer.write(args.description());
+				writer.write(arg.description);
 				
-				if(!args.description().endsWith(".")) {
+				if(!arg.description.endsWith(".")) {
 					writer.write('.');
 				}
 				
@@ -268,42 +288,41 @@ public class OutlineHelpBuilder {
      * @param options
      * @return
      */
-    private void buildOptionsSectionForData(final IndentedStringWriter writer, final Map<String, Option> optionMap) {
+    private void buildOptionsSectionForData(final IndentedStringWriter writer, final Map<String, OptionSpec> optionMap) {
         if(AssertUtils.isEmpty(optionMap)) {
         	return;
         }
 
-        Collection<Option> optionsCollection = optionMap.values();
+        Collection<OptionSpec> optionsCollection = optionMap.values();
         
-        Set<Option> options = new HashSet<>(optionsCollection);
-        for(Option option : options) {
+        Set<OptionSpec> options = new HashSet<>(optionsCollection);
+        for(OptionSpec option : options) {
         	writer.newLine();
         	
         	// check for hidden
-        	if(option.hidden()) {
+        	if(option.hidden) {
         		// skip hidden options
         		continue;
         	}
         	
-            String[] names = option.name();
             writer.setIndentLevel(1);
-            writer.writeLine(OutlineUtil.join(names, ", "));
+            writer.writeLine(OutlineUtil.join(option.names.toArray(new String[option.names.size()]), ", "));
             writer.setIndentLevel(2);
             getOptionHelp(writer, option);
             writer.setIndentLevel(0);
         }
     }
     
-    private void getOptionHelp(IndentedStringWriter writer, Option option) {
-    	boolean descriptionAvailable = AssertUtils.isNotEmpty(option.description());
+    private void getOptionHelp(IndentedStringWriter writer, OptionSpec option) {
+    	boolean descriptionAvailable = AssertUtils.isNotEmpty(option.description);
     	if(descriptionAvailable) {
-	    	writer.write(option.description());
-	    	if(!option.description().endsWith(".")) {
+	    	writer.write(option.description);
+	    	if(!option.description.endsWith(".")) {
 	    		writer.write(".");
 	    	}
     	}
     	
-    	boolean hasOptionDetails = option.required() || option.arity() > 0 || AssertUtils.isNotEmpty(option.allowedValues());
+    	boolean hasOptionDetails = option.required || option.arity > 0 || !option.allowedValues.isEmpty();
     	if(!hasOptionDetails) {
     		return;
     	}
@@ -313,20 +332,19 @@ public class OutlineHelpBuilder {
 	    	writer.newLine();
     	}
     	
-    	if(option.required()) {
+    	if(option.required) {
     		writer.write("Required. ");
     	}
     	
-    	if(option.arity() > 0) {
-	        Class<?> optionClass = this.meta.optionFieldType.get(option);
+    	if(option.arity > 0) {
 	        writer.write("Expects argument of type: ");
-	        writer.write(optionClass.getSimpleName());
+	        writer.write(option.fieldType.getSimpleName());
 	        writer.write(". ");
     	}
     	
-    	if(AssertUtils.isNotEmpty(option.allowedValues())) {
+    	if(!option.allowedValues.isEmpty()) {
     		writer.write("Allowed values: ");
-    		writer.write(OutlineUtil.join(option.allowedValues(), ", "));
+    		writer.write(OutlineUtil.join(option.allowedValues.toArray(new String[option.allowedValues.size()]), ", "));
     	}
     }
 
@@ -345,7 +363,7 @@ public class OutlineHelpBuilder {
     	// all global options must be shown here
 		// global
 		if(AssertUtils.isNotEmpty(this.meta.globalOptions)) {
-			Set<Option> options = new HashSet<>(this.meta.globalOptions.values());
+			Set<OptionSpec> options = new HashSet<>(this.meta.globalOptions.values());
     		buildOptionsSectionInUsage(writer, options);
     	}
 		
@@ -362,18 +380,18 @@ public class OutlineHelpBuilder {
     	
 		// group
 		if(AssertUtils.isNotEmpty(group)) {
-			Map<String, Option> map = this.meta.groupOptions.get(group);
+			Map<String, OptionSpec> map = this.meta.groupOptions.get(group);
 			if(AssertUtils.isNotEmpty(map)) {
-				Set<Option> options = new HashSet<>(map.values());
+				Set<OptionSpec> options = new HashSet<>(map.values());
 				buildOptionsSectionInUsage(writer, options);
 			}
 		}
 		
 		// command options
 		if(AssertUtils.isNotEmpty(command)) {
-			Map<String, Option> map = this.meta.commandOptions.get(command);
+			Map<String, OptionSpec> map = this.meta.commandOptions.get(command);
 			if(AssertUtils.isNotEmpty(map)) {
-				Set<Option> options = new HashSet<>(map.values());
+				Set<OptionSpec> options = new HashSet<>(map.values());
 				buildOptionsSectionInUsage(writer, options);
 			}
 		}
@@ -398,7 +416,7 @@ public class OutlineHelpBuilder {
 			return;
 		}
 		
-		List<Object> arguments = this.meta.commandArguments.getValues(command);
+		List<ArgumentSpec> arguments = this.meta.commandArguments.getValues(command);
 		
 		if(AssertUtils.isEmpty(arguments)) {
 			if(!this.meta.singleCommandMode && AssertUtils.isEmpty(command)) {
@@ -413,39 +431,33 @@ public class OutlineHelpBuilder {
 		
 		// output the actual arguments
 		int count = 1;
-		for(Object obj : arguments) {
+		for(ArgumentSpec arg : arguments) {
 			// iterate over them
-			if(obj instanceof Argument) {
-				Argument arg = (Argument) obj;
-
+			if(!arg.remaining) {
 				writer.write(' ');
-				writer.writeNonBreaking("<", nonEmpty(arg.title(), "arg" + count++), ">");
-			}
-			
-			if(obj instanceof Arguments) {
-				Arguments args = (Arguments) obj;
-
+				writer.writeNonBreaking("<", nonEmpty(arg.title, "arg" + count++), ">");
+			} else {
 				writer.write(' ');
-				writer.writeNonBreaking("<", nonEmpty(args.title(), "arguments"), ">");
+				writer.writeNonBreaking("<", nonEmpty(arg.title, "arguments"), ">");
 			}
 		}
 	}
 
-	private void buildOptionsSectionInUsage(IndentedStringWriter writer, Set<Option> options) {
+	private void buildOptionsSectionInUsage(IndentedStringWriter writer, Set<OptionSpec> options) {
 		boolean first = true;
 		
 		// show one for each of the param
-		for(Option option : options) {
-			if(option.hidden()) {
+		for(OptionSpec option : options) {
+			if(option.hidden) {
 				// skip hidden option
 				continue;
 			}
 			
-			String[] names = option.name();
+			List<String> names = option.names;
 			writer.write(" [");
 			
 			first = true;
-			if(names.length > 1) {
+			if(names.size() > 1) {
 				writer.write('(');
 			}
 			
@@ -458,12 +470,12 @@ public class OutlineHelpBuilder {
 				writer.write(name);
 			}
 			
-			if(names.length > 1) {
+			if(names.size() > 1) {
 				writer.write(')');
 			}
 
-			for(int index = 0; index < option.arity(); index++) {
-				if(option.arity() == 1) {
+			for(int index = 0; index < option.arity; index++) {
+				if(option.arity == 1) {
 					writer.write(" <option-arg>");
 				} else {
 					writer.writeNonBreaking(" <option-arg", String.valueOf(index + 1), ">");
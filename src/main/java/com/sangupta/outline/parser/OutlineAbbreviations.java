@@ -0,0 +1,130 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * The long option names of one scope, sorted, for resolving abbreviations via
+ * binary search. All names starting with a prefix are adjacent in the sorted
+ * array, so a prefix is resolved in <code>O(log n)</code> comparisons plus the
+ * names it matches.
+ * 
+ * @author sangupta
+ *
+ */
+final class OutlineAbbreviations {
+	
+	/**
+	 * The long option names, in ascending order
+	 */
+	private final String[] names;
+	
+	/**
+	 * The option slot of each of the {@link #names}
+	 */
+	private final int[] slots;
+	
+	OutlineAbbreviations(List<String> names, List<Integer> slots) {
+		this.names = names.toArray(new String[names.size()]);
+		this.slots = new int[slots.size()];
+		for(int index = 0; index < this.slots.length; index++) {
+			this.slots[index] = slots.get(index);
+		}
+	}
+	
+	/**
+	 * Resolve the given number of leading characters of the token at the given
+	 * index of the command line, as the prefix of a long option name.
+	 * 
+	 * @param commandLine
+	 * @param index
+	 * @param length
+	 * 
+	 * @return the slot of the only option with a name starting with the
+	 *         prefix, or <code>-1</code> if there is none
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if names of more than one option start with the prefix
+	 */
+	int resolve(OutlineCommandLine commandLine, int index, int length) {
+		// find the first name that is not less than the prefix
+		int low = 0;
+		int high = this.names.length;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(compare(commandLine, index, length, this.names[middle]) > 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		
+		if(low == this.names.length || compare(commandLine, index, length, this.names[low]) != 0) {
+			return -1;
+		}
+		
+		// all names of one option are not ambiguous
+		int slot = this.slots[low];
+		int end = low + 1;
+		while(end < this.names.length && compare(commandLine, index, length, this.names[end]) == 0) {
+			if(this.slots[end] != slot) {
+				slot = -1;
+			}
+			
+			end++;
+		}
+		
+		if(slot >= 0) {
+			return slot;
+		}
+		
+		List<String> candidates = new ArrayList<>(end - low);
+		for(int candidate = low; candidate < end; candidate++) {
+			candidates.add(this.names[candidate]);
+		}
+		
+		throw new OutlineInvalidArgumentException(commandLine.get(index), index, candidates);
+	}
+	
+	/**
+	 * Compare the prefix with the leading characters of the given name.
+	 * 
+	 * @return zero if the name starts with the prefix, otherwise the sign of
+	 *         comparing the prefix with the name
+	 */
+	private static int compare(OutlineCommandLine commandLine, int index, int length, String name) {
+		int common = Math.min(length, name.length());
+		for(int offset = 0; offset < common; offset++) {
+			int difference = commandLine.charAt(index, offset) - name.charAt(offset);
+			if(difference != 0) {
+				return difference;
+			}
+		}
+		
+		return length <= name.length() ? 0 : 1;
+	}
+
+}
@@ -0,0 +1,288 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.parser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the arguments from an argument file, one at a time, following the
+ * conventions of <code>javac</code>:
+ * 
+ * <ul>
+ * <li>arguments are separated by whitespace</li>
+ * <li>a <code>#</code> at the start of an argument begins a comment that runs
+ * till the end of the line</li>
+ * <li>single or double quotes enclose text with whitespace, and may appear
+ * anywhere in an argument</li>
+ * <li>within quotes, <code>\n</code>, <code>\r</code>, <code>\t</code> and
+ * <code>\f</code> are escapes, any other character following a backslash is
+ * taken as is, and a backslash at the end of a line continues the argument on
+ * the next line after skipping leading whitespace</li>
+ * </ul>
+ * 
+ * The file is read via a memory map of a window of the file, and is decoded
+ * as UTF-8 a small chunk at a time - thus even very large files are never held
+ * in memory as a whole.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineArgumentFile implements Closeable {
+	
+	/**
+	 * The default size of the window of the file that is mapped at a time
+	 */
+	static final long DEFAULT_WINDOW = 64L * 1024 * 1024;
+	
+	private final RandomAccessFile file;
+	
+	private final FileChannel channel;
+	
+	private final long size;
+	
+	private final long window;
+	
+	/**
+	 * The offset in the file at which the current window starts
+	 */
+	private long windowStart;
+	
+	/**
+	 * The current window of the file
+	 */
+	private MappedByteBuffer bytes;
+	
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	
+	/**
+	 * The decoded characters not yet read
+	 */
+	private final CharBuffer chars = CharBuffer.allocate(8192);
+	
+	private boolean endOfInput;
+	
+	/**
+	 * Whether all characters have been decoded
+	 */
+	private boolean finished;
+	
+	/**
+	 * The current character, or <code>-1</code> at the end of the file
+	 */
+	private int ch;
+	
+	public OutlineArgumentFile(File file) throws IOException {
+		this(file, DEFAULT_WINDOW);
+	}
+	
+	OutlineArgumentFile(File file, long window) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.size = this.channel.size();
+		this.window = window;
+		
+		this.chars.flip();
+		this.map(0);
+		this.ch = this.read();
+	}
+	
+	/**
+	 * Return the next argument from the file.
+	 * 
+	 * @return the next argument, or <code>null</code> if there are no more
+	 *         arguments
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public String next() throws IOException {
+		this.skipWhitespace();
+		if(this.ch == -1) {
+			return null;
+		}
+		
+		StringBuilder builder = new StringBuilder();
+		while(this.ch != -1 && !Character.isWhitespace(this.ch)) {
+			if(this.ch == '\'' || this.ch == '"') {
+				int quote = this.ch;
+				this.ch = this.read();
+				
+				while(this.ch != -1 && this.ch != quote) {
+					if(this.ch == '\\') {
+						this.ch = this.read();
+						switch(this.ch) {
+							case '\n':
+							case '\r':
+								// line continuation
+								while(this.ch == ' ' || this.ch == '\n' || this.ch == '\r' || this.ch == '\t' || this.ch == '\f') {
+									this.ch = this.read();
+								}
+								continue;
+								
+							case 'n':
+								this.ch = '\n';
+								break;
+								
+							case 'r':
+								this.ch = '\r';
+								break;
+								
+							case 't':
+								this.ch = '\t';
+								break;
+								
+							case 'f':
+								this.ch = '\f';
+								break;
+								
+							case -1:
+								continue;
+								
+							default:
+								break;
+						}
+					}
+					
+					builder.append((char) this.ch);
+					this.ch = this.read();
+				}
+			} else {
+				builder.append((char) this.ch);
+			}
+			
+			if(this.ch != -1) {
+				this.ch = this.read();
+			}
+		}
+		
+		return builder.toString();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.bytes = null;
+		this.file.close();
+	}
+	
+	/**
+	 * Skip all whitespace and comments.
+	 * 
+	 */
+	private void skipWhitespace() throws IOException {
+		while(this.ch != -1) {
+			if(Character.isWhitespace(this.ch)) {
+				this.ch = this.read();
+				continue;
+			}
+			
+			if(this.ch == '#') {
+				while(this.ch != '\n' && this.ch != '\r' && this.ch != -1) {
+					this.ch = this.read();
+				}
+				
+				continue;
+			}
+			
+			return;
+		}
+	}
+	
+	/**
+	 * Read the next character.
+	 * 
+	 * @return the character, or <code>-1</code> at the end of the file
+	 */
+	private int read() throws IOException {
+		if(!this.chars.hasRemaining()) {
+			this.decode();
+			if(!this.chars.hasRemaining()) {
+				return -1;
+			}
+		}
+		
+		return this.chars.get();
+	}
+	
+	/**
+	 * Decode the next chunk of characters, moving the window over the file as
+	 * needed.
+	 * 
+	 */
+	private void decode() throws IOException {
+		if(this.finished) {
+			return;
+		}
+		
+		this.chars.clear();
+		
+		try {
+			while(this.chars.position() == 0) {
+				CoderResult result = this.decoder.decode(this.bytes, this.chars, this.endOfInput);
+				if(result.isError()) {
+					result.throwException();
+				}
+				
+				if(result.isOverflow()) {
+					break;
+				}
+				
+				// the window is exhausted, except for maybe a partial character
+				if(this.endOfInput) {
+					this.decoder.flush(this.chars);
+					this.finished = true;
+					break;
+				}
+				
+				this.map(this.windowStart + this.bytes.position());
+			}
+		} finally {
+			this.chars.flip();
+		}
+	}
+	
+	/**
+	 * Map the window of the file that starts at the given offset.
+	 * 
+	 */
+	private void map(long start) throws IOException {
+		long length = Math.min(this.window, this.size - start);
+		
+		this.windowStart = start;
+		this.bytes = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		this.endOfInput = start + length >= this.size;
+	}
+	
+}
@@ -21,201 +21,606 @@
  
 package com.sangupta.outline.parser;
 
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
-import com.sangupta.jerry.ds.SimpleMultiMap;
-import com.sangupta.jerry.ds.iterator.StringArrayIterator;
-import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.outline.OutlineMetadata;
-import com.sangupta.outline.annotations.Option;
 import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.parser.OutlineTokenTrie.Token;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
 
+/**
+ * Parses the command line arguments against the {@link OutlineMetadata}. Each
+ * token is looked up once in the {@link OutlineTokenTrie} of the metadata, and
+ * the resulting {@link Token} tells if it is a global option, a group, a group
+ * option, a command, a command option, the help keyword or the separator. All
+ * other tokens are arguments.
+ * 
+ * @author sangupta
+ *
+ */
 public class OutlineArgumentParser {
+	
+	/**
+	 * The phase in which global options are read
+	 */
+	static final int GLOBAL_OPTIONS = 0;
+	
+	/**
+	 * The phase in which the options of a group are read
+	 */
+	static final int GROUP_OPTIONS = 1;
+	
+	/**
+	 * The phase in which the options of a command are read
+	 */
+	static final int COMMAND_OPTIONS = 2;
 
     public static OutlineParseResult parse(String[] args, OutlineMetadata metadata) {
-        StringArrayIterator iterator = new StringArrayIterator(args);
-        OutlineParseResult result = new OutlineParseResult();
-        
-        // first let's read the global options
-        readGlobalOptions(result, iterator, metadata);
-
-        // read group and group options if applicable
-        readGroupAndGroupOptions(result, iterator, metadata);
-        
-        // read command name and command options if applicable
-        readCommandNameAndOptions(result, iterator, metadata);
-        
-        // whatever is remaining is now the command arguments
-        readCommandArguments(result, iterator);
+    	return parse(OutlineCommandLine.of(args), metadata);
+    }
+    
+    /**
+	 * Parse the given command line. Tokens are looked up in the
+	 * {@link OutlineTokenTrie} straight from the command line, so that only the
+	 * values that are read from the result are ever turned into a
+	 * {@link String}.
+	 * 
+	 * @param commandLine
+	 * @param metadata
+	 * @return
+	 */
+    public static OutlineParseResult parse(OutlineCommandLine commandLine, OutlineMetadata metadata) {
+    	Cursor cursor = new Cursor();
+    	cursor.reset(commandLine, metadata.tokens);
+    	
+        return parse(cursor, new OutlineParseResult(commandLine, metadata.tokens), metadata);
+    }
+    
+    /**
+	 * Parse the given command line into the result held by the given context,
+	 * reusing all its state. Parsing this way allocates nothing once the
+	 * context has been used with a similar command line.
+	 * 
+	 * @param commandLine
+	 * @param metadata
+	 * @param context
+	 * 
+	 * @return the result held by the context, valid until the context is
+	 *         used again
+	 */
+    public static OutlineParseResult parse(OutlineCommandLine commandLine, OutlineMetadata metadata, OutlineParseContext context) {
+    	context.cursor.reset(commandLine, metadata.tokens);
+    	context.result.reset(commandLine, metadata.tokens);
+    	
+    	return parse(context.cursor, context.result, metadata);
+    }
+    
+    /**
+	 * Parse the command line of the cursor from its start into the given
+	 * result.
+	 * 
+	 */
+    static OutlineParseResult parse(Cursor cursor, OutlineParseResult result, OutlineMetadata metadata) {
+        result.converters = metadata.converters;
+        cursor.phase = GLOBAL_OPTIONS;
+        cursor.scope = OutlineTokenTrie.GLOBAL_SCOPE;
+        cursor.groupPosition = -1;
+        cursor.commandPosition = -1;
         
+        resume(cursor, result, metadata);
         return result;
     }
+    
+    /**
+	 * Parse the command line of the cursor from its current position, in the
+	 * phase and scope the cursor is in. Global options are read until a group
+	 * or a command is found, then the group options until a command is found,
+	 * and then the command options. Whatever is remaining is the command
+	 * arguments.
+	 * 
+	 * With permutation, the command options are read up to the separator, and
+	 * each token that is not one is recorded as an argument on the way, by its
+	 * position - the command line is never copied or reordered, so that this
+	 * stays a single pass however many arguments there are.
+	 * 
+	 * @param cursor
+	 * @param result
+	 *            holding all that was parsed before the current position
+	 * @param metadata
+	 */
+    static void resume(Cursor cursor, OutlineParseResult result, OutlineMetadata metadata) {
+    	final OutlineIncrementalParser checkpoints = cursor.checkpoints;
+    	
+    	while(cursor.hasNext()) {
+    		if(checkpoints != null) {
+    			// may also move the cursor ahead, if the rest is known
+    			checkpoints.mark(cursor, result);
+    		}
+    		
+    		Token token = cursor.peek();
+    		if(cursor.phase == COMMAND_OPTIONS && token != null && token.isSeparator()) {
+    			// we have hit the separator
+    			break;
+    		}
+    		
+    		int slot = token == null ? -1 : token.getOptionSlot(cursor.scope);
+    		if(slot >= 0) {
+    			// we found the option
+    			parseOption(cursor, slot, metadata.tokens.getOption(slot), result);
+    			continue;
+    		}
+    		
+    		if(parseAttachedOptions(cursor, cursor.scope, metadata, result)) {
+    			continue;
+    		}
+    		
+    		if(cursor.phase == COMMAND_OPTIONS) {
+    			if(!metadata.permutation) {
+    				break;
+    			}
+    			
+    			result.addArgument(cursor.position++);
+    			continue;
+    		}
+    		
+    		if(cursor.phase == GLOBAL_OPTIONS && token != null && token.isGroup()) {
+    			result.group = token.name;
+    			cursor.groupPosition = cursor.position++;
+    			cursor.phase = GROUP_OPTIONS;
+    			cursor.scope = token.getGroupScope();
+    			continue;
+    		}
+    		
+    		if(token != null && token.isCommand()) {
+    			result.command = token.name;
+    			cursor.commandPosition = cursor.position++;
+    			cursor.phase = COMMAND_OPTIONS;
+    			cursor.scope = token.getCommandScope();
+    			continue;
+    		}
+    		
+    		readHelp(result, cursor, metadata, token);
+    		break;
+    	}
+    	
+    	// whatever is remaining is now the command arguments
+    	result.setArgumentsStart(cursor.position);
+    }
 
     /**
-     * Read all remaining values as command arguments
+	 * Expand all <code>@file</code> arguments into the arguments contained in
+	 * the file, following the conventions of <code>javac</code>. Arguments in a
+	 * file that start with <code>@</code> are expanded as well, and an argument
+	 * starting with <code>@@</code> stands for the argument with the first
+	 * <code>@</code> removed. Relative paths are resolved against the current
+	 * directory. See {@link OutlineArgumentFile} for the syntax of the file.
+	 * 
+	 * @param args
+	 *            the arguments to expand
+	 * 
+	 * @return the expanded arguments, or the same array if there was nothing to
+	 *         expand
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if a file cannot be read, or includes itself
+	 */
+    public static String[] expandArgumentFiles(String[] args) {
+    	List<String> expanded = null;
+    	for(int index = 0; index < args.length; index++) {
+    		String arg = args[index];
+    		if(!isArgumentFile(arg) && !isEscapedArgumentFile(arg)) {
+    			if(expanded != null) {
+    				expanded.add(arg);
+    			}
+    			
+    			continue;
+    		}
+    		
+    		if(expanded == null) {
+    			expanded = new ArrayList<>(args.length);
+    			for(int previous = 0; previous < index; previous++) {
+    				expanded.add(args[previous]);
+    			}
+    		}
+    		
+    		try {
+    			expandArgument(arg, expanded, new HashSet<String>());
+    		} catch(IOException e) {
+    			throw new OutlineInvalidArgumentException(arg, index, e);
+    		}
+    	}
+    	
+    	if(expanded == null) {
+    		return args;
+    	}
+    	
+    	return expanded.toArray(new String[expanded.size()]);
+    }
+    
+    private static void expandArgument(String arg, List<String> expanded, Set<String> files) throws IOException {
+    	if(isEscapedArgumentFile(arg)) {
+    		expanded.add(arg.substring(1));
+    		return;
+    	}
+    	
+    	if(!isArgumentFile(arg)) {
+    		expanded.add(arg);
+    		return;
+    	}
+    	
+    	File file = new File(arg.substring(1));
+    	String path = file.getCanonicalPath();
+    	if(!files.add(path)) {
+    		throw new IOException("Argument file includes itself: " + path);
+    	}
+    	
+    	try(OutlineArgumentFile reader = new OutlineArgumentFile(file)) {
+    		String token;
+    		while((token = reader.next()) != null) {
+    			expandArgument(token, expanded, files);
+    		}
+    	}
+    	
+    	files.remove(path);
+    }
+    
+    private static boolean isArgumentFile(String arg) {
+    	return arg.length() > 1 && arg.charAt(0) == '@' && arg.charAt(1) != '@';
+    }
+    
+    private static boolean isEscapedArgumentFile(String arg) {
+    	return arg.startsWith("@@");
+    }
+
+    /**
+     * Read the help keyword and the group or command that help is asked for,
+     * at the position where a command was expected.
      * 
      * @param result
-     * @param iterator
+     * @param cursor
+     * @param metadata
+     * @param token
+     *            the classified token at the current position
+     * 
+     * @throws OutlineInvalidArgumentException
+     *             if the token is not the help keyword, unless help is shown on
+     *             incorrect arguments
      */
-    private static void readCommandArguments(OutlineParseResult result, StringArrayIterator iterator) {
-        while(iterator.hasNext()) {
-            result.arguments.add(iterator.next());
-        }
+    private static void readHelp(OutlineParseResult result, Cursor cursor, OutlineMetadata metadata, Token token) {
+    	// check if this is help required
+    	if(token != null && token.isHelpKeyword()) {
+    		cursor.position++;
+    		
+    		result.helpRequested = true;
+    		
+    		// check if we have more values
+    		if(!cursor.hasNext()) {
+    			return;
+    		}
+    		String commandOrGroup = cursor.next();
+    		Token next = metadata.tokens.get(commandOrGroup);
+    		if(next != null && next.isGroup()) {
+    			// this is group name
+    			result.group = commandOrGroup;
+    			
+    			// let's check if we also have a command name
+    			if(!cursor.hasNext()) {
+    				return;
+    			}
+    			
+    			result.command = cursor.next();
+    			suggestIfUnknown(result, metadata, false);
+    			return;
+    		}
+    		
+    		result.command = commandOrGroup;
+    		suggestIfUnknown(result, metadata, true);
+    		return;
+    	}
+    	
+    	String argument = cursor.commandLine.get(cursor.position);
+    	List<String> suggestions = getSuggestions(metadata, argument, cursor.scope, cursor.phase == GLOBAL_OPTIONS);
+    	if(metadata.helpOnIncorrectArguments) {
+    		result.helpRequested = true;
+    		result.invalidArgument = argument;
+    		result.suggestions = suggestions;
+    		return;
+    	}
+    	
+    	throw new OutlineInvalidArgumentException(argument, cursor.position, Collections.<String>emptyList(), suggestions);
+    }
+    
+    /**
+	 * Suggest the closest names if the command help was asked for is not
+	 * known.
+	 * 
+	 */
+    private static void suggestIfUnknown(OutlineParseResult result, OutlineMetadata metadata, boolean groups) {
+    	if(!metadata.isCommand(result.command)) {
+    		result.invalidArgument = result.command;
+    		result.suggestions = getSuggestions(metadata, result.command, -1, groups);
+    	}
+    }
+    
+    /**
+	 * Return the names closest to the given unknown token, as found by
+	 * {@link OutlineTokenTrie#getSuggestions(String, int, boolean)}, leaving
+	 * out hidden commands.
+	 * 
+	 */
+    private static List<String> getSuggestions(OutlineMetadata metadata, String token, int scope, boolean groups) {
+    	List<String> suggestions = metadata.tokens.getSuggestions(token, scope, groups);
+    	for(int index = suggestions.size() - 1; index >= 0; index--) {
+    		CommandSpec command = metadata.commandNames.get(suggestions.get(index));
+    		if(command != null && command.hidden) {
+    			suggestions.remove(index);
+    		}
+    	}
+    	
+    	return suggestions;
     }
 
     /**
-     * Read the command name and command options
-     * 
+     * Parse the values based on the given option, and record them as a range of
+     * the arguments.
+     *  
+     * @param cursor
+     *            positioned at the option name
+     * @param slot
+     * @param option
      * @param result
-     * @param iterator
-     * @param metadata
+     * 
+     * @throws OutlineInvalidArgumentException
+     *             if there are fewer values left than the arity of the option
      */
-    private static void readCommandNameAndOptions(OutlineParseResult result, StringArrayIterator iterator, OutlineMetadata metadata) {
-        if(!iterator.hasNext()) {
-            return;
-        }
-        
-        String name = iterator.peek();
-        if(!metadata.commandNames.containsKey(name)) {
-        	// check if this is help required
-        	if(name.equals(metadata.helpKeyword)) {
-            	name = iterator.next();
-            	
-        		result.helpRequested = true;
-        		
-        		// check if we have more values
-        		if(!iterator.hasNext()) {
-        			return;
-        		}
-        		String commandOrGroup = iterator.next();
-        		if(metadata.commandGroups.containsKey(commandOrGroup)) {
-        			// this is group name
-        			result.group = commandOrGroup;
-        			
-        			// let's check if we also have a command name
-        			if(!iterator.hasNext()) {
-        				return;
-        			}
-        			
-        			result.command = iterator.next();
-        			return;
-        		}
-        		
-        		result.command = commandOrGroup;
+    private static void parseOption(Cursor cursor, int slot, OptionSpec option, OutlineParseResult result) {
+        int position = cursor.position++;
+        int tokensToRead = option.arity;
+        if(tokensToRead > cursor.commandLine.size() - cursor.position) {
+        	if(cursor.partial) {
+        		cursor.valuesOf(slot);
         		return;
         	}
         	
-        	if(metadata.helpOnIncorrectArguments) {
-        		result.helpRequested = true;
-        		return;
-        	}
-        	
-            throw new OutlineInvalidArgumentException(iterator.peek(), iterator.getPosition());
+        	throw new OutlineInvalidArgumentException(cursor.commandLine.get(position), position);
         }
         
-        // the command name
-        result.command = iterator.next();
-        
-        // now that we have a command - let's see if there are any command options that need to be read
-        Map<String, Option> options = metadata.commandOptions.get(name);
-        if(AssertUtils.isEmpty(options)) {
-            return;
-        }
-        
-        while(iterator.hasNext()) {
-            String token = iterator.peek();
-            
-            if(token.equals("--")) {
-            	// we have hit the separator
-            	break;
-            }
-            
-            if(!options.containsKey(token)) {
-                break;
-            }
-            
-            // we found the option
-            token = iterator.next();
-            parseOption(iterator, options.get(token), result.commandOptions);
-        }
+        result.addOption(slot, cursor.position, tokensToRead, 0);
+        cursor.position += tokensToRead;
     }
-
+    
     /**
-     * Read the command name and optionally the sub-command name if applicable.
-     * 
-     * @param result
-     * @param iterator
-     * @param metadata
-     */
-    private static void readGroupAndGroupOptions(OutlineParseResult result, StringArrayIterator iterator, OutlineMetadata metadata) {
-        if(!iterator.hasNext()) {
-            return;
-        }
-        
-        String name = iterator.peek();
-        if(!metadata.commandGroups.containsKey(name)) {
-            return;
-        }
-        
-        result.group = iterator.next();
-        
-        // now that we have a group - let's see if there are any group options that need to be read
-        Map<String, Option> options = metadata.groupOptions.get(name);
-        if(AssertUtils.isEmpty(options)) {
-            return;
-        }
-        
-        while(iterator.hasNext()) {
-            String token = iterator.peek();
-            
-            if(!options.containsKey(token)) {
-                return;
-            }
-            
-            // we found the option
-            token = iterator.next();
-            parseOption(iterator, options.get(token), result.groupOptions);
-        }
+	 * Parse the token at the current position if it holds options of the given
+	 * scope in one of the attached forms: an option with its first value after
+	 * an equals sign, as in <code>--name=value</code>, or a cluster of short
+	 * options, as in <code>-abc</code>. In a cluster, all options up to the
+	 * first one that takes values must take none, and that option takes the
+	 * rest of the token as its first value, as in <code>-ab1</code> or
+	 * <code>-ab=1</code>, or reads all its values from the following tokens if
+	 * it ends the cluster. If enabled, long options may also be abbreviated, in
+	 * either form.
+	 * 
+	 * Only offsets into the token are recorded - the values are not extracted
+	 * until they are asked for - and each character is looked at no more than
+	 * twice, so that parsing stays linear in the length of the command line.
+	 * 
+	 * @param cursor
+	 * @param scope
+	 * @param metadata
+	 * @param result
+	 * 
+	 * @return <code>true</code> if the token was parsed as options,
+	 *         <code>false</code> if it is not in an attached form, or holds
+	 *         anything but options of the scope
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if the token is an abbreviation of more than one long option
+	 */
+    private static boolean parseAttachedOptions(Cursor cursor, int scope, OutlineMetadata metadata, OutlineParseResult result) {
+    	final OutlineTokenTrie tokens = metadata.tokens;
+    	final OutlineCommandLine commandLine = cursor.commandLine;
+    	final int index = cursor.position;
+    	final int length = commandLine.length(index);
+    	if(length < 3 || commandLine.charAt(index, 0) != '-') {
+    		return false;
+    	}
+    	
+    	final boolean isLong = commandLine.charAt(index, 1) == '-';
+    	
+    	// an option with its value after the first equals sign
+    	int equals = -1;
+    	for(int offset = 2; offset < length; offset++) {
+    		if(commandLine.charAt(index, offset) == '=') {
+    			equals = offset;
+    			break;
+    		}
+    	}
+    	
+    	if(equals > 0) {
+    		Token token = commandLine.classify(tokens, index, equals);
+    		int slot = token == null ? -1 : token.getOptionSlot(scope);
+    		if(slot < 0 && isLong && metadata.abbreviations) {
+    			slot = tokens.resolveAbbreviation(scope, commandLine, index, equals);
+    		}
+    		
+    		if(slot >= 0 && tokens.getOption(slot).arity > 0) {
+    			parseAttachedValues(cursor, slot, tokens.getOption(slot), equals + 1, result);
+    			return true;
+    		}
+    	}
+    	
+    	if(isLong) {
+    		if(equals > 0 || !metadata.abbreviations) {
+    			return false;
+    		}
+    		
+    		int slot = tokens.resolveAbbreviation(scope, commandLine, index, length);
+    		if(slot < 0) {
+    			return false;
+    		}
+    		
+    		parseOption(cursor, slot, tokens.getOption(slot), result);
+    		return true;
+    	}
+    	
+    	// a cluster of short options - check it through before recording any
+    	for(int offset = 1; offset < length; offset++) {
+    		int slot = getShortSlot(tokens, commandLine.charAt(index, offset), scope);
+    		if(slot < 0) {
+    			return false;
+    		}
+    		
+    		if(tokens.getOption(slot).arity > 0) {
+    			break;
+    		}
+    	}
+    	
+    	for(int offset = 1; offset < length; offset++) {
+    		int slot = getShortSlot(tokens, commandLine.charAt(index, offset), scope);
+    		OptionSpec option = tokens.getOption(slot);
+    		if(option.arity == 0) {
+    			result.addOption(slot, index, 0, 0);
+    			continue;
+    		}
+    		
+    		if(offset + 1 < length) {
+    			// skip an equals sign, as for a single option
+    			int valueOffset = commandLine.charAt(index, offset + 1) == '=' ? offset + 2 : offset + 1;
+    			parseAttachedValues(cursor, slot, option, valueOffset, result);
+    		} else {
+    			parseOption(cursor, slot, option, result);
+    		}
+    		
+    		return true;
+    	}
+    	
+    	cursor.position++;
+    	return true;
     }
-
+    
     /**
-     * Read global options.
-     * 
-     * @param result
-     * @param iterator
-     * @param metadata
-     */
-    private static void readGlobalOptions(OutlineParseResult result, StringArrayIterator iterator, OutlineMetadata metadata) {
-        if(metadata.globalOptions.isEmpty()) {
-            return;
-        }
-        
-        while(iterator.hasNext()) {
-            String token = iterator.peek();
-            
-            if(!metadata.globalOptions.containsKey(token)) {
-                return;
-            }
-            
-            // we found the option
-            token = iterator.next();
-            parseOption(iterator, metadata.globalOptions.get(token), result.globalOptions);
-        }
+	 * Parse the values of an option whose first value is attached to the token
+	 * at the current position, starting at the given offset.
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if there are fewer values left than the arity of the option
+	 */
+    private static void parseAttachedValues(Cursor cursor, int slot, OptionSpec option, int valueOffset, OutlineParseResult result) {
+    	int position = cursor.position;
+    	int following = option.arity - 1;
+    	if(following > cursor.commandLine.size() - position - 1) {
+    		if(cursor.partial) {
+    			cursor.valuesOf(slot);
+    			return;
+    		}
+    		
+    		throw new OutlineInvalidArgumentException(cursor.commandLine.get(position), position);
+    	}
+    	
+    	result.addOption(slot, position, option.arity, valueOffset);
+    	cursor.position += 1 + following;
     }
-
+    
+    private static int getShortSlot(OutlineTokenTrie tokens, char name, int scope) {
+    	Token token = tokens.getShort(name);
+    	if(token == null) {
+    		return -1;
+    	}
+    	
+    	return token.getOptionSlot(scope);
+    }
+    
     /**
-     * Parse the values based on the given option.
-     *  
-     * @param iterator
-     * @param option
-     * @param globalOptions
+     * The position in the command line being parsed.
+     * 
      */
-    private static void parseOption(StringArrayIterator iterator, Option option, SimpleMultiMap<String, String> optionStore) {
-        int tokensToRead = option.arity();
-        String name = option.name()[0];
-        for(int index = 0; index < tokensToRead; index++) {
-            optionStore.put(name, iterator.next());
-        }
+    static final class Cursor {
+    	
+    	OutlineCommandLine commandLine;
+    	
+    	OutlineTokenTrie tokens;
+    	
+    	int position;
+    	
+    	/**
+    	 * The kind of options being read at the current position
+    	 */
+    	int phase;
+    	
+    	/**
+    	 * The scope of the options being read at the current position
+    	 */
+    	int scope;
+    	
+    	/**
+    	 * The position of the group name, or <code>-1</code> if none was read
+    	 */
+    	int groupPosition;
+    	
+    	/**
+    	 * The position of the command name, or <code>-1</code> if none was read
+    	 */
+    	int commandPosition;
+    	
+    	/**
+    	 * Records the state at each position, when parsing incrementally
+    	 */
+    	OutlineIncrementalParser checkpoints;
+    	
+    	/**
+    	 * Whether the command line is only the part before a token being
+    	 * completed, so that it may end in the middle of the values of an option
+    	 */
+    	boolean partial;
+    	
+    	/**
+    	 * The slot of the option whose values run past the end of a partial
+    	 * command line, or <code>-1</code>
+    	 */
+    	int pendingSlot = -1;
+    	
+    	void reset(OutlineCommandLine commandLine, OutlineTokenTrie tokens) {
+    		this.commandLine = commandLine;
+    		this.tokens = tokens;
+    		this.position = 0;
+    		this.pendingSlot = -1;
+    	}
+    	
+    	/**
+    	 * Note that the option in the given slot takes the token after the end of
+    	 * a partial command line as a value, and stop there.
+    	 * 
+    	 * @param slot
+    	 */
+    	void valuesOf(int slot) {
+    		this.pendingSlot = slot;
+    		this.position = this.commandLine.size();
+    	}
+    	
+    	boolean hasNext() {
+    		return this.position < this.commandLine.size();
+    	}
+    	
+    	String next() {
+    		return this.commandLine.get(this.position++);
+    	}
+    	
+    	/**
+    	 * Classify the token at the current position.
+    	 * 
+    	 * @return
+    	 */
+    	Token peek() {
+    		return this.commandLine.classify(this.tokens, this.position);
+    	}
+    	
     }
 
 }
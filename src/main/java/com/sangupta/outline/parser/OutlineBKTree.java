@@ -0,0 +1,268 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A BK-tree over a set of names, for finding the names within a small edit
+ * distance of a token that is not known. Each child of a node is keyed by its
+ * Levenshtein distance to the node, and as the distance is a metric, a search
+ * for names within distance <code>k</code> only descends into the children
+ * whose key is within <code>k</code> of the distance of the token to the node.
+ * For the small distances of typos this visits a small part of the tree, even
+ * for thousands of names.
+ * 
+ * @author sangupta
+ *
+ */
+final class OutlineBKTree {
+	
+	/**
+	 * The most suggestions made for a token
+	 */
+	static final int MAX_SUGGESTIONS = 5;
+	
+	private Node root;
+	
+	/**
+	 * Add the given name to the tree, unless already present.
+	 * 
+	 * @param name
+	 */
+	void add(String name) {
+		if(this.root == null) {
+			this.root = new Node(name);
+			return;
+		}
+		
+		Node node = this.root;
+		while(true) {
+			int distance = distance(name, node.name);
+			if(distance == 0) {
+				return;
+			}
+			
+			Node child = node.child(distance);
+			if(child == null) {
+				node.setChild(distance, new Node(name));
+				return;
+			}
+			
+			node = child;
+		}
+	}
+	
+	/**
+	 * Add the names of this tree within the given distance of the token to the
+	 * given list.
+	 * 
+	 * @param token
+	 *            the token to find names for
+	 * 
+	 * @param maxDistance
+	 *            the largest distance of a name from the token
+	 * 
+	 * @param found
+	 *            the list to add to
+	 */
+	void find(String token, int maxDistance, List<Match> found) {
+		if(this.root != null) {
+			find(this.root, token, maxDistance, found);
+		}
+	}
+	
+	private static void find(Node node, String token, int maxDistance, List<Match> found) {
+		// beyond the largest key plus the max distance no child is visited
+		int limit = maxDistance + (node.children == null ? 0 : node.children.length - 1);
+		int distance = distance(token, node.name, limit);
+		if(distance <= maxDistance) {
+			found.add(new Match(node.name, distance));
+		}
+		
+		if(node.children == null || distance > limit) {
+			return;
+		}
+		
+		int to = Math.min(node.children.length - 1, distance + maxDistance);
+		for(int key = Math.max(1, distance - maxDistance); key <= to; key++) {
+			Node child = node.children[key];
+			if(child != null) {
+				find(child, token, maxDistance, found);
+			}
+		}
+	}
+	
+	/**
+	 * The largest distance at which a name is suggested for the given token - a
+	 * third of its length, and at most three edits. Tokens shorter than three
+	 * characters get no suggestions, as most short names would be as close.
+	 * 
+	 */
+	static int getMaxDistance(String token) {
+		if(token.length() < 3) {
+			return 0;
+		}
+		
+		return Math.min(3, Math.max(1, token.length() / 3));
+	}
+	
+	/**
+	 * Return the names of the given matches, the closest first and names that
+	 * are as close in ascending order, each once, and at most
+	 * {@link #MAX_SUGGESTIONS} of them.
+	 * 
+	 */
+	static List<String> getSuggestions(List<Match> found) {
+		if(found.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		Collections.sort(found);
+		
+		List<String> suggestions = new ArrayList<>();
+		for(int index = 0; index < found.size() && suggestions.size() < MAX_SUGGESTIONS; index++) {
+			String name = found.get(index).name;
+			if(!suggestions.contains(name)) {
+				suggestions.add(name);
+			}
+		}
+		
+		return suggestions;
+	}
+	
+	/**
+	 * The Levenshtein distance of the two strings, computed with two rows of
+	 * the dynamic programming table.
+	 * 
+	 */
+	static int distance(String first, String second) {
+		return distance(first, second, Integer.MAX_VALUE - 1);
+	}
+	
+	/**
+	 * The Levenshtein distance of the two strings if at most the given limit,
+	 * else any value greater than the limit. Stops as soon as every cell of a
+	 * row exceeds the limit, which for most names in a search is after a few
+	 * rows.
+	 * 
+	 */
+	static int distance(String first, String second, int limit) {
+		if(Math.abs(first.length() - second.length()) > limit) {
+			return limit + 1;
+		}
+		
+		int[] previous = new int[second.length() + 1];
+		int[] current = new int[second.length() + 1];
+		for(int column = 0; column <= second.length(); column++) {
+			previous[column] = column;
+		}
+		
+		for(int row = 1; row <= first.length(); row++) {
+			current[0] = row;
+			int min = row;
+			char ch = first.charAt(row - 1);
+			for(int column = 1; column <= second.length(); column++) {
+				int cost = ch == second.charAt(column - 1) ? 0 : 1;
+				int value = Math.min(Math.min(current[column - 1], previous[column]) + 1, previous[column - 1] + cost);
+				current[column] = value;
+				if(value < min) {
+					min = value;
+				}
+			}
+			
+			if(min > limit) {
+				return limit + 1;
+			}
+			
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		
+		return previous[second.length()];
+	}
+	
+	/**
+	 * A name found, and its distance from the token.
+	 * 
+	 */
+	static final class Match implements Comparable<Match> {
+		
+		final String name;
+		
+		final int distance;
+		
+		Match(String name, int distance) {
+			this.name = name;
+			this.distance = distance;
+		}
+		
+		@Override
+		public int compareTo(Match other) {
+			if(this.distance != other.distance) {
+				return this.distance < other.distance ? -1 : 1;
+			}
+			
+			return this.name.compareTo(other.name);
+		}
+		
+	}
+	
+	private static final class Node {
+		
+		final String name;
+		
+		/**
+		 * The children indexed by their distance to this node, or
+		 * <code>null</code> if there are none
+		 */
+		Node[] children;
+		
+		Node(String name) {
+			this.name = name;
+		}
+		
+		Node child(int distance) {
+			if(this.children == null || distance >= this.children.length) {
+				return null;
+			}
+			
+			return this.children[distance];
+		}
+		
+		void setChild(int distance, Node child) {
+			if(this.children == null) {
+				this.children = new Node[Math.max(4, distance + 1)];
+			} else if(distance >= this.children.length) {
+				this.children = Arrays.copyOf(this.children, Math.max(distance + 1, this.children.length * 2));
+			}
+			
+			this.children[distance] = child;
+		}
+		
+	}
+	
+}
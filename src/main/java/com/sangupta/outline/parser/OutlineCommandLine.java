@@ -0,0 +1,326 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sangupta.outline.parser.OutlineTokenTrie.Token;
+
+/**
+ * The tokens of a command line. These are either the {@link String}s as
+ * received by a <code>main</code> method, or are tokenized from raw input via
+ * the <code>tokenize</code> methods, in which case all tokens are held in a
+ * single character buffer, and a {@link String} is only created for a token
+ * when it is asked for via {@link #get(int)}. Looking up tokens in the
+ * {@link OutlineTokenTrie} never creates a {@link String}.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineCommandLine {
+	
+	/**
+	 * The tokens - either all given, or those created so far
+	 */
+	private String[] tokens;
+	
+	/**
+	 * The characters of all tokens, when tokenized from raw input
+	 */
+	private final char[] chars;
+	
+	/**
+	 * The start and end offsets of each token in {@link #chars}
+	 */
+	private final int[] offsets;
+	
+	private OutlineCommandLine(String[] tokens) {
+		this.tokens = tokens;
+		this.chars = null;
+		this.offsets = null;
+	}
+	
+	OutlineCommandLine(char[] chars, int[] offsets, int count) {
+		this.tokens = new String[count];
+		this.chars = chars;
+		this.offsets = offsets;
+	}
+	
+	/**
+	 * Replace the tokens of a command line created via {@link #of(String[])},
+	 * so that it can be reused.
+	 * 
+	 * @param args
+	 */
+	void reset(String[] args) {
+		if(this.chars != null) {
+			throw new IllegalStateException("Only command lines of arguments can be reset");
+		}
+		
+		this.tokens = args;
+	}
+	
+	/**
+	 * Create a command line from the given arguments.
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public static OutlineCommandLine of(String[] args) {
+		if(args == null) {
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		
+		return new OutlineCommandLine(args);
+	}
+	
+	/**
+	 * Tokenize the given UTF-8 encoded command line. See
+	 * {@link #tokenize(CharSequence)} for the syntax.
+	 * 
+	 * @param bytes
+	 * @return
+	 */
+	public static OutlineCommandLine tokenize(byte[] bytes) {
+		return tokenize(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Tokenize the UTF-8 encoded command line in the given range of bytes. See
+	 * {@link #tokenize(CharSequence)} for the syntax.
+	 * 
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	public static OutlineCommandLine tokenize(byte[] bytes, int offset, int length) {
+		return new OutlineCommandLineTokenizer(bytes, offset, length).tokenize();
+	}
+	
+	/**
+	 * Tokenize the UTF-8 encoded command line in the remaining bytes of the
+	 * given buffer. The position of the buffer is not changed. See
+	 * {@link #tokenize(CharSequence)} for the syntax.
+	 * 
+	 * @param buffer
+	 * @return
+	 */
+	public static OutlineCommandLine tokenize(ByteBuffer buffer) {
+		return new OutlineCommandLineTokenizer(buffer).tokenize();
+	}
+	
+	/**
+	 * Tokenize the given command line the way a POSIX shell splits words:
+	 * 
+	 * <ul>
+	 * <li>tokens are separated by runs of whitespace</li>
+	 * <li>outside quotes, a backslash takes the next character as is, and a
+	 * backslash before a line break is removed along with the line break</li>
+	 * <li>within single quotes all characters are taken as is</li>
+	 * <li>within double quotes, a backslash only escapes <code>"</code>,
+	 * <code>\</code>, <code>$</code>, <code>`</code> and line breaks</li>
+	 * <li>quotes may appear anywhere in a token, and <code>""</code> is an
+	 * empty token</li>
+	 * </ul>
+	 * 
+	 * No other shell expansion is done.
+	 * 
+	 * @param text
+	 * @return
+	 * 
+	 * @throws com.sangupta.outline.exceptions.OutlineInvalidArgumentException
+	 *             if a quote is not closed
+	 */
+	public static OutlineCommandLine tokenize(CharSequence text) {
+		return new OutlineCommandLineTokenizer(text).tokenize();
+	}
+	
+	/**
+	 * Return the number of tokens.
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return this.tokens.length;
+	}
+	
+	/**
+	 * Return the token at the given index, creating the {@link String} if
+	 * needed.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public String get(int index) {
+		String token = this.tokens[index];
+		if(token == null) {
+			int start = this.offsets[2 * index];
+			token = new String(this.chars, start, this.offsets[2 * index + 1] - start);
+			this.tokens[index] = token;
+		}
+		
+		return token;
+	}
+	
+	/**
+	 * Return the part of the token at the given index from the given offset
+	 * onwards. A new {@link String} is created for the part on every call.
+	 * 
+	 * @param index
+	 * @param offset
+	 * @return
+	 */
+	public String get(int index, int offset) {
+		if(offset == 0) {
+			return this.get(index);
+		}
+		
+		if(this.chars == null) {
+			return this.tokens[index].substring(offset);
+		}
+		
+		int start = this.offsets[2 * index] + offset;
+		return new String(this.chars, start, this.offsets[2 * index + 1] - start);
+	}
+	
+	/**
+	 * Return the number of characters of the token at the given index.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public int length(int index) {
+		if(this.chars == null) {
+			return this.tokens[index].length();
+		}
+		
+		return this.offsets[2 * index + 1] - this.offsets[2 * index];
+	}
+	
+	/**
+	 * Return the character at the given offset of the token at the given index.
+	 * 
+	 * @param index
+	 * @param offset
+	 * @return
+	 */
+	public char charAt(int index, int offset) {
+		if(this.chars == null) {
+			return this.tokens[index].charAt(offset);
+		}
+		
+		return this.chars[this.offsets[2 * index] + offset];
+	}
+	
+	/**
+	 * Check if the token at the given index starts with the given character.
+	 * 
+	 * @param index
+	 * @param ch
+	 * @return
+	 */
+	public boolean startsWith(int index, char ch) {
+		if(this.chars == null) {
+			String token = this.tokens[index];
+			return !token.isEmpty() && token.charAt(0) == ch;
+		}
+		
+		int start = this.offsets[2 * index];
+		return start < this.offsets[2 * index + 1] && this.chars[start] == ch;
+	}
+	
+	/**
+	 * Look up the token at the given index in the given trie.
+	 * 
+	 * @param trie
+	 * @param index
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token classify(OutlineTokenTrie trie, int index) {
+		if(this.chars == null) {
+			return trie.get(this.tokens[index]);
+		}
+		
+		return trie.get(this.chars, this.offsets[2 * index], this.offsets[2 * index + 1]);
+	}
+	
+	/**
+	 * Look up the given number of leading characters of the token at the given
+	 * index in the given trie.
+	 * 
+	 * @param trie
+	 * @param index
+	 * @param length
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token classify(OutlineTokenTrie trie, int index, int length) {
+		if(this.chars == null) {
+			return trie.get(this.tokens[index], 0, length);
+		}
+		
+		int start = this.offsets[2 * index];
+		return trie.get(this.chars, start, start + length);
+	}
+	
+	/**
+	 * Return all the tokens as an array, creating all {@link String}s that have
+	 * not been created so far.
+	 * 
+	 * @return
+	 */
+	public String[] toArray() {
+		if(this.chars != null) {
+			for(int index = 0; index < this.tokens.length; index++) {
+				this.get(index);
+			}
+		}
+		
+		return this.tokens;
+	}
+	
+	/**
+	 * Return the tokens in the given range, creating their {@link String}s if
+	 * needed.
+	 * 
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	List<String> subList(int from, int to) {
+		if(this.chars != null) {
+			for(int index = from; index < to; index++) {
+				this.get(index);
+			}
+		}
+		
+		return Arrays.asList(this.tokens).subList(from, to);
+	}
+	
+	@Override
+	public String toString() {
+		return Arrays.toString(this.toArray());
+	}
+
+}
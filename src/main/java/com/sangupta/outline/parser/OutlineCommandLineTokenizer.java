@@ -0,0 +1,307 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.nio.ByteBuffer;
+
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Splits a raw command line into the tokens of an {@link OutlineCommandLine}.
+ * UTF-8 input is decoded while it is being split, and the unescaped characters
+ * of all tokens are written to a single buffer - no {@link String} is created
+ * here. Malformed UTF-8 sequences are replaced by <code>U+FFFD</code>.
+ * 
+ * @author sangupta
+ *
+ */
+class OutlineCommandLineTokenizer {
+	
+	private static final char REPLACEMENT = '\uFFFD';
+	
+	private static final int END = -1;
+	
+	/**
+	 * The bytes to read when backed by an array
+	 */
+	private final byte[] array;
+	
+	/**
+	 * The bytes to read when backed by a buffer without an array
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * The characters to read when not reading bytes
+	 */
+	private final CharSequence text;
+	
+	private int position;
+	
+	private final int limit;
+	
+	/**
+	 * The low surrogate to return next, if the last decoded code point was
+	 * supplementary
+	 */
+	private char pending;
+	
+	/**
+	 * The unescaped characters of all tokens - the input never decodes to more
+	 * characters than it has bytes or characters
+	 */
+	private final char[] chars;
+	
+	private int length;
+	
+	private int[] offsets = new int[16];
+	
+	private int count;
+	
+	OutlineCommandLineTokenizer(byte[] bytes, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > bytes.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		this.array = bytes;
+		this.buffer = null;
+		this.text = null;
+		this.position = offset;
+		this.limit = offset + length;
+		this.chars = new char[length];
+	}
+	
+	OutlineCommandLineTokenizer(ByteBuffer buffer) {
+		if(buffer.hasArray()) {
+			this.array = buffer.array();
+			this.buffer = null;
+			this.position = buffer.arrayOffset() + buffer.position();
+			this.limit = buffer.arrayOffset() + buffer.limit();
+		} else {
+			this.array = null;
+			this.buffer = buffer;
+			this.position = buffer.position();
+			this.limit = buffer.limit();
+		}
+		
+		this.text = null;
+		this.chars = new char[buffer.remaining()];
+	}
+	
+	OutlineCommandLineTokenizer(CharSequence text) {
+		this.array = null;
+		this.buffer = null;
+		this.text = text;
+		this.position = 0;
+		this.limit = text.length();
+		this.chars = new char[this.limit];
+	}
+	
+	OutlineCommandLine tokenize() {
+		int ch = this.read();
+		while(true) {
+			while(isWhitespace(ch)) {
+				ch = this.read();
+			}
+			
+			if(ch == END) {
+				return new OutlineCommandLine(this.chars, this.offsets, this.count);
+			}
+			
+			final int start = this.length;
+			while(ch != END && !isWhitespace(ch)) {
+				switch(ch) {
+					case '\'':
+						while((ch = this.read()) != '\'') {
+							if(ch == END) {
+								throw this.unterminated(start);
+							}
+							
+							this.chars[this.length++] = (char) ch;
+						}
+						break;
+						
+					case '"':
+						while((ch = this.read()) != '"') {
+							if(ch == END) {
+								throw this.unterminated(start);
+							}
+							
+							if(ch == '\\') {
+								ch = this.read();
+								if(ch == END) {
+									throw this.unterminated(start);
+								}
+								
+								if(ch == '\n') {
+									continue;
+								}
+								
+								if(ch != '"' && ch != '\\' && ch != '$' && ch != '`') {
+									this.chars[this.length++] = '\\';
+								}
+							}
+							
+							this.chars[this.length++] = (char) ch;
+						}
+						break;
+						
+					case '\\':
+						ch = this.read();
+						if(ch == END) {
+							// a trailing backslash stands for itself
+							this.chars[this.length++] = '\\';
+						} else if(ch != '\n') {
+							this.chars[this.length++] = (char) ch;
+						}
+						break;
+						
+					default:
+						this.chars[this.length++] = (char) ch;
+				}
+				
+				if(ch != END) {
+					ch = this.read();
+				}
+			}
+			
+			this.addToken(start);
+		}
+	}
+	
+	private void addToken(int start) {
+		int index = 2 * this.count;
+		if(index == this.offsets.length) {
+			int[] offsets = new int[index * 2];
+			System.arraycopy(this.offsets, 0, offsets, 0, index);
+			this.offsets = offsets;
+		}
+		
+		this.offsets[index] = start;
+		this.offsets[index + 1] = this.length;
+		this.count++;
+	}
+	
+	private OutlineInvalidArgumentException unterminated(int start) {
+		return new OutlineInvalidArgumentException(new String(this.chars, start, this.length - start), this.count);
+	}
+	
+	private static boolean isWhitespace(int ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f';
+	}
+	
+	/**
+	 * Read the next character.
+	 * 
+	 * @return the character, or {@link #END} if there are no more
+	 */
+	private int read() {
+		if(this.text != null) {
+			if(this.position == this.limit) {
+				return END;
+			}
+			
+			return this.text.charAt(this.position++);
+		}
+		
+		if(this.pending != 0) {
+			char low = this.pending;
+			this.pending = 0;
+			return low;
+		}
+		
+		if(this.position == this.limit) {
+			return END;
+		}
+		
+		int lead = this.byteAt(this.position++);
+		if(lead >= 0) {
+			return lead;
+		}
+		
+		return this.decode(lead & 0xFF);
+	}
+	
+	/**
+	 * Decode a multi-byte UTF-8 sequence.
+	 * 
+	 * @param lead
+	 *            the first byte of the sequence
+	 * 
+	 * @return the decoded character, or the high surrogate of a supplementary
+	 *         code point
+	 */
+	private int decode(int lead) {
+		int continuations;
+		int codePoint;
+		int minimum;
+		if((lead & 0xE0) == 0xC0) {
+			continuations = 1;
+			codePoint = lead & 0x1F;
+			minimum = 0x80;
+		} else if((lead & 0xF0) == 0xE0) {
+			continuations = 2;
+			codePoint = lead & 0x0F;
+			minimum = 0x800;
+		} else if((lead & 0xF8) == 0xF0) {
+			continuations = 3;
+			codePoint = lead & 0x07;
+			minimum = 0x10000;
+		} else {
+			return REPLACEMENT;
+		}
+		
+		for(int index = 0; index < continuations; index++) {
+			if(this.position == this.limit) {
+				return REPLACEMENT;
+			}
+			
+			int next = this.byteAt(this.position);
+			if((next & 0xC0) != 0x80) {
+				return REPLACEMENT;
+			}
+			
+			this.position++;
+			codePoint = (codePoint << 6) | (next & 0x3F);
+		}
+		
+		if(codePoint < minimum || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+			return REPLACEMENT;
+		}
+		
+		if(codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			this.pending = Character.lowSurrogate(codePoint);
+			return Character.highSurrogate(codePoint);
+		}
+		
+		return codePoint;
+	}
+	
+	private int byteAt(int index) {
+		if(this.array != null) {
+			return this.array[index];
+		}
+		
+		return this.buffer.get(index);
+	}
+
+}
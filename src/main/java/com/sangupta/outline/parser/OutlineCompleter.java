@@ -0,0 +1,301 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.parser.OutlineTokenTrie.Token;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Completes a token of a command line, as for tab-completion in a shell or an
+ * interactive console. The tokens before the one being completed are parsed
+ * the same way as for a full parse, which tells whether the token is the value
+ * of an option, or else the scope it is read in. The candidates are then the
+ * allowed values of the option, or the names valid in the scope that start
+ * with the token: the global options, groups, commands and the help keyword
+ * at the start, the options and commands of a group after its name, and the
+ * options of a command after its name.
+ * <p>
+ * The names of each scope are held in sorted arrays built once from the
+ * {@link OutlineTokenTrie}, so that the candidates for a prefix are found via
+ * a binary search, without going through the maps of the metadata. Hidden
+ * options and commands are never offered. An instance is immutable, and safe
+ * to use from many threads.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineCompleter {
+	
+	private static final String[] NO_NAMES = new String[0];
+	
+	private final OutlineMetadata metadata;
+	
+	/**
+	 * The sorted option names of each scope
+	 */
+	private final String[][] options;
+	
+	/**
+	 * The sorted group and command names, and the help keyword, valid in each
+	 * scope
+	 */
+	private final String[][] commands;
+	
+	/**
+	 * Build the completion indexes over the given metadata. Commands that were
+	 * registered by name must all have been loaded, as is done by
+	 * {@link com.sangupta.outline.OutlineParser#getCompleter()}.
+	 * 
+	 * @param metadata
+	 */
+	public OutlineCompleter(OutlineMetadata metadata) {
+		if(metadata == null) {
+			throw new IllegalArgumentException("Metadata cannot be null");
+		}
+		
+		this.metadata = metadata;
+		
+		// tokens come out of the trie sorted, and so do the names of each scope
+		List<Token> tokens = metadata.tokens.getTokens(null);
+		
+		// the group of each command, as commands may be added to groups via the API
+		Map<String, String> commandGroups = new HashMap<>();
+		for(String group : metadata.commandGroups.keySet()) {
+			for(CommandSpec command : metadata.commandGroups.getValues(group)) {
+				commandGroups.put(command.name, group);
+			}
+		}
+		
+		List<List<String>> options = new ArrayList<>();
+		List<List<String>> commands = new ArrayList<>();
+		for(Token token : tokens) {
+			for(int scope : token.getOptionScopes()) {
+				if(!token.getOption(scope).hidden) {
+					add(options, scope, token.name);
+				}
+			}
+			
+			if(token.isGroup()) {
+				add(commands, OutlineTokenTrie.GLOBAL_SCOPE, token.name);
+			}
+			
+			if(token.isCommand()) {
+				CommandSpec command = metadata.commandNames.get(token.name);
+				if(command != null && !command.hidden) {
+					add(commands, this.getScope(commandGroups.get(token.name)), token.name);
+				}
+			}
+			
+			if(token.isHelpKeyword()) {
+				add(commands, OutlineTokenTrie.GLOBAL_SCOPE, token.name);
+				for(Token group : tokens) {
+					if(group.isGroup()) {
+						add(commands, group.getGroupScope(), token.name);
+					}
+				}
+			}
+		}
+		
+		this.options = toArrays(options);
+		this.commands = toArrays(commands);
+	}
+	
+	/**
+	 * Return the candidates for the token at the given index of the given
+	 * command line. The token is taken as the prefix to complete, and
+	 * an index just past the last token completes a new, empty token.
+	 * 
+	 * @param args
+	 *            the tokens of the command line
+	 * 
+	 * @param index
+	 *            the index of the token to complete
+	 * 
+	 * @return the candidates, never <code>null</code> - sorted, but for option
+	 *         values which come in the order they are declared, and empty if
+	 *         the token is an argument, or the tokens before it are not valid
+	 */
+	public List<String> complete(String[] args, int index) {
+		if(args == null) {
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		
+		if(index < 0 || index > args.length) {
+			throw new IndexOutOfBoundsException("No token at index: " + index);
+		}
+		
+		final String prefix = index < args.length ? args[index] : "";
+		final OutlineTokenTrie tokens = this.metadata.tokens;
+		
+		// parse all that comes before the token
+		OutlineCommandLine commandLine = OutlineCommandLine.of(Arrays.copyOf(args, index));
+		OutlineArgumentParser.Cursor cursor = new OutlineArgumentParser.Cursor();
+		cursor.reset(commandLine, tokens);
+		cursor.partial = true;
+		
+		OutlineParseResult result = new OutlineParseResult(commandLine, tokens);
+		try {
+			OutlineArgumentParser.parse(cursor, result, this.metadata);
+		} catch(OutlineInvalidArgumentException e) {
+			return Collections.emptyList();
+		}
+		
+		if(cursor.pendingSlot >= 0) {
+			return getValues(tokens.getOption(cursor.pendingSlot), "", prefix);
+		}
+		
+		if(result.getArgumentsStart() < index) {
+			// arguments have started, or the tokens are not valid
+			return Collections.emptyList();
+		}
+		
+		if(result.helpRequested) {
+			if(result.command != null) {
+				return Collections.emptyList();
+			}
+			
+			int scope = OutlineTokenTrie.GLOBAL_SCOPE;
+			if(result.group != null) {
+				scope = tokens.get(result.group).getGroupScope();
+			}
+			
+			List<String> names = getNames(NO_NAMES, get(this.commands, scope), prefix);
+			names.remove(this.metadata.helpKeyword);
+			return names;
+		}
+		
+		// a value attached to the option, as in --name=value
+		int equals = prefix.indexOf('=');
+		if(equals > 1 && prefix.charAt(0) == '-') {
+			Token token = tokens.get(prefix, 0, equals);
+			OptionSpec option = token == null ? null : token.getOption(cursor.scope);
+			if(option != null && option.arity > 0) {
+				return getValues(option, prefix.substring(0, equals + 1), prefix.substring(equals + 1));
+			}
+		}
+		
+		String[] commands = cursor.phase == OutlineArgumentParser.COMMAND_OPTIONS ? NO_NAMES : get(this.commands, cursor.scope);
+		return getNames(get(this.options, cursor.scope), commands, prefix);
+	}
+	
+	/**
+	 * Return the allowed values of the given option that start with the given
+	 * prefix, in the order they are declared, each preceded by the given lead.
+	 * 
+	 */
+	private static List<String> getValues(OptionSpec option, String lead, String prefix) {
+		if(option.allowedValues == null || option.allowedValues.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		List<String> values = new ArrayList<>();
+		for(String value : option.allowedValues) {
+			if(value.startsWith(prefix)) {
+				values.add(lead + value);
+			}
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Return the names in both sorted arrays that start with the given prefix,
+	 * merged in order.
+	 * 
+	 */
+	private static List<String> getNames(String[] first, String[] second, String prefix) {
+		int firstIndex = lowerBound(first, prefix);
+		int secondIndex = lowerBound(second, prefix);
+		
+		List<String> names = new ArrayList<>();
+		while(true) {
+			boolean hasFirst = firstIndex < first.length && first[firstIndex].startsWith(prefix);
+			boolean hasSecond = secondIndex < second.length && second[secondIndex].startsWith(prefix);
+			if(!hasFirst && !hasSecond) {
+				return names;
+			}
+			
+			if(hasFirst && (!hasSecond || first[firstIndex].compareTo(second[secondIndex]) <= 0)) {
+				names.add(first[firstIndex++]);
+			} else {
+				names.add(second[secondIndex++]);
+			}
+		}
+	}
+	
+	/**
+	 * Return the index of the first name that is not less than the given one.
+	 * 
+	 */
+	private static int lowerBound(String[] names, String name) {
+		int index = Arrays.binarySearch(names, name);
+		if(index < 0) {
+			return -(index + 1);
+		}
+		
+		return index;
+	}
+	
+	private int getScope(String group) {
+		if(group == null) {
+			return OutlineTokenTrie.GLOBAL_SCOPE;
+		}
+		
+		return this.metadata.tokens.get(group).getGroupScope();
+	}
+	
+	private static String[] get(String[][] names, int scope) {
+		if(scope < 0 || scope >= names.length) {
+			return NO_NAMES;
+		}
+		
+		return names[scope];
+	}
+	
+	private static void add(List<List<String>> names, int scope, String name) {
+		while(names.size() <= scope) {
+			names.add(new ArrayList<String>());
+		}
+		
+		names.get(scope).add(name);
+	}
+	
+	private static String[][] toArrays(List<List<String>> names) {
+		String[][] arrays = new String[names.size()][];
+		for(int scope = 0; scope < arrays.length; scope++) {
+			arrays[scope] = names.get(scope).toArray(new String[names.get(scope).size()]);
+		}
+		
+		return arrays;
+	}
+	
+}
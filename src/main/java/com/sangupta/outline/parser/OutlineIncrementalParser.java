@@ -0,0 +1,542 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.util.Arrays;
+
+import com.sangupta.outline.OutlineMetadata;
+
+/**
+ * Parses a command line that is edited a few tokens at a time, as in an
+ * interactive console that validates the line on every keystroke. The
+ * state of the parse - the position, the kind and scope of options being
+ * read, the group and command read so far, and the number of option
+ * occurrences - is recorded at every token where the parser looked for
+ * an option, group or command. An edit resumes parsing at the last such
+ * checkpoint before the first changed token, reusing all decisions made
+ * for the unchanged tokens before it.
+ * <p>
+ * Once past the edited tokens, the parse is in the same state as the
+ * previous one at the corresponding checkpoint. From there on, all that
+ * follows is the same as before, just moved by the number of tokens that
+ * were added or removed, and so the rest of the previous parse is picked
+ * up instead of parsed again. The previous checkpoints and occurrences are
+ * read where they are, and are only saved aside just before the new parse
+ * overwrites them. An edit that leaves the structure of the line as it
+ * was - as typing within a value or an argument does - thus takes the
+ * same time however long the line is. An edit that adds or removes tokens
+ * or options also moves the rest of the recorded state along, which is a
+ * plain array copy.
+ * <p>
+ * When options are permuted, every edit parses the command line again.
+ * <p>
+ * An instance is not thread-safe, and the result it returns is updated in
+ * place by every edit.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineIncrementalParser {
+	
+	private static final String[] NO_ARGS = new String[0];
+	
+	/**
+	 * The number of <code>int</code>s used by each checkpoint: the position,
+	 * the phase, the scope, the number of occurrences, and the positions of
+	 * the group and command names
+	 */
+	private static final int CHECKPOINT_SIZE = 6;
+	
+	private static final int OCCURRENCE_SIZE = OutlineParseResult.OCCURRENCE_SIZE;
+	
+	private final OutlineMetadata metadata;
+	
+	private final OutlineCommandLine commandLine = OutlineCommandLine.of(NO_ARGS);
+	
+	private final OutlineArgumentParser.Cursor cursor = new OutlineArgumentParser.Cursor();
+	
+	private final OutlineParseResult result;
+	
+	/**
+	 * The checkpoints of the current parse, followed by those of the previous
+	 * one while it may still be picked up
+	 */
+	private int[] checkpoints = new int[CHECKPOINT_SIZE * 16];
+	
+	private int checkpointCount;
+	
+	/**
+	 * The index of the first checkpoint of the previous parse after the one
+	 * parsing resumed at
+	 */
+	private int tailStart;
+	
+	/**
+	 * The number of checkpoints of the previous parse, or zero once it cannot
+	 * be picked up
+	 */
+	private int tailEnd;
+	
+	/**
+	 * The checkpoints of the previous parse from {@link #tailStart} that were
+	 * saved before being overwritten
+	 */
+	private int[] saved = new int[CHECKPOINT_SIZE * 16];
+	
+	private int savedEnd;
+	
+	/**
+	 * The index of the first occurrence of the previous parse after the
+	 * checkpoint parsing resumed at
+	 */
+	private int optionStart;
+	
+	/**
+	 * The number of occurrences of the previous parse
+	 */
+	private int optionEnd;
+	
+	/**
+	 * The occurrences of the previous parse from {@link #optionStart} that were
+	 * saved before being overwritten
+	 */
+	private int[] savedOptions = new int[OCCURRENCE_SIZE * 16];
+	
+	private int savedOptionEnd;
+	
+	/**
+	 * The first position at which the previous parse may be picked up
+	 */
+	private int resumeFrom;
+	
+	/**
+	 * The start of the edited range
+	 */
+	private int editStart;
+	
+	/**
+	 * The end of the edited range, before the edit
+	 */
+	private int editEnd;
+	
+	/**
+	 * The number of tokens added by the edit - negative if removed
+	 */
+	private int shift;
+	
+	/**
+	 * Create an incremental parser over the given metadata. Commands that were
+	 * registered by name must all have been loaded, as is done by
+	 * {@link com.sangupta.outline.OutlineParser#newIncrementalParser()}.
+	 * 
+	 * @param metadata
+	 */
+	public OutlineIncrementalParser(OutlineMetadata metadata) {
+		if(metadata == null) {
+			throw new IllegalArgumentException("Metadata cannot be null");
+		}
+		
+		this.metadata = metadata;
+		this.result = new OutlineParseResult(this.commandLine, metadata.tokens);
+		this.cursor.checkpoints = this;
+	}
+	
+	/**
+	 * Parse the given command line from scratch.
+	 * 
+	 * @param args
+	 * @return the result, updated in place by subsequent edits
+	 * 
+	 * @throws com.sangupta.outline.exceptions.OutlineInvalidArgumentException
+	 *             if the command line is not valid - the line is kept, so that
+	 *             it can still be edited
+	 */
+	public OutlineParseResult parse(String[] args) {
+		if(args == null) {
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		
+		// edits change the tokens in place
+		this.commandLine.reset(args.clone());
+		this.cursor.reset(this.commandLine, this.metadata.tokens);
+		this.result.reset(this.commandLine, this.metadata.tokens);
+		this.checkpointCount = 0;
+		this.tailEnd = 0;
+		
+		return OutlineArgumentParser.parse(this.cursor, this.result, this.metadata);
+	}
+	
+	/**
+	 * Replace the tokens from the given index up to, but excluding, the given
+	 * end index with the given tokens, and parse the edited command line. To
+	 * insert tokens, pass the same index for both, and to remove tokens, pass
+	 * no tokens.
+	 * 
+	 * @param from
+	 *            the index of the first token to replace
+	 * 
+	 * @param to
+	 *            the index after the last token to replace
+	 * 
+	 * @param tokens
+	 *            the tokens to put in their place
+	 * 
+	 * @return the result, updated in place
+	 * 
+	 * @throws com.sangupta.outline.exceptions.OutlineInvalidArgumentException
+	 *             if the edited command line is not valid - the edit is kept,
+	 *             so that the line can still be edited
+	 */
+	public OutlineParseResult edit(int from, int to, String... tokens) {
+		String[] args = this.commandLine.toArray();
+		if(from < 0 || to < from || to > args.length) {
+			throw new IndexOutOfBoundsException("Invalid range of tokens: " + from + " to " + to);
+		}
+		
+		if(tokens.length != to - from) {
+			String[] previous = args;
+			args = new String[previous.length - (to - from) + tokens.length];
+			System.arraycopy(previous, 0, args, 0, from);
+			System.arraycopy(previous, to, args, from + tokens.length, previous.length - to);
+		}
+		
+		System.arraycopy(tokens, 0, args, from, tokens.length);
+		this.commandLine.reset(args);
+		
+		// with permutation, arguments are recorded between the checkpoints
+		int index = this.metadata.permutation ? -1 : this.findCheckpoint(from);
+		if(index < 0) {
+			this.cursor.reset(this.commandLine, this.metadata.tokens);
+			this.result.reset(this.commandLine, this.metadata.tokens);
+			this.checkpointCount = 0;
+			return OutlineArgumentParser.parse(this.cursor, this.result, this.metadata);
+		}
+		
+		// what followed the checkpoint may be picked up after the edit
+		int offset = index * CHECKPOINT_SIZE;
+		this.tailStart = index + 1;
+		this.tailEnd = this.checkpointCount;
+		this.savedEnd = this.tailStart;
+		this.optionStart = this.checkpoints[offset + 3];
+		this.optionEnd = this.result.getOptionCount();
+		this.savedOptionEnd = this.optionStart;
+		this.resumeFrom = from + tokens.length;
+		this.editStart = from;
+		this.editEnd = to;
+		this.shift = tokens.length - (to - from);
+		
+		// restore the state at the checkpoint, and parse on from there
+		this.result.rewind(this.commandLine, this.optionStart);
+		this.restore(this.checkpoints[offset], this.checkpoints[offset + 1], this.checkpoints[offset + 2], this.checkpoints[offset + 4], this.checkpoints[offset + 5]);
+		this.checkpointCount = index;
+		
+		try {
+			OutlineArgumentParser.resume(this.cursor, this.result, this.metadata);
+		} finally {
+			this.tailEnd = 0;
+		}
+		
+		return this.result;
+	}
+	
+	/**
+	 * Return the result of the last parse.
+	 * 
+	 * @return
+	 */
+	public OutlineParseResult getResult() {
+		return this.result;
+	}
+	
+	/**
+	 * Return a copy of the tokens of the command line as last edited.
+	 * 
+	 * @return
+	 */
+	public String[] getArgs() {
+		return this.commandLine.toArray().clone();
+	}
+	
+	/**
+	 * Record the state of the parse at the current position. If the previous
+	 * parse was in the same state at the same token past the edit, the rest of
+	 * it is picked up first, and the cursor moved to its last checkpoint.
+	 * 
+	 */
+	void mark(OutlineArgumentParser.Cursor cursor, OutlineParseResult result) {
+		if(this.tailEnd > 0) {
+			int index = cursor.position >= this.resumeFrom ? this.findTail(cursor.position - this.shift) : -1;
+			if(index >= 0 && this.isSameState(index, cursor)) {
+				this.pickUp(index, cursor, result);
+			} else {
+				this.saveTail(cursor, result);
+			}
+		}
+		
+		int offset = this.checkpointCount * CHECKPOINT_SIZE;
+		if(offset == this.checkpoints.length) {
+			this.checkpoints = Arrays.copyOf(this.checkpoints, offset * 2);
+		}
+		
+		this.checkpoints[offset] = cursor.position;
+		this.checkpoints[offset + 1] = cursor.phase;
+		this.checkpoints[offset + 2] = cursor.scope;
+		this.checkpoints[offset + 3] = result.getOptionCount();
+		this.checkpoints[offset + 4] = cursor.groupPosition;
+		this.checkpoints[offset + 5] = cursor.commandPosition;
+		this.checkpointCount++;
+	}
+	
+	/**
+	 * Check if the checkpoint of the previous parse at the given index is in
+	 * the same state as the cursor: reading the same kind of options, of the
+	 * same scope, after the same group and command names.
+	 * 
+	 */
+	private boolean isSameState(int index, OutlineArgumentParser.Cursor cursor) {
+		return this.getTail(index, 1) == cursor.phase
+				&& this.getTail(index, 2) == cursor.scope
+				&& this.move(this.getTail(index, 4)) == cursor.groupPosition
+				&& this.move(this.getTail(index, 5)) == cursor.commandPosition;
+	}
+	
+	/**
+	 * Save aside the checkpoint, and the occurrences, of the previous parse
+	 * that the current one is about to overwrite: the checkpoint about to be
+	 * recorded, and as many occurrences as the token at the current position
+	 * may hold.
+	 * 
+	 */
+	private void saveTail(OutlineArgumentParser.Cursor cursor, OutlineParseResult result) {
+		int index = this.checkpointCount;
+		if(index >= this.savedEnd && index < this.tailEnd) {
+			int offset = (index - this.tailStart) * CHECKPOINT_SIZE;
+			if(offset == this.saved.length) {
+				this.saved = Arrays.copyOf(this.saved, offset * 2);
+			}
+			
+			System.arraycopy(this.checkpoints, index * CHECKPOINT_SIZE, this.saved, offset, CHECKPOINT_SIZE);
+			this.savedEnd = index + 1;
+		}
+		
+		int end = Math.min(this.optionEnd, result.getOptionCount() + Math.max(1, this.commandLine.length(cursor.position)));
+		if(end > this.savedOptionEnd) {
+			int length = (end - this.optionStart) * OCCURRENCE_SIZE;
+			if(length > this.savedOptions.length) {
+				this.savedOptions = Arrays.copyOf(this.savedOptions, Math.max(length, this.savedOptions.length * 2));
+			}
+			
+			System.arraycopy(result.getOccurrences(), this.savedOptionEnd * OCCURRENCE_SIZE, this.savedOptions, (this.savedOptionEnd - this.optionStart) * OCCURRENCE_SIZE, (end - this.savedOptionEnd) * OCCURRENCE_SIZE);
+			this.savedOptionEnd = end;
+		}
+	}
+	
+	/**
+	 * Pick up the checkpoints and occurrences of the previous parse from the
+	 * given checkpoint, which is in the same state as the current position, up
+	 * to its last checkpoint, and restore the state at that one.
+	 * 
+	 */
+	private void pickUp(int index, OutlineArgumentParser.Cursor cursor, OutlineParseResult result) {
+		final int last = this.tailEnd - 1;
+		final int occurrenceCount = result.getOptionCount();
+		final int occurrences = occurrenceCount - this.getTail(index, 3);
+		
+		// the occurrences, up to the last checkpoint
+		int[] options = result.getOccurrences();
+		int optionCount = this.getTail(last, 3) - this.getTail(index, 3);
+		if(optionCount > 0) {
+			options = move(options, this.getTail(index, 3), occurrenceCount, optionCount, this.savedOptions, this.optionStart, this.savedOptionEnd, OCCURRENCE_SIZE);
+			if(this.shift != 0) {
+				for(int offset = occurrenceCount * OCCURRENCE_SIZE + 1; offset < (occurrenceCount + optionCount) * OCCURRENCE_SIZE; offset += OCCURRENCE_SIZE) {
+					options[offset] += this.shift;
+				}
+			}
+		}
+		
+		// the checkpoints, but for the last one which is recorded as usual
+		int start = this.checkpointCount;
+		int count = last - index;
+		boolean moved = this.shift != 0 || occurrences != 0;
+		
+		int position = this.getTail(last, 0);
+		int phase = this.getTail(last, 1);
+		int scope = this.getTail(last, 2);
+		int lastGroup = this.getTail(last, 4);
+		int lastCommand = this.getTail(last, 5);
+		
+		this.checkpoints = move(this.checkpoints, index, start, count, this.saved, this.tailStart, this.savedEnd, CHECKPOINT_SIZE);
+		if(moved) {
+			for(int offset = start * CHECKPOINT_SIZE; offset < (start + count) * CHECKPOINT_SIZE; offset += CHECKPOINT_SIZE) {
+				this.checkpoints[offset] += this.shift;
+				this.checkpoints[offset + 3] += occurrences;
+				this.checkpoints[offset + 4] = this.move(this.checkpoints[offset + 4]);
+				this.checkpoints[offset + 5] = this.move(this.checkpoints[offset + 5]);
+			}
+		}
+		
+		this.checkpointCount = start + count;
+		this.tailEnd = 0;
+		
+		result.setOccurrences(options, occurrenceCount + optionCount);
+		this.restore(position + this.shift, phase, scope, this.move(lastGroup), this.move(lastCommand));
+	}
+	
+	/**
+	 * Move the given number of records of the previous parse, starting at the
+	 * given index, to the given index of the same array. Records before the
+	 * given index of the array are those of the current parse, and records
+	 * of the previous parse that were there are read from the saved ones
+	 * instead.
+	 * 
+	 * @return the array, grown if needed
+	 */
+	private static int[] move(int[] array, int from, int to, int count, int[] saved, int savedStart, int savedEnd, int size) {
+		if((to + count) * size > array.length) {
+			array = Arrays.copyOf(array, Math.max((to + count) * size, array.length * 2));
+		}
+		
+		if(from == to) {
+			// all in place already
+			return array;
+		}
+		
+		// those still in the array, and then those that were overwritten
+		int inPlace = Math.max(from, to);
+		if(inPlace < from + count) {
+			System.arraycopy(array, inPlace * size, array, (inPlace - from + to) * size, (from + count - inPlace) * size);
+		}
+		
+		int overwritten = Math.min(to, from + count);
+		if(from < overwritten) {
+			if(overwritten > savedEnd) {
+				throw new IllegalStateException("Previous parse was overwritten");
+			}
+			
+			System.arraycopy(saved, (from - savedStart) * size, array, to * size, (overwritten - from) * size);
+		}
+		
+		return array;
+	}
+	
+	/**
+	 * Return a field of the checkpoint of the previous parse at the given
+	 * index, wherever it is held.
+	 * 
+	 */
+	private int getTail(int index, int field) {
+		if(index < this.savedEnd) {
+			return this.saved[(index - this.tailStart) * CHECKPOINT_SIZE + field];
+		}
+		
+		return this.checkpoints[index * CHECKPOINT_SIZE + field];
+	}
+	
+	/**
+	 * Move the cursor to the given state, and set the group and command of the
+	 * result accordingly.
+	 * 
+	 */
+	private void restore(int position, int phase, int scope, int groupPosition, int commandPosition) {
+		final OutlineArgumentParser.Cursor cursor = this.cursor;
+		cursor.position = position;
+		cursor.phase = phase;
+		cursor.scope = scope;
+		cursor.groupPosition = groupPosition;
+		cursor.commandPosition = commandPosition;
+		
+		this.result.group = this.getName(groupPosition);
+		this.result.command = this.getName(commandPosition);
+	}
+	
+	/**
+	 * Return where the group or command name at the given position of the
+	 * previous parse is now, or <code>-2</code> if it was replaced by the
+	 * edit. Positions of <code>-1</code>, for no name, are kept.
+	 * 
+	 */
+	private int move(int position) {
+		if(position < this.editStart) {
+			return position;
+		}
+		
+		if(position >= this.editEnd) {
+			return position + this.shift;
+		}
+		
+		return -2;
+	}
+	
+	private String getName(int position) {
+		if(position < 0) {
+			return null;
+		}
+		
+		return this.commandLine.classify(this.metadata.tokens, position).name;
+	}
+	
+	/**
+	 * Return the index of the last checkpoint at or before the given position,
+	 * or <code>-1</code> if there is none.
+	 * 
+	 */
+	private int findCheckpoint(int position) {
+		int low = 0;
+		int high = this.checkpointCount - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(this.checkpoints[middle * CHECKPOINT_SIZE] <= position) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		
+		return high;
+	}
+	
+	/**
+	 * Return the index of the checkpoint of the previous parse at the given
+	 * position, or <code>-1</code> if there is none.
+	 * 
+	 */
+	private int findTail(int position) {
+		int low = this.tailStart;
+		int high = this.tailEnd - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int found = this.getTail(middle, 0);
+			if(found == position) {
+				return middle;
+			}
+			
+			if(found < position) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		
+		return -1;
+	}
+	
+}
@@ -0,0 +1,141 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.parser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.help.OutlineHelp;
+
+/**
+ * The state of parsing one command line - the cursor, the parse result and the
+ * help instance - kept so that it can be reused for the next command line.
+ * Parsing via a context allocates nothing beyond the command instance and the
+ * values that get bound, once the context has warmed up.
+ * <p>
+ * The result, and the help instance injected into commands, are only valid
+ * until the context is used again. A context must not be used by more than one
+ * thread at a time: either hold one per worker, or borrow one via
+ * {@link #acquire()} and give it back via {@link #release()}. The shared pool
+ * is not tied to threads, so it works the same with any number of short-lived
+ * or virtual threads.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineParseContext {
+	
+	private static final String[] NO_ARGS = new String[0];
+	
+	/**
+	 * The contexts available for borrowing - a free slot holds <code>null</code>
+	 */
+	private static final AtomicReferenceArray<OutlineParseContext> POOL = new AtomicReferenceArray<>(Math.max(8, 2 * Runtime.getRuntime().availableProcessors()));
+	
+	/**
+	 * The command line reused for all arguments parsed via this context
+	 */
+	private final OutlineCommandLine commandLine = OutlineCommandLine.of(NO_ARGS);
+	
+	final OutlineArgumentParser.Cursor cursor = new OutlineArgumentParser.Cursor();
+	
+	final OutlineParseResult result = new OutlineParseResult(this.commandLine, null);
+	
+	/**
+	 * The help instance, bound to the metadata it was last created for
+	 */
+	private OutlineHelp help;
+	
+	/**
+	 * Borrow a context from the shared pool, creating one if none is free.
+	 * 
+	 * @return
+	 */
+	public static OutlineParseContext acquire() {
+		for(int index = 0; index < POOL.length(); index++) {
+			OutlineParseContext context = POOL.get(index);
+			if(context != null && POOL.compareAndSet(index, context, null)) {
+				return context;
+			}
+		}
+		
+		return new OutlineParseContext();
+	}
+	
+	/**
+	 * Give this context back to the shared pool. The context, and the results
+	 * parsed via it, must not be used afterwards.
+	 * 
+	 */
+	public void release() {
+		// do not hold on to the arguments while pooled
+		this.commandLine.reset(NO_ARGS);
+		this.result.reset(this.commandLine, null);
+		
+		for(int index = 0; index < POOL.length(); index++) {
+			if(POOL.get(index) == null && POOL.compareAndSet(index, null, this)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Return a command line over the given arguments, reusing the one held by
+	 * this context.
+	 * 
+	 * @param args
+	 * @return
+	 */
+	public OutlineCommandLine wrap(String[] args) {
+		if(args == null) {
+			throw new IllegalArgumentException("Arguments cannot be null");
+		}
+		
+		this.commandLine.reset(args);
+		return this.commandLine;
+	}
+	
+	/**
+	 * Return the result of the last parse via this context.
+	 * 
+	 * @return
+	 */
+	public OutlineParseResult getResult() {
+		return this.result;
+	}
+	
+	/**
+	 * Return the help instance over the result of this context for the given
+	 * metadata, creating it only if the metadata has changed.
+	 * 
+	 * @param metadata
+	 * @return
+	 */
+	public OutlineHelp getHelp(OutlineMetadata metadata) {
+		if(this.help == null || this.help.getMeta() != metadata) {
+			this.help = new OutlineHelp(metadata, this.result);
+		}
+		
+		return this.help;
+	}
+
+}
@@ -21,25 +21,745 @@
  
 package com.sangupta.outline.parser;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.sangupta.jerry.ds.SimpleMultiMap;
+import com.sangupta.outline.OutlineTypeConverter;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.spec.OptionSpec;
 
+/**
+ * The result of parsing the command line arguments. Instead of copying values
+ * out of the arguments, option occurrences are recorded as ranges into the
+ * original arguments array - each occurrence is the option slot in the
+ * {@link OutlineTokenTrie}, the index of its first value, the number of values,
+ * and the offset at which the first value starts within its argument - packed
+ * into a single <code>int[]</code>. The offset is zero unless the value is
+ * attached to the option, as in <code>--name=value</code> or <code>-ovalue</code>.
+ * The arguments are the range from {@link #getArgumentsStart()} to the end of
+ * the array - preceded, when options are permuted, by the arguments that were
+ * found between the options, recorded by their index in another
+ * <code>int[]</code>.
+ * 
+ * Thus a parse allocates only this object, plus the <code>int[]</code> when
+ * any options are present. The map and list based accessors are views that
+ * are built only when asked for.
+ * 
+ * @author sangupta
+ *
+ */
 public class OutlineParseResult {
     
+	/**
+	 * The number of <code>int</code>s used by each option occurrence
+	 */
+	static final int OCCURRENCE_SIZE = 4;
+	
     public String group;
     
     public String command;
     
     public boolean helpRequested;
     
-    public final SimpleMultiMap<String, String> globalOptions = new SimpleMultiMap<>();
+    /**
+     * The token that was not known, if help is shown for it instead
+     */
+    public String invalidArgument;
+    
+    /**
+     * The known names closest to the {@link #invalidArgument}, the closest first
+     */
+    public List<String> suggestions = Collections.emptyList();
+    
+    /**
+     * The type converters to use when binding values - as captured by the
+     * metadata the arguments were parsed against
+     */
+    public Map<Class<?>, OutlineTypeConverter<?>> converters;
+    
+    /**
+     * The arguments that were parsed
+     */
+    private OutlineCommandLine commandLine;
+    
+    /**
+     * The trie that resolves the option slots
+     */
+    private OutlineTokenTrie tokens;
+    
+    /**
+     * The option occurrences - slot, start index and count of values each
+     */
+    private int[] occurrences;
+    
+    /**
+     * The number of option occurrences
+     */
+    private int occurrenceCount;
+    
+    /**
+     * The index from which all tokens are arguments
+     */
+    private int argumentsStart;
+    
+    /**
+     * The indices of the arguments found between options, when permuting
+     */
+    private int[] argumentIndices;
+    
+    /**
+     * The number of arguments found between options
+     */
+    private int argumentIndexCount;
+    
+    private SimpleMultiMap<String, String> globalOptions;
+    
+    private SimpleMultiMap<String, String> groupOptions;
+    
+    private SimpleMultiMap<String, String> commandOptions;
+    
+    private List<String> arguments;
+    
+    public OutlineParseResult(String[] args, OutlineTokenTrie tokens) {
+    	this(OutlineCommandLine.of(args), tokens);
+    }
+    
+    public OutlineParseResult(OutlineCommandLine commandLine, OutlineTokenTrie tokens) {
+    	this.commandLine = commandLine;
+    	this.tokens = tokens;
+    	this.argumentsStart = commandLine.size();
+    }
+    
+    /**
+	 * Clear this result so that it can be reused for parsing the given command
+	 * line. The occurrence array is kept.
+	 * 
+	 */
+    void reset(OutlineCommandLine commandLine, OutlineTokenTrie tokens) {
+    	this.group = null;
+    	this.command = null;
+    	this.helpRequested = false;
+    	this.invalidArgument = null;
+    	this.suggestions = Collections.emptyList();
+    	this.converters = null;
+    	this.commandLine = commandLine;
+    	this.tokens = tokens;
+    	this.occurrenceCount = 0;
+    	this.argumentsStart = commandLine.size();
+    	this.argumentIndexCount = 0;
+    	this.globalOptions = null;
+    	this.groupOptions = null;
+    	this.commandOptions = null;
+    	this.arguments = null;
+    }
+    
+    /**
+	 * Point this result to the given command line, keeping only the given
+	 * number of option occurrences, so that parsing can resume after them.
+	 * 
+	 */
+    void rewind(OutlineCommandLine commandLine, int occurrenceCount) {
+    	this.helpRequested = false;
+    	this.invalidArgument = null;
+    	this.suggestions = Collections.emptyList();
+    	this.commandLine = commandLine;
+    	this.occurrenceCount = occurrenceCount;
+    	this.argumentsStart = commandLine.size();
+    	this.argumentIndexCount = 0;
+    	this.globalOptions = null;
+    	this.groupOptions = null;
+    	this.commandOptions = null;
+    	this.arguments = null;
+    }
+    
+    /**
+	 * Return the array holding the option occurrences, which may be longer than
+	 * needed, or <code>null</code> if none were recorded so far.
+	 * 
+	 */
+    int[] getOccurrences() {
+    	return this.occurrences;
+    }
+    
+    /**
+	 * Replace the option occurrences with the given number of them held in the
+	 * given array.
+	 * 
+	 */
+    void setOccurrences(int[] occurrences, int occurrenceCount) {
+    	this.occurrences = occurrences;
+    	this.occurrenceCount = occurrenceCount;
+    }
+    
+    /**
+	 * Record an occurrence of the option in the given slot, whose values start
+	 * at the given offset of the argument at the given index.
+	 * 
+	 */
+    void addOption(int slot, int start, int count, int valueOffset) {
+    	int offset = this.occurrenceCount * OCCURRENCE_SIZE;
+    	if(this.occurrences == null) {
+    		this.occurrences = new int[OCCURRENCE_SIZE * 4];
+    	} else if(offset == this.occurrences.length) {
+    		this.occurrences = Arrays.copyOf(this.occurrences, offset * 2);
+    	}
+    	
+    	this.occurrences[offset] = slot;
+    	this.occurrences[offset + 1] = start;
+    	this.occurrences[offset + 2] = count;
+    	this.occurrences[offset + 3] = valueOffset;
+    	this.occurrenceCount++;
+    }
+    
+    /**
+	 * Mark all arguments from the given index onwards as the command arguments.
+	 * 
+	 */
+    void setArgumentsStart(int start) {
+    	this.argumentsStart = start;
+    }
+    
+    /**
+	 * Record the token at the given index, found between options, as the next
+	 * command argument.
+	 * 
+	 */
+    void addArgument(int index) {
+    	if(this.argumentIndices == null) {
+    		this.argumentIndices = new int[16];
+    	} else if(this.argumentIndexCount == this.argumentIndices.length) {
+    		this.argumentIndices = Arrays.copyOf(this.argumentIndices, this.argumentIndexCount * 2);
+    	}
+    	
+    	this.argumentIndices[this.argumentIndexCount++] = index;
+    }
+    
+    /**
+     * Return the arguments that were parsed.
+     * 
+     * @return
+     */
+    public String[] getArgs() {
+		return this.commandLine.toArray();
+	}
+    
+    /**
+	 * Return the index in {@link #getArgs()} from which all tokens are command
+	 * arguments. Unless options are permuted, this is the index of the first
+	 * command argument.
+	 * 
+	 * @return
+	 */
+    public int getArgumentsStart() {
+		return this.argumentsStart;
+	}
+    
+    /**
+     * Return the number of command arguments.
+     * 
+     * @return
+     */
+    public int getArgumentCount() {
+    	return this.argumentIndexCount + this.commandLine.size() - this.argumentsStart;
+    }
+    
+    /**
+     * Return the command argument at the given position.
+     * 
+     * @param index
+     * @return
+     */
+    public String getArgument(int index) {
+    	if(index < 0 || index >= this.getArgumentCount()) {
+    		throw new IndexOutOfBoundsException("No argument at index: " + index);
+    	}
+    	
+    	return this.commandLine.get(this.getArgumentIndex(index));
+    }
+    
+    /**
+	 * Return the index in {@link #getArgs()} of the command argument at the
+	 * given position.
+	 * 
+	 * @param index
+	 * @return
+	 */
+    public int getArgumentIndex(int index) {
+    	if(index < 0 || index >= this.getArgumentCount()) {
+    		throw new IndexOutOfBoundsException("No argument at index: " + index);
+    	}
+    	
+    	if(index < this.argumentIndexCount) {
+    		return this.argumentIndices[index];
+    	}
+    	
+    	return this.argumentsStart + index - this.argumentIndexCount;
+    }
+    
+    /**
+     * Return the number of option occurrences.
+     * 
+     * @return
+     */
+    public int getOptionCount() {
+    	return this.occurrenceCount;
+    }
+    
+    /**
+     * Return the option of the occurrence at the given index.
+     * 
+     * @param index
+     * @return
+     */
+    public OptionSpec getOption(int index) {
+    	return this.tokens.getOption(this.occurrences[this.checkOccurrence(index)]);
+    }
+    
+    /**
+     * Return the index of the first value of the occurrence at the given index
+     * in {@link #getArgs()}.
+     * 
+     * @param index
+     * @return
+     */
+    public int getOptionStart(int index) {
+    	return this.occurrences[this.checkOccurrence(index) + 1];
+    }
+    
+    /**
+     * Return the number of values of the occurrence at the given index.
+     * 
+     * @param index
+     * @return
+     */
+    public int getOptionValueCount(int index) {
+    	return this.occurrences[this.checkOccurrence(index) + 2];
+    }
+    
+    /**
+	 * Return the offset within the argument at {@link #getOptionStart(int)} at
+	 * which the first value of the occurrence at the given index starts. This
+	 * is zero unless the value is attached to the option name.
+	 * 
+	 * @param index
+	 * @return
+	 */
+    public int getOptionValueOffset(int index) {
+    	return this.occurrences[this.checkOccurrence(index) + 3];
+    }
+    
+    /**
+	 * Return a value of the occurrence at the given index, creating its
+	 * {@link String} if needed.
+	 * 
+	 * @param index
+	 *            the index of the occurrence
+	 * 
+	 * @param valueIndex
+	 *            the index of the value within the occurrence
+	 * 
+	 * @return
+	 */
+    public String getOptionValue(int index, int valueIndex) {
+    	int offset = this.checkOccurrence(index);
+    	if(valueIndex < 0 || valueIndex >= this.occurrences[offset + 2]) {
+    		throw new IndexOutOfBoundsException("No value at index: " + valueIndex);
+    	}
+    	
+    	return this.getValue(offset, this.occurrences[offset + 1] + valueIndex);
+    }
+    
+    /**
+	 * Return all values of the options of the given type whose name is one of
+	 * the given names - in the order of the names, and then in the order of
+	 * occurrence.
+	 * 
+	 * @param type
+	 *            the type of options to look for
+	 * 
+	 * @param names
+	 *            the names to look for
+	 * 
+	 * @return the list of values, never <code>null</code> - the empty list
+	 *         returned when there are no values cannot be modified
+	 */
+    public List<String> getOptionValues(OptionType type, List<String> names) {
+    	List<String> values = null;
+    	
+    	for(int nameIndex = 0; nameIndex < names.size(); nameIndex++) {
+    		String name = names.get(nameIndex);
+    		
+    		for(int index = 0; index < this.occurrenceCount; index++) {
+    			int offset = index * OCCURRENCE_SIZE;
+    			OptionSpec option = this.tokens.getOption(this.occurrences[offset]);
+    			if(option.type != type || !option.name.equals(name)) {
+    				continue;
+    			}
+    			
+    			int start = this.occurrences[offset + 1];
+    			int end = start + this.occurrences[offset + 2];
+    			for(int valueIndex = start; valueIndex < end; valueIndex++) {
+    				if(values == null) {
+    					values = new ArrayList<>(end - start);
+    				}
+    				
+    				values.add(this.getValue(offset, valueIndex));
+    			}
+    		}
+    	}
+    	
+    	if(values == null) {
+    		return Collections.emptyList();
+    	}
+    	
+    	return values;
+    }
+    
+    /**
+	 * Return all values of the options of the given type whose name is one of
+	 * the given names, in the same order as
+	 * {@link #getOptionValues(OptionType, List)}, as an <code>int[]</code>,
+	 * <code>long[]</code> or <code>double[]</code>. Integers are parsed straight
+	 * from the characters of the arguments, without creating a {@link String}
+	 * for any of them, into an array of the exact size.
+	 * 
+	 * @param type
+	 *            the type of options to look for
+	 * 
+	 * @param names
+	 *            the names to look for
+	 * 
+	 * @param arrayType
+	 *            one of <code>int[].class</code>, <code>long[].class</code> or
+	 *            <code>double[].class</code>
+	 * 
+	 * @return the array of values, or <code>null</code> if there are none
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if a value is not a number of the type
+	 */
+    public Object getOptionValueArray(OptionType type, List<String> names, Class<?> arrayType) {
+    	checkArrayType(arrayType);
+    	
+    	// count the values first, to size the array
+    	int count = 0;
+    	for(int nameIndex = 0; nameIndex < names.size(); nameIndex++) {
+    		String name = names.get(nameIndex);
+    		
+    		for(int index = 0; index < this.occurrenceCount; index++) {
+    			int offset = index * OCCURRENCE_SIZE;
+    			OptionSpec option = this.tokens.getOption(this.occurrences[offset]);
+    			if(option.type == type && option.name.equals(name)) {
+    				count += this.occurrences[offset + 2];
+    			}
+    		}
+    	}
+    	
+    	if(count == 0) {
+    		return null;
+    	}
+    	
+    	PrimitiveArray array = new PrimitiveArray(arrayType, count);
+    	for(int nameIndex = 0; nameIndex < names.size(); nameIndex++) {
+    		String name = names.get(nameIndex);
+    		
+    		for(int index = 0; index < this.occurrenceCount; index++) {
+    			int offset = index * OCCURRENCE_SIZE;
+    			OptionSpec option = this.tokens.getOption(this.occurrences[offset]);
+    			if(option.type != type || !option.name.equals(name)) {
+    				continue;
+    			}
+    			
+    			int start = this.occurrences[offset + 1];
+    			int end = start + this.occurrences[offset + 2];
+    			for(int valueIndex = start; valueIndex < end; valueIndex++) {
+    				this.addValue(array, valueIndex, valueIndex == start ? this.occurrences[offset + 3] : 0);
+    			}
+    		}
+    	}
+    	
+    	return array.get();
+    }
+    
+    /**
+	 * Return the command arguments from the given position onwards as an
+	 * <code>int[]</code>, <code>long[]</code> or <code>double[]</code>, parsed
+	 * as by {@link #getOptionValueArray(OptionType, List, Class)}.
+	 * 
+	 * @param from
+	 *            the position of the first argument
+	 * 
+	 * @param arrayType
+	 *            one of <code>int[].class</code>, <code>long[].class</code> or
+	 *            <code>double[].class</code>
+	 * 
+	 * @return the array of values, or <code>null</code> if there are none
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if an argument is not a number of the type
+	 */
+    public Object getArgumentArray(int from, Class<?> arrayType) {
+    	checkArrayType(arrayType);
+    	
+    	int count = this.getArgumentCount();
+    	if(from >= count) {
+    		return null;
+    	}
+    	
+    	PrimitiveArray array = new PrimitiveArray(arrayType, count - from);
+    	for(int index = from; index < count; index++) {
+    		this.addValue(array, this.getArgumentIndex(index), 0);
+    	}
+    	
+    	return array.get();
+    }
+    
+    /**
+     * Return the global options and their values, keyed by the primary name of
+     * the option. This view is built when first asked for.
+     * 
+     * @return
+     */
+    public SimpleMultiMap<String, String> getGlobalOptions() {
+    	if(this.globalOptions == null) {
+    		this.globalOptions = this.getOptions(OptionType.GLOBAL);
+    	}
+    	
+		return this.globalOptions;
+	}
+    
+    /**
+     * Return the group options and their values, keyed by the primary name of
+     * the option. This view is built when first asked for.
+     * 
+     * @return
+     */
+    public SimpleMultiMap<String, String> getGroupOptions() {
+    	if(this.groupOptions == null) {
+    		this.groupOptions = this.getOptions(OptionType.GROUP);
+    	}
+    	
+		return this.groupOptions;
+	}
+    
+    /**
+     * Return the command options and their values, keyed by the primary name of
+     * the option. This view is built when first asked for.
+     * 
+     * @return
+     */
+    public SimpleMultiMap<String, String> getCommandOptions() {
+    	if(this.commandOptions == null) {
+    		this.commandOptions = this.getOptions(OptionType.COMMAND);
+    	}
+    	
+		return this.commandOptions;
+	}
+    
+    /**
+     * Return all the command arguments as an unmodifiable list backed by the
+     * parsed arguments.
+     * 
+     * @return
+     */
+    public List<String> getArguments() {
+    	if(this.arguments == null) {
+    		this.arguments = this.getArguments(0);
+    	}
+    	
+		return this.arguments;
+	}
+    
+    /**
+     * Return the command arguments from the given position onwards, as an
+     * unmodifiable list backed by the parsed arguments.
+     * 
+     * @param from
+     * @return
+     */
+    public List<String> getArguments(int from) {
+    	final int count = this.getArgumentCount();
+    	if(from >= count) {
+    		return Collections.emptyList();
+    	}
+    	
+    	if(from >= this.argumentIndexCount) {
+    		return Collections.unmodifiableList(this.commandLine.subList(this.argumentsStart + from - this.argumentIndexCount, this.commandLine.size()));
+    	}
+    	
+    	final int start = from;
+    	return new AbstractList<String>() {
+    		
+    		@Override
+    		public String get(int index) {
+    			if(index < 0 || index >= this.size()) {
+    				throw new IndexOutOfBoundsException("No argument at index: " + index);
+    			}
+    			
+    			return getArgument(start + index);
+    		}
+    		
+    		@Override
+    		public int size() {
+    			return count - start;
+    		}
+    		
+    	};
+    }
+    
+    private SimpleMultiMap<String, String> getOptions(OptionType type) {
+    	SimpleMultiMap<String, String> map = new SimpleMultiMap<>();
+    	for(int index = 0; index < this.occurrenceCount; index++) {
+    		int offset = index * OCCURRENCE_SIZE;
+    		OptionSpec option = this.tokens.getOption(this.occurrences[offset]);
+    		if(option.type != type) {
+    			continue;
+    		}
+    		
+    		int start = this.occurrences[offset + 1];
+    		int end = start + this.occurrences[offset + 2];
+    		for(int valueIndex = start; valueIndex < end; valueIndex++) {
+    			map.put(option.name, this.getValue(offset, valueIndex));
+    		}
+    	}
+    	
+    	return map;
+    }
+    
+    /**
+	 * Return the value at the given index of the arguments, for the occurrence
+	 * at the given offset of the occurrence array.
+	 * 
+	 */
+    private String getValue(int offset, int valueIndex) {
+    	int valueOffset = this.occurrences[offset + 3];
+    	if(valueOffset == 0 || valueIndex != this.occurrences[offset + 1]) {
+    		return this.commandLine.get(valueIndex);
+    	}
+    	
+    	return this.commandLine.get(valueIndex, valueOffset);
+    }
+    
+    /**
+	 * Parse the value at the given index of the arguments, starting at the
+	 * given offset, into the next element of the given array.
+	 * 
+	 */
+    private void addValue(PrimitiveArray array, int valueIndex, int valueOffset) {
+    	if(array.ints != null) {
+    		array.ints[array.size++] = (int) this.parseLong(valueIndex, valueOffset, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    	} else if(array.longs != null) {
+    		array.longs[array.size++] = this.parseLong(valueIndex, valueOffset, Long.MIN_VALUE, Long.MAX_VALUE);
+    	} else {
+    		String value = this.commandLine.get(valueIndex, valueOffset);
+    		try {
+    			array.doubles[array.size++] = Double.parseDouble(value);
+    		} catch(NumberFormatException e) {
+    			throw new OutlineInvalidArgumentException(this.commandLine.get(valueIndex), valueIndex, e);
+    		}
+    	}
+    }
+    
+    /**
+	 * Parse a decimal integer from the characters of the value at the given
+	 * index of the arguments, starting at the given offset, the way
+	 * {@link Long#parseLong(String)} does, within the given bounds.
+	 * 
+	 * @throws OutlineInvalidArgumentException
+	 *             if the value is not a number, or is out of bounds
+	 */
+    private long parseLong(int valueIndex, int valueOffset, long min, long max) {
+    	final OutlineCommandLine commandLine = this.commandLine;
+    	final int length = commandLine.length(valueIndex);
+    	
+    	int offset = valueOffset;
+    	boolean negative = false;
+    	if(offset < length) {
+    		char ch = commandLine.charAt(valueIndex, offset);
+    		if(ch == '-' || ch == '+') {
+    			negative = ch == '-';
+    			offset++;
+    		}
+    	}
+    	
+    	if(offset == length) {
+    		throw this.invalidNumber(valueIndex, valueOffset);
+    	}
+    	
+    	// accumulate negatively, as the negative range is the larger one
+    	final long limit = negative ? min : -max;
+    	final long multiplyLimit = limit / 10;
+    	long value = 0;
+    	for(; offset < length; offset++) {
+    		int digit = commandLine.charAt(valueIndex, offset) - '0';
+    		if(digit < 0 || digit > 9 || value < multiplyLimit) {
+    			throw this.invalidNumber(valueIndex, valueOffset);
+    		}
+    		
+    		value *= 10;
+    		if(value < limit + digit) {
+    			throw this.invalidNumber(valueIndex, valueOffset);
+    		}
+    		
+    		value -= digit;
+    	}
+    	
+    	return negative ? value : -value;
+    }
+    
+    private OutlineInvalidArgumentException invalidNumber(int valueIndex, int valueOffset) {
+    	NumberFormatException cause = new NumberFormatException("For input string: \"" + this.commandLine.get(valueIndex, valueOffset) + "\"");
+    	return new OutlineInvalidArgumentException(this.commandLine.get(valueIndex), valueIndex, cause);
+    }
     
-    public final SimpleMultiMap<String, String> groupOptions = new SimpleMultiMap<>();
+    private static void checkArrayType(Class<?> arrayType) {
+    	if(arrayType != int[].class && arrayType != long[].class && arrayType != double[].class) {
+    		throw new IllegalArgumentException("Not a supported array type: " + arrayType);
+    	}
+    }
     
-    public final SimpleMultiMap<String, String> commandOptions = new SimpleMultiMap<>();
+    private int checkOccurrence(int index) {
+    	if(index < 0 || index >= this.occurrenceCount) {
+    		throw new IndexOutOfBoundsException("No option occurrence at index: " + index);
+    	}
+    	
+    	return index * OCCURRENCE_SIZE;
+    }
     
-    public final List<String> arguments = new ArrayList<>();
+    /**
+     * A primitive array of a known size being filled in.
+     * 
+     */
+    private static final class PrimitiveArray {
+    	
+    	final int[] ints;
+    	
+    	final long[] longs;
+    	
+    	final double[] doubles;
+    	
+    	int size;
+    	
+    	PrimitiveArray(Class<?> arrayType, int size) {
+    		this.ints = arrayType == int[].class ? new int[size] : null;
+    		this.longs = arrayType == long[].class ? new long[size] : null;
+    		this.doubles = arrayType == double[].class ? new double[size] : null;
+    	}
+    	
+    	Object get() {
+    		if(this.ints != null) {
+    			return this.ints;
+    		}
+    		
+    		return this.longs != null ? this.longs : this.doubles;
+    	}
+    	
+    }
 
 }
@@ -0,0 +1,708 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * A character trie over every name known to an outline - global options,
+ * groups, group options, commands, command options, the help keyword and the
+ * option separator. Looking up a token walks the trie once, and the resulting
+ * {@link Token} classifies it in all scopes at the same time.
+ * 
+ * Options are scoped: global options live in {@link #GLOBAL_SCOPE}, while
+ * each group and each command gets its own scope when added. Thus, once a
+ * token has been identified as a group or a command, its scope is used to
+ * identify the options that follow.
+ * 
+ * The trie is built when the metadata is read, and only changes when lazily
+ * registered commands are loaded. It supports prefix queries via
+ * {@link #getTokens(String)}.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineTokenTrie {
+	
+	/**
+	 * The scope of all global options
+	 */
+	public static final int GLOBAL_SCOPE = 0;
+	
+	/**
+	 * The scope value for tokens that are not a group or a command
+	 */
+	public static final int NO_SCOPE = -1;
+	
+	/**
+	 * The root of the trie - the empty string
+	 */
+	private final Node root = new Node();
+	
+	/**
+	 * The scope to assign to the next group or command
+	 */
+	private int nextScope = GLOBAL_SCOPE + 1;
+	
+	/**
+	 * All options that have been added - the index of an option in this list
+	 * is its slot
+	 */
+	private final List<OptionSpec> slots = new ArrayList<>();
+	
+	/**
+	 * The sorted long option names of each scope, for resolving abbreviations -
+	 * built when first needed, and dropped whenever the trie changes
+	 */
+	private volatile OutlineAbbreviations[] abbreviations;
+	
+	/**
+	 * The names to suggest for unknown tokens - built when first needed, and
+	 * dropped whenever the trie changes
+	 */
+	private volatile Suggestions suggestions;
+	
+	/**
+	 * Return the {@link Token} for the given string, or <code>null</code> if it
+	 * is not a known name.
+	 * 
+	 * @param token
+	 *            the token to look up
+	 * 
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token get(String token) {
+		if(token == null) {
+			return null;
+		}
+		
+		Node node = this.root;
+		for(int index = 0; index < token.length(); index++) {
+			node = node.child(token.charAt(index));
+			if(node == null) {
+				return null;
+			}
+		}
+		
+		return node.token;
+	}
+	
+	/**
+	 * Look up the token that is the given range of the given string, without
+	 * creating a {@link String} for it.
+	 * 
+	 * @param token
+	 *            the string holding the token
+	 * 
+	 * @param start
+	 *            the index of the first character of the token
+	 * 
+	 * @param end
+	 *            the index after the last character of the token
+	 * 
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token get(String token, int start, int end) {
+		Node node = this.root;
+		for(int index = start; index < end; index++) {
+			node = node.child(token.charAt(index));
+			if(node == null) {
+				return null;
+			}
+		}
+		
+		return node.token;
+	}
+	
+	/**
+	 * Look up the short option made of a dash and the given character, as
+	 * found in a cluster of short options like <code>-abc</code>.
+	 * 
+	 * @param name
+	 *            the character after the dash
+	 * 
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token getShort(char name) {
+		Node node = this.root.child('-');
+		if(node == null) {
+			return null;
+		}
+		
+		node = node.child(name);
+		if(node == null) {
+			return null;
+		}
+		
+		return node.token;
+	}
+	
+	/**
+	 * Look up the token held in the given range of characters, without
+	 * creating a {@link String} for it.
+	 * 
+	 * @param chars
+	 *            the characters holding the token
+	 * 
+	 * @param start
+	 *            the index of the first character of the token
+	 * 
+	 * @param end
+	 *            the index after the last character of the token
+	 * 
+	 * @return the {@link Token} if found, <code>null</code> otherwise
+	 */
+	public Token get(char[] chars, int start, int end) {
+		Node node = this.root;
+		for(int index = start; index < end; index++) {
+			node = node.child(chars[index]);
+			if(node == null) {
+				return null;
+			}
+		}
+		
+		return node.token;
+	}
+	
+	/**
+	 * Return all {@link Token}s that start with the given prefix, sorted by
+	 * their name.
+	 * 
+	 * @param prefix
+	 *            the prefix to look for, or <code>null</code> for all tokens
+	 * 
+	 * @return the matching {@link Token}s, never <code>null</code>
+	 */
+	public List<Token> getTokens(String prefix) {
+		Node node = this.root;
+		if(prefix != null) {
+			for(int index = 0; index < prefix.length(); index++) {
+				node = node.child(prefix.charAt(index));
+				if(node == null) {
+					return new ArrayList<>();
+				}
+			}
+		}
+		
+		List<Token> tokens = new ArrayList<>();
+		node.collect(tokens);
+		return tokens;
+	}
+	
+	/**
+	 * Mark the given name as a group, assigning it a scope for its options if
+	 * not done already.
+	 * 
+	 * @param name
+	 *            the name of the group
+	 * 
+	 * @return the {@link Token} for the name
+	 */
+	public Token putGroup(String name) {
+		Token token = this.put(name);
+		if(token.groupScope == NO_SCOPE) {
+			token.groupScope = this.nextScope++;
+		}
+		
+		return token;
+	}
+	
+	/**
+	 * Mark the given name as a command, assigning it a scope for its options
+	 * if not done already.
+	 * 
+	 * @param name
+	 *            the name of the command
+	 * 
+	 * @return the {@link Token} for the name
+	 */
+	public Token putCommand(String name) {
+		Token token = this.put(name);
+		if(token.commandScope == NO_SCOPE) {
+			token.commandScope = this.nextScope++;
+		}
+		
+		return token;
+	}
+	
+	/**
+	 * Add all names of the given option in the given scope.
+	 * 
+	 * @param scope
+	 *            the scope of the option - {@link #GLOBAL_SCOPE}, or the scope
+	 *            of a group or a command
+	 * 
+	 * @param option
+	 *            the option to add
+	 */
+	public void putOption(int scope, OptionSpec option) {
+		int slot = this.slots.size();
+		this.slots.add(option);
+		
+		for(String name : option.names) {
+			this.put(name).putOption(scope, option, slot);
+		}
+	}
+	
+	/**
+	 * Return the option in the given slot.
+	 * 
+	 * @param slot
+	 *            the slot as returned by {@link Token#getOptionSlot(int)}
+	 * 
+	 * @return the {@link OptionSpec} in the slot
+	 */
+	public OptionSpec getOption(int slot) {
+		return this.slots.get(slot);
+	}
+	
+	/**
+	 * Resolve the given number of leading characters of the token at the given
+	 * index of the command line as an abbreviation of a long option of the
+	 * given scope. This takes <code>O(log n)</code> comparisons for a scope
+	 * with <code>n</code> long option names.
+	 * 
+	 * @param scope
+	 *            the scope to look in
+	 * 
+	 * @param commandLine
+	 *            the command line holding the token
+	 * 
+	 * @param index
+	 *            the index of the token
+	 * 
+	 * @param length
+	 *            the length of the abbreviation
+	 * 
+	 * @return the slot of the option, or <code>-1</code> if no long option of
+	 *         the scope starts with the abbreviation
+	 * 
+	 * @throws com.sangupta.outline.exceptions.OutlineInvalidArgumentException
+	 *             if more than one option of the scope starts with the
+	 *             abbreviation
+	 */
+	public int resolveAbbreviation(int scope, OutlineCommandLine commandLine, int index, int length) {
+		OutlineAbbreviations[] abbreviations = this.abbreviations;
+		if(abbreviations == null) {
+			abbreviations = this.buildAbbreviations();
+			this.abbreviations = abbreviations;
+		}
+		
+		if(scope < 0 || scope >= abbreviations.length) {
+			return -1;
+		}
+		
+		return abbreviations[scope].resolve(commandLine, index, length);
+	}
+	
+	private OutlineAbbreviations[] buildAbbreviations() {
+		List<Token> tokens = new ArrayList<>();
+		this.root.collect(tokens);
+		
+		// tokens come out of the trie sorted, and so do the names of each scope
+		List<List<String>> names = new ArrayList<>();
+		List<List<Integer>> slots = new ArrayList<>();
+		for(int scope = 0; scope < this.nextScope; scope++) {
+			names.add(new ArrayList<String>());
+			slots.add(new ArrayList<Integer>());
+		}
+		
+		for(Token token : tokens) {
+			if(!token.name.startsWith("--") || token.name.length() < 3) {
+				continue;
+			}
+			
+			for(int index = 0; index < token.optionScopes.length; index++) {
+				int scope = token.optionScopes[index];
+				names.get(scope).add(token.name);
+				slots.get(scope).add(token.optionSlots[index]);
+			}
+		}
+		
+		OutlineAbbreviations[] abbreviations = new OutlineAbbreviations[this.nextScope];
+		for(int scope = 0; scope < abbreviations.length; scope++) {
+			abbreviations[scope] = new OutlineAbbreviations(names.get(scope), slots.get(scope));
+		}
+		
+		return abbreviations;
+	}
+	
+	/**
+	 * Return the names closest to the given token that is not known where it
+	 * was read: the options of the given scope that are not hidden, all
+	 * commands and the help keyword, and the groups if asked for. The names
+	 * are searched via BK-trees built once, so that this stays cheap for any
+	 * number of names.
+	 * 
+	 * @param token
+	 *            the unknown token
+	 * 
+	 * @param scope
+	 *            the scope whose options to suggest, or a negative value for no
+	 *            options
+	 * 
+	 * @param groups
+	 *            whether to suggest groups
+	 * 
+	 * @return the closest names first, never <code>null</code>
+	 */
+	public List<String> getSuggestions(String token, int scope, boolean groups) {
+		int maxDistance = OutlineBKTree.getMaxDistance(token);
+		if(maxDistance == 0) {
+			return Collections.emptyList();
+		}
+		
+		Suggestions suggestions = this.suggestions;
+		if(suggestions == null) {
+			suggestions = this.buildSuggestions();
+			this.suggestions = suggestions;
+		}
+		
+		List<OutlineBKTree.Match> found = new ArrayList<>();
+		if(scope >= 0 && scope < suggestions.options.length) {
+			suggestions.options[scope].find(token, maxDistance, found);
+		}
+		
+		suggestions.commands.find(token, maxDistance, found);
+		if(groups) {
+			suggestions.groups.find(token, maxDistance, found);
+		}
+		
+		return OutlineBKTree.getSuggestions(found);
+	}
+	
+	private Suggestions buildSuggestions() {
+		List<Token> tokens = new ArrayList<>();
+		this.root.collect(tokens);
+		
+		Suggestions suggestions = new Suggestions(this.nextScope);
+		for(Token token : tokens) {
+			for(int index = 0; index < token.optionScopes.length; index++) {
+				if(!this.slots.get(token.optionSlots[index]).hidden) {
+					suggestions.options[token.optionScopes[index]].add(token.name);
+				}
+			}
+			
+			if(token.isCommand() || token.isHelpKeyword()) {
+				suggestions.commands.add(token.name);
+			}
+			
+			if(token.isGroup()) {
+				suggestions.groups.add(token.name);
+			}
+		}
+		
+		return suggestions;
+	}
+	
+	/**
+	 * Mark the given name as the help keyword.
+	 * 
+	 * @param name
+	 */
+	public void putHelpKeyword(String name) {
+		this.put(name).helpKeyword = true;
+	}
+	
+	/**
+	 * Mark the given name as the separator between options and arguments.
+	 * 
+	 * @param name
+	 */
+	public void putSeparator(String name) {
+		this.put(name).separator = true;
+	}
+	
+	private Token put(String name) {
+		if(name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Name cannot be null/empty");
+		}
+		
+		this.abbreviations = null;
+		this.suggestions = null;
+		
+		Node node = this.root;
+		for(int index = 0; index < name.length(); index++) {
+			node = node.childOrCreate(name.charAt(index));
+		}
+		
+		if(node.token == null) {
+			node.token = new Token(name);
+		}
+		
+		return node.token;
+	}
+	
+	/**
+	 * The BK-trees of the options of each scope, of all commands and of all
+	 * groups.
+	 * 
+	 */
+	private static final class Suggestions {
+		
+		final OutlineBKTree[] options;
+		
+		final OutlineBKTree commands = new OutlineBKTree();
+		
+		final OutlineBKTree groups = new OutlineBKTree();
+		
+		Suggestions(int scopes) {
+			this.options = new OutlineBKTree[scopes];
+			for(int scope = 0; scope < scopes; scope++) {
+				this.options[scope] = new OutlineBKTree();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Classification of a single name in all scopes of an outline.
+	 * 
+	 * @author sangupta
+	 *
+	 */
+	public static class Token {
+		
+		/**
+		 * The name this token stands for
+		 */
+		public final String name;
+		
+		private int groupScope = NO_SCOPE;
+		
+		private int commandScope = NO_SCOPE;
+		
+		private boolean helpKeyword;
+		
+		private boolean separator;
+		
+		/**
+		 * The scopes in which this token is an option - usually only one or two
+		 */
+		private int[] optionScopes = new int[0];
+		
+		/**
+		 * The options for each of the {@link #optionScopes}
+		 */
+		private OptionSpec[] options = new OptionSpec[0];
+		
+		/**
+		 * The slots of the options for each of the {@link #optionScopes}
+		 */
+		private int[] optionSlots = new int[0];
+		
+		Token(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Return the option this token stands for in the given scope.
+		 * 
+		 * @param scope
+		 *            the scope to look in
+		 * 
+		 * @return the {@link OptionSpec} if found, <code>null</code> otherwise
+		 */
+		public OptionSpec getOption(int scope) {
+			final int[] scopes = this.optionScopes;
+			for(int index = 0; index < scopes.length; index++) {
+				if(scopes[index] == scope) {
+					return this.options[index];
+				}
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Return the slot of the option this token stands for in the given
+		 * scope.
+		 * 
+		 * @param scope
+		 *            the scope to look in
+		 * 
+		 * @return the slot if found, <code>-1</code> otherwise
+		 */
+		public int getOptionSlot(int scope) {
+			final int[] scopes = this.optionScopes;
+			for(int index = 0; index < scopes.length; index++) {
+				if(scopes[index] == scope) {
+					return this.optionSlots[index];
+				}
+			}
+			
+			return -1;
+		}
+		
+		/**
+		 * Return the scopes in which this token is an option.
+		 * 
+		 * @return
+		 */
+		public int[] getOptionScopes() {
+			return this.optionScopes.clone();
+		}
+		
+		/**
+		 * Check if this token is an option in any scope.
+		 * 
+		 * @return
+		 */
+		public boolean isOption() {
+			return this.optionScopes.length > 0;
+		}
+		
+		public boolean isGroup() {
+			return this.groupScope != NO_SCOPE;
+		}
+		
+		public boolean isCommand() {
+			return this.commandScope != NO_SCOPE;
+		}
+		
+		public boolean isHelpKeyword() {
+			return this.helpKeyword;
+		}
+		
+		public boolean isSeparator() {
+			return this.separator;
+		}
+		
+		/**
+		 * Return the scope of the options of the group this token stands for,
+		 * or {@link OutlineTokenTrie#NO_SCOPE} if it is not a group.
+		 * 
+		 * @return
+		 */
+		public int getGroupScope() {
+			return this.groupScope;
+		}
+		
+		/**
+		 * Return the scope of the options of the command this token stands for,
+		 * or {@link OutlineTokenTrie#NO_SCOPE} if it is not a command.
+		 * 
+		 * @return
+		 */
+		public int getCommandScope() {
+			return this.commandScope;
+		}
+		
+		void putOption(int scope, OptionSpec option, int slot) {
+			for(int index = 0; index < this.optionScopes.length; index++) {
+				if(this.optionScopes[index] == scope) {
+					this.options[index] = option;
+					this.optionSlots[index] = slot;
+					return;
+				}
+			}
+			
+			int length = this.optionScopes.length;
+			
+			int[] scopes = Arrays.copyOf(this.optionScopes, length + 1);
+			scopes[length] = scope;
+			
+			OptionSpec[] options = Arrays.copyOf(this.options, length + 1);
+			options[length] = option;
+			
+			int[] slots = Arrays.copyOf(this.optionSlots, length + 1);
+			slots[length] = slot;
+			
+			this.options = options;
+			this.optionSlots = slots;
+			this.optionScopes = scopes;
+		}
+		
+		@Override
+		public String toString() {
+			return this.name;
+		}
+		
+	}
+	
+	/**
+	 * A node of the trie - children are kept sorted by their character.
+	 * 
+	 */
+	private static class Node {
+		
+		private char[] keys = new char[0];
+		
+		private Node[] children = new Node[0];
+		
+		private Token token;
+		
+		Node child(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			if(index < 0) {
+				return null;
+			}
+			
+			return this.children[index];
+		}
+		
+		Node childOrCreate(char key) {
+			int index = Arrays.binarySearch(this.keys, key);
+			if(index >= 0) {
+				return this.children[index];
+			}
+			
+			index = -(index + 1);
+			int length = this.keys.length;
+			
+			char[] keys = new char[length + 1];
+			System.arraycopy(this.keys, 0, keys, 0, index);
+			System.arraycopy(this.keys, index, keys, index + 1, length - index);
+			keys[index] = key;
+			
+			Node[] children = new Node[length + 1];
+			System.arraycopy(this.children, 0, children, 0, index);
+			System.arraycopy(this.children, index, children, index + 1, length - index);
+			
+			Node child = new Node();
+			children[index] = child;
+			
+			this.children = children;
+			this.keys = keys;
+			
+			return child;
+		}
+		
+		void collect(List<Token> tokens) {
+			if(this.token != null) {
+				tokens.add(this.token);
+			}
+			
+			for(Node child : this.children) {
+				child.collect(tokens);
+			}
+		}
+		
+	}
+
+}
@@ -0,0 +1,296 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.spec;
+
+import java.lang.reflect.Field;
+
+import com.sangupta.jerry.util.AssertUtils;
+import com.sangupta.outline.annotations.Argument;
+import com.sangupta.outline.annotations.Arguments;
+
+/**
+ * Immutable definition of a command argument, along with the field it is bound
+ * to. A spec is either a positional argument at a given order, as read from an
+ * {@link Argument} annotation, or takes all remaining arguments, as read from
+ * an {@link Arguments} annotation. Specs can also be built programmatically via
+ * {@link #builder(int)} and {@link #remainingBuilder()}.
+ * 
+ * @author sangupta
+ *
+ */
+public final class ArgumentSpec {
+	
+	/**
+	 * The position of the argument - not applicable if this spec takes all
+	 * {@link #remaining} arguments
+	 */
+	public final int order;
+	
+	/**
+	 * Whether this spec takes all remaining arguments
+	 */
+	public final boolean remaining;
+	
+	/**
+	 * The title of the argument
+	 */
+	public final String title;
+	
+	/**
+	 * The description of the argument
+	 */
+	public final String description;
+	
+	/**
+	 * The usage of the arguments - only applicable if this spec takes all
+	 * {@link #remaining} arguments
+	 */
+	public final String usage;
+	
+	/**
+	 * Whether the argument must be specified
+	 */
+	public final boolean required;
+	
+	/**
+	 * The name of the field the argument is bound to
+	 */
+	public final String field;
+	
+	/**
+	 * The type of the field the argument is bound to
+	 */
+	public final Class<?> fieldType;
+	
+	/**
+	 * The binary name of the class that declares the field, or
+	 * <code>null</code> if the field is looked up by its name in the command
+	 * class and its super classes
+	 */
+	public final String declaringClass;
+	
+	private ArgumentSpec(Builder builder) {
+		this.order = builder.order;
+		this.remaining = builder.remaining;
+		this.title = builder.title;
+		this.description = builder.description;
+		this.usage = builder.usage;
+		this.required = builder.required;
+		this.field = builder.field;
+		this.fieldType = builder.fieldType;
+		this.declaringClass = builder.declaringClass;
+	}
+	
+	/**
+	 * Create the spec for the given {@link Argument} annotation.
+	 * 
+	 */
+	public static ArgumentSpec of(Argument argument, String field, Class<?> fieldType) {
+		return builder(argument.order())
+				.withTitle(argument.title())
+				.withDescription(argument.description())
+				.withRequired(argument.required())
+				.withField(field, fieldType)
+				.build();
+	}
+	
+	/**
+	 * Create the spec for the given {@link Argument} annotation of the given
+	 * field.
+	 * 
+	 */
+	public static ArgumentSpec of(Argument argument, Field field) {
+		return builder(argument.order())
+				.withTitle(argument.title())
+				.withDescription(argument.description())
+				.withRequired(argument.required())
+				.withField(field.getName(), field.getType())
+				.withDeclaringClass(field.getDeclaringClass().getName())
+				.build();
+	}
+	
+	/**
+	 * Create the spec for the given {@link Arguments} annotation.
+	 * 
+	 */
+	public static ArgumentSpec of(Arguments arguments, String field, Class<?> fieldType) {
+		return remainingBuilder()
+				.withTitle(arguments.title())
+				.withDescription(arguments.description())
+				.withUsage(arguments.usage())
+				.withRequired(arguments.required())
+				.withField(field, fieldType)
+				.build();
+	}
+	
+	/**
+	 * Create the spec for the given {@link Arguments} annotation of the given
+	 * field.
+	 * 
+	 */
+	public static ArgumentSpec of(Arguments arguments, Field field) {
+		return remainingBuilder()
+				.withTitle(arguments.title())
+				.withDescription(arguments.description())
+				.withUsage(arguments.usage())
+				.withRequired(arguments.required())
+				.withField(field.getName(), field.getType())
+				.withDeclaringClass(field.getDeclaringClass().getName())
+				.build();
+	}
+	
+	/**
+	 * Start building a positional argument at the given order.
+	 * 
+	 * @param order
+	 *            the position of the argument
+	 * 
+	 * @return the builder
+	 */
+	public static Builder builder(int order) {
+		if(order < 0) {
+			throw new IllegalArgumentException("Argument order cannot be negative");
+		}
+		
+		return new Builder(order, false);
+	}
+	
+	/**
+	 * Start building a spec that takes all remaining arguments.
+	 * 
+	 * @return the builder
+	 */
+	public static Builder remainingBuilder() {
+		return new Builder(Integer.MAX_VALUE, true);
+	}
+	
+	@Override
+	public String toString() {
+		if(this.remaining) {
+			return "ArgumentSpec(remaining)";
+		}
+		
+		return "ArgumentSpec(order=" + this.order + ")";
+	}
+	
+	/**
+	 * Builder for {@link ArgumentSpec}.
+	 * 
+	 */
+	public static final class Builder {
+		
+		private final int order;
+		
+		private final boolean remaining;
+		
+		private String title = "";
+		
+		private String description = "";
+		
+		private String usage = "";
+		
+		private boolean required;
+		
+		private String field;
+		
+		private Class<?> fieldType;
+		
+		private String declaringClass;
+		
+		private Builder(int order, boolean remaining) {
+			this.order = order;
+			this.remaining = remaining;
+		}
+		
+		public Builder withTitle(String title) {
+			this.title = title;
+			return this;
+		}
+		
+		public Builder withDescription(String description) {
+			this.description = description;
+			return this;
+		}
+		
+		public Builder withUsage(String usage) {
+			this.usage = usage;
+			return this;
+		}
+		
+		public Builder withRequired(boolean required) {
+			this.required = required;
+			return this;
+		}
+		
+		/**
+		 * Set the field of the command class that the argument is bound to.
+		 * 
+		 * @param field
+		 *            the name of the field
+		 * 
+		 * @param fieldType
+		 *            the type of the field
+		 * 
+		 * @return this builder
+		 */
+		public Builder withField(String field, Class<?> fieldType) {
+			this.field = field;
+			this.fieldType = fieldType;
+			return this;
+		}
+		
+		/**
+		 * Set the class that declares the field the argument is bound to. This is
+		 * needed only when a class in the hierarchy of the command class
+		 * declares another field of the same name, as otherwise the field is
+		 * found by its name.
+		 * 
+		 * @param declaringClass
+		 *            the binary name of the declaring class
+		 * 
+		 * @return this builder
+		 */
+		public Builder withDeclaringClass(String declaringClass) {
+			this.declaringClass = declaringClass;
+			return this;
+		}
+		
+		/**
+		 * Build the immutable {@link ArgumentSpec}.
+		 * 
+		 * @return the spec
+		 * 
+		 * @throws IllegalStateException
+		 *             if the field has not been set
+		 */
+		public ArgumentSpec build() {
+			if(AssertUtils.isEmpty(this.field) || this.fieldType == null) {
+				throw new IllegalStateException("Argument must be bound to a field");
+			}
+			
+			return new ArgumentSpec(this);
+		}
+		
+	}
+
+}
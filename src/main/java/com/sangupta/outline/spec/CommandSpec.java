@@ -0,0 +1,210 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.spec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.sangupta.jerry.util.AssertUtils;
+import com.sangupta.outline.annotations.Command;
+
+/**
+ * Immutable definition of a command - its name, group, and all the options and
+ * arguments it accepts. Specs are read once from the annotations on a command
+ * class, or are built programmatically via {@link #builder(String)} so that a
+ * command can be defined without any annotations.
+ * 
+ * @author sangupta
+ *
+ */
+public final class CommandSpec {
+	
+	/**
+	 * Sorts positional arguments by their order, and places the one that takes
+	 * all remaining arguments at the end
+	 */
+	private static final Comparator<ArgumentSpec> ARGUMENTS_SORTER = new Comparator<ArgumentSpec>() {
+		
+		@Override
+		public int compare(ArgumentSpec a1, ArgumentSpec a2) {
+			if(a1.remaining != a2.remaining) {
+				return a1.remaining ? 1 : -1;
+			}
+			
+			return Integer.compare(a1.order, a2.order);
+		}
+		
+	};
+	
+	/**
+	 * The name of the command
+	 */
+	public final String name;
+	
+	/**
+	 * The description of the command
+	 */
+	public final String description;
+	
+	/**
+	 * The group declared for the command, empty if none
+	 */
+	public final String group;
+	
+	/**
+	 * Whether the command is hidden from help
+	 */
+	public final boolean hidden;
+	
+	/**
+	 * All options of the command, including global and group options
+	 */
+	public final List<OptionSpec> options;
+	
+	/**
+	 * All arguments of the command - positional ones sorted by their order,
+	 * followed by the one that takes all remaining arguments
+	 */
+	public final List<ArgumentSpec> arguments;
+	
+	private CommandSpec(Builder builder) {
+		this.name = builder.name;
+		this.description = builder.description;
+		this.group = builder.group;
+		this.hidden = builder.hidden;
+		this.options = Collections.unmodifiableList(new ArrayList<>(builder.options));
+		
+		List<ArgumentSpec> arguments = new ArrayList<>(builder.arguments);
+		Collections.sort(arguments, ARGUMENTS_SORTER);
+		this.arguments = Collections.unmodifiableList(arguments);
+	}
+	
+	/**
+	 * Start building a command from the given {@link Command} annotation. Any
+	 * options and arguments need to be added to the builder.
+	 * 
+	 * @param command
+	 *            the annotation
+	 * 
+	 * @return the builder
+	 */
+	public static Builder builder(Command command) {
+		return builder(command.name())
+				.withDescription(command.description())
+				.withGroup(command.group())
+				.withHidden(command.hidden());
+	}
+	
+	/**
+	 * Start building a command with the given name.
+	 * 
+	 * @param name
+	 *            the name of the command
+	 * 
+	 * @return the builder
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the name is <code>empty</code> or <code>null</code>
+	 */
+	public static Builder builder(String name) {
+		if(AssertUtils.isEmpty(name)) {
+			throw new IllegalArgumentException("Command name cannot be null/empty");
+		}
+		
+		return new Builder(name);
+	}
+	
+	@Override
+	public String toString() {
+		return "CommandSpec(name=" + this.name + ")";
+	}
+	
+	/**
+	 * Builder for {@link CommandSpec}.
+	 * 
+	 */
+	public static final class Builder {
+		
+		private final String name;
+		
+		private String description = "";
+		
+		private String group = "";
+		
+		private boolean hidden;
+		
+		private final List<OptionSpec> options = new ArrayList<>();
+		
+		private final List<ArgumentSpec> arguments = new ArrayList<>();
+		
+		private Builder(String name) {
+			this.name = name;
+		}
+		
+		public Builder withDescription(String description) {
+			this.description = description;
+			return this;
+		}
+		
+		public Builder withGroup(String group) {
+			this.group = group == null ? "" : group;
+			return this;
+		}
+		
+		public Builder withHidden(boolean hidden) {
+			this.hidden = hidden;
+			return this;
+		}
+		
+		public Builder withOption(OptionSpec option) {
+			if(option == null) {
+				throw new IllegalArgumentException("Option cannot be null");
+			}
+			
+			this.options.add(option);
+			return this;
+		}
+		
+		public Builder withArgument(ArgumentSpec argument) {
+			if(argument == null) {
+				throw new IllegalArgumentException("Argument cannot be null");
+			}
+			
+			this.arguments.add(argument);
+			return this;
+		}
+		
+		/**
+		 * Build the immutable {@link CommandSpec}.
+		 * 
+		 * @return the spec
+		 */
+		public CommandSpec build() {
+			return new CommandSpec(this);
+		}
+		
+	}
+
+}
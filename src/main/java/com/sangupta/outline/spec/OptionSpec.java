@@ -0,0 +1,340 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.spec;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.sangupta.jerry.util.AssertUtils;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Immutable definition of a single option of a command, along with the field
+ * it is bound to. This is either read from an {@link Option} annotation, or is
+ * built programmatically via {@link #builder(String...)}.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OptionSpec {
+	
+	/**
+	 * The scope in which the option is applicable
+	 */
+	public final OptionType type;
+	
+	/**
+	 * The title of the option
+	 */
+	public final String title;
+	
+	/**
+	 * The primary name of the option - the first of all {@link #names}
+	 */
+	public final String name;
+	
+	/**
+	 * All names via which the option may be specified
+	 */
+	public final List<String> names;
+	
+	/**
+	 * The description of the option
+	 */
+	public final String description;
+	
+	/**
+	 * Whether type information is shown in help
+	 */
+	public final boolean showTypeInfo;
+	
+	/**
+	 * Whether the option must be specified
+	 */
+	public final boolean required;
+	
+	/**
+	 * The number of values the option takes
+	 */
+	public final int arity;
+	
+	/**
+	 * Whether the option is hidden from help
+	 */
+	public final boolean hidden;
+	
+	/**
+	 * The values allowed for this option, empty if any value is allowed
+	 */
+	public final List<String> allowedValues;
+	
+	/**
+	 * The name of the field the option is bound to
+	 */
+	public final String field;
+	
+	/**
+	 * The type of the field the option is bound to
+	 */
+	public final Class<?> fieldType;
+	
+	/**
+	 * The binary name of the class that declares the field, or
+	 * <code>null</code> if the field is looked up by its name in the command
+	 * class and its super classes
+	 */
+	public final String declaringClass;
+	
+	private OptionSpec(Builder builder) {
+		this.type = builder.type;
+		this.title = builder.title;
+		this.names = Collections.unmodifiableList(Arrays.asList(builder.names));
+		this.name = builder.names[0];
+		this.description = builder.description;
+		this.showTypeInfo = builder.showTypeInfo;
+		this.required = builder.required;
+		this.arity = builder.arity;
+		this.hidden = builder.hidden;
+		this.allowedValues = Collections.unmodifiableList(Arrays.asList(builder.allowedValues));
+		this.field = builder.field;
+		this.fieldType = builder.fieldType;
+		this.declaringClass = builder.declaringClass;
+	}
+	
+	/**
+	 * Create the spec for the given {@link Option} annotation.
+	 * 
+	 * @param option
+	 *            the annotation
+	 * 
+	 * @param field
+	 *            the name of the field annotated
+	 * 
+	 * @param fieldType
+	 *            the type of the field annotated
+	 * 
+	 * @return the spec
+	 */
+	public static OptionSpec of(Option option, String field, Class<?> fieldType) {
+		return builder(option.name())
+				.withType(option.type())
+				.withTitle(option.title())
+				.withDescription(option.description())
+				.withShowTypeInfo(option.showTypeInfo())
+				.withRequired(option.required())
+				.withArity(option.arity())
+				.withHidden(option.hidden())
+				.withAllowedValues(option.allowedValues())
+				.withField(field, fieldType)
+				.build();
+	}
+	
+	/**
+	 * Create the spec for the given {@link Option} annotation of the given
+	 * field.
+	 * 
+	 * @param option
+	 *            the annotation
+	 * 
+	 * @param field
+	 *            the field annotated
+	 * 
+	 * @return the spec
+	 */
+	public static OptionSpec of(Option option, Field field) {
+		return builder(option.name())
+				.withType(option.type())
+				.withTitle(option.title())
+				.withDescription(option.description())
+				.withShowTypeInfo(option.showTypeInfo())
+				.withRequired(option.required())
+				.withArity(option.arity())
+				.withHidden(option.hidden())
+				.withAllowedValues(option.allowedValues())
+				.withField(field.getName(), field.getType())
+				.withDeclaringClass(field.getDeclaringClass().getName())
+				.build();
+	}
+	
+	/**
+	 * Start building an option with the given names. The defaults are the same
+	 * as those of the {@link Option} annotation.
+	 * 
+	 * @param names
+	 *            all names of the option, the first being the primary one
+	 * 
+	 * @return the builder
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if no name is provided
+	 */
+	public static Builder builder(String... names) {
+		if(AssertUtils.isEmpty(names)) {
+			throw new IllegalArgumentException("Option must have at least one name");
+		}
+		
+		return new Builder(names.clone());
+	}
+	
+	@Override
+	public String toString() {
+		return "OptionSpec(name=" + this.names + ")";
+	}
+	
+	/**
+	 * Builder for {@link OptionSpec}.
+	 * 
+	 */
+	public static final class Builder {
+		
+		private final String[] names;
+		
+		private OptionType type = OptionType.COMMAND;
+		
+		private String title = "";
+		
+		private String description = "";
+		
+		private boolean showTypeInfo = true;
+		
+		private boolean required;
+		
+		private int arity = 1;
+		
+		private boolean hidden;
+		
+		private String[] allowedValues = new String[0];
+		
+		private String field;
+		
+		private Class<?> fieldType;
+		
+		private String declaringClass;
+		
+		private Builder(String[] names) {
+			this.names = names;
+		}
+		
+		public Builder withType(OptionType type) {
+			if(type == null) {
+				throw new IllegalArgumentException("Option type cannot be null");
+			}
+			
+			this.type = type;
+			return this;
+		}
+		
+		public Builder withTitle(String title) {
+			this.title = title;
+			return this;
+		}
+		
+		public Builder withDescription(String description) {
+			this.description = description;
+			return this;
+		}
+		
+		public Builder withShowTypeInfo(boolean showTypeInfo) {
+			this.showTypeInfo = showTypeInfo;
+			return this;
+		}
+		
+		public Builder withRequired(boolean required) {
+			this.required = required;
+			return this;
+		}
+		
+		public Builder withArity(int arity) {
+			if(arity < 0) {
+				throw new IllegalArgumentException("Arity cannot be negative");
+			}
+			
+			this.arity = arity;
+			return this;
+		}
+		
+		public Builder withHidden(boolean hidden) {
+			this.hidden = hidden;
+			return this;
+		}
+		
+		public Builder withAllowedValues(String... allowedValues) {
+			this.allowedValues = allowedValues == null ? new String[0] : allowedValues.clone();
+			return this;
+		}
+		
+		/**
+		 * Set the field of the command class that the option is bound to.
+		 * 
+		 * @param field
+		 *            the name of the field
+		 * 
+		 * @param fieldType
+		 *            the type of the field
+		 * 
+		 * @return this builder
+		 */
+		public Builder withField(String field, Class<?> fieldType) {
+			this.field = field;
+			this.fieldType = fieldType;
+			return this;
+		}
+		
+		/**
+		 * Set the class that declares the field the option is bound to. This is
+		 * needed only when a class in the hierarchy of the command class
+		 * declares another field of the same name, as otherwise the field is
+		 * found by its name.
+		 * 
+		 * @param declaringClass
+		 *            the binary name of the declaring class
+		 * 
+		 * @return this builder
+		 */
+		public Builder withDeclaringClass(String declaringClass) {
+			this.declaringClass = declaringClass;
+			return this;
+		}
+		
+		/**
+		 * Build the immutable {@link OptionSpec}.
+		 * 
+		 * @return the spec
+		 * 
+		 * @throws IllegalStateException
+		 *             if the field has not been set
+		 */
+		public OptionSpec build() {
+			if(AssertUtils.isEmpty(this.field) || this.fieldType == null) {
+				throw new IllegalStateException("Option must be bound to a field");
+			}
+			
+			return new OptionSpec(this);
+		}
+		
+	}
+
+}
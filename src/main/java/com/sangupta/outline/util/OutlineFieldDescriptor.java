@@ -0,0 +1,67 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+ 
+package com.sangupta.outline.util;
+
+import java.lang.reflect.Field;
+
+import javax.inject.Inject;
+
+import com.sangupta.outline.annotations.Argument;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Option;
+
+/**
+ * A field of a command class that carries one of the annotations that outline
+ * is interested in, with all such annotations already resolved. Instances are
+ * cached per class via {@link OutlineUtil#getAnnotatedFields(Class)}.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineFieldDescriptor {
+	
+	public final Field field;
+	
+	public final Option option;
+	
+	public final Argument argument;
+	
+	public final Arguments arguments;
+	
+	public final Inject inject;
+	
+	/**
+	 * The setter to write values to the field with
+	 */
+	public final OutlineFieldSetter setter;
+	
+	OutlineFieldDescriptor(Field field, Option option, Argument argument, Arguments arguments, Inject inject, OutlineFieldSetter setter) {
+		this.field = field;
+		this.option = option;
+		this.argument = argument;
+		this.arguments = arguments;
+		this.inject = inject;
+		this.setter = setter;
+	}
+
+}
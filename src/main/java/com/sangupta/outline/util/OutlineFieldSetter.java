@@ -0,0 +1,403 @@
+/**
+ *
+ * outline - command line argument parser
+ * Copyright (c) 2015-2016, Sandeep Gupta
+ * 
+ * http://sangupta.com/projects/outline
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+ 
+package com.sangupta.outline.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import com.sangupta.jerry.util.ReflectionUtils;
+
+/**
+ * Writes values to one field via a {@link MethodHandle} setter, built once
+ * and adapted to the exact type of the field, instead of a reflective
+ * {@link Field#set(Object, Object)} with its access checks on every call. A
+ * value given as a {@link String} is converted to a primitive field type
+ * without boxing it, and a primitive field is written via a handle that takes
+ * the primitive.
+ * 
+ * Values of any other type that the field cannot hold are handed to
+ * {@link ReflectionUtils#bindValue(Field, Object, Object)}, as are all values
+ * if no handle could be built for the field.
+ * 
+ * Instances are cached per class via
+ * {@link OutlineUtil#getFieldSetter(Class, String)}, and are thread-safe.
+ * 
+ * @author sangupta
+ *
+ */
+public final class OutlineFieldSetter {
+	
+	private static final int REFERENCE = 0;
+	
+	private static final int BOOLEAN = 1;
+	
+	private static final int BYTE = 2;
+	
+	private static final int SHORT = 3;
+	
+	private static final int CHAR = 4;
+	
+	private static final int INT = 5;
+	
+	private static final int LONG = 6;
+	
+	private static final int FLOAT = 7;
+	
+	private static final int DOUBLE = 8;
+	
+	public final Field field;
+	
+	/**
+	 * The setter, of type <code>(Object, T)void</code> where <code>T</code> is
+	 * the field type if primitive, and {@link Object} otherwise - or
+	 * <code>null</code> if none could be built
+	 */
+	private final MethodHandle setter;
+	
+	/**
+	 * The kind of the field type, or of the primitive it wraps
+	 */
+	private final int kind;
+	
+	/**
+	 * The wrapper of the field type if it is a primitive, else <code>null</code>
+	 */
+	private final Class<?> wrapper;
+	
+	private OutlineFieldSetter(Field field, MethodHandle setter, int kind, Class<?> wrapper) {
+		this.field = field;
+		this.setter = setter;
+		this.kind = kind;
+		this.wrapper = wrapper;
+	}
+	
+	/**
+	 * Build the setter for the given field. Prefer
+	 * {@link OutlineUtil#getFieldSetter(Class, String)}, that caches them.
+	 * 
+	 * @param field
+	 *            the field to write to
+	 * 
+	 * @return the setter
+	 */
+	public static OutlineFieldSetter of(Field field) {
+		Class<?> type = field.getType();
+		
+		MethodHandle setter = null;
+		if(!Modifier.isStatic(field.getModifiers())) {
+			try {
+				if(!field.isAccessible()) {
+					field.setAccessible(true);
+				}
+				
+				setter = MethodHandles.lookup().unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, type.isPrimitive() ? type : Object.class));
+			} catch(IllegalAccessException | RuntimeException e) {
+				// a final field, or one we may not access - fall back to reflection
+				setter = null;
+			}
+		}
+		
+		int kind = kindOf(type);
+		return new OutlineFieldSetter(field, setter, kind, type.isPrimitive() ? wrapperOf(kind) : null);
+	}
+	
+	/**
+	 * Write the given value to the field of the given instance. A
+	 * {@link String} is converted to the type of the field, if it is a
+	 * primitive or a primitive wrapper.
+	 * 
+	 * @param instance
+	 *            the instance to write to
+	 * 
+	 * @param value
+	 *            the value to write
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the value cannot be converted to the type of the field
+	 * 
+	 * @throws IllegalAccessException
+	 *             if the value is written reflectively, and the field cannot
+	 *             be accessed
+	 */
+	public void set(Object instance, Object value) throws IllegalArgumentException, IllegalAccessException {
+		final MethodHandle setter = this.setter;
+		
+		try {
+			if(setter == null) {
+				ReflectionUtils.bindValue(this.field, instance, value);
+				return;
+			}
+			
+			if(this.wrapper == null) {
+				if(value == null || this.field.getType().isInstance(value)) {
+					setter.invokeExact(instance, value);
+					return;
+				}
+				
+				if(this.kind != REFERENCE && value instanceof String) {
+					setter.invokeExact(instance, box(this.kind, (String) value));
+					return;
+				}
+			} else if(value instanceof String) {
+				this.setPrimitive(instance, (String) value);
+				return;
+			} else if(value != null && value.getClass() == this.wrapper) {
+				this.setBoxed(instance, value);
+				return;
+			}
+			
+			ReflectionUtils.bindValue(this.field, instance, value);
+		} catch(IllegalArgumentException | IllegalAccessException | Error e) {
+			throw e;
+		} catch(ClassCastException e) {
+			throw new IllegalArgumentException("Cannot set field " + this.field.getName() + " of type " + this.field.getType().getName() + " to " + value, e);
+		} catch(RuntimeException e) {
+			throw e;
+		} catch(Throwable t) {
+			// a setter does not throw checked exceptions
+			throw new IllegalStateException(t);
+		}
+	}
+	
+	/**
+	 * Parse the value into the primitive type of the field and write it, via
+	 * the handle specialized for the type.
+	 * 
+	 */
+	private void setPrimitive(Object instance, String value) throws Throwable {
+		final MethodHandle setter = this.setter;
+		switch(this.kind) {
+			case BOOLEAN:
+				setter.invokeExact(instance, Boolean.parseBoolean(value));
+				return;
+				
+			case BYTE:
+				setter.invokeExact(instance, Byte.parseByte(value));
+				return;
+				
+			case SHORT:
+				setter.invokeExact(instance, Short.parseShort(value));
+				return;
+				
+			case CHAR:
+				setter.invokeExact(instance, charOf(value));
+				return;
+				
+			case INT:
+				setter.invokeExact(instance, Integer.parseInt(value));
+				return;
+				
+			case LONG:
+				setter.invokeExact(instance, Long.parseLong(value));
+				return;
+				
+			case FLOAT:
+				setter.invokeExact(instance, Float.parseFloat(value));
+				return;
+				
+			default:
+				setter.invokeExact(instance, Double.parseDouble(value));
+				return;
+		}
+	}
+	
+	/**
+	 * Unbox the value, a wrapper of the primitive type of the field, and write
+	 * it.
+	 * 
+	 */
+	private void setBoxed(Object instance, Object value) throws Throwable {
+		final MethodHandle setter = this.setter;
+		switch(this.kind) {
+			case BOOLEAN:
+				setter.invokeExact(instance, ((Boolean) value).booleanValue());
+				return;
+				
+			case BYTE:
+				setter.invokeExact(instance, ((Byte) value).byteValue());
+				return;
+				
+			case SHORT:
+				setter.invokeExact(instance, ((Short) value).shortValue());
+				return;
+				
+			case CHAR:
+				setter.invokeExact(instance, ((Character) value).charValue());
+				return;
+				
+			case INT:
+				setter.invokeExact(instance, ((Integer) value).intValue());
+				return;
+				
+			case LONG:
+				setter.invokeExact(instance, ((Long) value).longValue());
+				return;
+				
+			case FLOAT:
+				setter.invokeExact(instance, ((Float) value).floatValue());
+				return;
+				
+			default:
+				setter.invokeExact(instance, ((Double) value).doubleValue());
+				return;
+		}
+	}
+	
+	/**
+	 * Convert the given value to the given primitive wrapper type, the same way
+	 * as a value is converted when written to a field of that type.
+	 * 
+	 * @param type
+	 *            the primitive wrapper type to convert to
+	 * 
+	 * @param value
+	 *            the value to convert
+	 * 
+	 * @return the converted value
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the type is not a primitive wrapper, or the value cannot
+	 *             be converted to it
+	 */
+	public static Object valueOf(Class<?> type, String value) {
+		int kind = kindOf(type);
+		if(kind == REFERENCE) {
+			throw new IllegalArgumentException("Cannot convert a value to type " + type.getName());
+		}
+		
+		return box(kind, value);
+	}
+	
+	/**
+	 * Convert the given value to the wrapper of the given kind.
+	 * 
+	 */
+	private static Object box(int kind, String value) {
+		switch(kind) {
+			case BOOLEAN:
+				return Boolean.valueOf(value);
+				
+			case BYTE:
+				return Byte.valueOf(value);
+				
+			case SHORT:
+				return Short.valueOf(value);
+				
+			case CHAR:
+				return Character.valueOf(charOf(value));
+				
+			case INT:
+				return Integer.valueOf(value);
+				
+			case LONG:
+				return Long.valueOf(value);
+				
+			case FLOAT:
+				return Float.valueOf(value);
+				
+			default:
+				return Double.valueOf(value);
+		}
+	}
+	
+	/**
+	 * Return the first character of the value, failing with an
+	 * {@link IllegalArgumentException} like the other conversions if it is
+	 * empty.
+	 * 
+	 */
+	private static char charOf(String value) {
+		if(value.isEmpty()) {
+			throw new IllegalArgumentException("Cannot convert an empty value to a char");
+		}
+		
+		return value.charAt(0);
+	}
+	
+	private static Class<?> wrapperOf(int kind) {
+		switch(kind) {
+			case BOOLEAN:
+				return Boolean.class;
+				
+			case BYTE:
+				return Byte.class;
+				
+			case SHORT:
+				return Short.class;
+				
+			case CHAR:
+				return Character.class;
+				
+			case INT:
+				return Integer.class;
+				
+			case LONG:
+				return Long.class;
+				
+			case FLOAT:
+				return Float.class;
+				
+			default:
+				return Double.class;
+		}
+	}
+	
+	private static int kindOf(Class<?> type) {
+		if(type == boolean.class || type == Boolean.class) {
+			return BOOLEAN;
+		}
+		
+		if(type == byte.class || type == Byte.class) {
+			return BYTE;
+		}
+		
+		if(type == short.class || type == Short.class) {
+			return SHORT;
+		}
+		
+		if(type == char.class || type == Character.class) {
+			return CHAR;
+		}
+		
+		if(type == int.class || type == Integer.class) {
+			return INT;
+		}
+		
+		if(type == long.class || type == Long.class) {
+			return LONG;
+		}
+		
+		if(type == float.class || type == Float.class) {
+			return FLOAT;
+		}
+		
+		if(type == double.class || type == Double.class) {
+			return DOUBLE;
+		}
+		
+		return REFERENCE;
+	}
+	
+}
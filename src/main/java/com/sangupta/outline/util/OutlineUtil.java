@@ -24,10 +24,20 @@ package com.sangupta.outline.util;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
 
 import com.sangupta.jerry.util.AssertUtils;
 import com.sangupta.outline.Outline;
+import com.sangupta.outline.annotations.Argument;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Option;
 
 /**
  * Utility classes for {@link Outline} framework.
@@ -36,6 +46,194 @@ import com.sangupta.outline.Outline;
  *
  */
 public class OutlineUtil {
+	
+	/**
+	 * Cache of all annotated fields of a class. Being a {@link ClassValue} the
+	 * entries do not prevent the classes, or their class loaders, from being
+	 * unloaded.
+	 */
+	private static final ClassValue<List<OutlineFieldDescriptor>> ANNOTATED_FIELDS = new ClassValue<List<OutlineFieldDescriptor>>() {
+		
+		@Override
+		protected List<OutlineFieldDescriptor> computeValue(Class<?> type) {
+			List<OutlineFieldDescriptor> descriptors = new ArrayList<>();
+			for(Field field : getAllFields(type)) {
+				Option option = field.getAnnotation(Option.class);
+				Argument argument = field.getAnnotation(Argument.class);
+				Arguments arguments = field.getAnnotation(Arguments.class);
+				Inject inject = field.getAnnotation(Inject.class);
+				if(option == null && argument == null && arguments == null && inject == null) {
+					continue;
+				}
+				
+				descriptors.add(new OutlineFieldDescriptor(field, option, argument, arguments, inject, OutlineFieldSetter.of(field)));
+			}
+			
+			return Collections.unmodifiableList(Arrays.asList(descriptors.toArray(new OutlineFieldDescriptor[descriptors.size()])));
+		}
+		
+	};
+	
+	/**
+	 * Cache of all fields of a class and its super classes by their name. Where
+	 * a field hides one from a super class, the one in the sub class is kept.
+	 */
+	private static final ClassValue<Map<String, Field>> FIELDS_BY_NAME = new ClassValue<Map<String, Field>>() {
+		
+		@Override
+		protected Map<String, Field> computeValue(Class<?> type) {
+			Map<String, Field> fields = new HashMap<>();
+			for(Field field : getAllFields(type)) {
+				if(!fields.containsKey(field.getName())) {
+					fields.put(field.getName(), field);
+				}
+			}
+			
+			return Collections.unmodifiableMap(fields);
+		}
+		
+	};
+	
+	/**
+	 * Cache of the setters of a class that have been asked for, keyed by the
+	 * name of the field, or by <code>declaringClass#name</code> for a field
+	 * hidden by one of a sub class. Setters are only built when first looked
+	 * up, so that fields not bound by any spec are never made accessible.
+	 */
+	private static final ClassValue<ConcurrentMap<String, OutlineFieldSetter>> SETTERS = new ClassValue<ConcurrentMap<String, OutlineFieldSetter>>() {
+		
+		@Override
+		protected ConcurrentMap<String, OutlineFieldSetter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+		
+	};
+	
+	/**
+	 * Return the field with the given name from the given class or its super
+	 * classes. The fields of each class are read only once.
+	 * 
+	 * @param clazz
+	 *            the class to read the field from
+	 * 
+	 * @param name
+	 *            the name of the field
+	 * 
+	 * @return the field, or <code>null</code> if none exists
+	 */
+	public static Field getField(Class<?> clazz, String name) {
+		return FIELDS_BY_NAME.get(clazz).get(name);
+	}
+	
+	/**
+	 * Return the setter of the field with the given name from the given class
+	 * or its super classes. The setter is built on the first call for each
+	 * field, and is the same as in {@link #getAnnotatedFields(Class)} when the
+	 * field is annotated.
+	 * 
+	 * @param clazz
+	 *            the class to read the field from
+	 * 
+	 * @param name
+	 *            the name of the field
+	 * 
+	 * @return the setter, or <code>null</code> if no such field exists
+	 */
+	public static OutlineFieldSetter getFieldSetter(Class<?> clazz, String name) {
+		OutlineFieldSetter setter = SETTERS.get(clazz).get(name);
+		if(setter != null) {
+			return setter;
+		}
+		
+		return cacheFieldSetter(clazz, name, getField(clazz, name));
+	}
+	
+	/**
+	 * Return the setter of the field with the given name declared by the given
+	 * class in the hierarchy of the given class. This is the field that
+	 * carries the annotation, even when a sub class declares another field of
+	 * the same name.
+	 * 
+	 * @param clazz
+	 *            the class to read the field from
+	 * 
+	 * @param declaringClass
+	 *            the binary name of the class that declares the field, or
+	 *            <code>null</code> to look the field up by its name as
+	 *            {@link #getFieldSetter(Class, String)} does
+	 * 
+	 * @param name
+	 *            the name of the field
+	 * 
+	 * @return the setter, or <code>null</code> if no such field exists
+	 */
+	public static OutlineFieldSetter getFieldSetter(Class<?> clazz, String declaringClass, String name) {
+		if(declaringClass == null) {
+			return getFieldSetter(clazz, name);
+		}
+		
+		Field field = getField(clazz, name);
+		if(field != null && field.getDeclaringClass().getName().equals(declaringClass)) {
+			return getFieldSetter(clazz, name);
+		}
+		
+		// the field is hidden by one of a sub class
+		String key = declaringClass + '#' + name;
+		OutlineFieldSetter setter = SETTERS.get(clazz).get(key);
+		if(setter != null) {
+			return setter;
+		}
+		
+		for(Field candidate : getAllFields(clazz)) {
+			if(candidate.getName().equals(name) && candidate.getDeclaringClass().getName().equals(declaringClass)) {
+				return cacheFieldSetter(clazz, key, candidate);
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Build and cache the setter for the given field of the given class,
+	 * reusing the one of the annotated field descriptor when there is one.
+	 */
+	private static OutlineFieldSetter cacheFieldSetter(Class<?> clazz, String key, Field field) {
+		if(field == null) {
+			return null;
+		}
+		
+		OutlineFieldSetter setter = null;
+		List<OutlineFieldDescriptor> fields = ANNOTATED_FIELDS.get(clazz);
+		for(int index = 0; index < fields.size(); index++) {
+			if(fields.get(index).field.equals(field)) {
+				setter = fields.get(index).setter;
+				break;
+			}
+		}
+		
+		if(setter == null) {
+			setter = OutlineFieldSetter.of(field);
+		}
+		
+		OutlineFieldSetter existing = SETTERS.get(clazz).putIfAbsent(key, setter);
+		return existing != null ? existing : setter;
+	}
+	
+	/**
+	 * Return all fields of the given class and its super classes that carry
+	 * one of <code>@Option</code>, <code>@Argument</code>,
+	 * <code>@Arguments</code> or <code>@Inject</code> annotations. The
+	 * hierarchy is read only once per class, and the same immutable list is
+	 * returned on all subsequent calls.
+	 * 
+	 * @param clazz
+	 *            the class to read fields of
+	 * 
+	 * @return the immutable list of annotated fields, never <code>null</code>
+	 */
+	public static List<OutlineFieldDescriptor> getAnnotatedFields(Class<?> clazz) {
+		return ANNOTATED_FIELDS.get(clazz);
+	}
     
     public static List<Field> getAllFields(Class<?> clazz) {
         List<Field> fields = new ArrayList<>();
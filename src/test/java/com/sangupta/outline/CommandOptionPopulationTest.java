@@ -5,6 +5,10 @@ import org.junit.Test;
 
 import com.sangupta.outline.OutlineTestSupport.AllOptionCommand;
 import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.annotations.Argument;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
 import com.sangupta.outline.help.OutlineHelp;
 
 public class CommandOptionPopulationTest {
@@ -103,5 +107,47 @@ public class CommandOptionPopulationTest {
 		Assert.assertNotNull(instance);
 	    Assert.assertTrue(instance instanceof OutlineHelp);
 	}
+	
+	public static class HiddenBaseCommand {
+		
+		@Option(name = "-x")
+		public String x;
+		
+		@Argument(order = 0)
+		public String file;
+		
+		@Arguments
+		public String[] rest;
+		
+	}
+	
+	@Command(name = "sub", description = "hides the fields of its super class")
+	public static class HiddenSubCommand extends HiddenBaseCommand {
+		
+		public String x;
+		
+		public String file;
+		
+		public String[] rest;
+		
+	}
+	
+	@Test
+	public void testHiddenFields() {
+		for(boolean runtimeModels : new boolean[] { false, true }) {
+			Outline outline = new Outline("hide").withCommands(HiddenSubCommand.class).withRuntimeModels(runtimeModels);
+			HiddenSubCommand command = (HiddenSubCommand) outline.parse("sub -x v a b c".split(" "));
+			
+			// the annotated fields are bound
+			HiddenBaseCommand base = command;
+			Assert.assertEquals("v", base.x);
+			Assert.assertEquals("a", base.file);
+			Assert.assertArrayEquals(new String[] { "b", "c" }, base.rest);
+			
+			Assert.assertNull(command.x);
+			Assert.assertNull(command.file);
+			Assert.assertNull(command.rest);
+		}
+	}
 
 }
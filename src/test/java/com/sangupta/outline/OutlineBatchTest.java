@@ -0,0 +1,115 @@
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Tests for parsing batches of command lines via {@link Outline#parseAll(List)}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineBatchTest {
+
+	@Test
+	public void testSequentialBatch() {
+		Outline outline = OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false);
+		List<OutlineBatchResult> results = outline.parseAll(getBatch(300));
+		assertResults(results, 300);
+	}
+
+	@Test
+	public void testParallelBatch() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Outline outline = OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false);
+			assertResults(outline.parseAll(getBatch(3000), pool), 3000);
+
+			// commands registered by name are all loaded before the batch is split
+			Outline lazy = new Outline("git").withHelpOnIncorrectArguments(false);
+			lazy.withCommand("add", AddCommand.class.getName());
+			lazy.withGroup("remote").withCommand("remote-add", RemoteAddCommand.class.getName());
+			assertResults(lazy.parseAll(getBatch(3000), pool), 3000);
+
+			// a frozen outline is batched just the same
+			assertResults(outline.freeze().parseAll(getBatch(1000), pool), 1000);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetInstance() {
+		Outline outline = OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false);
+		List<OutlineBatchResult> results = outline.parseAll(getBatch(3));
+
+		AddCommand add = results.get(0).getInstance();
+		Assert.assertNotNull(add);
+
+		try {
+			results.get(2).getInstance();
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertSame(results.get(2).error, e);
+		}
+	}
+
+	/**
+	 * A batch in which every third command line is invalid.
+	 *
+	 */
+	private static List<String[]> getBatch(int size) {
+		List<String[]> batch = new ArrayList<>();
+		for(int index = 0; index < size; index++) {
+			switch(index % 3) {
+				case 0:
+					batch.add("add".split(" "));
+					break;
+
+				case 1:
+					batch.add(("remote remote-add -c1 op" + index + " file" + index).split(" "));
+					break;
+
+				default:
+					batch.add(("unknown" + index).split(" "));
+			}
+		}
+
+		return batch;
+	}
+
+	private static void assertResults(List<OutlineBatchResult> results, int size) {
+		Assert.assertEquals(size, results.size());
+		for(int index = 0; index < size; index++) {
+			OutlineBatchResult result = results.get(index);
+			switch(index % 3) {
+				case 0:
+					Assert.assertTrue(result.isSuccess());
+					Assert.assertTrue(result.instance instanceof AddCommand);
+					break;
+
+				case 1:
+					Assert.assertTrue(result.isSuccess());
+					RemoteAddCommand command = (RemoteAddCommand) result.instance;
+					Assert.assertEquals("op" + index, command.c1);
+					Assert.assertEquals("file" + index, command.a1);
+					break;
+
+				default:
+					Assert.assertFalse(result.isSuccess());
+					Assert.assertNull(result.instance);
+					Assert.assertTrue(result.error instanceof OutlineInvalidArgumentException);
+					Assert.assertEquals("unknown" + index, ((OutlineInvalidArgumentException) result.error).argument);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.sangupta.outline;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteRemoveCommand;
+
+/**
+ * Tests for discovering commands via the build-time command index.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineCommandIndexTest {
+	
+	@Test
+	public void testDiscoveredCommands() throws IOException {
+		File folder = Files.createTempDirectory("outline-index").toFile();
+		File index = new File(folder, OutlineCommandIndex.COMMANDS_INDEX);
+		index.getParentFile().mkdirs();
+		
+		String contents = AddCommand.class.getName() + "\tadd\t\n"
+				+ RemoteAddCommand.class.getName() + "\tremote-add\tremote\n"
+				+ RemoteRemoveCommand.class.getName() + "\tremote-remove\tremote\n"
+				+ "invalid line\n";
+		Files.write(index.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		
+		try(URLClassLoader loader = new URLClassLoader(new URL[] { folder.toURI().toURL() }, OutlineCommandIndexTest.class.getClassLoader())) {
+			Outline outline = new Outline("git").withHelpOnIncorrectArguments(false).withDiscoveredCommands(loader);
+			
+			OutlineMetadata metadata = outline.compile().getMetadata();
+			Assert.assertTrue(metadata.isCommand("add"));
+			Assert.assertTrue(metadata.isCommand("remote-add"));
+			Assert.assertTrue(metadata.isGroup("remote"));
+			Assert.assertFalse(metadata.isCommand("invalid line"));
+			
+			// nothing is loaded until invoked
+			Assert.assertTrue(metadata.commandClasses.isEmpty());
+			
+			Object instance = outline.parse("remote -gr1 group remote-add arg1".split(" "));
+			Assert.assertTrue(instance instanceof RemoteAddCommand);
+			Assert.assertEquals("group", ((RemoteAddCommand) instance).gr1);
+			Assert.assertEquals("arg1", ((RemoteAddCommand) instance).a1);
+			
+			instance = outline.parse("add".split(" "));
+			Assert.assertTrue(instance instanceof AddCommand);
+		} finally {
+			index.delete();
+			index.getParentFile().delete();
+			index.getParentFile().getParentFile().delete();
+			folder.delete();
+		}
+	}
+	
+	@Test
+	public void testNoIndexAvailable() {
+		Outline outline = new Outline("git").withDiscoveredCommands(new URLClassLoader(new URL[0], null));
+		Assert.assertTrue(outline.lazyCommands.isEmpty());
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.sangupta.outline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for commands defined programmatically via a {@link CommandSpec}
+ * instead of annotations.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineCommandSpecTest {
+	
+	public static class PlainCommand {
+		
+		public boolean verbose;
+		
+		public String name;
+		
+		public String file;
+		
+		public String[] others;
+		
+	}
+	
+	private static CommandSpec getSpec() {
+		return CommandSpec.builder("plain")
+				.withDescription("a command without annotations")
+				.withOption(OptionSpec.builder("-v", "--verbose").withType(OptionType.COMMAND).withField("verbose", boolean.class).build())
+				.withOption(OptionSpec.builder("-n").withType(OptionType.COMMAND).withField("name", String.class).build())
+				.withArgument(ArgumentSpec.remainingBuilder().withField("others", String[].class).build())
+				.withArgument(ArgumentSpec.builder(0).withRequired(true).withField("file", String.class).build())
+				.build();
+	}
+	
+	@Test
+	public void testSpecArgumentsAreSorted() {
+		CommandSpec spec = getSpec();
+		
+		Assert.assertEquals(2, spec.arguments.size());
+		Assert.assertEquals("file", spec.arguments.get(0).field);
+		Assert.assertTrue(spec.arguments.get(1).remaining);
+	}
+	
+	@Test
+	public void testProgrammaticCommand() {
+		Outline outline = new Outline("git").withHelpOnIncorrectArguments(false);
+		outline.withCommand(AddCommand.class);
+		outline.withCommand(PlainCommand.class, getSpec());
+		
+		Object instance = outline.parse("plain --verbose true -n sangupta file1 file2 file3".split(" "));
+		Assert.assertTrue(instance instanceof PlainCommand);
+		
+		PlainCommand command = (PlainCommand) instance;
+		Assert.assertTrue(command.verbose);
+		Assert.assertEquals("sangupta", command.name);
+		Assert.assertEquals("file1", command.file);
+		Assert.assertArrayEquals(new String[] { "file2", "file3" }, command.others);
+		
+		// annotated commands continue to work alongside
+		instance = outline.parse("add".split(" "));
+		Assert.assertTrue(instance instanceof AddCommand);
+		
+		// help is generated from the spec
+		instance = outline.parse("help plain".split(" "));
+		Assert.assertTrue(instance instanceof OutlineHelp);
+		Assert.assertTrue(((OutlineHelp) instance).getHelp().contains("-v, --verbose"));
+	}
+	
+	@Test
+	public void testMissingField() {
+		Outline outline = new Outline("git").withHelpOnIncorrectArguments(false);
+		outline.withCommand(PlainCommand.class, CommandSpec.builder("plain")
+				.withOption(OptionSpec.builder("-x").withType(OptionType.COMMAND).withField("missing", String.class).build())
+				.build());
+		
+		try {
+			outline.parse("plain -x value".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidConfigurationException e) {
+			Assert.assertEquals("missing", e.field);
+		}
+	}
+	
+}
@@ -0,0 +1,57 @@
+package com.sangupta.outline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.GroupAddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+
+/**
+ * Tests for compiling an {@link Outline} once and reusing it across parse calls.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCompileTest {
+
+	@Test
+	public void testCompiledParserIsReused() {
+		Outline outline = OutlineTestSupport.getOutline().create();
+
+		OutlineParser parser = outline.compile();
+		Assert.assertNotNull(parser);
+		Assert.assertSame(parser, outline.compile());
+
+		Object instance = outline.parse("add".split(" "));
+		Assert.assertTrue(instance instanceof AddCommand);
+
+		instance = outline.parse("remote remote-add -c1 op1 arg1".split(" "));
+		Assert.assertTrue(instance instanceof RemoteAddCommand);
+
+		// parsing must not recompile
+		Assert.assertSame(parser, outline.compile());
+		Assert.assertSame(parser.getMetadata(), outline.compile().getMetadata());
+	}
+
+	@Test
+	public void testModificationInvalidatesCompiledParser() {
+		Outline outline = OutlineTestSupport.getOutline().create();
+		OutlineParser parser = outline.compile();
+
+		outline.withCommand(GroupAddCommand.class);
+		OutlineParser recompiled = outline.compile();
+		Assert.assertNotSame(parser, recompiled);
+
+		// changes to a group also invalidate the parser
+		outline.withGroup("mygroup").withDescription("changed");
+		Assert.assertNotSame(recompiled, outline.compile());
+
+		// changes to settings also invalidate the parser
+		parser = outline.compile();
+		outline.withHelpKeyword("usage");
+		Assert.assertNotSame(parser, outline.compile());
+		Assert.assertEquals("usage", outline.compile().getMetadata().helpKeyword);
+	}
+
+}
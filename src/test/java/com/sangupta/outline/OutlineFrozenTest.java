@@ -0,0 +1,304 @@
+package com.sangupta.outline;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.OutlineTestSupport.ResetCommand;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.spec.CommandSpec;
+
+/**
+ * Tests for frozen {@link Outline}s that are shared across threads.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineFrozenTest {
+	
+	private static final int THREADS = 16;
+	
+	private static final int ITERATIONS = 2000;
+	
+	public static class Location {
+		
+		public final int x;
+		
+		public final int y;
+		
+		public Location(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+		
+	}
+	
+	@Command(name = "locate", description = "locate command")
+	public static class LocateCommand {
+		
+		@Option(name = "-at", description = "the location as x,y")
+		public Location at;
+		
+		@Arguments(description = "the labels")
+		public String[] labels;
+		
+	}
+	
+	private static Outline getOutline() {
+		Outline outline = new Outline("git").withHelpOnIncorrectArguments(false);
+		outline.withCommand("add", AddCommand.class.getName());
+		outline.withCommand("reset", ResetCommand.class.getName());
+		outline.withGroup("remote").withCommand("remote-add", RemoteAddCommand.class.getName());
+		outline.withCommand(LocateCommand.class);
+		
+		return outline;
+	}
+	
+	@Test
+	public void testFrozenOutlineCannotBeModified() {
+		Outline outline = getOutline();
+		OutlineParser parser = outline.freeze();
+		
+		Assert.assertTrue(outline.isFrozen());
+		Assert.assertSame(parser, outline.freeze());
+		Assert.assertSame(parser, outline.compile());
+		
+		// all lazily registered commands are loaded right away
+		Assert.assertEquals(RemoteAddCommand.class, parser.getMetadata().commandClasses.get("remote-add"));
+		
+		try {
+			outline.withHelpKeyword("usage");
+			Assert.assertTrue(false);
+		} catch(IllegalStateException e) {
+			// expected
+		}
+		
+		try {
+			outline.withGroup("remote").withCommand("remote-remove", OutlineTestSupport.RemoteRemoveCommand.class.getName());
+			Assert.assertTrue(false);
+		} catch(IllegalStateException e) {
+			// expected
+		}
+		
+		Assert.assertSame(parser, outline.compile());
+	}
+	
+	@Test
+	public void testRejectedChangesLeaveOutlineUnchanged() {
+		final Outline outline = getOutline().withDescription("tool");
+		final OutlineBase group = outline.withGroup("remote");
+		outline.freeze();
+		
+		Set<Class<?>> commands = new HashSet<>(outline.commands);
+		Map<String, String> lazyCommands = new HashMap<>(outline.lazyCommands);
+		Map<String, String> groupCommands = new HashMap<>(group.lazyCommands);
+		Set<String> groups = new HashSet<>(outline.groups.keySet());
+		
+		List<Runnable> changes = Arrays.<Runnable>asList(new Runnable() {
+			public void run() { outline.withDescription("changed"); }
+		}, new Runnable() {
+			public void run() { outline.withDefaultCommand(ResetCommand.class); }
+		}, new Runnable() {
+			public void run() { outline.withCommand(OutlineTestSupport.AllOptionCommand.class); }
+		}, new Runnable() {
+			public void run() { outline.withCommands(OutlineTestSupport.AllOptionCommand.class); }
+		}, new Runnable() {
+			public void run() { outline.withCommand("remove", OutlineTestSupport.GroupRemoveCommand.class.getName()); }
+		}, new Runnable() {
+			public void run() { outline.withCommand(ResetCommand.class, CommandSpec.builder("reset").build()); }
+		}, new Runnable() {
+			public void run() { outline.withGroup("mygroup"); }
+		}, new Runnable() {
+			public void run() { outline.withHelpKeyword("usage"); }
+		}, new Runnable() {
+			public void run() { outline.withPermutation(true); }
+		}, new Runnable() {
+			public void run() { group.withCommand(OutlineTestSupport.RemoteRemoveCommand.class); }
+		}, new Runnable() {
+			public void run() { group.withCommand("remote-remove", OutlineTestSupport.RemoteRemoveCommand.class.getName()); }
+		}, new Runnable() {
+			public void run() { group.withDescription("changed"); }
+		});
+		
+		for(Runnable change : changes) {
+			try {
+				change.run();
+				Assert.assertTrue(false);
+			} catch(IllegalStateException e) {
+				// expected
+			}
+		}
+		
+		Assert.assertEquals(commands, outline.commands);
+		Assert.assertEquals(lazyCommands, outline.lazyCommands);
+		Assert.assertEquals(groupCommands, group.lazyCommands);
+		Assert.assertEquals(groups, outline.groups.keySet());
+		Assert.assertTrue(outline.commandSpecs.isEmpty());
+		Assert.assertTrue(group.commands.isEmpty());
+		Assert.assertNull(outline.defaultCommand);
+		Assert.assertEquals("tool", outline.description);
+		Assert.assertNull(group.description);
+		Assert.assertEquals("help", outline.helpKeyword);
+		Assert.assertFalse(outline.permutation);
+	}
+	
+	@Test
+	public void testConvertersAreCaptured() {
+		Outline.registerTypeConverter(Location.class, new LocationConverter(0));
+		Outline outline = getOutline();
+		outline.freeze();
+		
+		// converters registered later are not seen by the frozen outline
+		Outline.registerTypeConverter(Location.class, new LocationConverter(100));
+		
+		LocateCommand command = outline.parse("locate -at 1,2".split(" "));
+		Assert.assertEquals(1, command.at.x);
+		Assert.assertEquals(2, command.at.y);
+		
+		// but are seen by outlines that are not frozen
+		command = getOutline().parse("locate -at 1,2".split(" "));
+		Assert.assertEquals(101, command.at.x);
+		Assert.assertEquals(102, command.at.y);
+	}
+	
+	@Test
+	public void testConcurrentParsing() throws Exception {
+		Outline.registerTypeConverter(Location.class, new LocationConverter(0));
+		
+		final Outline outline = getOutline();
+		outline.freeze();
+		
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+			for(int thread = 0; thread < THREADS; thread++) {
+				final int seed = thread;
+				futures.add(executor.submit(new Callable<Integer>() {
+					
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+						
+						int parsed = 0;
+						for(int index = 0; index < ITERATIONS; index++) {
+							int value = seed * ITERATIONS + index;
+							verify(outline, value);
+							parsed++;
+						}
+						
+						return parsed;
+					}
+					
+				}));
+			}
+			
+			start.countDown();
+			
+			int total = 0;
+			for(Future<Integer> future : futures) {
+				total += future.get(60, TimeUnit.SECONDS);
+			}
+			
+			Assert.assertEquals(THREADS * ITERATIONS, total);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Parse one of the invocations, chosen by the value, and check that the
+	 * resulting instance carries exactly the values passed in.
+	 * 
+	 */
+	private static void verify(Outline outline, int value) throws Exception {
+		String text = String.valueOf(value);
+		Object instance;
+		
+		switch(value % 4) {
+			case 0:
+				instance = outline.parse(("-g1 " + text + " add").split(" "));
+				Assert.assertTrue(instance instanceof AddCommand);
+				Assert.assertEquals(text, getValue(instance, "g1"));
+				break;
+				
+			case 1:
+				instance = outline.parse(("-g1 " + text + " remote -gr1 g" + text + " remote-add -c1 c" + text + " a" + text + " b" + text + " c" + text).split(" "));
+				Assert.assertTrue(instance instanceof RemoteAddCommand);
+				Assert.assertEquals(text, getValue(instance, "g1"));
+				Assert.assertEquals("g" + text, getValue(instance, "gr1"));
+				Assert.assertEquals("c" + text, getValue(instance, "c1"));
+				Assert.assertEquals("a" + text, getValue(instance, "a1"));
+				Assert.assertEquals("b" + text, getValue(instance, "a2"));
+				Assert.assertArrayEquals(new String[] { "c" + text }, (String[]) getValue(instance, "a3"));
+				break;
+				
+			case 2:
+				instance = outline.parse(("locate -at " + text + "," + (value + 1) + " first " + text).split(" "));
+				Assert.assertTrue(instance instanceof LocateCommand);
+				LocateCommand command = (LocateCommand) instance;
+				Assert.assertEquals(value, command.at.x);
+				Assert.assertEquals(value + 1, command.at.y);
+				Assert.assertArrayEquals(new String[] { "first", text }, command.labels);
+				break;
+				
+			default:
+				instance = outline.parse("help remote remote-add".split(" "));
+				Assert.assertTrue(instance instanceof OutlineHelp);
+				Assert.assertTrue(((OutlineHelp) instance).getHelp().contains("-c1"));
+				break;
+		}
+	}
+	
+	private static Object getValue(Object instance, String name) throws Exception {
+		Class<?> clazz = instance.getClass();
+		while(clazz != null) {
+			try {
+				Field field = clazz.getDeclaredField(name);
+				field.setAccessible(true);
+				return field.get(instance);
+			} catch(NoSuchFieldException e) {
+				clazz = clazz.getSuperclass();
+			}
+		}
+		
+		throw new NoSuchFieldException(name);
+	}
+	
+	private static class LocationConverter implements OutlineTypeConverter<Location> {
+		
+		private final int offset;
+		
+		LocationConverter(int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		public Location convertFrom(Field field, Object instance, Object value) {
+			String[] tokens = value.toString().split(",");
+			return new Location(Integer.parseInt(tokens[0]) + this.offset, Integer.parseInt(tokens[1]) + this.offset);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,135 @@
+package com.sangupta.outline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.OutlineTestSupport.ResetCommand;
+import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
+import com.sangupta.outline.help.OutlineHelp;
+
+/**
+ * Tests for commands registered via their name and class name, that are
+ * loaded only when needed.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineLazyCommandTest {
+	
+	private static Outline getOutline() {
+		Outline outline = new Outline("git").withHelpOnIncorrectArguments(false);
+		outline.withCommand("add", AddCommand.class.getName());
+		outline.withCommand("reset", ResetCommand.class.getName());
+		outline.withGroup("remote").withCommand("remote-add", RemoteAddCommand.class.getName());
+		
+		return outline;
+	}
+	
+	@Test
+	public void testOnlyResolvedCommandIsLoaded() {
+		Outline outline = getOutline();
+		OutlineMetadata metadata = outline.compile().getMetadata();
+		
+		Assert.assertTrue(metadata.commandClasses.isEmpty());
+		Assert.assertTrue(metadata.isCommand("add"));
+		Assert.assertTrue(metadata.isGroup("remote"));
+		
+		Object instance = outline.parse("add".split(" "));
+		Assert.assertTrue(instance instanceof AddCommand);
+		
+		Assert.assertEquals(AddCommand.class, metadata.commandClasses.get("add"));
+		Assert.assertNull(metadata.commandClasses.get("reset"));
+		Assert.assertNull(metadata.commandClasses.get("remote-add"));
+	}
+	
+	@Test
+	public void testOptionsOfLazyCommand() {
+		Outline outline = getOutline();
+		
+		// global and group options are only known once the command is loaded
+		Object instance = outline.parse("-g1 global remote -gr1 group remote-add -c1 op1 arg1 arg2".split(" "));
+		Assert.assertTrue(instance instanceof RemoteAddCommand);
+		
+		RemoteAddCommand command = (RemoteAddCommand) instance;
+		Assert.assertEquals("global", command.g1);
+		Assert.assertEquals("group", command.gr1);
+		Assert.assertEquals("op1", command.c1);
+		Assert.assertEquals("arg1", command.a1);
+		Assert.assertEquals("arg2", command.a2);
+		
+		// parsing again uses the loaded metadata
+		instance = outline.parse("remote remote-add arg3".split(" "));
+		Assert.assertEquals("arg3", ((RemoteAddCommand) instance).a1);
+	}
+	
+	@Test
+	public void testCommandNamesAsValues() {
+		Outline outline = getOutline();
+		OutlineMetadata metadata = outline.compile().getMetadata();
+		
+		// only the invoked command is loaded, not the one named as an argument,
+		// also once the invoked command has been loaded already
+		Object instance = outline.parse("remote remote-add arg1".split(" "));
+		Assert.assertNull(metadata.commandClasses.get("reset"));
+		
+		instance = outline.parse("remote remote-add reset".split(" "));
+		Assert.assertEquals("reset", ((RemoteAddCommand) instance).a1);
+		Assert.assertNull(metadata.commandClasses.get("reset"));
+		Assert.assertNull(metadata.commandClasses.get("add"));
+		
+		// a command name that is the value of an option
+		instance = outline.parse("-g1 add remote remote-add arg1".split(" "));
+		Assert.assertEquals("add", ((RemoteAddCommand) instance).g1);
+		Assert.assertEquals("arg1", ((RemoteAddCommand) instance).a1);
+		Assert.assertNull(metadata.commandClasses.get("reset"));
+	}
+	
+	@Test
+	public void testHelpListingReadsOnlyCommandAnnotation() {
+		Outline outline = getOutline().withHelpOnIncorrectArguments(true);
+		
+		Object instance = outline.parse("help".split(" "));
+		Assert.assertTrue(instance instanceof OutlineHelp);
+		
+		String help = ((OutlineHelp) instance).getHelp();
+		Assert.assertTrue(help.contains("add command"));
+		Assert.assertTrue(help.contains("reset command"));
+		
+		// no command was loaded fully
+		OutlineMetadata metadata = outline.compile().getMetadata();
+		Assert.assertTrue(metadata.commandClasses.isEmpty());
+		Assert.assertTrue(metadata.commandOptions.isEmpty());
+		Assert.assertTrue(metadata.globalOptions.isEmpty());
+	}
+	
+	@Test
+	public void testInvalidLazyCommand() {
+		Outline outline = new Outline("git").withHelpOnIncorrectArguments(false);
+		outline.withCommand("missing", "com.sangupta.outline.NoSuchCommand");
+		outline.withCommand("wrong-name", AddCommand.class.getName());
+		
+		try {
+			outline.parse("missing".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidConfigurationException e) {
+			Assert.assertTrue(true);
+		}
+		
+		try {
+			outline.parse("wrong-name".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidConfigurationException e) {
+			Assert.assertTrue(true);
+		}
+		
+		try {
+			outline.withCommand("", AddCommand.class.getName());
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			Assert.assertTrue(true);
+		}
+	}
+
+}
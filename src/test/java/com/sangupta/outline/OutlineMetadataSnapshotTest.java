@@ -0,0 +1,102 @@
+package com.sangupta.outline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AllOptionCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.spec.CommandSpec;
+
+/**
+ * Tests for persisting the compiled metadata in a snapshot file.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineMetadataSnapshotTest {
+	
+	@Test
+	public void testSnapshotIsWrittenAndRead() throws IOException {
+		File file = File.createTempFile("outline", ".snapshot");
+		file.delete();
+		
+		try {
+			// first launch reads via reflection and writes the snapshot
+			Outline outline = OutlineTestSupport.getOutline().withMetadataSnapshot(file);
+			OutlineMetadata reflected = outline.compile().getMetadata();
+			Assert.assertTrue(file.exists());
+			Assert.assertEquals("add command", reflected.commandNames.get("add").description);
+			
+			// change a description in place, so that we know the snapshot is read
+			String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+			Files.write(file.toPath(), contents.replace("add command", "ADD command").getBytes(StandardCharsets.ISO_8859_1));
+			
+			// second launch reads from the snapshot
+			outline = OutlineTestSupport.getOutline().withMetadataSnapshot(file);
+			OutlineMetadata snapshot = outline.compile().getMetadata();
+			Assert.assertEquals("ADD command", snapshot.commandNames.get("add").description);
+			
+			Assert.assertEquals(reflected.commandNames.keySet(), snapshot.commandNames.keySet());
+			Assert.assertEquals(reflected.commandClasses, snapshot.commandClasses);
+			Assert.assertEquals(reflected.globalOptions.keySet(), snapshot.globalOptions.keySet());
+			Assert.assertEquals(reflected.groupOptions.get("remote").keySet(), snapshot.groupOptions.get("remote").keySet());
+			Assert.assertEquals(reflected.commandOptions.get("population-check").keySet(), snapshot.commandOptions.get("population-check").keySet());
+			Assert.assertEquals(reflected.commandArguments.getValues("remote-add").size(), snapshot.commandArguments.getValues("remote-add").size());
+			Assert.assertEquals(int.class, snapshot.commandOptions.get("population-check").get("-i").fieldType);
+			Assert.assertEquals("integer", snapshot.commandOptions.get("population-check").get("-i").field);
+			Assert.assertEquals(AllOptionCommand.class.getName(), snapshot.commandOptions.get("population-check").get("-i").declaringClass);
+			Assert.assertEquals(OutlineTestSupport.GlobalCommand.class.getName(), snapshot.globalOptions.get("-g1").declaringClass);
+			
+			// and parsing works as before
+			RemoteAddCommand command = outline.parse("-g1 op1 remote -gr1 op4 remote-add -c1 op7 arg1 arg2 arg3".split(" "));
+			Assert.assertEquals("op1", command.g1);
+			Assert.assertEquals("op4", command.gr1);
+			Assert.assertEquals("op7", command.c1);
+			Assert.assertEquals("arg1", command.a1);
+			Assert.assertEquals("arg2", command.a2);
+			Assert.assertArrayEquals(new String[] { "arg3" }, command.a3);
+			
+			AllOptionCommand all = outline.parse("population-check -i 23 -short 12".split(" "));
+			Assert.assertEquals(23, all.integer);
+			Assert.assertEquals(12, all.shrt);
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testStaleSnapshotIsRewritten() throws IOException {
+		File file = File.createTempFile("outline", ".snapshot");
+		file.delete();
+		
+		try {
+			new Outline(PingCommandSupport.class).withMetadataSnapshot(file).compile();
+			byte[] first = Files.readAllBytes(file.toPath());
+			
+			// a different set of commands has a different fingerprint
+			Outline outline = OutlineTestSupport.getOutline().withMetadataSnapshot(file);
+			OutlineMetadata metadata = outline.compile().getMetadata();
+			Assert.assertNotNull(metadata.commandNames.get("add"));
+			Assert.assertNull(metadata.commandNames.get("ping"));
+			
+			byte[] second = Files.readAllBytes(file.toPath());
+			Assert.assertFalse(Arrays.equals(first, second));
+			
+			// a corrupt snapshot is ignored as well
+			Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+			metadata = OutlineTestSupport.getOutline().withMetadataSnapshot(file).compile().getMetadata();
+			CommandSpec command = metadata.commandNames.get("add");
+			Assert.assertEquals("add command", command.description);
+			Assert.assertArrayEquals(second, Files.readAllBytes(file.toPath()));
+		} finally {
+			file.delete();
+		}
+	}
+
+}
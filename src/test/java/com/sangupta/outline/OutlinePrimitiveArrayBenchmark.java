@@ -0,0 +1,100 @@
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+
+/**
+ * Benchmark for binding 50,000 ids passed as a repeated option, into a
+ * <code>long[]</code> field, against binding them into a <code>String[]</code>
+ * field and parsing them into a list afterwards, as was needed before.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.OutlinePrimitiveArrayBenchmark 200
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlinePrimitiveArrayBenchmark {
+
+	@Command(name = "fetch", description = "fetch records by id")
+	public static class LongCommand {
+
+		@Option(name = "--id")
+		public long[] ids;
+
+	}
+
+	@Command(name = "fetch", description = "fetch records by id")
+	public static class StringCommand {
+
+		@Option(name = "--id")
+		public String[] ids;
+
+	}
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+		List<String> tokens = new ArrayList<>();
+		tokens.add("fetch");
+		for(int index = 0; index < 50000; index++) {
+			tokens.add("--id");
+			tokens.add(String.valueOf(1000000000L + index * 7919L));
+		}
+		String[] line = tokens.toArray(new String[tokens.size()]);
+
+		OutlineParser longs = new Outline("fetch").withCommands(LongCommand.class).withHelpOnIncorrectArguments(false).compile();
+		OutlineParser strings = new Outline("fetch").withCommands(StringCommand.class).withHelpOnIncorrectArguments(false).compile();
+
+		long sink = 0;
+		for(int round = 0; round < 5; round++) {
+			sink += bindLongs(longs, line, iterations / 10);
+			sink += bindStrings(strings, line, iterations / 10);
+		}
+
+		long start = System.nanoTime();
+		sink += bindLongs(longs, line, iterations);
+		long longTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		sink += bindStrings(strings, line, iterations);
+		long stringTime = System.nanoTime() - start;
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+		System.out.println("Bind long[]:                    " + (longTime / iterations / 1000) + " us/op");
+		System.out.println("Bind String[], parse to List:   " + (stringTime / iterations / 1000) + " us/op");
+	}
+
+	private static long bindLongs(OutlineParser parser, String[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			long[] ids = ((LongCommand) parser.parse(line)).ids;
+			sink += ids[ids.length - 1];
+		}
+
+		return sink;
+	}
+
+	private static long bindStrings(OutlineParser parser, String[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			String[] values = ((StringCommand) parser.parse(line)).ids;
+			List<Long> ids = new ArrayList<>(values.length);
+			for(String value : values) {
+				ids.add(Long.valueOf(value));
+			}
+
+			sink += ids.get(ids.size() - 1);
+		}
+
+		return sink;
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.sangupta.outline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.parser.OutlineArgumentParser;
+import com.sangupta.outline.parser.OutlineCommandLine;
+import com.sangupta.outline.parser.OutlineParseResult;
+
+/**
+ * Tests for binding <code>int[]</code>, <code>long[]</code> and
+ * <code>double[]</code> fields.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlinePrimitiveArrayTest {
+
+	@Command(name = "fetch", description = "fetch records by id")
+	public static class FetchCommand {
+
+		@Option(name = "--range", arity = 2)
+		public int[] range;
+
+		@Option(name = { "-i", "--id" })
+		public long[] ids;
+
+		@Option(name = "--weight")
+		public double[] weights;
+
+		@Arguments
+		public int[] numbers;
+
+	}
+
+	private static Outline getOutline() {
+		return new Outline("fetch").withCommands(FetchCommand.class).withHelpOnIncorrectArguments(false);
+	}
+
+	@Test
+	public void testBinding() {
+		FetchCommand command = (FetchCommand) getOutline().parse("fetch --range 10 -20 -i 5 --id=-7 -i9223372036854775807 --weight 0.5 --weight=1e3 1 +2 -2147483648".split(" "));
+		Assert.assertArrayEquals(new int[] { 10, -20 }, command.range);
+		Assert.assertArrayEquals(new long[] { 5, -7, Long.MAX_VALUE }, command.ids);
+		Assert.assertArrayEquals(new double[] { 0.5, 1000 }, command.weights, 0);
+		Assert.assertArrayEquals(new int[] { 1, 2, Integer.MIN_VALUE }, command.numbers);
+
+		// single values, and a tokenized command line
+		command = (FetchCommand) getOutline().compile().parse(OutlineCommandLine.tokenize("fetch --id 42 7"));
+		Assert.assertArrayEquals(new long[] { 42 }, command.ids);
+		Assert.assertArrayEquals(new int[] { 7 }, command.numbers);
+		Assert.assertNull(command.range);
+		Assert.assertNull(command.weights);
+	}
+
+	@Test
+	public void testInvalidNumbers() {
+		assertInvalid("fetch --range 1 x", 3, "x");
+		assertInvalid("fetch --range 1 2147483648", 3, "2147483648");
+		assertInvalid("fetch --id=9223372036854775808", 1, "--id=9223372036854775808");
+		assertInvalid("fetch -i-", 1, "-i-");
+		assertInvalid("fetch --weight 1.2.3", 2, "1.2.3");
+		assertInvalid("fetch 1 2 0x3", 3, "0x3");
+	}
+
+	@Test
+	public void testResult() {
+		OutlineParser parser = getOutline().compile();
+		OutlineParseResult result = OutlineArgumentParser.parse("fetch -i 1 --id 2 -i 3 4 5".split(" "), parser.getMetadata());
+
+		Assert.assertArrayEquals(new long[] { 1, 2, 3 }, (long[]) result.getOptionValueArray(OptionType.COMMAND, Arrays.asList("-i"), long[].class));
+		Assert.assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) result.getOptionValueArray(OptionType.COMMAND, Arrays.asList("-i"), int[].class));
+		Assert.assertNull(result.getOptionValueArray(OptionType.COMMAND, Arrays.asList("--range"), int[].class));
+		Assert.assertArrayEquals(new double[] { 5 }, (double[]) result.getArgumentArray(1, double[].class), 0);
+		Assert.assertNull(result.getArgumentArray(2, int[].class));
+
+		try {
+			result.getArgumentArray(0, String[].class);
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+
+		// values that are already strings go through the converter
+		Assert.assertArrayEquals(new int[] { 3, -4 }, (int[]) OutlineBinder.converters.get(int[].class).convertFrom(null, null, Arrays.asList("3", "-4")));
+	}
+
+	@Test
+	public void testManyValues() {
+		List<String> args = new ArrayList<>();
+		args.add("fetch");
+		for(int index = 0; index < 50000; index++) {
+			args.add("-i");
+			args.add(String.valueOf(index * 1000003L));
+		}
+
+		FetchCommand command = (FetchCommand) getOutline().parse(args.toArray(new String[args.size()]));
+		Assert.assertEquals(50000, command.ids.length);
+		Assert.assertEquals(49999 * 1000003L, command.ids[49999]);
+	}
+
+	private static void assertInvalid(String line, int position, String argument) {
+		try {
+			getOutline().parse(line.split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals(position, e.positionIndex);
+			Assert.assertEquals(argument, e.argument);
+			Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+		}
+	}
+
+}
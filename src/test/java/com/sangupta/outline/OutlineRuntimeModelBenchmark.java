@@ -0,0 +1,71 @@
+package com.sangupta.outline;
+
+import com.sangupta.outline.OutlineTestSupport.AllOptionCommand;
+import com.sangupta.outline.parser.OutlineArgumentParser;
+import com.sangupta.outline.parser.OutlineParseResult;
+import com.sangupta.outline.spec.CommandSpec;
+
+/**
+ * Benchmark for binding a parse result to a command of 19 options, via
+ * reflection and via the model built at runtime, for a command line that
+ * sets a few of the options and for one that sets all of them. Also prints
+ * the time taken to build the model on first use.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.OutlineRuntimeModelBenchmark 2000000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineRuntimeModelBenchmark {
+
+	private static final String[] LINES = {
+		"population-check -i 23 -s hello",
+		"population-check -bo true -bo2 true -i 23 -i2 46 -d 29.94 -d2 49.94 -f 67.67 -f2 69.69 -l 123 -l2 1234 -short 12 -short2 24 -b 54 -b2 108 -c a -c2 x -s hello -stringArray sa1 sa2 sa3 sa4 sa5"
+	};
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+
+		OutlineMetadata metadata = new Outline("git").withCommands(AllOptionCommand.class).withHelpOnIncorrectArguments(false).compile().getMetadata();
+		CommandSpec spec = metadata.commandNames.get("population-check");
+
+		long start = System.nanoTime();
+		OutlineRuntimeModel model = new OutlineRuntimeModel(AllOptionCommand.class, spec);
+		System.out.println("Build: " + ((System.nanoTime() - start) / 1000) + " us");
+
+		long sink = 0;
+		for(int round = 0; round < 2; round++) {
+			for(String line : LINES) {
+				OutlineParseResult result = OutlineArgumentParser.parse(line.split(" "), metadata);
+
+				start = System.nanoTime();
+				for(int index = 0; index < iterations; index++) {
+					AllOptionCommand command = new AllOptionCommand();
+					OutlineBinder.bindInstanceToProperties(AllOptionCommand.class, spec, command, result);
+					sink += command.integer;
+				}
+				long reflection = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				for(int index = 0; index < iterations; index++) {
+					AllOptionCommand command = new AllOptionCommand();
+					model.bind(command, result);
+					sink += command.integer;
+				}
+				long runtime = System.nanoTime() - start;
+
+				if(round > 0) {
+					System.out.println(result.getOptionCount() + " options: reflection " + (reflection / iterations) + " ns/op, runtime model " + (runtime / iterations) + " ns/op");
+				}
+			}
+		}
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.sangupta.outline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AllOptionCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.exceptions.OutlineInvalidConfigurationException;
+import com.sangupta.outline.exceptions.OutlineRequiredOptionMissingException;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.spec.ArgumentSpec;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for binding commands via models built at runtime.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineRuntimeModelTest {
+
+	/**
+	 * A command without annotations, and so without a generated model.
+	 */
+	public static class DeployCommand {
+
+		public String env;
+
+		public int count;
+
+		public String version;
+
+		public String[] rest;
+
+	}
+
+	private static Outline getDeployOutline(String field) {
+		CommandSpec spec = CommandSpec.builder("deploy")
+				.withOption(OptionSpec.builder("-e", "--env").withRequired(true).withField(field, String.class).build())
+				.withOption(OptionSpec.builder("-n").withField("count", int.class).build())
+				.withArgument(ArgumentSpec.builder(0).withField("version", String.class).build())
+				.withArgument(ArgumentSpec.remainingBuilder().withField("rest", String[].class).build())
+				.build();
+
+		return new Outline("ops").withCommand(DeployCommand.class, spec).withHelpOnIncorrectArguments(false).withRuntimeModels(true);
+	}
+
+	@Test
+	public void testBinding() {
+		OutlineParser parser = getDeployOutline("env").compile();
+		Assert.assertTrue(parser.getMetadata().runtimeModelCache.isEmpty());
+
+		DeployCommand command = (DeployCommand) parser.parse("deploy --env prod -n 3 1.0 a b".split(" "));
+		Assert.assertEquals("prod", command.env);
+		Assert.assertEquals(3, command.count);
+		Assert.assertEquals("1.0", command.version);
+		Assert.assertArrayEquals(new String[] { "a", "b" }, command.rest);
+
+		// built once, on first use of the command
+		Object model = parser.getMetadata().runtimeModelCache.get("deploy");
+		Assert.assertTrue(model instanceof OutlineRuntimeModel);
+
+		command = (DeployCommand) parser.parse("deploy -e dev".split(" "));
+		Assert.assertSame(model, parser.getMetadata().runtimeModelCache.get("deploy"));
+		Assert.assertEquals("dev", command.env);
+		Assert.assertEquals(0, command.count);
+		Assert.assertNull(command.version);
+		Assert.assertNull(command.rest);
+
+		try {
+			parser.parse("deploy -n 3 1.0".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineRequiredOptionMissingException e) {
+			Assert.assertEquals("-e", e.argument);
+		}
+
+		// off by default
+		parser = getDeployOutline("env").withRuntimeModels(false).compile();
+		command = (DeployCommand) parser.parse("deploy --env prod 1.0".split(" "));
+		Assert.assertEquals("prod", command.env);
+		Assert.assertTrue(parser.getMetadata().runtimeModelCache.isEmpty());
+	}
+
+	@Test
+	public void testFallback() {
+		// the spec names a field that the class does not have
+		OutlineParser parser = getDeployOutline("missing").compile();
+
+		try {
+			parser.parse("deploy --env prod".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidConfigurationException e) {
+			Assert.assertEquals("missing", e.field);
+		}
+
+		Assert.assertSame(OutlineRuntimeModel.UNAVAILABLE, parser.getMetadata().runtimeModelCache.get("deploy"));
+	}
+
+	@Test
+	public void testAnnotatedBinding() {
+		String[] args = "-g1 op1 -g2 op2 op3 remote -gr1 op4 -gr2 op5 op6 remote-add -c1 op7 -c2 op8 op9 arg1 arg2 arg3 arg4".split(" ");
+		RemoteAddCommand command = (RemoteAddCommand) OutlineTestSupport.getOutline().withRuntimeModels(true).parse(args);
+		RemoteAddCommand expected = (RemoteAddCommand) OutlineTestSupport.getOutline().parse(args);
+		Assert.assertEquals(expected.g1, command.g1);
+		Assert.assertArrayEquals(expected.g2, command.g2);
+		Assert.assertEquals(expected.gr1, command.gr1);
+		Assert.assertArrayEquals(expected.gr2, command.gr2);
+		Assert.assertEquals(expected.c1, command.c1);
+		Assert.assertArrayEquals(expected.c2, command.c2);
+		Assert.assertEquals("arg1", command.a1);
+		Assert.assertEquals("arg2", command.a2);
+		Assert.assertArrayEquals(new String[] { "arg3", "arg4" }, command.a3);
+	}
+
+	@Test
+	public void testAllTypes() {
+		String[] args = "population-check -bo true -i 23 -i2 46 -d 29.94 -l 123 -l2 1234 -c a -s hello -stringArray sa1 sa2 sa3 sa4 sa5".split(" ");
+		AllOptionCommand command = (AllOptionCommand) OutlineTestSupport.getOutline().withRuntimeModels(true).parse(args);
+		AllOptionCommand expected = (AllOptionCommand) OutlineTestSupport.getOutline().parse(args);
+
+		Assert.assertEquals(expected.bool, command.bool);
+		Assert.assertEquals(expected.bool2, command.bool2);
+		Assert.assertEquals(expected.integer, command.integer);
+		Assert.assertEquals(expected.integer2, command.integer2);
+		Assert.assertEquals(expected.dbl, command.dbl, 0.0d);
+		Assert.assertEquals(expected.lng, command.lng);
+		Assert.assertEquals(expected.lng2, command.lng2);
+		Assert.assertEquals(expected.chr, command.chr);
+		Assert.assertEquals(expected.strng, command.strng);
+		Assert.assertEquals(expected.flt2, command.flt2);
+		Assert.assertArrayEquals(expected.multiString, command.multiString);
+	}
+
+	@Test
+	public void testRequiredOption() {
+		Outline outline = new Outline("ping").withCommands(PingCommandSupport.class).withRuntimeModels(true);
+
+		PingCommandSupport command = (PingCommandSupport) outline.parse("-g2 value ping -c1 hello a b c d".split(" "));
+		Assert.assertEquals("value", command.g2);
+		Assert.assertEquals("hello", command.c1);
+		Assert.assertEquals("a", command.a1);
+		Assert.assertEquals("b", command.a2);
+		Assert.assertArrayEquals(new String[] { "c", "d" }, command.a3);
+		Assert.assertNotNull(command.helpCommand);
+		Assert.assertNull(command.helpFile);
+
+		// missing required option shows help
+		Object instance = outline.parse("ping -c1 hello".split(" "));
+		Assert.assertTrue(instance instanceof OutlineHelp);
+
+		try {
+			outline.withHelpOnIncorrectArguments(false).parse("ping -c1 hello".split(" "));
+			Assert.assertTrue(false);
+		} catch(OutlineRequiredOptionMissingException e) {
+			Assert.assertEquals("-g2", e.argument);
+		}
+	}
+
+}
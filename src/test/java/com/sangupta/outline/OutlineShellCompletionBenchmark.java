@@ -0,0 +1,82 @@
+package com.sangupta.outline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.sangupta.outline.OutlineShellCompletion.Shell;
+
+/**
+ * Benchmark for the <code>bash</code> completion script of a tool with 600
+ * commands: the time taken to source the script into a fresh shell, and to
+ * complete a token once it is loaded. Needs <code>bash</code> on the path.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.OutlineShellCompletionBenchmark 20
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineShellCompletionBenchmark {
+
+	private static final int COMPLETIONS = 1000;
+
+	private static final String COMPLETE = "for i in $(seq " + COMPLETIONS + "); do COMP_WORDS=(bench command-420 --option-3 x --env ''); COMP_CWORD=5; _outline_bench; done";
+
+	public static void main(String[] args) throws Exception {
+		int launches = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+		Outline outline = OutlineTestSupport.getLargeOutline();
+
+		long start = System.nanoTime();
+		String script = OutlineShellCompletion.generate(outline, Shell.BASH);
+		System.out.println("Generated " + script.length() + " chars in " + ((System.nanoTime() - start) / 1000) + " us");
+
+		File file = File.createTempFile("outline-benchmark", ".bash");
+		try {
+			try(OutputStream stream = new FileOutputStream(file)) {
+				stream.write(script.getBytes(StandardCharsets.UTF_8));
+			}
+
+			String source = "source " + OutlineShellCompletion.quote(file.getAbsolutePath());
+
+			// warm up the OS file caches
+			launch(":", 2);
+			launch(source, 2);
+
+			long empty = launch(":", launches);
+			long loaded = launch(source, launches);
+			long completed = launch(source + "; " + COMPLETE, launches);
+
+			System.out.println("Launches: " + launches);
+			System.out.println("Source the script:  " + ((loaded - empty) / launches / 1000) + " us");
+			System.out.println("Complete a token:   " + ((completed - loaded) / launches / COMPLETIONS / 1000) + " us");
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Run the given command in the given number of fresh shells, and return
+	 * the total wall-clock time in nanoseconds.
+	 *
+	 */
+	private static long launch(String command, int launches) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		for(int index = 0; index < launches; index++) {
+			Process process = new ProcessBuilder("bash", "-c", command).inheritIO().start();
+			if(process.waitFor() != 0) {
+				throw new IllegalStateException("Shell failed for: " + command);
+			}
+		}
+
+		return System.nanoTime() - start;
+	}
+
+}
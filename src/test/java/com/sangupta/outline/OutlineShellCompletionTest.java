@@ -0,0 +1,174 @@
+package com.sangupta.outline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineShellCompletion.Shell;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for the completion scripts written by {@link OutlineShellCompletion}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineShellCompletionTest {
+
+	public static class DeployCommand {
+
+		public String value;
+
+	}
+
+	private static final String[] LINES = {
+		"",
+		"re",
+		"--global1 x ",
+		"--global2 x y r",
+		"remote ",
+		"remote -gr2 a b remote-add -",
+		"remote remote-add -c2 x ",
+		"remote remote-add arg -",
+		"remote remote-remove -",
+		"help ",
+		"help remote ",
+		"remote help ",
+		"deploy ",
+		"deploy --env ",
+		"deploy --env p",
+		"deploy --env=s",
+		"deploy -e=prod --z",
+		"deploy --zone a --",
+		"deploy --secret x -",
+		"unknown -",
+		"-- "
+	};
+
+	private static Outline getOutline() {
+		CommandSpec deploy = CommandSpec.builder("deploy")
+				.withOption(OptionSpec.builder("--env", "-e").withType(OptionType.COMMAND).withAllowedValues("prod", "preview", "staging").withField("value", String.class).build())
+				.withOption(OptionSpec.builder("--zone").withType(OptionType.COMMAND).withArity(2).withAllowedValues("a", "b").withField("value", String.class).build())
+				.withOption(OptionSpec.builder("--secret").withType(OptionType.COMMAND).withHidden(true).withField("value", String.class).build())
+				.build();
+
+		return OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false).withCommand(DeployCommand.class, deploy);
+	}
+
+	@Test
+	public void testScripts() {
+		Outline outline = getOutline();
+
+		String bash = OutlineShellCompletion.generate(outline, Shell.BASH);
+		Assert.assertTrue(bash.contains("\t'command:1')\n\t\tcase \"$1\" in\n\t\t'--env'|'-e') skip=1 values='prod preview staging' ;;\n"));
+		Assert.assertTrue(bash.contains("\t'global') candidates='--global --global1 --global2 -g1 -g2 add deploy help population-check remote reset' ;;\n"));
+		Assert.assertTrue(bash.contains("\t'group:remote') candidates='-gr1 -gr2 help remote-add remote-remove' ;;\n"));
+
+		// commands with the same options share their scope
+		Assert.assertTrue(bash.contains("\t'add'|'remote-remove'|'reset') scope='command:0' ;;\n"));
+		Assert.assertTrue(bash.endsWith("complete -o default -F _outline_git 'git'\n"));
+
+		String zsh = OutlineShellCompletion.generate(outline, Shell.ZSH);
+		Assert.assertTrue(zsh.contains("\t'help:remote') candidates='remote-add remote-remove' ;;\n"));
+		Assert.assertTrue(zsh.endsWith("compdef _outline_git 'git'\n"));
+
+		String fish = OutlineShellCompletion.generate(outline, Shell.FISH);
+		Assert.assertTrue(fish.contains("\t\t\t\tcase ':--env' ':-e'\n\t\t\t\t\tset -g _outline_git_skip 1\n\t\t\t\t\tset -g _outline_git_values 'prod' 'preview' 'staging'\n"));
+		Assert.assertTrue(fish.contains("\t\tcase 'command:1'\n\t\t\tprintf '%s\\n' '--env' '--zone' '-e'\n"));
+		Assert.assertTrue(fish.endsWith("complete -c 'git' -f -a '(_outline_git_complete)'\n"));
+
+		// names are quoted for the shell
+		Assert.assertEquals("'it'\\''s'", OutlineShellCompletion.quote("it's"));
+		Assert.assertEquals("'it\\'s \\\\'", OutlineShellCompletion.fishQuote("it's \\"));
+	}
+
+	@Test
+	public void testBashMatchesCompleter() throws IOException, InterruptedException {
+		if(!new File("/bin/bash").canExecute()) {
+			return;
+		}
+
+		Outline outline = getOutline();
+
+		// complete each line in a single shell, each reply on a line of its own
+		StringBuilder script = new StringBuilder(OutlineShellCompletion.generate(outline, Shell.BASH));
+		for(String line : LINES) {
+			script.append("COMP_WORDS=(git");
+			for(String word : split(line)) {
+				script.append(' ').append(OutlineShellCompletion.quote(word));
+			}
+
+			script.append(")\nCOMP_CWORD=").append(split(line).length).append("\n_outline_git\necho \"${COMPREPLY[*]}\"\n");
+		}
+
+		List<String> replies = run(script.toString());
+		Assert.assertEquals(LINES.length, replies.size());
+
+		for(int index = 0; index < LINES.length; index++) {
+			String[] words = LINES[index].split(" ", -1);
+			List<String> expected = outline.complete(words, words.length - 1);
+			Assert.assertEquals(LINES[index], join(expected), replies.get(index));
+		}
+	}
+
+	/**
+	 * Split the line into words as <code>bash</code> does, with the word under
+	 * the cursor last, and <code>=</code> a word of its own.
+	 *
+	 */
+	private static String[] split(String line) {
+		List<String> words = new ArrayList<>();
+		for(String word : line.split(" ", -1)) {
+			int equals = word.indexOf('=');
+			if(equals > 0) {
+				words.add(word.substring(0, equals));
+				words.add("=");
+				word = word.substring(equals + 1);
+			}
+
+			words.add(word);
+		}
+
+		return words.toArray(new String[words.size()]);
+	}
+
+	private static String join(List<String> words) {
+		StringBuilder builder = new StringBuilder();
+		for(String word : words) {
+			if(builder.length() > 0) {
+				builder.append(' ');
+			}
+
+			// bash completes the value after the split off =
+			builder.append(word.substring(word.indexOf('=') + 1));
+		}
+
+		return builder.toString();
+	}
+
+	private static List<String> run(String script) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder("/bin/bash", "-c", script).redirectErrorStream(true).start();
+		InputStream stream = process.getInputStream();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while((read = stream.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+
+		Assert.assertEquals(0, process.waitFor());
+		return Arrays.asList(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n", -1)).subList(0, LINES.length);
+	}
+
+}
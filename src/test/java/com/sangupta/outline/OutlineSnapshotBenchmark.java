@@ -0,0 +1,116 @@
+package com.sangupta.outline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup benchmark that compares cold launches of a JVM that compiles an
+ * {@link Outline} and parses one command line, with and without a metadata
+ * snapshot. Each launch is a fresh JVM so that class loading and reflection
+ * costs are included.
+ * 
+ * Run with the test classpath, say:
+ * 
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.OutlineSnapshotBenchmark 20
+ * </pre>
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineSnapshotBenchmark {
+	
+	public static void main(String[] args) throws Exception {
+		int launches = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		
+		File snapshot = File.createTempFile("outline-benchmark", ".snapshot");
+		snapshot.delete();
+		
+		try {
+			// warm up the OS file caches, and write the snapshot once
+			launch("-");
+			launch(snapshot.getAbsolutePath());
+			
+			long[] without = run(launches, "-");
+			long[] with = run(launches, snapshot.getAbsolutePath());
+			
+			System.out.println("Launches per mode: " + launches);
+			System.out.println("Without snapshot: wall-clock " + (without[0] / launches / 1000) + " us, compile " + (without[1] / launches / 1000) + " us");
+			System.out.println("With snapshot:    wall-clock " + (with[0] / launches / 1000) + " us, compile " + (with[1] / launches / 1000) + " us");
+		} finally {
+			snapshot.delete();
+		}
+	}
+	
+	/**
+	 * Run the given number of launches and return the total wall-clock time, and
+	 * the total time spent compiling the outline, both in nanoseconds.
+	 * 
+	 */
+	private static long[] run(int launches, String snapshot) throws IOException, InterruptedException {
+		long[] totals = new long[2];
+		for(int index = 0; index < launches; index++) {
+			long start = System.nanoTime();
+			long compile = launch(snapshot);
+			totals[0] += System.nanoTime() - start;
+			totals[1] += compile;
+		}
+		
+		return totals;
+	}
+
+	private static long launch(String snapshot) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Launch.class.getName());
+		command.add(snapshot);
+		
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		
+		String last = null;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				last = line;
+			}
+		}
+		
+		if(process.waitFor() != 0) {
+			throw new IllegalStateException("Launch failed: " + last);
+		}
+		
+		return Long.parseLong(last.trim());
+	}
+	
+	/**
+	 * The program that is launched in each JVM - prints the nanoseconds spent in
+	 * compiling the outline on the last line.
+	 * 
+	 */
+	public static class Launch {
+		
+		public static void main(String[] args) {
+			long start = System.nanoTime();
+			
+			Outline outline = OutlineTestSupport.getOutline();
+			if(!"-".equals(args[0])) {
+				outline.withMetadataSnapshot(new File(args[0]));
+			}
+			
+			outline.create();
+			long elapsed = System.nanoTime() - start;
+			
+			outline.parse("-g1 op1 remote -gr1 op4 remote-add -c1 op7 arg1 arg2 arg3".split(" "));
+			System.out.println(elapsed);
+		}
+		
+	}
+
+}
@@ -21,6 +21,10 @@
  
 package com.sangupta.outline;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 import com.sangupta.outline.Outline;
 import com.sangupta.outline.annotations.Argument;
 import com.sangupta.outline.annotations.Arguments;
@@ -28,6 +32,8 @@ import com.sangupta.outline.annotations.Command;
 import com.sangupta.outline.annotations.Option;
 import com.sangupta.outline.annotations.OptionType;
 import com.sangupta.outline.cmdfactory.OutlineDefaultCommandFactory;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
 
 public class OutlineTestSupport {
 	
@@ -48,6 +54,76 @@ public class OutlineTestSupport {
         
         return outline;
 	}
+	
+	/**
+	 * A tool with 600 commands of which a third are spread over 20 groups, and
+	 * 12 options each, one of which has allowed values.
+	 * 
+	 */
+	public static Outline getLargeOutline() {
+		byte[] bytes = readClass(LargeCommand.class);
+		
+		Outline outline = new Outline("bench").withHelpKeyword("help").withHelpOnIncorrectArguments(false);
+		for(int index = 0; index < 600; index++) {
+			CommandSpec.Builder builder = CommandSpec.builder("command-" + index).withDescription("command " + index);
+			if(index % 3 == 0) {
+				builder.withGroup("group-" + (index % 20));
+				builder.withOption(OptionSpec.builder("--region").withType(OptionType.GROUP).withAllowedValues("us-east", "us-west", "eu-central").withField("value", String.class).build());
+			}
+			
+			for(int option = 0; option < 11; option++) {
+				builder.withOption(OptionSpec.builder("--option-" + option, "-o" + option).withField("value", String.class).build());
+			}
+			
+			builder.withOption(OptionSpec.builder("--env").withAllowedValues("prod", "preview", "staging", "dev").withField("value", String.class).build());
+			outline.withCommand(new LargeCommandLoader(bytes).define(), builder.build());
+		}
+		
+		return outline;
+	}
+	
+	private static byte[] readClass(Class<?> type) {
+		try(InputStream stream = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = stream.read(buffer)) != -1) {
+				bytes.write(buffer, 0, read);
+			}
+			
+			return bytes.toByteArray();
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * The command of the large outline, which is loaded once for each command
+	 * as the specs of an {@link Outline} are keyed by the class.
+	 */
+	public static class LargeCommand {
+		
+		public String value;
+		
+	}
+	
+	/**
+	 * Defines its own copy of {@link LargeCommand}.
+	 */
+	private static class LargeCommandLoader extends ClassLoader {
+		
+		private final byte[] bytes;
+		
+		LargeCommandLoader(byte[] bytes) {
+			super(LargeCommand.class.getClassLoader());
+			this.bytes = bytes;
+		}
+		
+		Class<?> define() {
+			return this.defineClass(LargeCommand.class.getName(), this.bytes, 0, this.bytes.length);
+		}
+		
+	}
     
     public static abstract class GlobalCommand {
     	
@@ -0,0 +1,48 @@
+package com.sangupta.outline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.OutlineTestSupport.ResetCommand;
+
+/**
+ * Tests for training an {@link Outline} ahead of creating a class-data sharing
+ * archive.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineTrainerTest {
+	
+	@Test
+	public void testTrainLoadsAllCommands() {
+		Outline outline = new Outline("git");
+		outline.withCommand("add", AddCommand.class.getName());
+		outline.withCommand("reset", ResetCommand.class.getName());
+		outline.withGroup("remote").withCommand("remote-add", RemoteAddCommand.class.getName());
+		
+		OutlineMetadata metadata = outline.compile().getMetadata();
+		Assert.assertTrue(metadata.commandClasses.isEmpty());
+		
+		// general help, plus help and a bare parse per command, plus the samples
+		int invocations = outline.train("remote remote-add -c1 op1 arg1".split(" "), "unknown-command --bogus".split(" "));
+		Assert.assertEquals(1 + 3 * 2 + 2, invocations);
+		
+		Assert.assertEquals(AddCommand.class, metadata.commandClasses.get("add"));
+		Assert.assertEquals(ResetCommand.class, metadata.commandClasses.get("reset"));
+		Assert.assertEquals(RemoteAddCommand.class, metadata.commandClasses.get("remote-add"));
+		
+		// the outline is not modified by training
+		Assert.assertSame(metadata, outline.compile().getMetadata());
+	}
+	
+	@Test
+	public void testTrainSingleCommand() {
+		Outline outline = new Outline(AddCommand.class);
+		Assert.assertEquals(1, outline.train());
+		Assert.assertEquals(2, outline.train(new String[0], null, "-c1 value".split(" ")));
+	}
+	
+}
@@ -0,0 +1,190 @@
+package com.sangupta.outline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Startup benchmark that compares the time-to-first-parse of cold launches of
+ * a JVM, with and without an AppCDS archive created by training the outline
+ * via {@link Outline#train(String[]...)}. Each launch is a fresh JVM, and the
+ * time is measured from JVM start until the first parse has completed.
+ * 
+ * Requires a JDK 13 or later, as older JDKs cannot create a dynamic archive
+ * via <code>-XX:ArchiveClassesAtExit</code>. As class-data sharing archives
+ * classes only from JAR files, all directories on the classpath are first
+ * packaged into temporary JAR files. Run with the test classpath, say:
+ * 
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.OutlineTrainingBenchmark 20
+ * </pre>
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineTrainingBenchmark {
+	
+	private static final String SAMPLE = "-g1 op1 remote -gr1 op4 remote-add -c1 op7 arg1 arg2 arg3";
+	
+	public static void main(String[] args) throws Exception {
+		int launches = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		
+		File folder = Files.createTempDirectory("outline-training").toFile();
+		File archive = new File(folder, "outline.jsa");
+		
+		try {
+			String classpath = packageClasspath(folder);
+			
+			// train once to create the archive
+			launch(classpath, "-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath(), "train");
+			if(!archive.exists()) {
+				throw new IllegalStateException("Archive was not created - is this JDK 13 or later?");
+			}
+			
+			// warm up the OS file caches
+			launch(classpath, "-Xshare:auto", "run");
+			launch(classpath, "-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "run");
+			
+			long[] without = run(launches, classpath, "-Xshare:auto");
+			long[] with = run(launches, classpath, "-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+			
+			System.out.println("Launches per mode: " + launches);
+			System.out.println("Without archive: wall-clock " + (without[0] / launches / 1000) + " us, time-to-first-parse " + (without[1] / launches) + " ms");
+			System.out.println("With archive:    wall-clock " + (with[0] / launches / 1000) + " us, time-to-first-parse " + (with[1] / launches) + " ms");
+		} finally {
+			for(File file : folder.listFiles()) {
+				file.delete();
+			}
+			
+			folder.delete();
+		}
+	}
+	
+	/**
+	 * Run the given number of launches and return the total wall-clock time in
+	 * nanoseconds, and the total time-to-first-parse in milliseconds.
+	 * 
+	 */
+	private static long[] run(int launches, String classpath, String option) throws IOException, InterruptedException {
+		long[] totals = new long[2];
+		for(int index = 0; index < launches; index++) {
+			long start = System.nanoTime();
+			long firstParse = launch(classpath, option, "run");
+			totals[0] += System.nanoTime() - start;
+			totals[1] += firstParse;
+		}
+		
+		return totals;
+	}
+	
+	private static long launch(String classpath, String option, String mode) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add(option);
+		command.add("-cp");
+		command.add(classpath);
+		command.add(Launch.class.getName());
+		command.add(mode);
+		
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		
+		String last = null;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				// the JVM may log class-data sharing warnings after our output
+				if(line.trim().matches("\\d+")) {
+					last = line;
+				}
+			}
+		}
+		
+		if(process.waitFor() != 0 || last == null) {
+			throw new IllegalStateException("Launch failed with option: " + option);
+		}
+		
+		return Long.parseLong(last.trim());
+	}
+	
+	/**
+	 * Package every directory on the current classpath into a JAR file in the
+	 * given folder, and return the resulting classpath.
+	 * 
+	 */
+	private static String packageClasspath(File folder) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		for(int index = 0; index < entries.length; index++) {
+			File entry = new File(entries[index]);
+			if(entry.isDirectory()) {
+				File jar = new File(folder, "classpath-" + index + ".jar");
+				try(JarOutputStream stream = new JarOutputStream(new FileOutputStream(jar))) {
+					addToJar(stream, entry, "");
+				}
+				
+				entry = jar;
+			}
+			
+			if(builder.length() > 0) {
+				builder.append(File.pathSeparator);
+			}
+			
+			builder.append(entry.getAbsolutePath());
+		}
+		
+		return builder.toString();
+	}
+	
+	private static void addToJar(JarOutputStream stream, File folder, String prefix) throws IOException {
+		for(File file : folder.listFiles()) {
+			String name = prefix + file.getName();
+			if(file.isDirectory()) {
+				stream.putNextEntry(new JarEntry(name + "/"));
+				stream.closeEntry();
+				
+				addToJar(stream, file, name + "/");
+				continue;
+			}
+			
+			stream.putNextEntry(new JarEntry(name));
+			Files.copy(file.toPath(), stream);
+			stream.closeEntry();
+		}
+	}
+	
+	/**
+	 * The program that is launched in each JVM - either trains the outline, or
+	 * parses one command line and prints the milliseconds elapsed since JVM start
+	 * on the last line.
+	 * 
+	 */
+	public static class Launch {
+		
+		public static void main(String[] args) {
+			Outline outline = OutlineTestSupport.getOutline();
+			
+			if("train".equals(args[0])) {
+				outline.train(SAMPLE.split(" "));
+				System.out.println(0);
+				return;
+			}
+			
+			outline.parse(SAMPLE.split(" "));
+			long done = System.currentTimeMillis();
+			
+			System.out.println(done - ManagementFactory.getRuntimeMXBean().getStartTime());
+		}
+		
+	}
+
+}
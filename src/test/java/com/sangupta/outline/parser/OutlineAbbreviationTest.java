@@ -0,0 +1,159 @@
+package com.sangupta.outline.parser;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for resolving abbreviated long options.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineAbbreviationTest {
+
+	@Command(name = "build", description = "build things")
+	public static class BuildCommand {
+
+		@Option(name = { "-v", "--verbose" }, arity = 0)
+		public String verbose;
+
+		@Option(name = "--version", arity = 0)
+		public String version;
+
+		@Option(name = { "--file", "--filename" })
+		public String file;
+
+		@Option(name = "--force", arity = 0)
+		public String force;
+
+		@Option(name = "--pair", arity = 2)
+		public String[] pair;
+
+		@Arguments
+		public String[] args;
+
+	}
+
+	public static class ManyCommand {
+
+		public String name;
+
+	}
+
+	private static Outline getOutline() {
+		return new Outline("make").withCommands(BuildCommand.class).withHelpOnIncorrectArguments(false).withAbbreviations(true);
+	}
+
+	@Test
+	public void testAbbreviations() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("build --verb --vers --fo --fil x --pa a b arg".split(" "), metadata);
+		Assert.assertEquals(5, result.getOptionCount());
+		Assert.assertEquals("-v", result.getOption(0).name);
+		Assert.assertEquals("--version", result.getOption(1).name);
+		Assert.assertEquals("--force", result.getOption(2).name);
+		Assert.assertEquals(Arrays.asList("x"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("--file")));
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("--pair")));
+		Assert.assertEquals(Arrays.asList("arg"), result.getArguments());
+
+		// with attached values, and through binding
+		BuildCommand command = getOutline().parse("build --fi=out --p=a b".split(" "));
+		Assert.assertEquals("out", command.file);
+		Assert.assertArrayEquals(new String[] { "a", "b" }, command.pair);
+
+		// prefixes of other options are arguments, as are unknown ones
+		result = OutlineArgumentParser.parse("build --x --verbo=true -verb".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("--x", "--verbo=true", "-verb"), result.getArguments());
+	}
+
+	@Test
+	public void testAmbiguity() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		String[][] ambiguous = {
+			{ "--ver", "--verbose", "--version" },
+			{ "--f", "--file", "--filename", "--force" },
+			{ "--f=x", "--file", "--filename", "--force" }
+		};
+
+		for(String[] expected : ambiguous) {
+			try {
+				OutlineArgumentParser.parse(new String[] { "build", expected[0] }, metadata);
+				Assert.assertTrue(false);
+			} catch(OutlineInvalidArgumentException e) {
+				Assert.assertEquals(expected[0], e.argument);
+				Assert.assertEquals(1, e.positionIndex);
+				Assert.assertEquals(Arrays.asList(expected).subList(1, expected.length), e.candidates);
+			}
+		}
+
+		// both names of the same option are not ambiguous
+		OutlineParseResult result = OutlineArgumentParser.parse("build --fil x".split(" "), metadata);
+		Assert.assertEquals("--file", result.getOption(0).name);
+	}
+
+	@Test
+	public void testScopesAndOptIn() {
+		Outline outline = OutlineTestSupport.getOutline().withAbbreviations(true);
+		OutlineMetadata metadata = outline.compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("--global2 x y remote-add".split(" "), metadata);
+		Assert.assertEquals(1, result.getOptionCount());
+
+		try {
+			OutlineArgumentParser.parse("--glob add".split(" "), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals(Arrays.asList("--global", "--global1", "--global2"), e.candidates);
+		}
+
+		// not enabled by default
+		metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		result = OutlineArgumentParser.parse("remote remote-add --verb".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("--verb"), result.getArguments());
+	}
+
+	@Test
+	public void testManyOptions() {
+		CommandSpec.Builder builder = CommandSpec.builder("many");
+		for(int index = 0; index < 5000; index++) {
+			builder.withOption(OptionSpec.builder("--option-" + index + "-name").withType(OptionType.COMMAND).withField("name", String.class).build());
+		}
+
+		Outline outline = new Outline("many").withCommand(ManyCommand.class, builder.build()).withAbbreviations(true);
+		OutlineMetadata metadata = outline.compile().getMetadata();
+
+		for(int index = 0; index < 5000; index += 7) {
+			OutlineParseResult result = OutlineArgumentParser.parse(new String[] { "many", "--option-" + index + "-", "value" }, metadata);
+			Assert.assertEquals("--option-" + index + "-name", result.getOption(0).name);
+		}
+
+		try {
+			OutlineArgumentParser.parse("many --option-42".split(" "), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals(111, e.candidates.size());
+			Assert.assertEquals("--option-42-name", e.candidates.get(0));
+		}
+
+		ManyCommand command = outline.parse("many --option-4999 last".split(" "));
+		Assert.assertEquals("last", command.name);
+	}
+
+}
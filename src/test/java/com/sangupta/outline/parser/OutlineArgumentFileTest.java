@@ -0,0 +1,185 @@
+package com.sangupta.outline.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineTestSupport.AddCommand;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Tests for {@link OutlineArgumentFile} and the expansion of argument files.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineArgumentFileTest {
+	
+	private final File folder;
+	
+	public OutlineArgumentFileTest() throws IOException {
+		this.folder = Files.createTempDirectory("outline-argfiles").toFile();
+	}
+	
+	@Test
+	public void testSyntax() throws IOException {
+		try {
+			File file = this.write("syntax.txt", "# a comment line\n"
+					+ "  plain\ttab\n"
+					+ "'single quoted' \"double quoted\"\n"
+					+ "mixed'quoted part'end # trailing comment\n"
+					+ "\"escapes \\t \\n \\\\ \\\" \\q\"\n"
+					+ "\"continued \\\n      line\"\n"
+					+ "not#comment back\\slash\n"
+					+ "\u00fc\u00f1\u00ed\u00e7\u00f8d\u00e9 \"\u65e5\u672c\u8a9e\"\n"
+					+ "''\n");
+		
+			List<String> expected = Arrays.asList("plain", "tab", "single quoted", "double quoted", "mixedquoted partend",
+					"escapes \t \n \\ \" q", "continued line", "not#comment", "back\\slash", "\u00fc\u00f1\u00ed\u00e7\u00f8d\u00e9", "\u65e5\u672c\u8a9e", "");
+		
+			Assert.assertEquals(expected, read(file, OutlineArgumentFile.DEFAULT_WINDOW));
+		
+			// windows that split multi-byte characters give the same result
+			for(int window = 4; window < 12; window++) {
+				Assert.assertEquals(expected, read(file, window));
+			}
+		} finally {
+			this.cleanup();
+		}
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		try {
+			Assert.assertTrue(read(this.write("empty.txt", ""), OutlineArgumentFile.DEFAULT_WINDOW).isEmpty());
+			Assert.assertTrue(read(this.write("comment.txt", "# only a comment"), OutlineArgumentFile.DEFAULT_WINDOW).isEmpty());
+		} finally {
+			this.cleanup();
+		}
+	}
+	
+	@Test
+	public void testExpansion() throws IOException {
+		try {
+			File inner = this.write("inner.txt", "c d @@literal");
+			File outer = this.write("outer.txt", "b @" + inner.getAbsolutePath() + " e");
+		
+			String[] args = new String[] { "a", "@" + outer.getAbsolutePath(), "@@escaped", "@", "f" };
+			Assert.assertArrayEquals(new String[] { "a", "b", "c", "d", "@literal", "e", "@escaped", "@", "f" }, OutlineArgumentParser.expandArgumentFiles(args));
+		
+			// nothing to expand returns the same array
+			args = new String[] { "a", "b@c" };
+			Assert.assertSame(args, OutlineArgumentParser.expandArgumentFiles(args));
+		
+			// the same file may be included twice, but not within itself
+			Assert.assertArrayEquals(new String[] { "c", "d", "@literal", "c", "d", "@literal" },
+					OutlineArgumentParser.expandArgumentFiles(new String[] { "@" + inner.getAbsolutePath(), "@" + inner.getAbsolutePath() }));
+		} finally {
+			this.cleanup();
+		}
+	}
+	
+	@Test
+	public void testInvalidFiles() throws IOException {
+		try {
+			File missing = new File(this.folder, "missing.txt");
+			try {
+				OutlineArgumentParser.expandArgumentFiles(new String[] { "add", "@" + missing.getAbsolutePath() });
+				Assert.assertTrue(false);
+			} catch(OutlineInvalidArgumentException e) {
+				Assert.assertEquals(1, e.positionIndex);
+				Assert.assertTrue(e.getCause() instanceof IOException);
+			}
+		
+			File cycle = new File(this.folder, "cycle.txt");
+			this.write("cycle.txt", "a @" + cycle.getAbsolutePath());
+			try {
+				OutlineArgumentParser.expandArgumentFiles(new String[] { "@" + cycle.getAbsolutePath() });
+				Assert.assertTrue(false);
+			} catch(OutlineInvalidArgumentException e) {
+				Assert.assertEquals(0, e.positionIndex);
+			}
+		} finally {
+			this.cleanup();
+		}
+	}
+	
+	@Test
+	public void testOutlineWithArgumentFiles() throws IOException {
+		try {
+			File file = new File(this.folder, "files.txt");
+			try(Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+				writer.write("-c1 op7\n");
+				for(int index = 0; index < 50000; index++) {
+					writer.write("\"src/main/file " + index + ".txt\"\n");
+				}
+			}
+		
+			Outline outline = new Outline("git").withHelpOnIncorrectArguments(false).withArgumentFiles(true);
+			outline.withCommands(AddCommand.class, RemoteAddCommand.class);
+		
+			RemoteAddCommand command = outline.parse(new String[] { "remote", "remote-add", "@" + file.getAbsolutePath() });
+			Assert.assertEquals("src/main/file 0.txt", getField(command, "a1"));
+			Assert.assertEquals("src/main/file 1.txt", getField(command, "a2"));
+		
+			String[] remaining = (String[]) getField(command, "a3");
+			Assert.assertEquals(49998, remaining.length);
+			Assert.assertEquals("src/main/file 49999.txt", remaining[49997]);
+		
+			// not expanded unless enabled
+			outline.withArgumentFiles(false);
+			command = outline.parse(new String[] { "remote", "remote-add", "@" + file.getAbsolutePath() });
+			Assert.assertEquals("@" + file.getAbsolutePath(), getField(command, "a1"));
+		} finally {
+			this.cleanup();
+		}
+	}
+	
+	private void cleanup() {
+		for(File file : this.folder.listFiles()) {
+			file.delete();
+		}
+		
+		this.folder.delete();
+	}
+	
+	private static Object getField(Object instance, String name) {
+		try {
+			java.lang.reflect.Field field = RemoteAddCommand.class.getDeclaredField(name);
+			field.setAccessible(true);
+			return field.get(instance);
+		} catch(ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static List<String> read(File file, long window) throws IOException {
+		List<String> tokens = new ArrayList<>();
+		try(OutlineArgumentFile reader = new OutlineArgumentFile(file, window)) {
+			String token;
+			while((token = reader.next()) != null) {
+				tokens.add(token);
+			}
+		}
+		
+		return tokens;
+	}
+	
+	private File write(String name, String contents) throws IOException {
+		File file = new File(this.folder, name);
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+	
+}
@@ -0,0 +1,171 @@
+package com.sangupta.outline.parser;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Tests for options written as <code>--name=value</code> and as clusters of
+ * short options.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineAttachedOptionTest {
+
+	@Command(name = "tar", description = "archive files")
+	public static class TarCommand {
+
+		@Option(name = { "-v", "--verbose" }, arity = 0)
+		public String verbose;
+
+		@Option(name = "-z", arity = 0)
+		public String zip;
+
+		@Option(name = { "-f", "--file" })
+		public String file;
+
+		@Option(name = { "-p", "--pair" }, arity = 2)
+		public String[] pair;
+
+		@Arguments
+		public String[] files;
+
+	}
+
+	private static Outline getOutline() {
+		return new Outline("tar").withCommands(TarCommand.class).withHelpOnIncorrectArguments(false);
+	}
+
+	@Test
+	public void testClusters() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("tar -vzf out.tgz a b".split(" "), metadata);
+		Assert.assertEquals(3, result.getOptionCount());
+		Assert.assertEquals("-v", result.getOption(0).name);
+		Assert.assertEquals(0, result.getOptionValueCount(0));
+		Assert.assertEquals("-z", result.getOption(1).name);
+		Assert.assertEquals("-f", result.getOption(2).name);
+		Assert.assertEquals(Arrays.asList("out.tgz"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-f")));
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getArguments());
+
+		// the rest of the cluster is the first value
+		result = OutlineArgumentParser.parse("tar -zvfout.tgz a".split(" "), metadata);
+		Assert.assertEquals(3, result.getOptionCount());
+		Assert.assertEquals(1, result.getOptionStart(2));
+		Assert.assertEquals(4, result.getOptionValueOffset(2));
+		Assert.assertEquals("out.tgz", result.getOptionValue(2, 0));
+		Assert.assertEquals(Arrays.asList("a"), result.getArguments());
+
+		result = OutlineArgumentParser.parse("tar -vpx y a".split(" "), metadata);
+		Assert.assertEquals(Arrays.asList("x", "y"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-p")));
+		Assert.assertEquals(Arrays.asList("a"), result.getArguments());
+
+		// anything that is not all options is an argument
+		result = OutlineArgumentParser.parse("tar -vq -5 -v".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("-vq", "-5", "-v"), result.getArguments());
+	}
+
+	@Test
+	public void testEqualsValues() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("tar --file=out.tgz -f=x=y --pair=a b --verbose c".split(" "), metadata);
+		Assert.assertEquals(Arrays.asList("out.tgz", "x=y"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("--file", "-f")));
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-p", "--pair")));
+		Assert.assertEquals(Arrays.asList("c"), result.getArguments());
+
+		result = OutlineArgumentParser.parse(new String[] { "tar", "--file=" }, metadata);
+		Assert.assertEquals(Arrays.asList(""), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-f")));
+
+		// the equals sign is skipped the same way after the last option of a cluster
+		result = OutlineArgumentParser.parse("tar -vf=x -vzf=x=y -vp=a b".split(" "), metadata);
+		Assert.assertEquals(Arrays.asList("x", "x=y"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-f")));
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-p")));
+
+		result = OutlineArgumentParser.parse(new String[] { "tar", "-vf=" }, metadata);
+		Assert.assertEquals(Arrays.asList(""), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-f")));
+
+		// options without values take no attached value
+		result = OutlineArgumentParser.parse("tar --verbose=true --unknown=x".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("--verbose=true", "--unknown=x"), result.getArguments());
+
+		try {
+			OutlineArgumentParser.parse("tar --pair=a".split(" "), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals("--pair=a", e.argument);
+			Assert.assertEquals(1, e.positionIndex);
+		}
+	}
+
+	@Test
+	public void testBinding() {
+		Outline outline = getOutline();
+
+		TarCommand command = outline.parse("tar -zf a.tgz --pair=x y one two".split(" "));
+		Assert.assertEquals("a.tgz", command.file);
+		Assert.assertArrayEquals(new String[] { "x", "y" }, command.pair);
+		Assert.assertArrayEquals(new String[] { "one", "two" }, command.files);
+
+		// with or without a cluster, -f=x binds x
+		command = outline.parse("tar -f=x".split(" "));
+		Assert.assertEquals("x", command.file);
+		command = outline.parse("tar -vf=x".split(" "));
+		Assert.assertEquals("x", command.file);
+
+		// values are only extracted from tokenized input when bound
+		command = outline.parse(OutlineCommandLine.tokenize("tar -vf'my file.tgz' --pair='a b' c"));
+		Assert.assertEquals("my file.tgz", command.file);
+		Assert.assertArrayEquals(new String[] { "a b", "c" }, command.pair);
+	}
+
+	@Test
+	public void testAllScopes() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("--global1=g remote -gr1=r remote-add -c1=c arg".split(" "), metadata);
+		Assert.assertEquals("remote-add", result.command);
+		Assert.assertEquals(Arrays.asList("g"), result.getOptionValues(OptionType.GLOBAL, Arrays.asList("-g1")));
+		Assert.assertEquals(Arrays.asList("r"), result.getOptionValues(OptionType.GROUP, Arrays.asList("-gr1")));
+		Assert.assertEquals(Arrays.asList("c"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-c1")));
+		Assert.assertEquals(Arrays.asList("arg"), result.getArguments());
+
+		// exact names win over clusters, as -bo is not -b with the value o
+		result = OutlineArgumentParser.parse("population-check -bo true -i42".split(" "), metadata);
+		Assert.assertEquals(Arrays.asList("true"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-bo")));
+		Assert.assertTrue(result.getOptionValues(OptionType.COMMAND, Arrays.asList("-b")).isEmpty());
+		Assert.assertEquals(Arrays.asList("42"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-i")));
+	}
+
+	@Test
+	public void testManyAttachedOptions() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		int count = 200000;
+		String[] args = new String[count + 1];
+		args[0] = "tar";
+		for(int index = 1; index <= count; index++) {
+			args[index] = (index % 2 == 0 ? "--file=" : "-vzf") + index;
+		}
+
+		OutlineParseResult result = OutlineArgumentParser.parse(args, metadata);
+		Assert.assertEquals(count * 2, result.getOptionCount());
+		Assert.assertEquals(0, result.getArgumentCount());
+		Assert.assertEquals(String.valueOf(count), result.getOptionValue(result.getOptionCount() - 1, 0));
+	}
+
+}
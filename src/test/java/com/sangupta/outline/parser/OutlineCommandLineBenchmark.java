@@ -0,0 +1,82 @@
+package com.sangupta.outline.parser;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Throughput benchmark that compares parsing a raw UTF-8 command line by first
+ * decoding and splitting it into {@link String}s, against tokenizing the bytes
+ * into an {@link OutlineCommandLine}. Both paths read back the same few values
+ * from the result, as binding a command would.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.parser.OutlineCommandLineBenchmark 1000000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCommandLineBenchmark {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final List<String> C1 = Arrays.asList("-c1");
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		byte[] line = "-g1 op1 --global2 x y remote -gr1 op4 -gr2 p q remote-add -c1 op7 -c2 m n file second third fourth fifth sixth".getBytes(UTF_8);
+
+		// warm up both paths
+		long sink = 0;
+		for(int round = 0; round < 5; round++) {
+			sink += split(metadata, line, iterations / 10);
+			sink += tokenize(metadata, line, iterations / 10);
+		}
+
+		long start = System.nanoTime();
+		sink += split(metadata, line, iterations);
+		long splitTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		sink += tokenize(metadata, line, iterations);
+		long tokenizeTime = System.nanoTime() - start;
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+		System.out.println("Decode, split and parse: " + (splitTime / iterations) + " ns/op");
+		System.out.println("Tokenize and parse:      " + (tokenizeTime / iterations) + " ns/op");
+	}
+
+	private static long split(OutlineMetadata metadata, byte[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			String[] args = new String(line, UTF_8).trim().split("\\s+");
+			sink += read(OutlineArgumentParser.parse(args, metadata));
+		}
+
+		return sink;
+	}
+
+	private static long tokenize(OutlineMetadata metadata, byte[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			sink += read(OutlineArgumentParser.parse(OutlineCommandLine.tokenize(line), metadata));
+		}
+
+		return sink;
+	}
+
+	private static long read(OutlineParseResult result) {
+		return result.getOptionValues(OptionType.COMMAND, C1).get(0).length() + result.getArgument(0).length();
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.sangupta.outline.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Tests for tokenizing raw command lines into an {@link OutlineCommandLine}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCommandLineTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Test
+	public void testWhitespaceAndQuotes() {
+		assertTokens("", new String[] { });
+		assertTokens(" \t\r\n ", new String[] { });
+		assertTokens("  one\ttwo \n three  ", new String[] { "one", "two", "three" });
+		assertTokens("'single quoted' \"double quoted\"", new String[] { "single quoted", "double quoted" });
+		assertTokens("pre'mid dle'post", new String[] { "premid dlepost" });
+		assertTokens("'' \"\" x", new String[] { "", "", "x" });
+		assertTokens("'a \\ \"b\"'", new String[] { "a \\ \"b\"" });
+	}
+
+	@Test
+	public void testEscapes() {
+		assertTokens("a\\ b c", new String[] { "a b", "c" });
+		assertTokens("\\'x\\\"", new String[] { "'x\"" });
+		assertTokens("line\\\ncontinued", new String[] { "linecontinued" });
+		assertTokens("trailing\\", new String[] { "trailing\\" });
+
+		// within double quotes only a few characters are escaped
+		assertTokens("\"\\\" \\\\ \\$ \\` \\n\"", new String[] { "\" \\ $ ` \\n" });
+	}
+
+	@Test
+	public void testUnterminatedQuotes() {
+		String[] lines = { "one 'two", "one \"two", "\"two\\" };
+		for(String line : lines) {
+			try {
+				OutlineCommandLine.tokenize(line);
+				Assert.assertTrue(false);
+			} catch(OutlineInvalidArgumentException e) {
+				// expected
+			}
+		}
+
+		try {
+			OutlineCommandLine.tokenize("one two 'three");
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals(2, e.positionIndex);
+			Assert.assertEquals("three", e.argument);
+		}
+	}
+
+	@Test
+	public void testUtf8() {
+		String line = "caf\u00e9 '\u20ac 5' \ud83d\ude00x";
+		String[] expected = { "caf\u00e9", "\u20ac 5", "\ud83d\ude00x" };
+		assertTokens(line, expected);
+
+		// the buffer is read from its position, which is left unchanged
+		byte[] bytes = ("skip" + line).getBytes(UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.position(4);
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(buffer).toArray());
+		Assert.assertEquals(4, buffer.position());
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		direct.position(4);
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(direct).toArray());
+
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(bytes, 4, bytes.length - 4).toArray());
+
+		// malformed sequences are replaced
+		byte[] malformed = { 'a', (byte) 0xC3, ' ', 'b', (byte) 0xFF, (byte) 0xE2, (byte) 0x82 };
+		Assert.assertArrayEquals(new String[] { "a\ufffd", "b\ufffd\ufffd" }, OutlineCommandLine.tokenize(malformed).toArray());
+	}
+
+	@Test
+	public void testParse() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		String line = "-g1 'op 1' remote -gr1 op4 remote-add -c2 \"m n\" o arg1 'arg 2'";
+
+		OutlineCommandLine commandLine = OutlineCommandLine.tokenize(line.getBytes(UTF_8));
+		OutlineParseResult result = OutlineArgumentParser.parse(commandLine, metadata);
+		Assert.assertEquals("remote", result.group);
+		Assert.assertEquals("remote-add", result.command);
+		Assert.assertEquals(Arrays.asList("op 1"), result.getOptionValues(OptionType.GLOBAL, Arrays.asList("-g1")));
+		Assert.assertEquals(Arrays.asList("m n", "o"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-c2")));
+		Assert.assertEquals(Arrays.asList("arg1", "arg 2"), result.getArguments());
+
+		// values are created once
+		Assert.assertSame(result.getArgument(1), commandLine.get(10));
+
+		// the same as parsing the split arguments
+		OutlineParseResult split = OutlineArgumentParser.parse(commandLine.toArray().clone(), metadata);
+		Assert.assertEquals(split.getArgumentsStart(), result.getArgumentsStart());
+		Assert.assertEquals(split.getOptionCount(), result.getOptionCount());
+		Assert.assertArrayEquals(split.getArgs(), result.getArgs());
+	}
+
+	@Test
+	public void testMissingOptionValues() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		try {
+			OutlineArgumentParser.parse(OutlineCommandLine.tokenize("remote remote-add -c2 m"), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals("-c2", e.argument);
+			Assert.assertEquals(2, e.positionIndex);
+		}
+	}
+
+	private static void assertTokens(String line, String[] expected) {
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(line).toArray());
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(line.getBytes(UTF_8)).toArray());
+		Assert.assertArrayEquals(expected, OutlineCommandLine.tokenize(ByteBuffer.wrap(line.getBytes(UTF_8))).toArray());
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.sangupta.outline.parser;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineParser;
+import com.sangupta.outline.OutlineTestSupport;
+
+/**
+ * Latency benchmark for completing a token via an {@link OutlineCompleter},
+ * as an interactive console does on every press of the tab key, for a tool
+ * with 600 commands of which a third are spread over 20 groups, and 12 options
+ * each.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.parser.OutlineCompleterBenchmark 100000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCompleterBenchmark {
+
+	private static final String[][] LINES = {
+		{ "" },
+		{ "command-4" },
+		{ "group-7", "" },
+		{ "command-420", "--o" },
+		{ "command-420", "--option-3", "value", "--env", "p" },
+		{ "group-7", "--region", "" },
+		{ "help", "group-7", "command-4" }
+	};
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+		Outline outline = OutlineTestSupport.getLargeOutline();
+
+		long start = System.nanoTime();
+		OutlineParser parser = outline.compile();
+		OutlineCompleter completer = parser.getCompleter();
+		System.out.println("Compile and index: " + ((System.nanoTime() - start) / 1000) + " us");
+
+		// warm up all lines
+		long sink = 0;
+		for(int round = 0; round < 5; round++) {
+			for(String[] line : LINES) {
+				sink += complete(completer, line, iterations / 10);
+			}
+		}
+
+		for(String[] line : LINES) {
+			start = System.nanoTime();
+			sink += complete(completer, line, iterations);
+			long time = System.nanoTime() - start;
+
+			System.out.println("Complete '" + join(line) + "': " + (time / iterations) + " ns/op, " + completer.complete(line, line.length - 1).size() + " candidates");
+		}
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+	}
+
+	private static long complete(OutlineCompleter completer, String[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			sink += completer.complete(line, line.length - 1).size();
+		}
+
+		return sink;
+	}
+
+	private static String join(String[] line) {
+		StringBuilder builder = new StringBuilder();
+		for(String token : line) {
+			if(builder.length() > 0) {
+				builder.append(' ');
+			}
+
+			builder.append(token);
+		}
+
+		return builder.toString();
+	}
+
+}
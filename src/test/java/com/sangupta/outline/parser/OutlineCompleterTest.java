@@ -0,0 +1,146 @@
+package com.sangupta.outline.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Tests for completing tokens via {@link Outline#complete(String[], int)}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineCompleterTest {
+
+	public static abstract class GlobalCommand {
+
+		@Option(name = { "-v", "--verbose" }, type = OptionType.GLOBAL, arity = 0)
+		public String verbose;
+
+		@Option(name = "--trace", type = OptionType.GLOBAL, arity = 0, hidden = true)
+		public String trace;
+
+	}
+
+	@Command(name = "deploy", description = "deploy the service")
+	public static class DeployCommand extends GlobalCommand {
+
+		@Option(name = { "-e", "--env" }, allowedValues = { "prod", "staging", "dev", "preview" })
+		public String env;
+
+		@Option(name = "--pair", arity = 2, allowedValues = { "left", "right" })
+		public String[] pair;
+
+		@Option(name = "--dry-run", arity = 0)
+		public String dryRun;
+
+		@Option(name = "--token")
+		public String token;
+
+		@Arguments
+		public String[] services;
+
+	}
+
+	@Command(name = "destroy", description = "destroy everything", hidden = true)
+	public static class DestroyCommand extends GlobalCommand {
+
+	}
+
+	@Command(name = "describe", description = "describe the service")
+	public static class DescribeCommand extends GlobalCommand {
+
+	}
+
+	public static abstract class ClusterCommand extends GlobalCommand {
+
+		@Option(name = "--cluster", type = OptionType.GROUP, allowedValues = { "east", "west" })
+		public String cluster;
+
+	}
+
+	@Command(group = "cluster", name = "scale", description = "scale the cluster")
+	public static class ScaleCommand extends ClusterCommand {
+
+		@Option(name = "--replicas")
+		public String replicas;
+
+	}
+
+	@Command(group = "cluster", name = "drain", description = "drain the cluster")
+	public static class DrainCommand extends ClusterCommand {
+
+	}
+
+	private static Outline getOutline() {
+		return new Outline("ops").withHelpKeyword("help").withHelpOnIncorrectArguments(false)
+				.withCommands(DeployCommand.class, DestroyCommand.class, DescribeCommand.class, ScaleCommand.class, DrainCommand.class);
+	}
+
+	@Test
+	public void testNames() {
+		Outline outline = getOutline();
+
+		Assert.assertEquals(Arrays.asList("--verbose", "-v", "cluster", "deploy", "describe", "help"), outline.complete(new String[0], 0));
+		Assert.assertEquals(Arrays.asList("deploy", "describe"), outline.complete(new String[] { "de" }, 0));
+		Assert.assertEquals(Arrays.asList("deploy", "describe"), outline.complete(new String[] { "-v", "d" }, 1));
+		Assert.assertEquals(Collections.emptyList(), outline.complete(new String[] { "x" }, 0));
+
+		// the options of the command, but not those of the global scope
+		Assert.assertEquals(Arrays.asList("--dry-run", "--env", "--pair", "--token", "-e"), outline.complete("deploy -".split(" "), 1));
+		Assert.assertEquals(Arrays.asList("--dry-run"), outline.complete("deploy --env prod --d".split(" "), 3));
+
+		// the options and commands of the group
+		Assert.assertEquals(Arrays.asList("--cluster", "drain", "help", "scale"), outline.complete("cluster".split(" "), 1));
+		Assert.assertEquals(Arrays.asList("--replicas"), outline.complete("cluster --cluster east scale -".split(" "), 4));
+
+		// help
+		Assert.assertEquals(Arrays.asList("cluster", "deploy", "describe"), outline.complete("help".split(" "), 1));
+		Assert.assertEquals(Arrays.asList("drain", "scale"), outline.complete("help cluster".split(" "), 2));
+		Assert.assertEquals(Collections.emptyList(), outline.complete("help deploy".split(" "), 2));
+	}
+
+	@Test
+	public void testValues() {
+		Outline outline = getOutline();
+
+		Assert.assertEquals(Arrays.asList("prod", "preview"), outline.complete("deploy --env p".split(" "), 2));
+		Assert.assertEquals(Arrays.asList("prod", "staging", "dev", "preview"), outline.complete("deploy -e".split(" "), 2));
+		Assert.assertEquals(Arrays.asList("right"), outline.complete("deploy --pair left r".split(" "), 3));
+		Assert.assertEquals(Arrays.asList("--env=staging"), outline.complete("deploy --env=s".split(" "), 1));
+		Assert.assertEquals(Arrays.asList("east", "west"), outline.complete("cluster --cluster".split(" "), 2));
+
+		// options without allowed values, and tokens past the values
+		Assert.assertEquals(Collections.emptyList(), outline.complete("deploy --token".split(" "), 2));
+		Assert.assertEquals(Arrays.asList("--dry-run", "--env", "--pair", "--token"), outline.complete("deploy --env prod --".split(" "), 3));
+	}
+
+	@Test
+	public void testArguments() {
+		Outline outline = getOutline();
+
+		// once arguments start, or anything before is not valid, nothing is offered
+		Assert.assertEquals(Collections.emptyList(), outline.complete("deploy service -".split(" "), 2));
+		Assert.assertEquals(Collections.emptyList(), outline.complete("deploy -- -".split(" "), 2));
+		Assert.assertEquals(Collections.emptyList(), outline.complete("unknown -".split(" "), 1));
+
+		// the token being completed and those after it do not matter
+		Assert.assertEquals(Arrays.asList("--dry-run"), outline.complete("deploy --dr service other".split(" "), 1));
+
+		try {
+			outline.complete("deploy".split(" "), 2);
+			Assert.assertTrue(false);
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+}
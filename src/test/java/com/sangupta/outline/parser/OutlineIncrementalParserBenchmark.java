@@ -0,0 +1,108 @@
+package com.sangupta.outline.parser;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+
+/**
+ * Latency benchmark for re-parsing a command line after a single token is
+ * edited, as in an interactive console that validates the line on every
+ * keystroke. Compares parsing the whole line again with an
+ * {@link OutlineIncrementalParser}, for edits near the start, in the middle
+ * and at the end of lines of growing length.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.parser.OutlineIncrementalParserBenchmark 100000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineIncrementalParserBenchmark {
+	
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		
+		OutlineIncrementalParser parser = OutlineTestSupport.getOutline().newIncrementalParser();
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		
+		for(int tokens : new int[] { 10, 100, 1000 }) {
+			String[] line = getLine(tokens);
+			
+			// warm up all paths
+			long sink = 0;
+			for(int round = 0; round < 5; round++) {
+				sink += reparse(metadata, line, iterations / 10);
+				sink += edit(parser, line, 5, iterations / 10);
+			}
+			
+			long start = System.nanoTime();
+			sink += reparse(metadata, line, iterations);
+			long reparseTime = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			sink += edit(parser, line, 5, iterations);
+			long startTime = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			sink += edit(parser, line, tokens / 2 + 1, iterations);
+			long middleTime = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			sink += edit(parser, line, tokens - 1, iterations);
+			long endTime = System.nanoTime() - start;
+			
+			System.out.println("Tokens: " + tokens + " (" + sink + ")");
+			System.out.println("  Parse the whole line: " + (reparseTime / iterations) + " ns/op");
+			System.out.println("  Edit near the start:  " + (startTime / iterations) + " ns/op");
+			System.out.println("  Edit in the middle:   " + (middleTime / iterations) + " ns/op");
+			System.out.println("  Edit at the end:      " + (endTime / iterations) + " ns/op");
+		}
+	}
+	
+	/**
+	 * A command with options and their values throughout, the values being at
+	 * odd indices.
+	 * 
+	 */
+	private static String[] getLine(int tokens) {
+		String[] line = new String[tokens];
+		line[0] = "-g1";
+		line[1] = "x";
+		line[2] = "remote";
+		line[3] = "remote-add";
+		for(int index = 4; index < tokens; index++) {
+			line[index] = index % 2 == 0 ? "-c1" : "value" + index;
+		}
+		
+		return line;
+	}
+	
+	private static long reparse(OutlineMetadata metadata, String[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			line[line.length - 1] = (index & 1) == 0 ? "value" : "other";
+			sink += OutlineArgumentParser.parse(line, metadata).getOptionCount();
+		}
+		
+		return sink;
+	}
+	
+	/**
+	 * Alternately add and remove a character of the value at the given index,
+	 * as typing over it would.
+	 * 
+	 */
+	private static long edit(OutlineIncrementalParser parser, String[] line, int token, int iterations) {
+		long sink = 0;
+		parser.parse(line.clone());
+		for(int index = 0; index < iterations; index++) {
+			sink += parser.edit(token, token + 1, (index & 1) == 0 ? "valu" : "value").getOptionCount();
+		}
+		
+		return sink;
+	}
+	
+}
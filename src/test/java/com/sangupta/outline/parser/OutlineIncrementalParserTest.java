@@ -0,0 +1,187 @@
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Tests for re-parsing edited command lines via an
+ * {@link OutlineIncrementalParser}.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineIncrementalParserTest {
+	
+	private static final String[] VOCABULARY = { "-g1", "--global", "--global2", "--global1=x", "remote", "mygroup", "-gr1", "-gr2", "remote-add", "remote-remove",
+			"add", "reset", "-c1", "-c2", "--", "help", "value", "file", "@", "-x", "" };
+	
+	@Test
+	public void testTyping() {
+		OutlineIncrementalParser parser = OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false).newIncrementalParser();
+		
+		OutlineParseResult result = parser.parse("remote remote-add -c1 op7 file".split(" "));
+		Assert.assertEquals("remote-add", result.command);
+		
+		// type a new option at the end, a character at a time
+		result = parser.edit(5, 5, "-");
+		Assert.assertEquals(Arrays.asList("file", "-"), result.getArguments());
+		result = parser.edit(5, 6, "-c");
+		result = parser.edit(5, 6, "-c2");
+		Assert.assertEquals(Arrays.asList("file", "-c2"), result.getArguments());
+		
+		// an option in the arguments is an argument
+		result = parser.edit(6, 6, "x", "y");
+		Assert.assertEquals(Arrays.asList("file", "-c2", "x", "y"), result.getArguments());
+		
+		// removing the argument before it makes it an option
+		result = parser.edit(4, 5);
+		Assert.assertEquals(Arrays.asList("x", "y"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-c2")));
+		Assert.assertTrue(result.getArguments().isEmpty());
+		Assert.assertArrayEquals("remote remote-add -c1 op7 -c2 x y".split(" "), parser.getArgs());
+		
+		// an incomplete line fails, but can still be edited
+		try {
+			parser.edit(6, 7);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals("-c2", e.argument);
+			Assert.assertEquals(4, e.positionIndex);
+		}
+		
+		result = parser.edit(6, 6, "z", "arg");
+		Assert.assertEquals(Arrays.asList("x", "z"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-c2")));
+		Assert.assertEquals(Arrays.asList("arg"), result.getArguments());
+		
+		// global options before the group
+		result = parser.edit(0, 0, "-g1", "g");
+		Assert.assertEquals("remote", result.group);
+		Assert.assertEquals(Arrays.asList("g"), result.getOptionValues(OptionType.GLOBAL, Arrays.asList("-g1")));
+		Assert.assertEquals(Arrays.asList("op7"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-c1")));
+		Assert.assertEquals(Arrays.asList("arg"), result.getArguments());
+		
+		// and a different command
+		result = parser.edit(3, 4, "remote-remove");
+		Assert.assertEquals("remote-remove", result.command);
+		Assert.assertEquals(Arrays.asList("-c1", "op7", "-c2", "x", "z", "arg"), result.getArguments());
+		
+		try {
+			parser.edit(3, 11);
+			Assert.assertTrue(false);
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testRandomEdits() {
+		Random random = new Random(42);
+		
+		Outline[] outlines = { OutlineTestSupport.getOutline(), OutlineTestSupport.getOutline().withHelpOnIncorrectArguments(false).withAbbreviations(true) };
+		for(Outline outline : outlines) {
+			OutlineMetadata metadata = outline.compile().getMetadata();
+			OutlineIncrementalParser parser = outline.newIncrementalParser();
+			
+			List<String> line = new ArrayList<>();
+			assertSame(metadata, line, parse(parser, line, 0, 0));
+			
+			for(int edit = 0; edit < 20000; edit++) {
+				int from = random.nextInt(line.size() + 1);
+				int to = from + random.nextInt(Math.min(3, line.size() - from) + 1);
+				
+				// keep the lines from getting too long
+				int count = random.nextInt(line.size() > 40 ? 2 : 4);
+				String[] tokens = new String[count];
+				for(int index = 0; index < count; index++) {
+					tokens[index] = VOCABULARY[random.nextInt(VOCABULARY.length)];
+				}
+				
+				String actual = parse(parser, line, from, to, tokens);
+				line.subList(from, to).clear();
+				line.addAll(from, Arrays.asList(tokens));
+				
+				assertSame(metadata, line, actual);
+			}
+		}
+	}
+	
+	@Test
+	public void testLongLines() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		OutlineIncrementalParser parser = new OutlineIncrementalParser(metadata);
+		
+		List<String> line = new ArrayList<>();
+		line.add("-g1");
+		line.add("x");
+		line.add("remote");
+		line.add("remote-add");
+		for(int index = 0; index < 10000; index++) {
+			line.add(index % 3 == 0 ? "-c1" : "value" + index);
+		}
+		
+		parser.parse(line.toArray(new String[line.size()]));
+		
+		// edits throughout the line, including those that shift all that follows
+		String[][] edits = { { "0", "0", "--global" }, { "1", "2", "y" }, { "5", "6", "-c2" }, { "5", "6", "-c1" }, { "4", "5" }, { "4", "4", "-c1" }, { "5000", "5001", "--" }, { "5000", "5001" } };
+		for(String[] edit : edits) {
+			int from = Integer.parseInt(edit[0]);
+			int to = Integer.parseInt(edit[1]);
+			String[] tokens = Arrays.copyOfRange(edit, 2, edit.length);
+			
+			String actual = parse(parser, line, from, to, tokens);
+			line.subList(from, to).clear();
+			line.addAll(from, Arrays.asList(tokens));
+			
+			assertSame(metadata, line, actual);
+		}
+	}
+	
+	private static String parse(OutlineIncrementalParser parser, List<String> line, int from, int to, String... tokens) {
+		try {
+			if(line.isEmpty() && from == 0 && to == 0 && tokens.length == 0) {
+				return describe(parser.parse(new String[0]));
+			}
+			
+			return describe(parser.edit(from, to, tokens));
+		} catch(OutlineInvalidArgumentException e) {
+			return describe(e);
+		}
+	}
+	
+	private static void assertSame(OutlineMetadata metadata, List<String> line, String actual) {
+		String expected;
+		try {
+			expected = describe(OutlineArgumentParser.parse(line.toArray(new String[line.size()]), metadata));
+		} catch(OutlineInvalidArgumentException e) {
+			expected = describe(e);
+		}
+		
+		Assert.assertEquals(line.toString(), expected, actual);
+	}
+	
+	private static String describe(OutlineInvalidArgumentException e) {
+		return "error " + e.argument + " at " + e.positionIndex + " " + e.candidates;
+	}
+	
+	private static String describe(OutlineParseResult result) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(result.group).append(' ').append(result.command).append(' ').append(result.helpRequested).append(' ').append(result.getArgumentsStart());
+		for(int index = 0; index < result.getOptionCount(); index++) {
+			builder.append(' ').append(result.getOption(index).name).append(':').append(result.getOptionStart(index)).append('+').append(result.getOptionValueCount(index));
+			builder.append('@').append(result.getOptionValueOffset(index));
+		}
+		
+		return builder.append(' ').append(Arrays.asList(result.getArgs())).toString();
+	}
+	
+}
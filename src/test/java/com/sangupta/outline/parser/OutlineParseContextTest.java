@@ -0,0 +1,152 @@
+package com.sangupta.outline.parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineParser;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Tests for reusing parse state via an {@link OutlineParseContext}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineParseContextTest {
+
+	private static final int ITERATIONS = 20000;
+
+	@Test
+	public void testReuse() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		OutlineParseContext context = new OutlineParseContext();
+
+		String[] args = "-g1 op1 remote -gr1 op4 remote-add -c1 op7 arg1 arg2".split(" ");
+		OutlineParseResult result = OutlineArgumentParser.parse(context.wrap(args), metadata, context);
+		Assert.assertSame(context.getResult(), result);
+		Assert.assertEquals("remote", result.group);
+		Assert.assertEquals(3, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("arg1", "arg2"), result.getArguments());
+
+		// nothing is left over from the previous command line
+		args = "reset".split(" ");
+		Assert.assertSame(result, OutlineArgumentParser.parse(context.wrap(args), metadata, context));
+		Assert.assertNull(result.group);
+		Assert.assertEquals("reset", result.command);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertTrue(result.getArguments().isEmpty());
+		Assert.assertTrue(result.getOptionValues(OptionType.GLOBAL, Arrays.asList("-g1")).isEmpty());
+		Assert.assertSame(args, result.getArgs());
+	}
+
+	@Test
+	public void testPool() {
+		OutlineParseContext context = OutlineParseContext.acquire();
+		Assert.assertNotNull(context);
+		context.release();
+
+		Assert.assertSame(context, OutlineParseContext.acquire());
+		Assert.assertTrue(context != OutlineParseContext.acquire());
+		context.release();
+	}
+
+	@Test
+	public void testCommandsViaContext() {
+		Outline outline = OutlineTestSupport.getOutline();
+		OutlineParseContext context = new OutlineParseContext();
+
+		for(int index = 0; index < 10; index++) {
+			Object command = outline.parse(("remote remote-add -c1 op" + index + " file" + index).split(" "), context);
+			Assert.assertTrue(command instanceof RemoteAddCommand);
+			Assert.assertEquals(Arrays.asList("op" + index), context.getResult().getOptionValues(OptionType.COMMAND, Arrays.asList("-c1")));
+			Assert.assertEquals("file" + index, context.getResult().getArgument(0));
+		}
+	}
+
+	@Test
+	public void testParsingAllocatesNothing() {
+		com.sun.management.ThreadMXBean bean = getThreadMXBean();
+		if(bean == null) {
+			return;
+		}
+
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		OutlineParseContext context = new OutlineParseContext();
+		String[] args = "-g1 op1 --global2 x y remote -gr1 op4 remote-add -c1 op7 -c2 m n arg1 arg2 arg3".split(" ");
+
+		// warm up, so that the occurrences have grown and the code is compiled
+		long sink = parse(metadata, context, args, ITERATIONS);
+
+		long start = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		sink += parse(metadata, context, args, ITERATIONS);
+		long allocated = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+		Assert.assertEquals(ITERATIONS * 2 * 17L, sink);
+
+		// allow for the bookkeeping of the measurement itself, but not a single byte per parse
+		Assert.assertTrue("Allocated " + allocated + " bytes", allocated < ITERATIONS);
+	}
+
+	@Test
+	public void testCommandsViaContextAllocateLess() {
+		com.sun.management.ThreadMXBean bean = getThreadMXBean();
+		if(bean == null) {
+			return;
+		}
+
+		OutlineParser parser = OutlineTestSupport.getOutline().compile();
+		OutlineParseContext context = new OutlineParseContext();
+		String[] args = "remote remote-add -c1 op7 file".split(" ");
+
+		for(int index = 0; index < ITERATIONS; index++) {
+			parser.parse(args);
+			parser.parse(args, context);
+		}
+
+		long start = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for(int index = 0; index < ITERATIONS; index++) {
+			parser.parse(args);
+		}
+		long withoutContext = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+		start = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		for(int index = 0; index < ITERATIONS; index++) {
+			parser.parse(args, context);
+		}
+		long withContext = bean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+		Assert.assertTrue("Allocated " + withContext + " vs " + withoutContext + " bytes", withContext < withoutContext);
+	}
+
+	private static long parse(OutlineMetadata metadata, OutlineParseContext context, String[] args, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			OutlineParseResult result = OutlineArgumentParser.parse(context.wrap(args), metadata, context);
+			sink += result.getOptionCount() + result.getArgumentsStart() + result.getArgument(0).length() - 6;
+		}
+
+		return sink;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadMXBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+		if(!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+			return null;
+		}
+
+		return allocations;
+	}
+
+}
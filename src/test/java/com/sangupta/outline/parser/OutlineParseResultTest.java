@@ -0,0 +1,96 @@
+package com.sangupta.outline.parser;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Tests for the index based {@link OutlineParseResult}.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineParseResultTest {
+	
+	@Test
+	public void testOccurrences() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		String[] args = "-g1 op1 --global2 x y remote -gr1 op4 remote-add -c1 op7 -c2 m n arg1 arg2 arg3".split(" ");
+		
+		OutlineParseResult result = OutlineArgumentParser.parse(args, metadata);
+		Assert.assertSame(args, result.getArgs());
+		Assert.assertEquals("remote", result.group);
+		Assert.assertEquals("remote-add", result.command);
+		
+		// each occurrence is a range of the arguments
+		Assert.assertEquals(5, result.getOptionCount());
+		Assert.assertEquals("-g1", result.getOption(0).name);
+		Assert.assertEquals(1, result.getOptionStart(0));
+		Assert.assertEquals(1, result.getOptionValueCount(0));
+		Assert.assertEquals("-g2", result.getOption(1).name);
+		Assert.assertEquals(3, result.getOptionStart(1));
+		Assert.assertEquals(2, result.getOptionValueCount(1));
+		Assert.assertEquals(OptionType.COMMAND, result.getOption(4).type);
+		
+		// values are looked up via any of the names of the option
+		Assert.assertEquals(Arrays.asList("x", "y"), result.getOptionValues(OptionType.GLOBAL, Arrays.asList("-g2", "--global2")));
+		Assert.assertEquals(Arrays.asList("op4"), result.getOptionValues(OptionType.GROUP, Arrays.asList("-gr1")));
+		Assert.assertTrue(result.getOptionValues(OptionType.COMMAND, Arrays.asList("-g1")).isEmpty());
+		
+		// arguments are the tail of the array
+		Assert.assertEquals(14, result.getArgumentsStart());
+		Assert.assertEquals(3, result.getArgumentCount());
+		Assert.assertEquals("arg2", result.getArgument(1));
+		Assert.assertEquals(Arrays.asList("arg2", "arg3"), result.getArguments(1));
+		Assert.assertTrue(result.getArguments(3).isEmpty());
+		
+		try {
+			result.getArgument(3);
+			Assert.assertTrue(false);
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testViews() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		String[] args = "-g1 op1 -g1 op2 remote -gr1 op4 remote-add -c2 m n arg1".split(" ");
+		
+		OutlineParseResult result = OutlineArgumentParser.parse(args, metadata);
+		
+		Assert.assertEquals(Arrays.asList("op1", "op2"), result.getGlobalOptions().getValues("-g1"));
+		Assert.assertEquals(Arrays.asList("op4"), result.getGroupOptions().getValues("-gr1"));
+		Assert.assertEquals(Arrays.asList("m", "n"), result.getCommandOptions().getValues("-c2"));
+		Assert.assertSame(result.getGlobalOptions(), result.getGlobalOptions());
+		
+		List<String> arguments = result.getArguments();
+		Assert.assertEquals(Arrays.asList("arg1"), arguments);
+		
+		try {
+			arguments.add("more");
+			Assert.assertTrue(false);
+		} catch(UnsupportedOperationException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testNoOptions() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		
+		OutlineParseResult result = OutlineArgumentParser.parse("help remote remote-add".split(" "), metadata);
+		Assert.assertTrue(result.helpRequested);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(0, result.getArgumentCount());
+		Assert.assertTrue(result.getGlobalOptions().isEmpty());
+		Assert.assertTrue(result.getArguments().isEmpty());
+	}
+	
+}
@@ -0,0 +1,84 @@
+package com.sangupta.outline.parser;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+
+/**
+ * Benchmark for parsing command lines whose options are spread between the
+ * arguments, with permutation enabled, for growing numbers of tokens. As the
+ * parse is a single pass, the time per token should stay flat.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.parser.OutlinePermutationBenchmark 10000000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlinePermutationBenchmark {
+
+	private static final int[] SIZES = { 1000, 10000, 100000, 1000000 };
+
+	public static void main(String[] args) {
+		// the total number of tokens parsed for each size
+		long tokens = args.length > 0 ? Long.parseLong(args[0]) : 10000000;
+
+		Outline outline = new Outline("cp").withCommands(OutlinePermutationTest.CopyCommand.class).withHelpOnIncorrectArguments(false).withPermutation(true);
+		OutlineMetadata metadata = outline.compile().getMetadata();
+
+		long sink = 0;
+		for(int round = 0; round < 2; round++) {
+			for(int size : SIZES) {
+				String[] line = getLine(size);
+				int iterations = (int) Math.max(1, tokens / size);
+
+				long start = System.nanoTime();
+				for(int index = 0; index < iterations; index++) {
+					OutlineParseResult result = OutlineArgumentParser.parse(line, metadata);
+					sink += result.getArgumentCount() + result.getOptionCount();
+				}
+				long time = System.nanoTime() - start;
+
+				if(round > 0) {
+					System.out.println(size + " tokens: " + (time / iterations / 1000) + " us/op, " + (time / iterations / size) + " ns/token");
+				}
+			}
+		}
+
+		System.out.println("Tokens: " + tokens + " (" + sink + ")");
+	}
+
+	/**
+	 * A command line of the given number of tokens, alternating arguments with
+	 * options, one in three of which take a value.
+	 * 
+	 */
+	private static String[] getLine(int size) {
+		String[] line = new String[size];
+		line[0] = "cp";
+		for(int index = 1; index < size; index++) {
+			switch(index % 6) {
+				case 0:
+					line[index] = "-v";
+					break;
+
+				case 2:
+					line[index] = "-t";
+					break;
+
+				case 4:
+					line[index] = "-vr";
+					break;
+
+				default:
+					line[index] = "file" + index;
+			}
+		}
+
+		return line;
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineParser;
+import com.sangupta.outline.annotations.Arguments;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+
+/**
+ * Tests for reading command options that follow the command arguments.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlinePermutationTest {
+
+	@Command(name = "cp", description = "copy files")
+	public static class CopyCommand {
+
+		@Option(name = { "-v", "--verbose" }, arity = 0)
+		public String verbose;
+
+		@Option(name = "-r", arity = 0)
+		public String recursive;
+
+		@Option(name = { "-t", "--target" })
+		public String target;
+
+		@Arguments
+		public List<String> files;
+
+	}
+
+	private static Outline getOutline(boolean permutation) {
+		return new Outline("cp").withCommands(CopyCommand.class).withHelpOnIncorrectArguments(false).withPermutation(permutation);
+	}
+
+	@Test
+	public void testDefault() {
+		OutlineMetadata metadata = getOutline(false).compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("cp a -v b".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("a", "-v", "b"), result.getArguments());
+		Assert.assertEquals(1, result.getArgumentsStart());
+	}
+
+	@Test
+	public void testPermutation() {
+		OutlineMetadata metadata = getOutline(true).compile().getMetadata();
+
+		OutlineParseResult result = OutlineArgumentParser.parse("cp a -v b".split(" "), metadata);
+		Assert.assertEquals(1, result.getOptionCount());
+		Assert.assertEquals("-v", result.getOption(0).name);
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getArguments());
+		Assert.assertEquals(2, result.getArgumentCount());
+		Assert.assertEquals(1, result.getArgumentIndex(0));
+		Assert.assertEquals(3, result.getArgumentIndex(1));
+		Assert.assertEquals(4, result.getArgumentsStart());
+
+		// attached forms, values, and everything from the separator on
+		result = OutlineArgumentParser.parse("cp a -vr b --target=out c -t x -- -v d".split(" "), metadata);
+		Assert.assertEquals(Arrays.asList("-v", "-r", "-t", "-t"), Arrays.asList(result.getOption(0).name, result.getOption(1).name, result.getOption(2).name, result.getOption(3).name));
+		Assert.assertEquals(Arrays.asList("out", "x"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-t")));
+		Assert.assertEquals(Arrays.asList("a", "b", "c", "--", "-v", "d"), result.getArguments());
+		Assert.assertEquals(Arrays.asList("c", "--", "-v", "d"), result.getArguments(2));
+		Assert.assertEquals(Arrays.asList("-v", "d"), result.getArguments(4));
+		Assert.assertEquals(Arrays.asList("a", "b", "c", "--", "-v", "d"), new ArrayList<>(result.getArguments()));
+		Assert.assertEquals("--", result.getArgument(3));
+
+		// unknown options are still arguments
+		result = OutlineArgumentParser.parse("cp -x a -q".split(" "), metadata);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("-x", "a", "-q"), result.getArguments());
+
+		try {
+			result.getArgument(3);
+			Assert.assertTrue(false);
+		} catch(IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBinding() {
+		CopyCommand command = (CopyCommand) getOutline(true).parse("cp a b -v --target out".split(" "));
+		Assert.assertEquals("out", command.target);
+		Assert.assertEquals(Arrays.asList("a", "b"), command.files);
+	}
+
+	@Test
+	public void testReuse() {
+		OutlineParser parser = getOutline(true).compile();
+
+		// a reused context forgets the arguments of the previous parse
+		OutlineParseContext context = OutlineParseContext.acquire();
+		try {
+			OutlineArgumentParser.parse(context.wrap("cp a -v b c".split(" ")), parser.getMetadata(), context);
+			OutlineParseResult result = OutlineArgumentParser.parse(context.wrap("cp -v d".split(" ")), parser.getMetadata(), context);
+			Assert.assertEquals(Arrays.asList("d"), result.getArguments());
+		} finally {
+			context.release();
+		}
+
+		// every edit parses again
+		OutlineIncrementalParser incremental = parser.newIncrementalParser();
+		incremental.parse("cp a -v b".split(" "));
+		OutlineParseResult result = incremental.edit(2, 3, "-t", "out");
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getArguments());
+		Assert.assertEquals(Arrays.asList("out"), result.getOptionValues(OptionType.COMMAND, Arrays.asList("-t")));
+
+		result = incremental.edit(2, 4);
+		Assert.assertEquals(0, result.getOptionCount());
+		Assert.assertEquals(Arrays.asList("a", "b"), result.getArguments());
+
+		// options still complete after arguments
+		Assert.assertEquals(Arrays.asList("--target"), parser.complete("cp a --t".split(" "), 2));
+	}
+
+	@Test
+	public void testManyArguments() {
+		OutlineMetadata metadata = getOutline(true).compile().getMetadata();
+
+		String[] args = new String[100001];
+		args[0] = "cp";
+		for(int index = 1; index < args.length; index++) {
+			args[index] = index % 2 == 0 ? "-v" : "file" + index;
+		}
+
+		OutlineParseResult result = OutlineArgumentParser.parse(args, metadata);
+		Assert.assertEquals(50000, result.getOptionCount());
+		Assert.assertEquals(50000, result.getArgumentCount());
+		Assert.assertEquals("file1", result.getArgument(0));
+		Assert.assertEquals("file99999", result.getArgument(49999));
+		Assert.assertEquals(50000, result.getArguments().size());
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+
+/**
+ * Latency benchmark for the error path of an unknown token, that suggests the
+ * closest names, for a tool with 600 commands in 20 groups. Also compares a
+ * lookup in an {@link OutlineBKTree} of 10,000 names with a scan over all of
+ * them.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.parser.OutlineSuggestionBenchmark 10000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineSuggestionBenchmark {
+
+	private static final String[][] LINES = {
+		{ "comand-420" },
+		{ "grup-7" },
+		{ "cmmand-4" },
+		{ "group-7", "--regoin", "eu" }
+	};
+
+	public static void main(String[] args) {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+		OutlineMetadata metadata = OutlineTestSupport.getLargeOutline().withHelpOnIncorrectArguments(false).compile().getMetadata();
+
+		// the first error builds the trees
+		long start = System.nanoTime();
+		List<String> suggestions = fail(metadata, LINES[0]);
+		System.out.println("First error, building the trees: " + ((System.nanoTime() - start) / 1000) + " us");
+
+		long sink = 0;
+		for(int round = 0; round < 5; round++) {
+			for(String[] line : LINES) {
+				sink += fail(metadata, line, iterations / 10);
+			}
+		}
+
+		for(String[] line : LINES) {
+			start = System.nanoTime();
+			sink += fail(metadata, line, iterations);
+			long time = System.nanoTime() - start;
+
+			suggestions = fail(metadata, line);
+			System.out.println("Unknown in '" + join(line) + "': " + (time / iterations / 1000) + " us/op, suggests " + suggestions);
+		}
+
+		// tree against a scan of all names
+		List<String> names = new ArrayList<>();
+		OutlineBKTree tree = new OutlineBKTree();
+		for(int index = 0; index < 10000; index++) {
+			String name = "--option-" + Integer.toString(index * 7919, 36);
+			names.add(name);
+			tree.add(name);
+		}
+
+		String token = "--optoin-" + Integer.toString(4242 * 7919, 36);
+		int maxDistance = OutlineBKTree.getMaxDistance(token);
+		for(int round = 0; round < 2; round++) {
+			start = System.nanoTime();
+			for(int index = 0; index < iterations; index++) {
+				List<OutlineBKTree.Match> matches = new ArrayList<>();
+				tree.find(token, maxDistance, matches);
+				sink += matches.size();
+			}
+			long treeTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for(int index = 0; index < iterations; index++) {
+				for(String name : names) {
+					if(OutlineBKTree.distance(token, name, maxDistance) <= maxDistance) {
+						sink++;
+					}
+				}
+			}
+			long scanTime = System.nanoTime() - start;
+
+			System.out.println("10,000 names, tree: " + (treeTime / iterations / 1000) + " us/op, scan: " + (scanTime / iterations / 1000) + " us/op");
+		}
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+	}
+
+	private static long fail(OutlineMetadata metadata, String[] line, int iterations) {
+		long sink = 0;
+		for(int index = 0; index < iterations; index++) {
+			sink += fail(metadata, line).size();
+		}
+
+		return sink;
+	}
+
+	private static String join(String[] line) {
+		StringBuilder builder = new StringBuilder();
+		for(String token : line) {
+			if(builder.length() > 0) {
+				builder.append(' ');
+			}
+
+			builder.append(token);
+		}
+
+		return builder.toString();
+	}
+
+	private static List<String> fail(OutlineMetadata metadata, String[] line) {
+		try {
+			OutlineArgumentParser.parse(line, metadata);
+		} catch(OutlineInvalidArgumentException e) {
+			return e.suggestions;
+		}
+
+		throw new IllegalStateException("Line was parsed: " + line[0]);
+	}
+
+}
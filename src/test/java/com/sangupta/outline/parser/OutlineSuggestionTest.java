@@ -0,0 +1,227 @@
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.Outline;
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.annotations.Command;
+import com.sangupta.outline.annotations.Option;
+import com.sangupta.outline.annotations.OptionType;
+import com.sangupta.outline.exceptions.OutlineInvalidArgumentException;
+import com.sangupta.outline.help.OutlineHelp;
+import com.sangupta.outline.spec.CommandSpec;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for suggesting the names closest to an unknown token.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineSuggestionTest {
+
+	public static abstract class GlobalCommand {
+
+		@Option(name = { "-v", "--verbose" }, type = OptionType.GLOBAL, arity = 0)
+		public String verbose;
+
+		@Option(name = "--version", type = OptionType.GLOBAL, arity = 0)
+		public String version;
+
+		@Option(name = "--debug-trace", type = OptionType.GLOBAL, arity = 0, hidden = true)
+		public String trace;
+
+	}
+
+	@Command(name = "commit", description = "record changes")
+	public static class CommitCommand extends GlobalCommand {
+
+	}
+
+	@Command(name = "checkout", description = "switch branches")
+	public static class CheckoutCommand extends GlobalCommand {
+
+	}
+
+	@Command(name = "commits", description = "hidden command", hidden = true)
+	public static class CommitsCommand extends GlobalCommand {
+
+	}
+
+	public static abstract class RemoteCommand extends GlobalCommand {
+
+		@Option(name = "--remote-url", type = OptionType.GROUP)
+		public String url;
+
+	}
+
+	@Command(group = "remote", name = "remote-add", description = "add a remote")
+	public static class RemoteAddCommand extends RemoteCommand {
+
+	}
+
+	public static class ManyCommand {
+
+		public String name;
+
+	}
+
+	private static Outline getOutline() {
+		return new Outline("git").withHelpOnIncorrectArguments(false)
+				.withCommands(CommitCommand.class, CheckoutCommand.class, CommitsCommand.class, RemoteAddCommand.class);
+	}
+
+	@Test
+	public void testException() {
+		OutlineMetadata metadata = getOutline().compile().getMetadata();
+
+		assertSuggestions(metadata, "comit", 0, "commit");
+		assertSuggestions(metadata, "-v chekout", 1, "checkout");
+		assertSuggestions(metadata, "--verbse", 0, "--verbose");
+		assertSuggestions(metadata, "--versoin", 0, "--version", "--verbose");
+		assertSuggestions(metadata, "remot", 0, "remote");
+		assertSuggestions(metadata, "remote --remote-ul", 1, "--remote-url");
+
+		// groups are only known before a group, hidden names never, and short tokens have no suggestions
+		assertSuggestions(metadata, "remote remot", 1);
+		assertSuggestions(metadata, "--debug-trac", 0);
+		assertSuggestions(metadata, "comx", 0);
+		assertSuggestions(metadata, "xyzzy", 0);
+
+		try {
+			OutlineArgumentParser.parse("comit".split(" "), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals("Invalid argument at index 0: comit - did you mean [commit]", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testHelp() {
+		Outline outline = getOutline().withHelpOnIncorrectArguments(true);
+
+		Object instance = outline.parse("chekout".split(" "));
+		Assert.assertTrue(instance instanceof OutlineHelp);
+
+		OutlineParseResult result = ((OutlineHelp) instance).getResult();
+		Assert.assertEquals("chekout", result.invalidArgument);
+		Assert.assertEquals(Arrays.asList("checkout"), result.suggestions);
+
+		String help = ((OutlineHelp) instance).getHelp();
+		Assert.assertTrue(help, help.contains("Unknown argument: chekout\nDid you mean:\n"));
+
+		// help for a command that is not known
+		result = ((OutlineHelp) outline.parse("help comit".split(" "))).getResult();
+		Assert.assertEquals("comit", result.invalidArgument);
+		Assert.assertEquals(Arrays.asList("commit"), result.suggestions);
+
+		result = ((OutlineHelp) outline.parse("help remote remote-ad".split(" "))).getResult();
+		Assert.assertEquals(Arrays.asList("remote-add"), result.suggestions);
+
+		// nothing for known names
+		result = ((OutlineHelp) outline.parse("help commit".split(" "))).getResult();
+		Assert.assertNull(result.invalidArgument);
+		Assert.assertTrue(result.suggestions.isEmpty());
+	}
+
+	@Test
+	public void testManyNames() {
+		CommandSpec.Builder builder = CommandSpec.builder("many");
+		for(int index = 0; index < 5000; index++) {
+			builder.withOption(OptionSpec.builder("--option-" + index).withType(OptionType.GLOBAL).withField("name", String.class).build());
+		}
+
+		OutlineMetadata metadata = new Outline("many").withCommand(ManyCommand.class, builder.build()).withHelpOnIncorrectArguments(false).compile().getMetadata();
+
+		assertSuggestions(metadata, "--optoin-4242", 0, "--option-4242", "--option-1242", "--option-2242", "--option-242", "--option-3242");
+		assertSuggestions(metadata, "--option-42x", 0, "--option-42", "--option-420", "--option-421", "--option-422", "--option-423");
+	}
+
+	@Test
+	public void testTreeMatchesLinearScan() {
+		Random random = new Random(42);
+
+		List<String> names = new ArrayList<>();
+		OutlineBKTree tree = new OutlineBKTree();
+		for(int index = 0; index < 3000; index++) {
+			String name = randomName(random);
+			names.add(name);
+			tree.add(name);
+		}
+
+		for(int round = 0; round < 500; round++) {
+			String token = round % 2 == 0 ? randomName(random) : typo(random, names.get(random.nextInt(names.size())));
+			int maxDistance = OutlineBKTree.getMaxDistance(token);
+
+			List<String> expected = new ArrayList<>();
+			for(String name : names) {
+				if(OutlineBKTree.distance(token, name) <= maxDistance && !expected.contains(name)) {
+					expected.add(name);
+				}
+			}
+
+			List<OutlineBKTree.Match> found = new ArrayList<>();
+			tree.find(token, maxDistance, found);
+
+			List<String> actual = new ArrayList<>();
+			for(OutlineBKTree.Match match : found) {
+				actual.add(match.name);
+			}
+
+			Collections.sort(expected);
+			Collections.sort(actual);
+			Assert.assertEquals(token, expected, actual);
+		}
+
+		Assert.assertEquals(3, OutlineBKTree.distance("kitten", "sitting"));
+		Assert.assertEquals(2, OutlineBKTree.distance("psuh", "push"));
+		Assert.assertEquals(4, OutlineBKTree.distance("", "push"));
+	}
+
+	private static void assertSuggestions(OutlineMetadata metadata, String line, int position, String... suggestions) {
+		try {
+			OutlineArgumentParser.parse(line.split(" "), metadata);
+			Assert.assertTrue(false);
+		} catch(OutlineInvalidArgumentException e) {
+			Assert.assertEquals(position, e.positionIndex);
+			Assert.assertTrue(e.candidates.isEmpty());
+			Assert.assertEquals(line, Arrays.asList(suggestions), e.suggestions);
+		}
+	}
+
+	private static String randomName(Random random) {
+		char[] name = new char[3 + random.nextInt(8)];
+		for(int index = 0; index < name.length; index++) {
+			name[index] = (char) ('a' + random.nextInt(6));
+		}
+
+		return new String(name);
+	}
+
+	private static String typo(Random random, String name) {
+		StringBuilder builder = new StringBuilder(name);
+		int index = random.nextInt(builder.length());
+		switch(random.nextInt(3)) {
+			case 0:
+				builder.deleteCharAt(index);
+				break;
+
+			case 1:
+				builder.insert(index, 'x');
+				break;
+
+			default:
+				builder.setCharAt(index, 'y');
+		}
+
+		return builder.toString();
+	}
+
+}
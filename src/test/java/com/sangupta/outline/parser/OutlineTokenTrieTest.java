@@ -0,0 +1,116 @@
+package com.sangupta.outline.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineMetadata;
+import com.sangupta.outline.OutlineTestSupport;
+import com.sangupta.outline.parser.OutlineTokenTrie.Token;
+import com.sangupta.outline.spec.OptionSpec;
+
+/**
+ * Tests for {@link OutlineTokenTrie}.
+ * 
+ * @author sangupta
+ *
+ */
+public class OutlineTokenTrieTest {
+	
+	@Test
+	public void testClassification() {
+		OutlineMetadata metadata = OutlineTestSupport.getOutline().compile().getMetadata();
+		OutlineTokenTrie tokens = metadata.tokens;
+		
+		Assert.assertNull(tokens.get("unknown"));
+		Assert.assertNull(tokens.get("remot"));
+		Assert.assertNull(tokens.get(""));
+		Assert.assertNull(tokens.get(null));
+		
+		// global options in all their names
+		Token token = tokens.get("--global1");
+		Assert.assertNotNull(token.getOption(OutlineTokenTrie.GLOBAL_SCOPE));
+		Assert.assertSame(token.getOption(OutlineTokenTrie.GLOBAL_SCOPE), tokens.get("-g1").getOption(OutlineTokenTrie.GLOBAL_SCOPE));
+		Assert.assertFalse(token.isCommand());
+		
+		// groups and their options
+		Token group = tokens.get("remote");
+		Assert.assertTrue(group.isGroup());
+		Assert.assertFalse(group.isCommand());
+		Assert.assertEquals("-gr1", tokens.get("-gr1").getOption(group.getGroupScope()).name);
+		Assert.assertNull(tokens.get("-gr1").getOption(OutlineTokenTrie.GLOBAL_SCOPE));
+		
+		// commands and their options
+		Token command = tokens.get("remote-add");
+		Assert.assertTrue(command.isCommand());
+		Assert.assertFalse(command.isGroup());
+		Assert.assertNotNull(tokens.get("-c1").getOption(command.getCommandScope()));
+		Assert.assertNull(tokens.get("-c1").getOption(tokens.get("add").getCommandScope()));
+		Assert.assertNull(tokens.get("-c1").getOption(group.getGroupScope()));
+		
+		// special tokens
+		Assert.assertTrue(tokens.get("help").isHelpKeyword());
+		Assert.assertTrue(tokens.get("--").isSeparator());
+		Assert.assertFalse(tokens.get("--").isOption());
+	}
+	
+	@Test
+	public void testPrefixQueries() {
+		OutlineTokenTrie tokens = OutlineTestSupport.getOutline().compile().getMetadata().tokens;
+		
+		Assert.assertEquals(names("remote", "remote-add", "remote-remove"), names(tokens.getTokens("rem")));
+		Assert.assertEquals(names("--global", "--global1", "--global2"), names(tokens.getTokens("--g")));
+		Assert.assertEquals(names("remote-add"), names(tokens.getTokens("remote-add")));
+		Assert.assertTrue(tokens.getTokens("xyz").isEmpty());
+		
+		// all tokens are returned sorted
+		List<String> all = names(tokens.getTokens(null));
+		Assert.assertTrue(all.contains("help"));
+		Assert.assertTrue(all.contains("population-check"));
+		
+		List<String> sorted = new ArrayList<>(all);
+		Collections.sort(sorted);
+		Assert.assertEquals(sorted, all);
+	}
+	
+	@Test
+	public void testOptionsInMultipleScopes() {
+		OutlineTokenTrie tokens = new OutlineTokenTrie();
+		int first = tokens.putCommand("first").getCommandScope();
+		int second = tokens.putCommand("second").getCommandScope();
+		Assert.assertTrue(first != second);
+		Assert.assertEquals(first, tokens.putCommand("first").getCommandScope());
+		
+		OptionSpec one = OptionSpec.builder("-v", "--verbose").withField("one", String.class).build();
+		OptionSpec two = OptionSpec.builder("-v").withField("two", String.class).build();
+		tokens.putOption(first, one);
+		tokens.putOption(second, two);
+		
+		Assert.assertSame(one, tokens.get("-v").getOption(first));
+		Assert.assertSame(two, tokens.get("-v").getOption(second));
+		Assert.assertSame(one, tokens.get("--verbose").getOption(first));
+		Assert.assertNull(tokens.get("--verbose").getOption(second));
+	}
+	
+	private static List<String> names(String... names) {
+		List<String> list = new ArrayList<>();
+		for(String name : names) {
+			list.add(name);
+		}
+		
+		return list;
+	}
+	
+	private static List<String> names(List<Token> tokens) {
+		List<String> list = new ArrayList<>();
+		for(Token token : tokens) {
+			list.add(token.name);
+		}
+		
+		return list;
+	}
+	
+}
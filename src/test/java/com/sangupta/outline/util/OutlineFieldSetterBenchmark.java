@@ -0,0 +1,65 @@
+package com.sangupta.outline.util;
+
+import java.lang.reflect.Field;
+
+import com.sangupta.jerry.util.ReflectionUtils;
+
+/**
+ * Benchmark for the cost of writing one field, via the reflective
+ * {@link ReflectionUtils#bindValue(Field, Object, Object)} that was used
+ * before, and via a cached {@link OutlineFieldSetter}: a {@link String} to
+ * a <code>String</code> field, a {@link String} parsed into an
+ * <code>int</code> field, and a {@link Long} into a <code>long</code> field.
+ *
+ * Run with the test classpath, say:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.sangupta.outline.util.OutlineFieldSetterBenchmark 10000000
+ * </pre>
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineFieldSetterBenchmark {
+
+	private static final String[] FIELDS = { "name", "count", "id" };
+
+	private static final Object[] VALUES = { "outline", "42", Long.valueOf(42) };
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+		OutlineFieldSetterTest.Values instance = new OutlineFieldSetterTest.Values();
+
+		long sink = 0;
+		for(int round = 0; round < 2; round++) {
+			for(int index = 0; index < FIELDS.length; index++) {
+				Field field = OutlineUtil.getField(OutlineFieldSetterTest.Values.class, FIELDS[index]);
+				OutlineFieldSetter setter = OutlineUtil.getFieldSetter(OutlineFieldSetterTest.Values.class, FIELDS[index]);
+				Object value = VALUES[index];
+
+				long start = System.nanoTime();
+				for(int iteration = 0; iteration < iterations; iteration++) {
+					ReflectionUtils.bindValue(field, instance, value);
+				}
+				long reflection = System.nanoTime() - start;
+				sink += instance.count + instance.id;
+
+				start = System.nanoTime();
+				for(int iteration = 0; iteration < iterations; iteration++) {
+					setter.set(instance, value);
+				}
+				long handle = System.nanoTime() - start;
+				sink += instance.count + instance.id;
+
+				if(round > 0) {
+					System.out.println(field.getType().getSimpleName() + " field from " + value.getClass().getSimpleName() + ": reflection " + (reflection * 10 / iterations) / 10.0 + " ns/op, setter " + (handle * 10 / iterations) / 10.0 + " ns/op");
+				}
+			}
+		}
+
+		System.out.println("Iterations: " + iterations + " (" + sink + ")");
+	}
+
+}
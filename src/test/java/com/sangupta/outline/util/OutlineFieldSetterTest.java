@@ -0,0 +1,179 @@
+package com.sangupta.outline.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
+
+/**
+ * Tests for writing values to fields via an {@link OutlineFieldSetter}.
+ *
+ * @author sangupta
+ *
+ */
+public class OutlineFieldSetterTest {
+
+	public static class Values {
+
+		public boolean flag;
+
+		public byte small;
+
+		public short medium;
+
+		public char letter;
+
+		public int count;
+
+		public long id;
+
+		public float ratio;
+
+		public double weight;
+
+		public Integer boxed;
+
+		public Character initial;
+
+		public String name;
+
+		public List<String> names;
+
+		private int hidden;
+
+		public static String shared;
+
+	}
+
+	public static class MoreValues extends Values {
+
+		public int more;
+
+	}
+
+	public static class LazyValues {
+
+		private int bound;
+
+		private int unbound;
+
+	}
+
+	@Test
+	public void testStrings() throws Exception {
+		MoreValues values = new MoreValues();
+		set(values, "flag", "true");
+		set(values, "small", "-8");
+		set(values, "medium", "300");
+		set(values, "letter", "xyz");
+		set(values, "count", "42");
+		set(values, "id", "9223372036854775807");
+		set(values, "ratio", "0.5");
+		set(values, "weight", "1e3");
+		set(values, "boxed", "7");
+		set(values, "name", "outline");
+		set(values, "hidden", "11");
+		set(values, "more", "12");
+
+		Assert.assertTrue(values.flag);
+		Assert.assertEquals(-8, values.small);
+		Assert.assertEquals(300, values.medium);
+		Assert.assertEquals('x', values.letter);
+		Assert.assertEquals(42, values.count);
+		Assert.assertEquals(Long.MAX_VALUE, values.id);
+		Assert.assertEquals(0.5f, values.ratio, 0);
+		Assert.assertEquals(1000, values.weight, 0);
+		Assert.assertEquals(Integer.valueOf(7), values.boxed);
+		Assert.assertEquals("outline", values.name);
+		Assert.assertEquals(11, ((Values) values).hidden);
+		Assert.assertEquals(12, values.more);
+	}
+
+	@Test
+	public void testValues() throws Exception {
+		Values values = new Values();
+		set(values, "count", Integer.valueOf(5));
+		set(values, "weight", Double.valueOf(2.5));
+		set(values, "letter", Character.valueOf('q'));
+		set(values, "names", Arrays.asList("a", "b"));
+		set(values, "shared", "everyone");
+
+		Assert.assertEquals(5, values.count);
+		Assert.assertEquals(2.5, values.weight, 0);
+		Assert.assertEquals('q', values.letter);
+		Assert.assertEquals(Arrays.asList("a", "b"), values.names);
+		Assert.assertEquals("everyone", Values.shared);
+
+		values.name = "before";
+		set(values, "name", null);
+		Assert.assertNull(values.name);
+
+		// values that cannot be converted
+		try {
+			set(values, "count", "many");
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			set(values, "letter", "");
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			Assert.assertEquals('q', values.letter);
+		}
+
+		values.initial = Character.valueOf('i');
+		try {
+			set(values, "initial", "");
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			Assert.assertEquals(Character.valueOf('i'), values.initial);
+		}
+
+		try {
+			set(values, "names", Integer.valueOf(3));
+			Assert.assertTrue(false);
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCache() {
+		OutlineFieldSetter setter = OutlineUtil.getFieldSetter(MoreValues.class, "count");
+		Assert.assertSame(setter, OutlineUtil.getFieldSetter(MoreValues.class, "count"));
+		Assert.assertEquals(Values.class, setter.field.getDeclaringClass());
+		Assert.assertNull(OutlineUtil.getFieldSetter(MoreValues.class, "missing"));
+
+		// annotated fields share the setters, unless hidden by a field of the same name
+		for(OutlineFieldDescriptor field : OutlineUtil.getAnnotatedFields(RemoteAddCommand.class)) {
+			Assert.assertSame(field.field, field.setter.field);
+
+			OutlineFieldSetter byName = OutlineUtil.getFieldSetter(RemoteAddCommand.class, field.field.getName());
+			if(byName.field == field.field) {
+				Assert.assertSame(byName, field.setter);
+			}
+		}
+	}
+
+	@Test
+	public void testLazySetters() throws Exception {
+		LazyValues values = new LazyValues();
+		set(values, "bound", Integer.valueOf(5));
+		Assert.assertEquals(5, values.bound);
+
+		// only the fields that are looked up get a setter, and are made accessible
+		Assert.assertTrue(OutlineUtil.getField(LazyValues.class, "bound").isAccessible());
+		Assert.assertFalse(OutlineUtil.getField(LazyValues.class, "unbound").isAccessible());
+		Assert.assertEquals(0, values.unbound);
+	}
+
+	private static void set(Object instance, String name, Object value) throws IllegalAccessException {
+		OutlineUtil.getFieldSetter(instance.getClass(), name).set(instance, value);
+	}
+
+}
@@ -1,8 +1,11 @@
 package com.sangupta.outline.util;
 
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.sangupta.outline.OutlineTestSupport.RemoteAddCommand;
 import com.sangupta.outline.util.OutlineUtil;
 
 public class OutlineUtilTest {
@@ -17,4 +20,27 @@ public class OutlineUtilTest {
 		Assert.assertEquals("helloworld", OutlineUtil.join("hello:world".split(":"), null));
 	}
 
+	@Test
+	public void testAnnotatedFields() {
+		List<OutlineFieldDescriptor> fields = OutlineUtil.getAnnotatedFields(RemoteAddCommand.class);
+		
+		// the same list is returned each time
+		Assert.assertSame(fields, OutlineUtil.getAnnotatedFields(RemoteAddCommand.class));
+		
+		// own fields, group options and global options
+		Assert.assertEquals(10, fields.size());
+		for(OutlineFieldDescriptor field : fields) {
+			Assert.assertTrue(field.option != null || field.argument != null || field.arguments != null || field.inject != null);
+		}
+		
+		Assert.assertTrue(OutlineUtil.getAnnotatedFields(Object.class).isEmpty());
+		
+		try {
+			fields.clear();
+			Assert.assertTrue(false);
+		} catch(UnsupportedOperationException e) {
+			Assert.assertTrue(true);
+		}
+	}
+
 }